@@ -15,6 +15,7 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
+import android.os.Build;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
@@ -34,14 +35,21 @@ import com.google.gson.JsonObject;
 import com.neovisionaries.ws.client.WebSocket;
 import com.neovisionaries.ws.client.WebSocketCloseCode;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import edu.illinois.cs.cs125.spring2020.mp.logic.AreaGame;
+import edu.illinois.cs.cs125.spring2020.mp.logic.CaptureOutbox;
+import edu.illinois.cs.cs125.spring2020.mp.logic.EventSequence;
 import edu.illinois.cs.cs125.spring2020.mp.logic.Game;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameMessage;
 import edu.illinois.cs.cs125.spring2020.mp.logic.GameStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.ReconnectPolicy;
 import edu.illinois.cs.cs125.spring2020.mp.logic.TargetGame;
 import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.UiThreadTimer;
 import edu.illinois.cs.cs125.spring2020.mp.logic.WebApi;
 
 /**
@@ -76,6 +84,18 @@ public final class GameActivity extends AppCompatActivity {
     /** The websocket used for gameplay events. */
     private WebSocket webSocket;
 
+    /** Which of the server's gameplay events have been applied, for resuming after a reconnect. */
+    private final EventSequence events = new EventSequence();
+
+    /** Whether the user owns the game being played. */
+    private boolean isOwner;
+
+    /** The user's captures the server hasn't confirmed yet, kept on disk. */
+    private CaptureOutbox outbox;
+
+    /** Decides when to reconnect after the connection is lost. */
+    private ReconnectPolicy reconnects;
+
     /** Whether permission has been granted to access the phone's exact location. */
     private boolean hasLocationPermission;
 
@@ -92,10 +112,17 @@ public final class GameActivity extends AppCompatActivity {
         // Load the UI from a layout resource
         setContentView(R.layout.activity_game);
         Log.v(TAG, "Created");
+        // Debug builds check the paths the server sends against the snake rule; Robolectric tests leave it off
+        TargetGame.setAuditLoadedPaths(BuildConfig.DEBUG && !"robolectric".equals(Build.FINGERPRINT));
 
         gameId = getIntent().getStringExtra("game");
+        outbox = new CaptureOutbox(new File(getFilesDir(), "outbox-" + gameId + ".log"));
+        reconnects = new ReconnectPolicy(this::connectWebSocket, new UiThreadTimer(), new Random());
         connectWebSocket();
-        findViewById(R.id.reconnectWebsocket).setOnClickListener(unused -> connectWebSocket());
+        findViewById(R.id.reconnectWebsocket).setOnClickListener(unused -> {
+            reconnects.reset();
+            connectWebSocket();
+        });
         findViewById(R.id.pauseUnpauseGame).setOnClickListener(unused -> toggleGameRunning());
         findViewById(R.id.endGame).setOnClickListener(unused -> endGame());
 
@@ -151,6 +178,11 @@ public final class GameActivity extends AppCompatActivity {
         stopLocationWatching();
         // Unregister this activity's location listener
         LocalBroadcastManager.getInstance(this).unregisterReceiver(locationUpdateReceiver);
+        if (game != null) {
+            game.getOutbound().flush();
+        }
+        outbox.close();
+        reconnects.stop();
         if (webSocket != null) {
             webSocket.disconnect(WebSocketCloseCode.AWAY);
         }
@@ -237,8 +269,8 @@ public final class GameActivity extends AppCompatActivity {
         locUpdate.addProperty("type", "locationUpdate");
         locUpdate.addProperty("latitude", location.getLatitude());
         locUpdate.addProperty("longitude", location.getLongitude());
-        // Once the object is ready, convert it to a JSON string and send it over the websocket
-        webSocket.sendText(locUpdate.toString());
+        // Once the object is ready, hand it to the game's outbound scheduler, which sends it with the game's messages
+        game.getOutbound().send(locUpdate);
 
         // Call the logic that updates gameplay based on the user's movements
         if (gameState == GameStateID.RUNNING) {
@@ -274,23 +306,58 @@ public final class GameActivity extends AppCompatActivity {
      * Called when a message is received from the server.
      * <p>
      * You should fill out this function to react to game data, gameplay events, and game state changes.
-     * @param message the parsed JSON from the server
+     * @param received the decoded message from the server
      */
-    private void receivedData(final JsonObject message) {
-        String type = message.get("type").getAsString();
-        switch (type) {
-            case "full":
+    private void receivedData(final GameMessage received) {
+        // A message means the connection works, which ends any reconnecting
+        reconnects.connected();
+        if (received.getType() == GameMessage.Type.FULL) {
+            events.reset(received.getSeq());
+        } else if (received.getType() == GameMessage.Type.RESUMED) {
+            // The events missed while disconnected have all been replayed, so the game is up to date again
+            if (isOwner) {
+                findViewById(R.id.gameOwnerControls).setVisibility(View.VISIBLE);
+            }
+            updateGameState(gameState);
+            return;
+        } else {
+            EventSequence.Verdict verdict = events.check(received.getSeq());
+            if (verdict == EventSequence.Verdict.GAP && game != null) {
+                // Some events never arrived, so have them sent again before applying any later ones
+                game.getOutbound().send(events.resumeRequest());
+            }
+            if (verdict != EventSequence.Verdict.APPLY) {
+                return;
+            }
+            if (CaptureOutbox.keyOf(received) != null) {
+                // Whoever captured it, the user's capture of the same thing has been decided and needn't be resent
+                outbox.acknowledge(received);
+            }
+        }
+        switch (received.getType()) {
+            case FULL:
                 // The full update contains the entire current state of the game
+                JsonObject message = received.getFullState();
                 String myEmail = FirebaseAuth.getInstance().getCurrentUser().getEmail();
-                if (message.get("owner").getAsString().equals(myEmail)) {
+                isOwner = message.get("owner").getAsString().equals(myEmail);
+                if (isOwner) {
                     findViewById(R.id.gameOwnerControls).setVisibility(View.VISIBLE);
                 }
 
                 // You need to fill this in to load the game progress into the game variable
                 // Initialize the game instance variable with an instance of the Game subclass appropriate for the mode
                 String mode = message.get("mode").getAsString();
+                if (game != null) {
+                    // The old game's socket is gone, so don't let it keep sending
+                    game.getOutbound().close();
+                }
                 if (mode.equals("target")) {
-                    game = new TargetGame(myEmail, map, webSocket, message, this);
+                    TargetGame targetGame = new TargetGame(myEmail, map, webSocket, message, this);
+                    if (!targetGame.getPathProblems().isEmpty()) {
+                        Toast.makeText(this, getString(R.string.paths_break_snake_rule,
+                                targetGame.getPathProblems().get(0)), Toast.LENGTH_LONG).show();
+                    }
+                    game = targetGame;
                 } else if (mode.equals("area")) {
                     game = new AreaGame(myEmail, map, webSocket, message, this);
                 }
@@ -302,16 +369,27 @@ public final class GameActivity extends AppCompatActivity {
                     }
                     // Update the game state label
                     updateGameState(message.get("state").getAsInt());
-                    // Update the scores label
+                    // Update the scores label, then again whenever a score changes
                     updateScores();
+                    game.getScoreBoard().setListener(unused -> updateScores());
+                    // Send any captures the server never confirmed, e.g. from before the app was closed
+                    game.getOutbound().setOutbox(outbox);
+                    outbox.acknowledgeAll(message);
+                    if (message.get("state").getAsInt() == GameStateID.ENDED) {
+                        outbox.discard();
+                    } else {
+                        resendCaptures();
+                    }
                 }
                 break;
-            case "gameState":
-                int newState = message.get("state").getAsInt();
+            case GAME_STATE:
+                int newState = received.getState();
                 if (newState != GameStateID.ENDED) {
                     // Since the game isn't over yet, update the scores label
                     updateGameState(newState);
                 } else if (newState == GameStateID.ENDED) {
+                    // Nothing can be captured any more, so unconfirmed captures are moot
+                    outbox.discard();
                     AlertDialog.Builder builder = new AlertDialog.Builder(this);
                     String[] teamNames = this.getResources().getStringArray(R.array.team_choices);
                     builder.setMessage(teamNames[game.getWinningTeam()] + " wins");
@@ -322,9 +400,8 @@ public final class GameActivity extends AppCompatActivity {
                 break;
             default:
                 // Fill this in to forward the event to the Game instance
-                game.handleMessage(message);
-                // Then refresh the scores label in case someone captured an objective
-                updateScores();
+                // The scores label refreshes itself through the scoreboard if someone captured an objective
+                game.handleMessage(received);
         }
     }
 
@@ -338,13 +415,58 @@ public final class GameActivity extends AppCompatActivity {
         gameStateLabel.setText(R.string.connecting);
         webSocket = null;
         WebApi.connectWebSocket(WebApi.WEBSOCKET_BASE + "/games/" + gameId + "/play",
-            data -> runOnUiThread(() -> receivedData(data)), ws -> webSocket = ws,
-            () -> runOnUiThread(this::connectWebSocket), error -> runOnUiThread(() -> {
-                findViewById(R.id.reconnectWebsocket).setVisibility(View.VISIBLE);
+            (GameMessage.Listener) data -> runOnUiThread(() -> receivedData(data)), this::useWebSocket,
+            () -> runOnUiThread(this::connectionLost), error -> runOnUiThread(() -> {
                 gameStateLabel.setText(R.string.connection_lost);
+                if (!reconnects.attemptFailed()) {
+                    // Leave any further attempts to the user
+                    findViewById(R.id.reconnectWebsocket).setVisibility(View.VISIBLE);
+                }
             }));
     }
 
+    /**
+     * Called when an open connection is lost. Reconnecting waits for a backoff delay (see ReconnectPolicy).
+     */
+    private void connectionLost() {
+        webSocket = null;
+        findViewById(R.id.gameOwnerControls).setVisibility(View.GONE);
+        TextView gameStateLabel = findViewById(R.id.gameState);
+        gameStateLabel.setText(R.string.connection_lost);
+        if (!reconnects.connectionLost()) {
+            findViewById(R.id.reconnectWebsocket).setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Starts using a newly created websocket.
+     * <p>
+     * If a game is already loaded, it is kept, and the server is asked for just the events missed while
+     * disconnected (see EventSequence). A server that can't resume sends a full update instead, which replaces it.
+     * @param newSocket the websocket, which may still be connecting
+     */
+    private void useWebSocket(final WebSocket newSocket) {
+        webSocket = newSocket;
+        if (game == null) {
+            return;
+        }
+        game.getOutbound().setSocket(newSocket);
+        if (events.canResume()) {
+            game.getOutbound().send(events.resumeRequest());
+            // Otherwise the server's full update will bring a new game, which resends them
+            resendCaptures();
+        }
+    }
+
+    /**
+     * Sends again, in order, the user's captures the server hasn't confirmed. The server recognizes repeats.
+     */
+    private void resendCaptures() {
+        for (JsonObject capture : outbox.getPending()) {
+            game.getOutbound().send(capture);
+        }
+    }
+
     /**
      * Updates UI and listeners according to the state of the ongoing game.
      * @param newState the game's current state (PAUSED or RUNNING)
@@ -2,37 +2,17 @@ package edu.illinois.cs.cs125.spring2020.mp.logic;
 
 
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.PolylineOptions;
 import com.google.android.gms.maps.GoogleMap;
 
-
-import static edu.illinois.cs.cs125.spring2020.mp.logic.LatLngUtils.distance;
-
 /**
  * Constructor of AreaDivider.
  */
 public class AreaDivider {
     /**
-     * latitude of the north boundary.
-     */
-    private double north;
-    /**
-     * latitude of the south boundary.
-     */
-    private double south;
-    /**
-     * longitude of the east boundary.
-     */
-    private double east;
-    /**
-     * longitude of the west boundary.
-     */
-    private double west;
-    /**
-     * the requested side length of each cell, in meters.
+     * the shape of the grid, shared with anything else that works with this area.
      */
-    private int size;
+    private final GridGeometry geometry;
 
 
     /**
@@ -48,11 +28,23 @@ public class AreaDivider {
      */
     public AreaDivider(final double setNorth, final double setEast, final double setSouth,
                        final double setWest, final int setCellSize) {
-        north = setNorth;
-        south = setSouth;
-        east = setEast;
-        west = setWest;
-        size = setCellSize;
+        this(new GridGeometry(setNorth, setEast, setSouth, setWest, setCellSize));
+    }
+
+    /**
+     * Creates an AreaDivider for an area whose grid has already been computed.
+     * @param setGeometry the grid to divide the area into
+     */
+    public AreaDivider(final GridGeometry setGeometry) {
+        geometry = setGeometry;
+    }
+
+    /**
+     * Gets the precomputed grid this AreaDivider works with.
+     * @return the grid geometry
+     */
+    public GridGeometry getGeometry() {
+        return geometry;
     }
 
     /**
@@ -74,17 +66,10 @@ public class AreaDivider {
      * @param x the cell's X coordinate
      * @param y the cell's Y coordinate
      * @return the boundaries of the cell
+     * @throws IndexOutOfBoundsException if the cell isn't in the grid
      */
     public com.google.android.gms.maps.model.LatLngBounds getCellBounds(final int x, final int y) {
-        double lng = (east - west) / getXCells();
-        double xLng = west + lng * x;
-        double lat = (north - south) / getYCells();
-        double yLat = south + lat * y;
-        double xLngOne = west + lng * (x + 1);
-        double yLatOne = south + lat * (y + 1);
-        LatLng southwest = new LatLng(yLat, xLng);
-        LatLng northeast = new LatLng(yLatOne, xLngOne);
-        return new LatLngBounds(southwest, northeast);
+        return geometry.getCellBounds(x, y);
     }
 
     /**
@@ -92,16 +77,7 @@ public class AreaDivider {
      * @return the number of cells in the X direction
      */
     public int getXCells() {
-        int xCells;
-        double lngDist = distance(south, east, south, west);
-        if (lngDist == 0) {
-            xCells = 0;
-        } else if (lngDist < size) {
-            xCells = 1;
-        } else {
-            xCells = (int) Math.ceil(lngDist / size);
-        }
-        return xCells;
+        return geometry.getXCells();
     }
 
     /**
@@ -109,16 +85,7 @@ public class AreaDivider {
      * @return the number of cells in the Y direction
      */
     public int getYCells() {
-        int yCells;
-        double latDist = distance(north, west, south, west);
-        if (latDist == 0) {
-            yCells = 0;
-        } else if (latDist < size) {
-            yCells = 1;
-        } else {
-            yCells = (int) Math.ceil(latDist / size);
-        }
-        return yCells;
+        return geometry.getYCells();
     }
 
     /**
@@ -130,15 +97,18 @@ public class AreaDivider {
      * @return the X coordinate of the cell containing the lat-long point
      */
     public int getXIndex(final LatLng location) {
-        int xIndex = 0;
-        double length = (east - west) / this.getXCells();
-        for (double i = west; i < east; i += length) {
-            if (location.longitude > i && location.longitude < i + length) {
-                return xIndex;
-            }
-            xIndex++;
-        }
-        return xIndex;
+        return getXIndex(location.longitude);
+    }
+
+    /**
+     * Gets the X coordinate of the cell containing the specified longitude.
+     * Points on the line between two cells belong to the eastern one; points on the east boundary
+     * belong to the easternmost column. Longitudes outside the area produce -1.
+     * @param longitude the longitude
+     * @return the X coordinate of the cell containing the longitude, or -1 if it is outside the area
+     */
+    public int getXIndex(final double longitude) {
+        return geometry.getXIndex(longitude);
     }
 
     /**
@@ -150,15 +120,49 @@ public class AreaDivider {
      * @return the Y coordinate of the cell containing the lat-long point
      */
     public int getYIndex(final LatLng location) {
-        int yIndex = 0;
-        double length = (north - south) / this.getYCells();
-        for (double i = south; i < north; i += length) {
-            if (location.latitude > i && location.latitude < i + length) {
-                return yIndex;
+        return getYIndex(location.latitude);
+    }
+
+    /**
+     * Gets the Y coordinate of the cell containing the specified latitude.
+     * Points on the line between two cells belong to the northern one; points on the north boundary
+     * belong to the northernmost row. Latitudes outside the area produce -1.
+     * @param latitude the latitude
+     * @return the Y coordinate of the cell containing the latitude, or -1 if it is outside the area
+     */
+    public int getYIndex(final double latitude) {
+        return geometry.getYIndex(latitude);
+    }
+
+    /**
+     * Gets the packed index of the cell containing the specified location.
+     * A packed index combines both coordinates of a cell into one number: x + y * getXCells().
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @return the packed index of the cell containing the point, or -1 if it is outside the area
+     */
+    public int getCellIndex(final double latitude, final double longitude) {
+        return geometry.getCellIndex(latitude, longitude);
+    }
+
+    /**
+     * Finds the packed indexes of the cells containing many points at once.
+     * This is meant for replaying long walks, so it does not allocate anything.
+     * @param latitudes the latitudes of the points
+     * @param longitudes the longitudes of the points (same order as latitudes)
+     * @param indexes receives the packed index (see getCellIndex) of each point, or -1 for points outside
+     *                the area; must be at least as long as latitudes
+     * @return how many of the points are inside the area
+     */
+    public int getCellIndexes(final double[] latitudes, final double[] longitudes, final int[] indexes) {
+        int inside = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            indexes[i] = geometry.getCellIndex(latitudes[i], longitudes[i]);
+            if (indexes[i] >= 0) {
+                inside++;
             }
-            yIndex++;
         }
-        return yIndex;
+        return inside;
     }
 
     /**
@@ -171,7 +175,7 @@ public class AreaDivider {
      * @return whether this AreaDivider can divide a valid area
      */
     public boolean isValid() {
-        return north > south && east > west && size > 0;
+        return geometry.isValid();
     }
 
     /**
@@ -191,18 +195,19 @@ public class AreaDivider {
      * @param map the Google map to draw on
      */
     public void renderGrid(final com.google.android.gms.maps.GoogleMap map) {
-        double xCellLength = (east - west) / getXCells();
-        double yCellLength = (north - south) / getYCells();
-
-        for (int i = 0; i <= getXCells(); i++) {
-            LatLng first = new LatLng(south, west + i * xCellLength);
-            LatLng second = new LatLng(north, west + i * xCellLength);
+        double north = geometry.getNorth();
+        double east = geometry.getEast();
+        double south = geometry.getSouth();
+        double west = geometry.getWest();
+        for (int i = 0; i <= geometry.getXCells(); i++) {
+            LatLng first = new LatLng(south, geometry.getColumnEdge(i));
+            LatLng second = new LatLng(north, geometry.getColumnEdge(i));
             addLine(first, second, map);
         }
 
-        for (int i = 0; i <= getYCells(); i++) {
-            LatLng first = new LatLng(south + i * yCellLength, west);
-            LatLng second = new LatLng(south + i * yCellLength, east);
+        for (int i = 0; i <= geometry.getYCells(); i++) {
+            LatLng first = new LatLng(geometry.getRowEdge(i), west);
+            LatLng second = new LatLng(geometry.getRowEdge(i), east);
             addLine(first, second, map);
         }
     }
@@ -5,6 +5,8 @@ import android.content.Context;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.PolygonOptions;
+import com.google.android.gms.maps.model.TileOverlay;
+import com.google.android.gms.maps.model.TileOverlayOptions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -21,22 +23,16 @@ import edu.illinois.cs.cs125.spring2020.mp.R;
  */
 public final class AreaGame extends Game {
 
-    // You will probably want some instance variables to keep track of the game state
-    // (similar to the area mode gameplay logic you previously wrote in GameActivity)
-    /** The northern bound. */
-    private Double areaNorth;
-
-    /** The eastern bound. */
-    private Double areaEast;
+    /** Grids with more cells than this are drawn as map tiles rather than one polygon per captured cell. */
+    private static final long TILE_RENDERING_CELLS = 10000;
 
-    /** The southern bound. */
-    private Double areaSouth;
+    /** Grids with more cells than this only store the cells that have been captured. */
+    private static final long SPARSE_STORE_CELLS = 4000000;
 
-    /** The western bound. */
-    private Double areaWest;
-
-    /** The side length of each cell. */
-    private int cellSize;
+    // You will probably want some instance variables to keep track of the game state
+    // (similar to the area mode gameplay logic you previously wrote in GameActivity)
+    /** The shape of the grid, computed once for the whole game. */
+    private GridGeometry geometry;
 
     /** An instance of AreaDivider. */
     private AreaDivider manager;
@@ -47,11 +43,8 @@ public final class AreaGame extends Game {
     /** The team's color. */
     private int[] colors = getContext().getResources().getIntArray(R.array.team_colors);
 
-    /** For tracking which cells have been visited. */
-    private boolean[][] allPlayerVisited;
-
-    /** For tracking which cells have been visited by this player. */
-    private boolean[][] thisPlayerVisited;
+    /** Which team owns each cell, which cells this player captured, and each team's cell count. */
+    private CaptureStore captures;
 
     /** The x index of the last cell visited by this player. */
     private int lastVisitedXIndex;
@@ -59,8 +52,14 @@ public final class AreaGame extends Game {
     /** The y index of the last cell visited by this player. */
     private int lastVisitedYIndex;
 
-    /** Score of each team. */
-    private int[] score = new int[TeamID.MAX_TEAM];
+    /** Ownership aggregated over blocks of cells for zoomed-out tiles, or null if captures are drawn as polygons. */
+    private QuadtreeDivider quadtree;
+
+    /** Draws the grid and captures into map tiles, or null if captures are drawn as polygons. */
+    private AreaTileRenderer tileRenderer;
+
+    /** The map layer showing the tiles, or null if captures are drawn as polygons. */
+    private TileOverlay tileOverlay;
 
     /**
      * Creates a game in area mode.
@@ -76,23 +75,21 @@ public final class AreaGame extends Game {
     public AreaGame(final String email, final GoogleMap map, final WebSocket webSocket,
                     final JsonObject fullState, final Context context) {
         super(email, map, webSocket, fullState, context);
-        areaNorth = fullState.get("areaNorth").getAsDouble();
-        areaEast = fullState.get("areaEast").getAsDouble();
-        areaSouth = fullState.get("areaSouth").getAsDouble();
-        areaWest = fullState.get("areaWest").getAsDouble();
-        cellSize = fullState.get("cellSize").getAsInt();
-        manager = new AreaDivider(areaNorth, areaEast, areaSouth, areaWest, cellSize);
-
-        manager.renderGrid(map);
-        allPlayerVisited = new boolean[manager.getXCells()][manager.getYCells()];
-        thisPlayerVisited = new boolean[manager.getXCells()][manager.getYCells()];
-
-        // Initializing the tracking arrays.
-        for (int i = 0; i < allPlayerVisited.length; i++) {
-            for (int j = 0; j < allPlayerVisited[i].length; j++) {
-                allPlayerVisited[i][j] = false;
-                thisPlayerVisited[i][j] = false;
-            }
+        geometry = new GridGeometry(fullState.get("areaNorth").getAsDouble(), fullState.get("areaEast").getAsDouble(),
+                fullState.get("areaSouth").getAsDouble(), fullState.get("areaWest").getAsDouble(),
+                fullState.get("cellSize").getAsInt());
+        manager = new AreaDivider(geometry);
+
+        if (geometry.getCellCount() > SPARSE_STORE_CELLS) {
+            captures = new SparseCaptureStore(geometry.getXCells());
+        } else {
+            captures = new PackedCaptureStore(geometry.getXCells(), geometry.getYCells());
+        }
+        if (geometry.getCellCount() > TILE_RENDERING_CELLS) {
+            quadtree = new QuadtreeDivider(geometry, captures);
+            tileRenderer = new AreaTileRenderer(quadtree, colors);
+        } else {
+            manager.renderGrid(map);
         }
 
         JsonArray players = fullState.get("players").getAsJsonArray();
@@ -109,10 +106,7 @@ public final class AreaGame extends Game {
                     int y = aAsJO.get("y").getAsInt();
                     lastVisitedXIndex = x;
                     lastVisitedYIndex = y;
-                    thisPlayerVisited[x][y] = true;
-                    allPlayerVisited[x][y] = true;
-                    addNewPolygon(x, y, team, map);
-                    score[team - 1]++;
+                    recordCapture(x, y, team, true);
                 }
             } else {
                 // Track the cells visited by other players.
@@ -122,12 +116,13 @@ public final class AreaGame extends Game {
                     JsonObject aAsJO = (JsonObject) a;
                     int x = aAsJO.get("x").getAsInt();
                     int y = aAsJO.get("y").getAsInt();
-                    allPlayerVisited[x][y] = true;
-                    addNewPolygon(x, y, team, map);
-                    score[team - 1]++;
+                    recordCapture(x, y, team, false);
                 }
             }
         }
+        if (tileRenderer != null) {
+            tileOverlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(tileRenderer));
+        }
     }
 
 
@@ -144,20 +139,15 @@ public final class AreaGame extends Game {
     public void locationUpdated(final LatLng location) {
         super.locationUpdated(location);
 
-        Double latitude = location.latitude;
-        Double longitude = location.longitude;
-        int xIndex = manager.getXIndex(location);
-        int yIndex = manager.getYIndex(location);
+        int xIndex = geometry.getXIndex(location.longitude);
+        int yIndex = geometry.getYIndex(location.latitude);
 
-        if (latitude <= areaNorth && latitude >= areaSouth && longitude >= areaWest && longitude <= areaEast) {
+        if (xIndex >= 0 && yIndex >= 0) {
             // Check if the cell has been visited.
-            if (!allPlayerVisited[xIndex][yIndex]) {
+            if (!captures.isCaptured(xIndex, yIndex)) {
                 // Check if it is the first cell for this player to be visit.
-                if (checkFirst()) {
-                    addNewPolygon(xIndex, yIndex, getMyTeam(), getMap());
-                    score[getMyTeam() - 1]++;
-                    thisPlayerVisited[xIndex][yIndex] = true;
-                    allPlayerVisited[xIndex][yIndex] = true;
+                if (!captures.hasMine()) {
+                    recordCapture(xIndex, yIndex, getMyTeam(), true);
                     lastVisitedXIndex = xIndex;
                     lastVisitedYIndex = yIndex;
                     // Send update to the server
@@ -167,10 +157,7 @@ public final class AreaGame extends Game {
                     message.addProperty("y", yIndex);
                     sendMessage(message);
                 } else if ((checkNeighbor(xIndex, yIndex))) {
-                    addNewPolygon(xIndex, yIndex, getMyTeam(), getMap());
-                    score[getMyTeam() - 1]++;
-                    thisPlayerVisited[xIndex][yIndex] = true;
-                    allPlayerVisited[xIndex][yIndex] = true;
+                    recordCapture(xIndex, yIndex, getMyTeam(), true);
                     lastVisitedXIndex = xIndex;
                     lastVisitedYIndex = yIndex;
                     JsonObject message = new JsonObject();
@@ -193,12 +180,10 @@ public final class AreaGame extends Game {
      */
     public void addNewPolygon(final int xIndex, final int yIndex, final int team, final GoogleMap map) {
 
-        double xLength = (areaEast - areaWest) / manager.getXCells();
-        double yLength = (areaNorth - areaSouth) / manager.getYCells();
-        double cellWest = areaWest + xLength * xIndex;
-        double cellEast = areaWest + xLength * (xIndex + 1);
-        double cellSouth = areaSouth + yLength * yIndex;
-        double cellNorth = areaSouth + yLength * (yIndex + 1);
+        double cellWest = geometry.getColumnEdge(xIndex);
+        double cellEast = geometry.getColumnEdge(xIndex + 1);
+        double cellSouth = geometry.getRowEdge(yIndex);
+        double cellNorth = geometry.getRowEdge(yIndex + 1);
 
         PolygonOptions fill = new PolygonOptions().add(new LatLng(cellSouth, cellWest),
                 new LatLng(cellNorth, cellWest),
@@ -209,18 +194,25 @@ public final class AreaGame extends Game {
     }
 
     /**
-     * Check if a cell is the first to visit.
-     * @return Whether a cell is the first to visit.
+     * Records a capture and shows it on the map, either as a polygon or by redrawing the affected tiles.
+     * @param xIndex The x index of the cell.
+     * @param yIndex The y index of the cell.
+     * @param team The team capturing the cell.
+     * @param byThisPlayer Whether this player made the capture.
      */
-    private boolean checkFirst() {
-        for (boolean[] b : thisPlayerVisited) {
-            for (boolean c : b) {
-                if (c) {
-                    return false;
-                }
-            }
+    private void recordCapture(final int xIndex, final int yIndex, final int team, final boolean byThisPlayer) {
+        int oldTeam = captures.getOwner(xIndex, yIndex);
+        captures.capture(xIndex, yIndex, team, byThisPlayer);
+        getScoreBoard().changeOwner(oldTeam, team);
+        if (tileRenderer == null) {
+            addNewPolygon(xIndex, yIndex, team, getMap());
+            return;
+        }
+        quadtree.capture(xIndex, yIndex, oldTeam, team);
+        tileRenderer.invalidateCell(xIndex, yIndex);
+        if (tileOverlay != null) {
+            tileOverlay.clearTileCache();
         }
-        return true;
     }
 
     /**
@@ -252,23 +244,20 @@ public final class AreaGame extends Game {
      * by placing a polygon of the capturing player's team color on the newly captured cell and
      * recording the cell's new owning team.
      * All other message types are delegated to the superclass.
-     * @param message JSON from the server (the "type" property indicates the update type)
+     * @param message the decoded message from the server
      * @return whether the message type was recognized
      */
     @Override
-    public boolean handleMessage(final JsonObject message) {
-        if (message.get("type").getAsString().equals("playerCellCapture")) {
-            int team = message.get("team").getAsInt();
-            int x = message.get("x").getAsInt();
-            int y = message.get("y").getAsInt();
-
-            if (message.get("email").getAsString().equals(getEmail())) {
-                if (!allPlayerVisited[x][y]) {
-                    if (checkFirst()) {
-                        addNewPolygon(x, y, getMyTeam(), getMap());
-                        score[getMyTeam() - 1]++;
-                        thisPlayerVisited[x][y] = true;
-                        allPlayerVisited[x][y] = true;
+    public boolean handleMessage(final GameMessage message) {
+        if (message.getType() == GameMessage.Type.PLAYER_CELL_CAPTURE) {
+            int team = message.getTeam();
+            int x = message.getX();
+            int y = message.getY();
+
+            if (message.getEmail().equals(getEmail())) {
+                if (!captures.isCaptured(x, y)) {
+                    if (!captures.hasMine()) {
+                        recordCapture(x, y, getMyTeam(), true);
                         lastVisitedXIndex = x;
                         lastVisitedYIndex = y;
                         // Send update to the server
@@ -278,10 +267,7 @@ public final class AreaGame extends Game {
                         newMessage.addProperty("y", y);
                         sendMessage(newMessage);
                     } else if ((checkNeighbor(x, y))) {
-                        addNewPolygon(x, y, getMyTeam(), getMap());
-                        score[getMyTeam() - 1]++;
-                        thisPlayerVisited[x][y] = true;
-                        allPlayerVisited[x][y] = true;
+                        recordCapture(x, y, getMyTeam(), true);
                         lastVisitedXIndex = x;
                         lastVisitedYIndex = y;
                         JsonObject newMessage = new JsonObject();
@@ -292,10 +278,8 @@ public final class AreaGame extends Game {
                     }
                 }
             } else {
-                if (!allPlayerVisited[x][y]) {
-                    addNewPolygon(x, y, team, getMap());
-                    score[team - 1]++;
-                    allPlayerVisited[x][y] = true;
+                if (!captures.isCaptured(x, y)) {
+                    recordCapture(x, y, team, false);
                 }
             }
             return true;
@@ -303,33 +287,4 @@ public final class AreaGame extends Game {
             return super.handleMessage(message);
         }
     }
-
-    /**
-     * Gets a team's score in this area mode game.
-     * @param teamId the team ID
-     * @return the number of cells owned by the team
-     */
-    @Override
-    public int getTeamScore(final int teamId) {
-        return score[teamId - 1];
-    }
-
-    /**
-     * For getWinningTeam function in Game class.
-     * @return The winning team.
-     */
-    public int gWT() {
-        int result = score[0];
-        for (int i = 0; i < score.length; i++) {
-            if (score[i] > result) {
-                result = score[i];
-            }
-        }
-        for (int i = 0; i < score.length; i++) {
-            if (score[i] == result) {
-                return i + 1;
-            }
-        }
-        return 0;
-    }
 }
@@ -0,0 +1,348 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws an area mode grid and its captured cells into map tiles.
+ * <p>
+ * Large grids would need thousands of Polyline and Polygon objects, all managed on the UI thread.
+ * This renderer instead paints the grid lines and team colors directly into tile images, which
+ * Google Maps requests from a background thread through a TileOverlay. Rendered tiles are kept in
+ * a small least-recently-used cache; a capture only evicts the tiles that overlap the captured cell.
+ * A tile whose rendering overlapped an invalidation isn't cached, since it may show the cell's old owner.
+ * <p>
+ * Rendering never touches the map, so tiles can be drawn to bitmaps (or raw pixels) headlessly.
+ */
+public final class AreaTileRenderer implements TileProvider {
+
+    /** Width and height of each tile, in pixels. */
+    public static final int TILE_SIZE = 256;
+
+    /** How many rendered tiles to keep. */
+    private static final int CACHE_CAPACITY = 96;
+
+    /** Load factor of the tile cache's hash table. */
+    private static final float CACHE_LOAD_FACTOR = 0.75f;
+
+    /** Cells narrower than this many pixels don't get grid lines, which would just paint the area black. */
+    private static final int MIN_LINE_SPACING = 4;
+
+    /** Bit position of the zoom level in a cache key. */
+    private static final int KEY_ZOOM_SHIFT = 58;
+
+    /** Bit position of the tile X coordinate in a cache key. */
+    private static final int KEY_X_SHIFT = 29;
+
+    /** Mask for one tile coordinate in a cache key. */
+    private static final long KEY_COORDINATE_MASK = (1L << KEY_X_SHIFT) - 1;
+
+    /** Quality argument for PNG compression (ignored by the lossless encoder, but required). */
+    private static final int PNG_QUALITY = 100;
+
+    /** Degrees in a full circle of longitude. */
+    private static final double FULL_CIRCLE = 360.0;
+
+    /** Degrees in half a circle of longitude. */
+    private static final double HALF_CIRCLE = 180.0;
+
+    /** Offset from a pixel's corner to its center. */
+    private static final double PIXEL_CENTER = 0.5;
+
+    /** The grid being drawn. */
+    private final GridGeometry geometry;
+
+    /** Where to look up which team owns each cell. */
+    private final CellOwnership owners;
+
+    /** Ownership aggregated over blocks of cells, for zoom levels where cells are smaller than a pixel; or null. */
+    private final QuadtreeDivider quadtree;
+
+    /** ARGB color of each team, indexed by TeamID. */
+    private final int[] teamColors;
+
+    /** Recently rendered tiles, least recently used first. */
+    private final Map<Long, Tile> cache = new LinkedHashMap<Long, Tile>(CACHE_CAPACITY, CACHE_LOAD_FACTOR, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, Tile> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    /** How many times invalidateCell has been called, so a render that overlapped one can tell. */
+    private long invalidations;
+
+    /** How many tile requests were answered from the cache. */
+    private int cacheHits;
+
+    /** How many tiles had to be rendered. */
+    private int renders;
+
+    /**
+     * Creates a renderer for a grid.
+     * @param setGeometry the grid to draw
+     * @param setOwners where to look up the owner of each cell (read from the tile thread)
+     * @param setTeamColors the color of each team, indexed by TeamID (the team_colors resource)
+     */
+    public AreaTileRenderer(final GridGeometry setGeometry, final CellOwnership setOwners, final int[] setTeamColors) {
+        geometry = setGeometry;
+        owners = setOwners;
+        quadtree = null;
+        teamColors = setTeamColors;
+    }
+
+    /**
+     * Creates a renderer that draws zoomed-out tiles from a quadtree.
+     * <p>
+     * When a pixel covers many cells, it is colored by the team owning most of the quadtree node under it,
+     * so captures stay visible at any zoom level instead of depending on which cell the pixel happens to hit.
+     * @param setQuadtree the quadtree over the grid to draw, which also provides the owner of each cell
+     * @param setTeamColors the color of each team, indexed by TeamID (the team_colors resource)
+     */
+    public AreaTileRenderer(final QuadtreeDivider setQuadtree, final int[] setTeamColors) {
+        geometry = setQuadtree.getGeometry();
+        owners = setQuadtree;
+        quadtree = setQuadtree;
+        teamColors = setTeamColors;
+    }
+
+    /**
+     * Called by Google Maps (on a background thread) to get a tile image.
+     * @param x the tile's X coordinate
+     * @param y the tile's Y coordinate
+     * @param zoom the zoom level
+     * @return the tile, or NO_TILE if the tile doesn't overlap the area
+     */
+    @Override
+    public Tile getTile(final int x, final int y, final int zoom) {
+        Long key = tileKey(x, y, zoom);
+        long renderedAfter;
+        synchronized (cache) {
+            Tile cached = cache.get(key);
+            if (cached != null) {
+                cacheHits++;
+                return cached;
+            }
+            renders++;
+            renderedAfter = invalidations;
+        }
+        Tile tile;
+        Bitmap bitmap = renderBitmap(x, y, zoom);
+        if (bitmap == null) {
+            tile = NO_TILE;
+        } else {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.PNG, PNG_QUALITY, png);
+            bitmap.recycle();
+            tile = new Tile(TILE_SIZE, TILE_SIZE, png.toByteArray());
+        }
+        synchronized (cache) {
+            if (invalidations == renderedAfter) {
+                cache.put(key, tile);
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Draws a tile to a bitmap.
+     * @param x the tile's X coordinate
+     * @param y the tile's Y coordinate
+     * @param zoom the zoom level
+     * @return the tile image, or null if the tile doesn't overlap the area
+     */
+    public Bitmap renderBitmap(final int x, final int y, final int zoom) {
+        int[] pixels = renderPixels(x, y, zoom);
+        if (pixels == null) {
+            return null;
+        }
+        return Bitmap.createBitmap(pixels, TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Draws a tile to an array of pixels.
+     * <p>
+     * Each pixel takes the color of the cell under its center, so the cost depends only on the tile size,
+     * not on how many cells the tile covers.
+     * @param x the tile's X coordinate
+     * @param y the tile's Y coordinate
+     * @param zoom the zoom level
+     * @return ARGB pixels in row-major order from the northwest corner, or null if the tile doesn't overlap the area
+     */
+    public int[] renderPixels(final int x, final int y, final int zoom) {
+        double tiles = 1L << zoom;
+        // Cell coordinates under each pixel, with one extra pixel on both sides to find lines at the tile's edges
+        int[] columns = new int[TILE_SIZE + 2];
+        int[] rows = new int[TILE_SIZE + 2];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = geometry.getXIndex(tileLongitude(x + (i - 1 + PIXEL_CENTER) / TILE_SIZE, tiles));
+            rows[i] = geometry.getYIndex(tileLatitude(y + (i - 1 + PIXEL_CENTER) / TILE_SIZE, tiles));
+        }
+        boolean anyColumn = false;
+        boolean anyRow = false;
+        for (int i = 1; i <= TILE_SIZE; i++) {
+            anyColumn = anyColumn || columns[i] >= 0;
+            anyRow = anyRow || rows[i] >= 0;
+        }
+        if (!anyColumn || !anyRow) {
+            return null;
+        }
+
+        boolean drawLines = cellPixels(zoom) >= MIN_LINE_SPACING;
+        int level = aggregationLevel(zoom);
+
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+        for (int row = 1; row <= TILE_SIZE; row++) {
+            int cellY = rows[row];
+            if (cellY < 0) {
+                continue;
+            }
+            boolean horizontalLine = rows[row - 1] != cellY || rows[row + 1] < 0;
+            int offset = (row - 1) * TILE_SIZE;
+            for (int column = 1; column <= TILE_SIZE; column++) {
+                int cellX = columns[column];
+                if (cellX < 0) {
+                    continue;
+                }
+                if (drawLines && (horizontalLine || columns[column - 1] != cellX || columns[column + 1] < 0)) {
+                    pixels[offset + column - 1] = Color.BLACK;
+                } else {
+                    int owner;
+                    if (level == 0) {
+                        owner = owners.getOwner(cellX, cellY);
+                    } else {
+                        owner = quadtree.getDominantTeam(level, cellX >> level, cellY >> level);
+                    }
+                    if (owner != TeamID.OBSERVER) {
+                        pixels[offset + column - 1] = teamColors[owner];
+                    }
+                }
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Gets the smaller side of a cell on screen.
+     * @param zoom the zoom level
+     * @return the cell's width or height in pixels, whichever is smaller
+     */
+    private double cellPixels(final int zoom) {
+        double pixelsPerDegree = (1L << zoom) * TILE_SIZE / FULL_CIRCLE;
+        double latitudeStretch = 1 / Math.cos(Math.toRadians((geometry.getNorth() + geometry.getSouth()) / 2));
+        return Math.min(geometry.getCellWidth() * pixelsPerDegree,
+                geometry.getCellHeight() * pixelsPerDegree * latitudeStretch);
+    }
+
+    /**
+     * Determines which quadtree level to color pixels from: the lowest level whose nodes are at least a pixel wide.
+     * @param zoom the zoom level
+     * @return the quadtree level, or 0 to color pixels by individual cells
+     */
+    private int aggregationLevel(final int zoom) {
+        if (quadtree == null) {
+            return 0;
+        }
+        double nodePixels = cellPixels(zoom);
+        int level = 0;
+        while (nodePixels < 1 && level < quadtree.getDepth()) {
+            nodePixels *= 2;
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Discards cached tiles that show a cell, so they will be redrawn with its new owner.
+     * <p>
+     * Google Maps keeps its own copy of the tiles it has shown, so the TileOverlay's clearTileCache
+     * must also be called afterwards. Tiles not touching the cell are then served from this cache.
+     * Zoomed-out tiles drawn from the quadtree are discarded if they touch the node containing the cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     */
+    public void invalidateCell(final int x, final int y) {
+        synchronized (cache) {
+            invalidations++;
+            Iterator<Long> keys = cache.keySet().iterator();
+            while (keys.hasNext()) {
+                long key = keys.next();
+                int zoom = (int) (key >>> KEY_ZOOM_SHIFT);
+                int tileX = (int) ((key >>> KEY_X_SHIFT) & KEY_COORDINATE_MASK);
+                int tileY = (int) (key & KEY_COORDINATE_MASK);
+                int level = aggregationLevel(zoom);
+                int west = x >> level << level;
+                int south = y >> level << level;
+                double cellWest = geometry.getColumnEdge(west);
+                double cellEast = geometry.getColumnEdge(Math.min(west + (1 << level), geometry.getXCells()));
+                double cellSouth = geometry.getRowEdge(south);
+                double cellNorth = geometry.getRowEdge(Math.min(south + (1 << level), geometry.getYCells()));
+                double tiles = 1L << zoom;
+                if (tileLongitude(tileX, tiles) <= cellEast && tileLongitude(tileX + 1, tiles) >= cellWest
+                        && tileLatitude(tileY + 1, tiles) <= cellNorth && tileLatitude(tileY, tiles) >= cellSouth) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets how many tile requests were answered without rendering.
+     * @return the number of cache hits
+     */
+    public int getCacheHits() {
+        synchronized (cache) {
+            return cacheHits;
+        }
+    }
+
+    /**
+     * Gets how many tiles have been rendered.
+     * @return the number of cache misses
+     */
+    public int getRenders() {
+        synchronized (cache) {
+            return renders;
+        }
+    }
+
+    /**
+     * Packs a tile's coordinates into a cache key.
+     * @param x the tile's X coordinate
+     * @param y the tile's Y coordinate
+     * @param zoom the zoom level
+     * @return the key
+     */
+    private static long tileKey(final int x, final int y, final int zoom) {
+        return ((long) zoom << KEY_ZOOM_SHIFT) | ((long) x << KEY_X_SHIFT) | y;
+    }
+
+    /**
+     * Converts a horizontal position in tile units to a longitude.
+     * @param position the position, where each whole number is the west edge of a tile
+     * @param tiles how many tiles span the world at this zoom level
+     * @return the longitude
+     */
+    private static double tileLongitude(final double position, final double tiles) {
+        return position / tiles * FULL_CIRCLE - HALF_CIRCLE;
+    }
+
+    /**
+     * Converts a vertical position in tile units to a latitude (inverse Web Mercator).
+     * @param position the position, where each whole number is the north edge of a tile
+     * @param tiles how many tiles span the world at this zoom level
+     * @return the latitude
+     */
+    private static double tileLatitude(final double position, final double tiles) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * position / tiles))));
+    }
+
+}
@@ -0,0 +1,451 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the player's captures on disk until the server confirms them, so captures made while the connection is
+ * down survive until it comes back, even if the app doesn't.
+ * <p>
+ * The file is an append-only log with one JSON object per line: each capture message as sent, or {"ack": key} once
+ * the capture is settled. A capture is settled as soon as anyone is known to own what it captured: the server
+ * reporting a capture of it by any player (the player's own echo, or someone who got there first, in which case the
+ * server rejected ours), or a full update listing it as owned. The server doesn't promise an echo, and a rejected
+ * capture would otherwise be resent forever, so every full update settles whatever it already shows taken. A
+ * capture's key names what was captured ("cell:x,y" or "target:id"); a player can only capture each cell or target
+ * once, so the key also makes replays idempotent, here and for the server, which can derive it from the message.
+ * Adding a capture whose key is already pending does nothing, so
+ * replaying the pending captures through the same path as new ones is safe.
+ * <p>
+ * The calling thread only updates the in-memory pending list and queues lines. A single writer thread appends
+ * whatever has queued up, then syncs the file once for the whole batch, so captures made during a sync share the
+ * next one. Once nothing is pending, or after COMPACT_AFTER acknowledgements, the log is rewritten to hold only the
+ * pending captures. A line torn by a crash is skipped when loading.
+ * <p>
+ * All methods but awaitWritten must be called on one thread, normally the UI thread.
+ */
+public final class CaptureOutbox {
+
+    /** Acknowledgements to log before rewriting the file without the captures they settle. */
+    private static final int COMPACT_AFTER = 32;
+
+    /** The log file. */
+    private final File file;
+
+    /** Runs all file writes, in order. */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "CaptureOutbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Unacknowledged captures by key, oldest first. */
+    private final Map<String, JsonObject> pending = new LinkedHashMap<>();
+
+    /** Acknowledgements logged since the file was last rewritten. */
+    private int acknowledgedSinceCompaction;
+
+    /** Guards the fields the writer thread shares. */
+    private final Object lock = new Object();
+
+    /** Lines waiting to be appended. */
+    private List<String> unwritten = new ArrayList<>();
+
+    /** Lines to replace the file with before appending, or null to keep it. */
+    private List<String> compacted;
+
+    /** Whether a write task is waiting to run. */
+    private boolean writeQueued;
+
+    /** The open log file, only touched by the writer thread. */
+    private FileOutputStream stream;
+
+    /** Number of syncs, only written by the writer thread. */
+    private volatile int syncCount;
+
+    /** Number of writes or loads that failed, only written by the writer thread after loading. */
+    private volatile int failureCount;
+
+    /**
+     * Opens an outbox, loading any captures still pending from its file.
+     * <p>
+     * Loading reads the file on the calling thread, but compaction keeps it to about COMPACT_AFTER lines more than
+     * the pending captures.
+     * @param setFile the log file, which need not exist yet
+     */
+    public CaptureOutbox(final File setFile) {
+        file = setFile;
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                load(line);
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            failureCount++;
+        }
+        if (acknowledgedSinceCompaction > 0) {
+            compact();
+        }
+    }
+
+    /**
+     * Applies one line of the log.
+     * @param line the line
+     */
+    private void load(final String line) {
+        JsonObject record;
+        try {
+            record = JsonParser.parseString(line).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            // The end of a write torn by a crash
+            return;
+        }
+        JsonElement ack = record.get("ack");
+        if (ack != null) {
+            pending.remove(ack.getAsString());
+            acknowledgedSinceCompaction++;
+            return;
+        }
+        String key = keyOf(record);
+        if (key != null) {
+            pending.put(key, record);
+        }
+    }
+
+    /**
+     * Gets the key of a capture the player is sending.
+     * @param message a cellCapture or targetVisit message
+     * @return the capture's key, or null if the message isn't a capture
+     */
+    public static String keyOf(final JsonObject message) {
+        JsonElement type = message.get("type");
+        if (type == null || !type.isJsonPrimitive()) {
+            return null;
+        }
+        switch (type.getAsString()) {
+            case "cellCapture":
+                return cellKey(message.get("x").getAsInt(), message.get("y").getAsInt());
+            case "targetVisit":
+                return targetKey(message.get("targetId").getAsString());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the key of a capture the server reports.
+     * @param message a playerCellCapture or playerTargetVisit update
+     * @return the capture's key, or null if the message isn't a capture
+     */
+    public static String keyOf(final GameMessage message) {
+        switch (message.getType()) {
+            case PLAYER_CELL_CAPTURE:
+                return cellKey(message.getX(), message.getY());
+            case PLAYER_TARGET_VISIT:
+                return targetKey(message.getTargetId());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the key of an area mode cell capture.
+     * @param x the cell's X index
+     * @param y the cell's Y index
+     * @return the key
+     */
+    private static String cellKey(final int x, final int y) {
+        return "cell:" + x + "," + y;
+    }
+
+    /**
+     * Gets the key of a target mode target capture.
+     * @param targetId the target's ID
+     * @return the key
+     */
+    private static String targetKey(final String targetId) {
+        return "target:" + targetId;
+    }
+
+    /**
+     * Records a capture until the server confirms it.
+     * @param message the cellCapture or targetVisit message being sent
+     * @return whether it was recorded, which it isn't if it isn't a capture or is already pending
+     */
+    public boolean add(final JsonObject message) {
+        String key = keyOf(message);
+        if (key == null || pending.containsKey(key)) {
+            return false;
+        }
+        pending.put(key, message);
+        String line = message.toString();
+        synchronized (lock) {
+            unwritten.add(line);
+            queueWrite();
+        }
+        return true;
+    }
+
+    /**
+     * Settles the pending capture of whatever a server update reports captured, by this player or anyone else.
+     * @param message the server's update about a capture
+     */
+    public void acknowledge(final GameMessage message) {
+        String key = keyOf(message);
+        if (key != null) {
+            acknowledge(key);
+        }
+    }
+
+    /**
+     * Settles the pending captures of everything a full update shows as owned: objectives in any player's path,
+     * claimed targets, and captured cells.
+     * @param fullState the full update's game state
+     */
+    public void acknowledgeAll(final JsonObject fullState) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (JsonElement p : arrayOrEmpty(fullState.get("players"))) {
+            for (JsonElement o : arrayOrEmpty(p.getAsJsonObject().get("path"))) {
+                acknowledgeObjective(o.getAsJsonObject());
+            }
+        }
+        for (JsonElement t : arrayOrEmpty(fullState.get("targets"))) {
+            JsonElement team = t.getAsJsonObject().get("team");
+            if (team != null && team.getAsInt() != TeamID.OBSERVER) {
+                acknowledgeObjective(t.getAsJsonObject());
+            }
+        }
+        for (JsonElement c : arrayOrEmpty(fullState.get("cells"))) {
+            acknowledgeObjective(c.getAsJsonObject());
+        }
+    }
+
+    /**
+     * Gets a property of a full update as an array.
+     * @param element the property's value, or null if it is missing
+     * @return the array, or an empty one if the property is missing or not an array
+     */
+    private static JsonArray arrayOrEmpty(final JsonElement element) {
+        if (element == null || !element.isJsonArray()) {
+            return new JsonArray();
+        }
+        return element.getAsJsonArray();
+    }
+
+    /**
+     * Settles the pending capture of a target or cell from a full update.
+     * @param objective a target (with an "id") or a cell (with "x" and "y")
+     */
+    private void acknowledgeObjective(final JsonObject objective) {
+        if (objective.has("id")) {
+            acknowledge(targetKey(objective.get("id").getAsString()));
+        } else if (objective.has("x") && objective.has("y")) {
+            acknowledge(cellKey(objective.get("x").getAsInt(), objective.get("y").getAsInt()));
+        }
+    }
+
+    /**
+     * Settles a pending capture, if there is one with the given key.
+     * @param key the capture's key
+     */
+    private void acknowledge(final String key) {
+        if (pending.remove(key) == null) {
+            return;
+        }
+        acknowledgedSinceCompaction++;
+        if (pending.isEmpty() || acknowledgedSinceCompaction >= COMPACT_AFTER) {
+            compact();
+            return;
+        }
+        JsonObject ack = new JsonObject();
+        ack.addProperty("ack", key);
+        String line = ack.toString();
+        synchronized (lock) {
+            unwritten.add(line);
+            queueWrite();
+        }
+    }
+
+    /**
+     * Gets the captures the server hasn't confirmed yet.
+     * @return the pending capture messages, oldest first
+     */
+    public List<JsonObject> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Blocks until everything recorded so far is on disk. Not for the UI thread.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitWritten() throws InterruptedException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Forgets every pending capture and deletes the log in the background, for when the game is over and nothing
+     * more can be confirmed. Captures added afterwards start a new log.
+     */
+    public void discard() {
+        pending.clear();
+        acknowledgedSinceCompaction = 0;
+        synchronized (lock) {
+            unwritten.clear();
+            compacted = null;
+        }
+        writer.execute(() -> {
+            closeStream();
+            if (file.exists() && !file.delete()) {
+                failureCount++;
+            }
+        });
+    }
+
+    /**
+     * Finishes writing in the background and stops the writer thread.
+     */
+    public void close() {
+        writer.execute(this::closeStream);
+        writer.shutdown();
+    }
+
+    /**
+     * Gets the number of times the file has been synced, each covering a batch of records.
+     * @return the number of syncs
+     */
+    public int getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Gets the number of file operations that failed.
+     * @return the number of failures
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Queues rewriting the file with just the pending captures. Lines still waiting are dropped, since the pending
+     * list already reflects them.
+     */
+    private void compact() {
+        acknowledgedSinceCompaction = 0;
+        List<String> lines = new ArrayList<>();
+        for (JsonObject message : pending.values()) {
+            lines.add(message.toString());
+        }
+        synchronized (lock) {
+            compacted = lines;
+            unwritten.clear();
+            queueWrite();
+        }
+    }
+
+    /**
+     * Makes sure a write task will pick up the queued lines. Must be called with the lock held.
+     */
+    private void queueWrite() {
+        if (!writeQueued) {
+            writeQueued = true;
+            writer.execute(this::writeBatch);
+        }
+    }
+
+    /**
+     * Writes everything queued, then syncs once. Runs on the writer thread.
+     */
+    private void writeBatch() {
+        List<String> lines;
+        List<String> replacement;
+        synchronized (lock) {
+            lines = unwritten;
+            unwritten = new ArrayList<>();
+            replacement = compacted;
+            compacted = null;
+            writeQueued = false;
+        }
+        try {
+            if (replacement != null) {
+                closeStream();
+                File temp = new File(file.getPath() + ".tmp");
+                try (FileOutputStream out = new FileOutputStream(temp)) {
+                    out.write(join(replacement));
+                    out.getFD().sync();
+                }
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Couldn't replace " + file);
+                }
+            }
+            if (!lines.isEmpty()) {
+                if (stream == null) {
+                    stream = new FileOutputStream(file, true);
+                }
+                stream.write(join(lines));
+                stream.getFD().sync();
+            }
+            syncCount++;
+        } catch (IOException e) {
+            failureCount++;
+            closeStream();
+        }
+    }
+
+    /**
+     * Closes the log file if it is open. Runs on the writer thread.
+     */
+    private void closeStream() {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            failureCount++;
+        }
+        stream = null;
+    }
+
+    /**
+     * Joins lines into the bytes of a log chunk.
+     * @param lines the lines
+     * @return the UTF-8 text, each line ending in a newline
+     */
+    private static byte[] join(final List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,55 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Keeps track of which team has captured each cell of an area mode grid,
+ * which cells the current player captured, and how many cells each team owns.
+ */
+public interface CaptureStore extends CellOwnership {
+
+    /**
+     * Determines whether a cell has been captured by any team.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return whether the cell is captured
+     */
+    boolean isCaptured(int x, int y);
+
+    /**
+     * Determines whether a cell was captured by the current player.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return whether the current player captured the cell
+     */
+    boolean isMine(int x, int y);
+
+    /**
+     * Records a capture.
+     * <p>
+     * If the cell was already owned by another team, that team loses it.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @param team the capturing team's TeamID
+     * @param byCurrentPlayer whether the current player made the capture
+     */
+    void capture(int x, int y, int team, boolean byCurrentPlayer);
+
+    /**
+     * Determines whether the current player has captured any cells.
+     * @return whether the current player has at least one capture
+     */
+    boolean hasMine();
+
+    /**
+     * Gets how many cells the current player has captured.
+     * @return the number of cells captured by the current player
+     */
+    int getMineCount();
+
+    /**
+     * Gets how many cells a team owns.
+     * @param team the TeamID
+     * @return the number of cells owned by the team
+     */
+    int getTeamCount(int team);
+
+}
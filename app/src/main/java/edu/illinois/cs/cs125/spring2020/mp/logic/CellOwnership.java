@@ -0,0 +1,16 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Provides the owning team of each cell in an area mode grid.
+ */
+public interface CellOwnership {
+
+    /**
+     * Gets the team that owns a cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return the owning team's TeamID, or OBSERVER if the cell is uncaptured
+     */
+    int getOwner(int x, int y);
+
+}
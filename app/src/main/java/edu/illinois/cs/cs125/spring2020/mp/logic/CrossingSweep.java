@@ -0,0 +1,750 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Finds every pair of crossing line segments with a Bentley-Ottmann sweep, for auditing target mode paths.
+ * <p>
+ * A vertical line sweeps from west to east (longitude is X, latitude is Y). The segments it currently cuts are
+ * kept in a balanced tree ordered by where they cut it, and only segments that become neighbors in that order are
+ * tested against each other. Two neighbors that cross swap places when the sweep reaches their crossing, so with n
+ * segments and k crossings the whole sweep takes O((n + k) log n) time instead of testing all n^2 pairs.
+ * <p>
+ * "Cross" means exactly what LineCrossDetector.segmentsCross says, including its tolerance: segments that only
+ * share an endpoint or that are parallel don't cross, and an endpoint on (or within the tolerance of) another
+ * segment's middle does. Touches like that are found by comparing each endpoint with every segment near it.
+ * Vertical segments never enter the tree; the tree is instead searched for the segments cutting the sweep line
+ * along their length. Because a steep segment can pass within the tolerance of an endpoint while cutting the
+ * sweep line far from it, the sweep runs twice, the second time with latitude and longitude exchanged.
+ */
+public final class CrossingSweep {
+
+    /** Event type for two neighbors crossing. Events at the same longitude are handled in type order. */
+    private static final int CROSS = 0;
+
+    /** Event type for the east end of a segment. Ends come before starts, so ties are ordered by what's ahead. */
+    private static final int END = 1;
+
+    /** Event type for the west end of a segment. */
+    private static final int START = 2;
+
+    /** Event type for a vertical segment. */
+    private static final int VERTICAL = 3;
+
+    /** Distance in degrees within which segments are compared as meeting at a point (LineCrossDetector's). */
+    private static final double TOLERANCE = 0.0000001;
+
+    /**
+     * Latitude window around a point within which a segment no steeper than 45 degrees may pass within the
+     * tolerance of it (the tolerance times the square root of two, rounded up).
+     */
+    private static final double NEAR = TOLERANCE * 2;
+
+    /** Difference in latitude small enough to be rounding error, so segments that close are ordered by slope. */
+    private static final double ROUNDING_TOLERANCE = 0.00000000001;
+
+    /** Fixed seed for the tree's balancing priorities, so sweeps are reproducible. */
+    private static final long PRIORITY_SEED = 125;
+
+    /** The segments being swept, in LineCrossDetector.firstCrossing's layout. */
+    private final double[] segments;
+
+    /** X coordinate of each segment's west end (the south end if vertical). X is longitude unless transposed. */
+    private final double[] westX;
+
+    /** Y coordinate of each segment's west end. */
+    private final double[] westY;
+
+    /** X coordinate of each segment's east end. */
+    private final double[] eastX;
+
+    /** Y coordinate of each segment's east end. */
+    private final double[] eastY;
+
+    /** Segment stored at each tree node. */
+    private final int[] nodeSegment;
+
+    /** Tree node holding each segment, or -1 if the segment isn't cut by the sweep line. */
+    private final int[] segmentNode;
+
+    /** Left child of each tree node, or -1. */
+    private final int[] leftChild;
+
+    /** Right child of each tree node, or -1. */
+    private final int[] rightChild;
+
+    /** Parent of each tree node, or -1 for the root. */
+    private final int[] parent;
+
+    /** Balancing priority of each tree node; parents have higher priorities than their children. */
+    private final int[] priority;
+
+    /** The root of the tree, or -1 if it's empty. */
+    private int root = -1;
+
+    /** The sweep line's current longitude. */
+    private double sweepX;
+
+    /** Events not handled yet, in sweep order. */
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+
+    /** The vertical segments, sorted by longitude. */
+    private final int[] verticals;
+
+    /** Segments in the order they left the tree, for comparing with segments starting right after. */
+    private final IntList ended = new IntList();
+
+    /** Position in ended of the first segment that left the tree within the tolerance of the sweep line. */
+    private int recentlyEnded;
+
+    /** Nodes passing through the point being settled. */
+    private final IntList group = new IntList();
+
+    /** Packed pairs already reported. */
+    private final Set<Long> reported;
+
+    /** Packed pairs already swapped, so numerical noise can't swap a pair back and forth. */
+    private final Set<Long> swapped = new HashSet<>();
+
+    /** The crossing pairs found so far. */
+    private final List<int[]> crossings;
+
+    /**
+     * A point where the sweep has something to do.
+     */
+    private static final class Event implements Comparable<Event> {
+
+        /** Longitude of the event. */
+        private final double x;
+
+        /** Latitude of the event. */
+        private final double y;
+
+        /** What happens: CROSS, START, VERTICAL, or END. */
+        private final int type;
+
+        /** The segment the event is about (the lower one for CROSS). */
+        private final int first;
+
+        /** The upper segment for CROSS, otherwise unused. */
+        private final int second;
+
+        /**
+         * Creates an event.
+         * @param setX longitude of the event
+         * @param setY latitude of the event
+         * @param setType what happens
+         * @param setFirst the segment the event is about
+         * @param setSecond the other segment of a CROSS event
+         */
+        Event(final double setX, final double setY, final int setType, final int setFirst, final int setSecond) {
+            x = setX;
+            y = setY;
+            type = setType;
+            first = setFirst;
+            second = setSecond;
+        }
+
+        @Override
+        public int compareTo(final Event other) {
+            if (x != other.x) {
+                return Double.compare(x, other.x);
+            } else if (type != other.type) {
+                return Integer.compare(type, other.type);
+            } else if (y != other.y) {
+                return Double.compare(y, other.y);
+            } else if (first != other.first) {
+                return Integer.compare(first, other.first);
+            }
+            return Integer.compare(second, other.second);
+        }
+
+    }
+
+    /**
+     * Sets up a sweep over some segments.
+     * @param setSegments the segments' coordinates, in LineCrossDetector.firstCrossing's layout
+     * @param count the number of segments
+     * @param transposed whether to sweep from south to north instead, exchanging latitude and longitude
+     * @param setReported packed pairs already reported, to add to
+     * @param setCrossings crossing pairs already found, to add to
+     */
+    private CrossingSweep(final double[] setSegments, final int count, final boolean transposed,
+                          final Set<Long> setReported, final List<int[]> setCrossings) {
+        segments = setSegments;
+        reported = setReported;
+        crossings = setCrossings;
+        westX = new double[count];
+        westY = new double[count];
+        eastX = new double[count];
+        eastY = new double[count];
+        nodeSegment = new int[count];
+        segmentNode = new int[count];
+        leftChild = new int[count];
+        rightChild = new int[count];
+        parent = new int[count];
+        priority = new int[count];
+        Random random = new Random(PRIORITY_SEED);
+        List<Integer> verticalList = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int offset = i * LineCrossDetector.SEGMENT_SIZE;
+            int latitude = 0;
+            int longitude = 1;
+            if (transposed) {
+                latitude = 1;
+                longitude = 0;
+            }
+            double startY = segments[offset + latitude];
+            double startX = segments[offset + longitude];
+            double endY = segments[offset + 2 + latitude];
+            double endX = segments[offset + 2 + longitude];
+            if (startX < endX || (startX == endX && startY <= endY)) {
+                westX[i] = startX;
+                westY[i] = startY;
+                eastX[i] = endX;
+                eastY[i] = endY;
+            } else {
+                westX[i] = endX;
+                westY[i] = endY;
+                eastX[i] = startX;
+                eastY[i] = startY;
+            }
+            segmentNode[i] = -1;
+            priority[i] = random.nextInt();
+            if (westX[i] == eastX[i]) {
+                verticalList.add(i);
+                events.add(new Event(westX[i], westY[i], VERTICAL, i, -1));
+            } else {
+                events.add(new Event(westX[i], westY[i], START, i, -1));
+                events.add(new Event(eastX[i], eastY[i], END, i, -1));
+            }
+        }
+        Collections.sort(verticalList, (one, another) -> Double.compare(westX[one], westX[another]));
+        verticals = new int[verticalList.size()];
+        for (int i = 0; i < verticals.length; i++) {
+            verticals[i] = verticalList.get(i);
+        }
+    }
+
+    /**
+     * Finds every pair of segments that cross.
+     * @param segments the segments' coordinates, in LineCrossDetector.firstCrossing's layout
+     * @param count the number of segments
+     * @return each crossing pair of segment numbers, lower number first, sorted
+     */
+    public static List<int[]> findCrossings(final double[] segments, final int count) {
+        Set<Long> reported = new HashSet<>();
+        List<int[]> crossings = new ArrayList<>();
+        // A segment only passes near an endpoint in the sweep's order if it's at most 45 degrees steep,
+        // so a second sweep with the axes exchanged catches the steeper ones
+        new CrossingSweep(segments, count, false, reported, crossings).run();
+        new CrossingSweep(segments, count, true, reported, crossings).run();
+        Collections.sort(crossings, (one, another) -> {
+            if (one[0] != another[0]) {
+                return Integer.compare(one[0], another[0]);
+            }
+            return Integer.compare(one[1], another[1]);
+        });
+        return crossings;
+    }
+
+    /**
+     * Finds the line crosses a target mode game's paths violate the snake rule with.
+     * <p>
+     * The snake rule lets a player's new line touch the player's own previous two lines, so crosses between lines
+     * two apart on the same path are allowed; every other cross is reported.
+     * @param fullState a target mode "full" update from the server, such as a recorded game state
+     * @return a description of each forbidden cross, or an empty list if the paths are valid
+     */
+    public static List<String> auditTargetGame(final JsonObject fullState) {
+        Map<String, double[]> positions = new HashMap<>();
+        for (JsonElement t : fullState.getAsJsonArray("targets")) {
+            JsonObject target = t.getAsJsonObject();
+            positions.put(target.get("id").getAsString(), new double[] {target.get("latitude").getAsDouble(),
+                    target.get("longitude").getAsDouble()});
+        }
+
+        // Collect every path segment, remembering whose path it's in and where
+        List<String> owners = new ArrayList<>();
+        IntList pathPositions = new IntList();
+        List<double[]> ends = new ArrayList<>();
+        for (JsonElement p : fullState.getAsJsonArray("players")) {
+            JsonObject player = p.getAsJsonObject();
+            double[] previous = null;
+            int line = 0;
+            for (JsonElement t : player.getAsJsonArray("path")) {
+                double[] position = positions.get(t.getAsJsonObject().get("id").getAsString());
+                if (previous != null) {
+                    owners.add(player.get("email").getAsString());
+                    pathPositions.add(line);
+                    ends.add(new double[] {previous[0], previous[1], position[0], position[1]});
+                    line++;
+                }
+                previous = position;
+            }
+        }
+        double[] flat = new double[ends.size() * LineCrossDetector.SEGMENT_SIZE];
+        for (int i = 0; i < ends.size(); i++) {
+            System.arraycopy(ends.get(i), 0, flat, i * LineCrossDetector.SEGMENT_SIZE,
+                    LineCrossDetector.SEGMENT_SIZE);
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (int[] pair : findCrossings(flat, ends.size())) {
+            String one = owners.get(pair[0]);
+            String another = owners.get(pair[1]);
+            if (one.equals(another) && Math.abs(pathPositions.get(pair[0]) - pathPositions.get(pair[1])) == 2) {
+                continue;
+            }
+            problems.add(one + "'s line " + pathPositions.get(pair[0]) + " crosses "
+                    + another + "'s line " + pathPositions.get(pair[1]));
+        }
+        return problems;
+    }
+
+    /**
+     * Handles every event.
+     */
+    private void run() {
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            sweepX = event.x;
+            if (event.type != CROSS) {
+                settleAt(event.y);
+            }
+            if (event.type == START) {
+                int node = insert(event.first);
+                compareNear(event.first, node, event.y);
+                compareWithVerticals(event.first, event.x, event.y);
+                compareWithEnded(event.first);
+                compareNeighbors(previous(node), node);
+                compareNeighbors(node, next(node));
+            } else if (event.type == END) {
+                int node = segmentNode[event.first];
+                compareNear(event.first, node, event.y);
+                compareWithVerticals(event.first, event.x, event.y);
+                int below = previous(node);
+                int above = next(node);
+                remove(node);
+                ended.add(event.first);
+                compareNeighbors(below, above);
+            } else if (event.type == VERTICAL) {
+                searchAlong(event.first);
+            } else {
+                int lower = segmentNode[event.first];
+                int upper = segmentNode[event.second];
+                if (lower < 0 || upper < 0 || next(lower) != upper) {
+                    // Something else came between them or one has ended; they were already tested
+                    continue;
+                }
+                swapped.add(pairKey(event.first, event.second));
+                nodeSegment[lower] = event.second;
+                nodeSegment[upper] = event.first;
+                segmentNode[event.second] = lower;
+                segmentNode[event.first] = upper;
+                compareNeighbors(previous(lower), lower);
+                compareNeighbors(upper, next(upper));
+            }
+        }
+    }
+
+    /**
+     * Gets where a segment cuts the sweep line.
+     * @param segment the segment
+     * @return the Y coordinate of the segment at the sweep line, clamped to the segment
+     */
+    private double yAtSweep(final int segment) {
+        if (sweepX <= westX[segment]) {
+            return westY[segment];
+        } else if (sweepX >= eastX[segment]) {
+            return eastY[segment];
+        }
+        return westY[segment] + (sweepX - westX[segment]) * slope(segment);
+    }
+
+    /**
+     * Gets a non-vertical segment's slope.
+     * @param segment the segment
+     * @return the change in latitude per degree of longitude
+     */
+    private double slope(final int segment) {
+        return (eastY[segment] - westY[segment]) / (eastX[segment] - westX[segment]);
+    }
+
+    /**
+     * Orders two segments along the sweep line, as they will be just east of it.
+     * @param one a segment
+     * @param another another segment
+     * @return negative if one is below another, positive if above
+     */
+    private int compareAtSweep(final int one, final int another) {
+        double oneY = yAtSweep(one);
+        double anotherY = yAtSweep(another);
+        if (Math.abs(oneY - anotherY) > ROUNDING_TOLERANCE) {
+            return Double.compare(oneY, anotherY);
+        }
+        // They meet here, so the steeper one will be above
+        double oneSlope = slope(one);
+        double anotherSlope = slope(another);
+        if (oneSlope != anotherSlope) {
+            return Double.compare(oneSlope, anotherSlope);
+        }
+        return Integer.compare(one, another);
+    }
+
+    /**
+     * Tests two segments and reports them if they cross.
+     * @param one a segment
+     * @param another another segment
+     * @return whether they cross
+     */
+    private boolean test(final int one, final int another) {
+        int oneOffset = one * LineCrossDetector.SEGMENT_SIZE;
+        int anotherOffset = another * LineCrossDetector.SEGMENT_SIZE;
+        if (!LineCrossDetector.segmentsCross(segments[oneOffset], segments[oneOffset + 1],
+                segments[oneOffset + 2], segments[oneOffset + LineCrossDetector.SEGMENT_SIZE - 1],
+                segments[anotherOffset], segments[anotherOffset + 1],
+                segments[anotherOffset + 2], segments[anotherOffset + LineCrossDetector.SEGMENT_SIZE - 1])) {
+            return false;
+        }
+        if (reported.add(pairKey(one, another))) {
+            crossings.add(new int[] {Math.min(one, another), Math.max(one, another)});
+        }
+        return true;
+    }
+
+    /**
+     * Tests two neighboring nodes, and schedules a swap if their segments cross east of the sweep line.
+     * <p>
+     * The swap follows the exact geometry rather than segmentsCross: segments that only touch within the
+     * tolerance still swap if they really pass each other, and nearly parallel ones that the tolerance
+     * says don't cross do too, since either would otherwise leave the tree out of order.
+     * @param lower the lower node, or -1
+     * @param upper the node just above it, or -1
+     */
+    private void compareNeighbors(final int lower, final int upper) {
+        if (lower < 0 || upper < 0) {
+            return;
+        }
+        int below = nodeSegment[lower];
+        int above = nodeSegment[upper];
+        test(below, above);
+        if (swapped.contains(pairKey(below, above)) || slope(below) <= slope(above)) {
+            // Only a steeper segment below another can still pass it; otherwise they're already in order
+            return;
+        }
+        double belowX = eastX[below] - westX[below];
+        double belowY = eastY[below] - westY[below];
+        double aboveX = eastX[above] - westX[above];
+        double aboveY = eastY[above] - westY[above];
+        double denominator = belowX * aboveY - belowY * aboveX;
+        double startX = westX[above] - westX[below];
+        double startY = westY[above] - westY[below];
+        double alongBelow = (startX * aboveY - startY * aboveX) / denominator;
+        double alongAbove = (startX * belowY - startY * belowX) / denominator;
+        if (alongBelow <= 0 || alongBelow >= 1 || alongAbove <= 0 || alongAbove >= 1) {
+            return;
+        }
+        double crossX = Math.max(westX[below] + alongBelow * belowX, sweepX);
+        events.add(new Event(crossX, westY[below] + alongBelow * belowY, CROSS, below, above));
+    }
+
+    /**
+     * Tests a segment against its neighbors near one of its ends, where segments touching it might not be
+     * its immediate neighbors.
+     * @param segment the segment
+     * @param node the segment's node
+     * @param y the latitude of the end
+     */
+    private void compareNear(final int segment, final int node, final double y) {
+        for (int other = previous(node); other >= 0; other = previous(other)) {
+            test(segment, nodeSegment[other]);
+            if (yAtSweep(nodeSegment[other]) < y - NEAR) {
+                break;
+            }
+        }
+        for (int other = next(node); other >= 0; other = next(other)) {
+            test(segment, nodeSegment[other]);
+            if (yAtSweep(nodeSegment[other]) > y + NEAR) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Tests a segment against the vertical segments passing near one of its ends.
+     * @param segment the segment
+     * @param x the longitude of the end
+     * @param y the latitude of the end
+     */
+    private void compareWithVerticals(final int segment, final double x, final double y) {
+        int low = 0;
+        int high = verticals.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (westX[verticals[middle]] < x - TOLERANCE) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < verticals.length && westX[verticals[i]] <= x + TOLERANCE; i++) {
+            int vertical = verticals[i];
+            if (westY[vertical] - TOLERANCE <= y && eastY[vertical] + TOLERANCE >= y) {
+                test(segment, vertical);
+            }
+        }
+    }
+
+    /**
+     * Tests a segment that just started against the segments that ended within the tolerance before it,
+     * which may touch it without ever having been its neighbors.
+     * @param segment the segment
+     */
+    private void compareWithEnded(final int segment) {
+        while (recentlyEnded < ended.size() && eastX[ended.get(recentlyEnded)] < sweepX - TOLERANCE) {
+            recentlyEnded++;
+        }
+        double south = Math.min(westY[segment], eastY[segment]) - TOLERANCE;
+        double north = Math.max(westY[segment], eastY[segment]) + TOLERANCE;
+        for (int i = recentlyEnded; i < ended.size(); i++) {
+            int other = ended.get(i);
+            if (Math.min(westY[other], eastY[other]) <= north && Math.max(westY[other], eastY[other]) >= south) {
+                test(segment, other);
+            }
+        }
+    }
+
+    /**
+     * Tests a vertical segment against every segment cutting the sweep line along its length.
+     * @param vertical the vertical segment
+     */
+    private void searchAlong(final int vertical) {
+        double north = eastY[vertical] + NEAR;
+        for (int other = lowestFrom(westY[vertical] - NEAR); other >= 0
+                && yAtSweep(nodeSegment[other]) <= north; other = next(other)) {
+            test(vertical, nodeSegment[other]);
+        }
+    }
+
+    /**
+     * Finds the lowest node cutting the sweep line at or above a latitude.
+     * @param south the latitude
+     * @return the node, or -1 if every segment cuts the sweep line below it
+     */
+    private int lowestFrom(final double south) {
+        int lowest = -1;
+        int node = root;
+        while (node >= 0) {
+            if (yAtSweep(nodeSegment[node]) >= south) {
+                lowest = node;
+                node = leftChild[node];
+            } else {
+                node = rightChild[node];
+            }
+        }
+        while (lowest >= 0 && previous(lowest) >= 0 && yAtSweep(nodeSegment[previous(lowest)]) >= south) {
+            lowest = previous(lowest);
+        }
+        return lowest;
+    }
+
+    /**
+     * Puts the segments passing through a point on the sweep line in the order they leave it.
+     * <p>
+     * Crossing events are computed with rounding error, so when several segments meet at one point the
+     * last of their swaps can land just after another event at that point. Sorting them all by slope
+     * there, as the original algorithm does, keeps the tree in order; any pairs this reorders are tested
+     * directly since they never become neighbors.
+     * @param y the point's latitude
+     */
+    private void settleAt(final double y) {
+        group.clear();
+        for (int node = lowestFrom(y - ROUNDING_TOLERANCE); node >= 0
+                && yAtSweep(nodeSegment[node]) <= y + ROUNDING_TOLERANCE; node = next(node)) {
+            group.add(node);
+        }
+        boolean sorted = true;
+        for (int i = 1; i < group.size() && sorted; i++) {
+            sorted = compareAtSweep(nodeSegment[group.get(i - 1)], nodeSegment[group.get(i)]) < 0;
+        }
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[group.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = nodeSegment[group.get(i)];
+            for (int j = 0; j < i; j++) {
+                test(order[j], order[i]);
+            }
+        }
+        Arrays.sort(order, this::compareAtSweep);
+        for (int i = 0; i < order.length; i++) {
+            nodeSegment[group.get(i)] = order[i];
+            segmentNode[order[i]] = group.get(i);
+        }
+        compareNeighbors(previous(group.get(0)), group.get(0));
+        compareNeighbors(group.last(), next(group.last()));
+    }
+
+    /**
+     * Adds a segment to the tree at its place along the sweep line.
+     * @param segment the segment, which becomes its own node
+     * @return the new node
+     */
+    private int insert(final int segment) {
+        int node = segment;
+        nodeSegment[node] = segment;
+        segmentNode[segment] = node;
+        leftChild[node] = -1;
+        rightChild[node] = -1;
+        parent[node] = -1;
+        if (root < 0) {
+            root = node;
+            return node;
+        }
+        int at = root;
+        while (true) {
+            if (compareAtSweep(segment, nodeSegment[at]) < 0) {
+                if (leftChild[at] < 0) {
+                    leftChild[at] = node;
+                    break;
+                }
+                at = leftChild[at];
+            } else {
+                if (rightChild[at] < 0) {
+                    rightChild[at] = node;
+                    break;
+                }
+                at = rightChild[at];
+            }
+        }
+        parent[node] = at;
+        while (parent[node] >= 0 && priority[node] > priority[parent[node]]) {
+            rotateUp(node);
+        }
+        return node;
+    }
+
+    /**
+     * Removes a node from the tree.
+     * @param node the node
+     */
+    private void remove(final int node) {
+        while (leftChild[node] >= 0 || rightChild[node] >= 0) {
+            if (rightChild[node] < 0
+                    || (leftChild[node] >= 0 && priority[leftChild[node]] > priority[rightChild[node]])) {
+                rotateUp(leftChild[node]);
+            } else {
+                rotateUp(rightChild[node]);
+            }
+        }
+        replaceChild(parent[node], node, -1);
+        segmentNode[nodeSegment[node]] = -1;
+    }
+
+    /**
+     * Rotates a node above its parent, keeping the tree's order.
+     * @param node the node, which must have a parent
+     */
+    private void rotateUp(final int node) {
+        int above = parent[node];
+        int grandparent = parent[above];
+        if (leftChild[above] == node) {
+            leftChild[above] = rightChild[node];
+            if (rightChild[node] >= 0) {
+                parent[rightChild[node]] = above;
+            }
+            rightChild[node] = above;
+        } else {
+            rightChild[above] = leftChild[node];
+            if (leftChild[node] >= 0) {
+                parent[leftChild[node]] = above;
+            }
+            leftChild[node] = above;
+        }
+        parent[above] = node;
+        parent[node] = grandparent;
+        replaceChild(grandparent, above, node);
+    }
+
+    /**
+     * Points a parent (or the root) at a different child.
+     * @param above the parent, or -1 to replace the root
+     * @param oldChild the child being replaced
+     * @param newChild the replacement, or -1
+     */
+    private void replaceChild(final int above, final int oldChild, final int newChild) {
+        if (above < 0) {
+            root = newChild;
+        } else if (leftChild[above] == oldChild) {
+            leftChild[above] = newChild;
+        } else {
+            rightChild[above] = newChild;
+        }
+    }
+
+    /**
+     * Gets the node just below a node along the sweep line.
+     * @param node the node
+     * @return the previous node, or -1 if there is none
+     */
+    private int previous(final int node) {
+        if (leftChild[node] >= 0) {
+            int at = leftChild[node];
+            while (rightChild[at] >= 0) {
+                at = rightChild[at];
+            }
+            return at;
+        }
+        int at = node;
+        while (parent[at] >= 0 && leftChild[parent[at]] == at) {
+            at = parent[at];
+        }
+        return parent[at];
+    }
+
+    /**
+     * Gets the node just above a node along the sweep line.
+     * @param node the node
+     * @return the next node, or -1 if there is none
+     */
+    private int next(final int node) {
+        if (rightChild[node] >= 0) {
+            int at = rightChild[node];
+            while (leftChild[at] >= 0) {
+                at = leftChild[at];
+            }
+            return at;
+        }
+        int at = node;
+        while (parent[at] >= 0 && rightChild[parent[at]] == at) {
+            at = parent[at];
+        }
+        return parent[at];
+    }
+
+    /**
+     * Packs an unordered pair of segments into one value. Pairs of the first 46,340 segments pack into distinct
+     * int-sized values, which hash without collisions.
+     * @param one a segment
+     * @param another another segment
+     * @return the same value for either order
+     */
+    private long pairKey(final int one, final int another) {
+        return (long) Math.min(one, another) * westX.length + Math.max(one, another);
+    }
+
+}
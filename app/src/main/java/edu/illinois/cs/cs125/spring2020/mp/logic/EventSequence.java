@@ -0,0 +1,111 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Tracks which of the server's numbered gameplay events have been applied, so a reconnect can resume from there.
+ * <p>
+ * A server that numbers its events sends them with consecutive "seq" properties, and a full update carries the
+ * number of the last event it includes. After reconnecting, the client sends a resume request with the last number
+ * it applied. A server that still has the later events replays just those, then sends a resumed message. Otherwise,
+ * or if it doesn't know about resuming, it answers with a full update as usual, which the client rebuilds from.
+ * <p>
+ * Events at or before the last one applied are duplicates from the replay and skipped. An event after a gap is
+ * skipped too, and a resume request fills the gap in order. If the request or its answer is lost, events keep
+ * arriving past the gap, so after enough of them the request is sent again. Events without numbers are always
+ * applied, so servers that don't number them work as before.
+ */
+public final class EventSequence {
+
+    /** How many events past a gap are skipped while waiting on a resume request before asking again. */
+    public static final int RESEND_AFTER_SKIPS = 4;
+
+    /** What to do with an incoming event. */
+    public enum Verdict {
+
+        /** Apply the event; it is the next one. */
+        APPLY,
+
+        /** Ignore the event; it was already applied or a resume request will bring it again. */
+        SKIP,
+
+        /** Ignore the event and send a resume request, since events before it were missed and aren't on their way. */
+        GAP
+
+    }
+
+    /** The sequence number of the last event applied, or NO_SEQ if there isn't one to resume from. */
+    private long applied = GameMessage.NO_SEQ;
+
+    /** The sequence number the last resume request asked to resume from. */
+    private long requested = GameMessage.NO_SEQ;
+
+    /** How many events past the gap have been skipped since the last resume request. */
+    private int skippedAhead;
+
+    /**
+     * Starts over from a full update.
+     * @param snapshotSeq the number of the last event the full update includes, or NO_SEQ if it has none
+     */
+    public void reset(final long snapshotSeq) {
+        applied = snapshotSeq;
+        requested = GameMessage.NO_SEQ;
+        skippedAhead = 0;
+    }
+
+    /**
+     * Decides what to do with an incoming event, counting it as applied if it should be.
+     * @param seq the event's sequence number, or NO_SEQ if it has none
+     * @return the verdict
+     */
+    public Verdict check(final long seq) {
+        if (seq == GameMessage.NO_SEQ) {
+            return Verdict.APPLY;
+        }
+        if (applied == GameMessage.NO_SEQ || seq == applied + 1) {
+            applied = seq;
+            return Verdict.APPLY;
+        }
+        if (seq <= applied) {
+            return Verdict.SKIP;
+        }
+        if (requested == applied) {
+            // Still waiting on the request already sent, unless it has taken long enough to count as lost
+            skippedAhead++;
+            if (skippedAhead < RESEND_AFTER_SKIPS) {
+                return Verdict.SKIP;
+            }
+        }
+        return Verdict.GAP;
+    }
+
+    /**
+     * Determines whether the server could be asked to resume, i.e. whether any numbered event was applied.
+     * @return whether resumeRequest can be called
+     */
+    public boolean canResume() {
+        return applied != GameMessage.NO_SEQ;
+    }
+
+    /**
+     * Makes a request for every event after the last one applied.
+     * @return the resume request message
+     */
+    public JsonObject resumeRequest() {
+        requested = applied;
+        skippedAhead = 0;
+        JsonObject request = new JsonObject();
+        request.addProperty("type", "resume");
+        request.addProperty("seq", applied);
+        return request;
+    }
+
+    /**
+     * Gets the sequence number of the last event applied.
+     * @return the last applied sequence number, or NO_SEQ if there is none
+     */
+    public long getApplied() {
+        return applied;
+    }
+
+}
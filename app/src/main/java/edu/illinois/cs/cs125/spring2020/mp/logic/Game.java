@@ -31,8 +31,8 @@ public abstract class Game {
     /** The Google Maps view to render to. */
     private GoogleMap map;
 
-    /** The websocket for sending data to the server. */
-    private WebSocket websocket;
+    /** Schedules messages onto the websocket for sending data to the server. */
+    private OutboundScheduler outbound;
 
     /** The Android UI context. */
     private Context context;
@@ -43,6 +43,9 @@ public abstract class Game {
     /** The map indicators for other players. */
     private Map<String, Circle> otherPlayerCircles = new HashMap<>();
 
+    /** Each team's score, fed by subclasses as objectives change hands. */
+    private final ScoreBoard scoreBoard = new ScoreBoard();
+
     /**
      * Sets up this Game.
      * @param setEmail the player's email (from Firebase)
@@ -55,7 +58,7 @@ public abstract class Game {
                 final JsonObject initialState, final Context setContext) {
         email = setEmail;
         map = setMap;
-        websocket = setWebSocket;
+        outbound = new OutboundScheduler(setWebSocket);
         context = setContext;
 
         map.clear();
@@ -68,7 +71,8 @@ public abstract class Game {
             playerTeams.put(playerEmail, playerTeam);
             if (!playerEmail.equals(email) && playerTeam != TeamID.OBSERVER && playerState == PlayerStateID.PLAYING
                     && player.has("lastLatitude")) {
-                updateOtherPlayerPosition(player);
+                updateOtherPlayerPosition(playerEmail, player.get("lastLatitude").getAsDouble(),
+                        player.get("lastLongitude").getAsDouble());
             }
         }
         if (!playerTeams.containsKey(email)) {
@@ -101,11 +105,20 @@ public abstract class Game {
     }
 
     /**
-     * Sends a message to the server.
+     * Sends a message to the server, as soon as its type calls for (see OutboundScheduler).
      * @param message JSON object to send
      */
     protected final void sendMessage(final JsonObject message) {
-        websocket.sendText(message.toString());
+        outbound.send(message);
+    }
+
+    /**
+     * Gets the scheduler for messages to the server. Everything sent on this game's websocket should go through it,
+     * so that messages are batched together and keep their order.
+     * @return the outbound message scheduler
+     */
+    public final OutboundScheduler getOutbound() {
+        return outbound;
     }
 
     /**
@@ -117,44 +130,59 @@ public abstract class Game {
         // No-op unless doing the apocryphal Checkpoint 5
     }
 
+    /**
+     * Gets the scoreboard, which subclasses tell about every objective changing hands.
+     * <p>
+     * Set a listener on it to hear about score changes.
+     * @return this game's scoreboard
+     */
+    public final ScoreBoard getScoreBoard() {
+        return scoreBoard;
+    }
+
     /**
      * Gets a team's score.
+     * <p>
+     * By default this reads the scoreboard.
      * @param teamId the team ID
      * @return how many objectives the team has captured
      */
-    public abstract int getTeamScore(int teamId);
+    public int getTeamScore(final int teamId) {
+        return scoreBoard.getScore(teamId);
+    }
 
     /**
      * Determines which team has the most points.
      * <p>
-     * You do not need to consider ties - you may do anything you think is reasonable in that case.
+     * If several teams are tied for the lead, this is the lowest-numbered of them.
      * @return the TeamID code of the team with the highest score
      */
     public final int getWinningTeam() {
-        if (this instanceof TargetGame) {
-            TargetGame tg = (TargetGame) this;
-            return tg.gWT();
-        } else if (this instanceof AreaGame) {
-            AreaGame ag = (AreaGame) this;
-            return ag.gWT();
-        }
-        // For you to implement
-        return 0;
+        return scoreBoard.getLeader();
     }
 
     /**
-     * Processes an update from the server.
+     * Processes an update from the server that has already been parsed into a JSON tree.
      * @param message JSON from the server (the "type" property indicates the type)
      * @return whether the message was handled
      */
+    public final boolean handleMessage(final JsonObject message) {
+        return handleMessage(GameMessage.fromJson(message));
+    }
+
+    /**
+     * Processes an update from the server.
+     * @param message the decoded message
+     * @return whether the message was handled
+     */
     @CallSuper
-    public boolean handleMessage(final JsonObject message) {
-        switch (message.get("type").getAsString()) {
-            case "playerLocation":
-                updateOtherPlayerPosition(message);
+    public boolean handleMessage(final GameMessage message) {
+        switch (message.getType()) {
+            case PLAYER_LOCATION:
+                updateOtherPlayerPosition(message.getEmail(), message.getLatitude(), message.getLongitude());
                 return true;
-            case "playerExit":
-                Circle c = otherPlayerCircles.remove(message.get("email").getAsString());
+            case PLAYER_EXIT:
+                Circle c = otherPlayerCircles.remove(message.getEmail());
                 if (c != null) {
                     c.remove();
                 }
@@ -175,13 +203,13 @@ public abstract class Game {
 
     /**
      * Updates the map indicator of another player.
-     * @param player parsed JSON from a full update or a player location update
+     * @param playerEmail the player's email
+     * @param latitude the player's latitude
+     * @param longitude the player's longitude
      */
     @SuppressWarnings("ConstantConditions")
-    private void updateOtherPlayerPosition(final JsonObject player) {
-        String playerEmail = player.get("email").getAsString();
-        LatLng location = new LatLng(player.get("lastLatitude").getAsDouble(),
-                player.get("lastLongitude").getAsDouble());
+    private void updateOtherPlayerPosition(final String playerEmail, final double latitude, final double longitude) {
+        LatLng location = new LatLng(latitude, longitude);
         int[] colors = getContext().getResources().getIntArray(R.array.team_colors);
         final double circleRadius = 4.0;
         CircleOptions c = new CircleOptions().center(location)
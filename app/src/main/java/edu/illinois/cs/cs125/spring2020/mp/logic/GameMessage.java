@@ -0,0 +1,717 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.util.function.Consumer;
+
+/**
+ * A message from the game server, decoded into typed fields.
+ * <p>
+ * Gameplay messages are flat JSON objects, so parse scans them in place straight into fields, never building a
+ * Gson tree. Keys and the type are matched against the text without copying it, integers are read digit by
+ * digit, and a coordinate with at most MAX_FAST_DIGITS significant digits is divided out exactly, so such a
+ * message costs this object plus its email and target ID strings. Longer coordinates go through
+ * Double.parseDouble, which allocates a few small objects of its own.
+ * <p>
+ * Anything the scanner doesn't expect (nested values, escapes in strings, a number where a string belongs, JSON
+ * it can't follow) sends the whole message to a Gson tree parse instead, which decodes it exactly as fromJson
+ * would. The full update is the one message that always nests, and the Game constructors work from its tree
+ * anyway. Fields a message type doesn't have are left at their defaults.
+ */
+public final class GameMessage {
+
+    /** The sequence number of a message the server didn't number. */
+    public static final long NO_SEQ = -1;
+
+    /** The most significant digits a number can have for its digits to be held exactly in a double. */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /** Exactly representable powers of ten, for converting decimals without rounding twice. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /** The most digits an int property can have to be read without overflow checks. */
+    private static final int MAX_INT_DIGITS = 9;
+
+    /** The most digits a long property can have to be read without overflow checks. */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    /** Decimal radix. */
+    private static final int TEN = 10;
+
+    /** The properties gameplay messages use. */
+    private enum Field {
+
+        /** The message type. */
+        TYPE("type"),
+
+        /** A player's email. */
+        EMAIL("email"),
+
+        /** A player's team. */
+        TEAM("team"),
+
+        /** A player's latitude. */
+        LATITUDE("lastLatitude"),
+
+        /** A player's longitude. */
+        LONGITUDE("lastLongitude"),
+
+        /** A cell's X index. */
+        X("x"),
+
+        /** A cell's Y index. */
+        Y("y"),
+
+        /** A target's ID. */
+        TARGET_ID("targetId"),
+
+        /** A game state. */
+        STATE("state"),
+
+        /** An event's sequence number. */
+        SEQ("seq"),
+
+        /** Any other property, which is skipped. */
+        OTHER("");
+
+        /** Every field, so lookups don't copy values(). */
+        private static final Field[] ALL = values();
+
+        /** The property's name. */
+        private final String key;
+
+        /**
+         * Creates a field.
+         * @param setKey the property's name
+         */
+        Field(final String setKey) {
+            key = setKey;
+        }
+
+        /**
+         * Finds the field named by part of a string, without copying it.
+         * @param text the string
+         * @param start the index of the name's first character
+         * @param end the index just after the name
+         * @return the field, or OTHER if no field has that name
+         */
+        static Field of(final String text, final int start, final int end) {
+            for (Field field : ALL) {
+                if (field != OTHER && regionIs(text, start, end, field.key)) {
+                    return field;
+                }
+            }
+            return OTHER;
+        }
+
+    }
+
+    /** The kinds of message the server sends. */
+    public enum Type {
+
+        /** Another player moved: email, team, latitude, longitude. */
+        PLAYER_LOCATION("playerLocation"),
+
+        /** A player captured an area mode cell: email, team, x, y. */
+        PLAYER_CELL_CAPTURE("playerCellCapture"),
+
+        /** A player captured a target mode target: email, team, targetId. */
+        PLAYER_TARGET_VISIT("playerTargetVisit"),
+
+        /** The game was paused, resumed, or ended: state. */
+        GAME_STATE("gameState"),
+
+        /** The whole game state, sent on connecting: fullState. */
+        FULL("full"),
+
+        /** A player left the game: email. */
+        PLAYER_EXIT("playerExit"),
+
+        /** Every event missed while disconnected has been replayed after a resume request: seq. */
+        RESUMED("resumed"),
+
+        /** Any other type, which nothing handles. */
+        UNKNOWN("");
+
+        /** Every type, so lookups don't copy values(). */
+        private static final Type[] ALL = values();
+
+        /** The type's name in the "type" property. */
+        private final String wireName;
+
+        /**
+         * Creates a message type.
+         * @param setWireName the type's name in the "type" property
+         */
+        Type(final String setWireName) {
+            wireName = setWireName;
+        }
+
+        /**
+         * Gets the type's name as it appears in the "type" property.
+         * @return the wire name
+         */
+        public String getWireName() {
+            return wireName;
+        }
+
+        /**
+         * Looks up a type by its name in the "type" property.
+         * @param name the wire name
+         * @return the type, or UNKNOWN if no type has that name
+         */
+        public static Type fromWireName(final String name) {
+            return fromWireName(name, 0, name.length());
+        }
+
+        /**
+         * Looks up a type by a name that is part of a string, without copying it.
+         * @param text the string
+         * @param start the index of the name's first character
+         * @param end the index just after the name
+         * @return the type, or UNKNOWN if no type has that name
+         */
+        static Type fromWireName(final String text, final int start, final int end) {
+            for (Type type : ALL) {
+                if (type != UNKNOWN && regionIs(text, start, end, type.wireName)) {
+                    return type;
+                }
+            }
+            return UNKNOWN;
+        }
+
+    }
+
+    /**
+     * Receives decoded messages. As a Consumer of JSON objects it also takes already-parsed messages,
+     * which it decodes from the tree.
+     */
+    public interface Listener extends Consumer<JsonObject> {
+
+        /**
+         * Called with each message.
+         * @param message the decoded message
+         */
+        void onMessage(GameMessage message);
+
+        /**
+         * Decodes an already-parsed message and passes it on.
+         * @param json the message's JSON object
+         */
+        @Override
+        default void accept(final JsonObject json) {
+            onMessage(fromJson(json));
+        }
+
+    }
+
+    /** The message's type. */
+    private Type type = Type.UNKNOWN;
+
+    /** The email of the player the message is about, or null. */
+    private String email;
+
+    /** The team of the player the message is about. */
+    private int team;
+
+    /** The player's latitude. */
+    private double latitude;
+
+    /** The player's longitude. */
+    private double longitude;
+
+    /** The captured cell's X index. */
+    private int x;
+
+    /** The captured cell's Y index. */
+    private int y;
+
+    /** The captured target's ID, or null. */
+    private String targetId;
+
+    /** The new game state, as a GameStateID. */
+    private int state;
+
+    /** The server's sequence number for the event, or for the last event a full update includes. */
+    private long seq = NO_SEQ;
+
+    /** The whole message as a JSON tree, only kept for full updates. */
+    private JsonObject fullState;
+
+    /** Creates an empty message for one of the decoders to fill in. */
+    private GameMessage() { }
+
+    /**
+     * Decodes a message from its JSON text.
+     * @param text the JSON text of a message object
+     * @return the decoded message
+     * @throws IllegalArgumentException if the text isn't a JSON object
+     */
+    public static GameMessage parse(final String text) {
+        GameMessage message = new GameMessage();
+        if (!message.scan(text) || message.type == Type.FULL) {
+            try {
+                return fromJson(JsonParser.parseString(text).getAsJsonObject());
+            } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed message: " + e.getMessage(), e);
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Scans a flat JSON object into this message's fields.
+     * @param text the JSON text
+     * @return whether the text was a flat object the scanner could follow; if not, the fields are partly filled
+     */
+    private boolean scan(final String text) {
+        int length = text.length();
+        int position = skipWhitespace(text, 0);
+        if (position >= length || text.charAt(position) != '{') {
+            return false;
+        }
+        position = skipWhitespace(text, position + 1);
+        if (position < length && text.charAt(position) == '}') {
+            return skipWhitespace(text, position + 1) == length;
+        }
+        while (position < length && text.charAt(position) == '"') {
+            int keyEnd = stringEnd(text, position);
+            if (keyEnd < 0) {
+                return false;
+            }
+            Field field = Field.of(text, position + 1, keyEnd);
+            position = skipWhitespace(text, keyEnd + 1);
+            if (position >= length || text.charAt(position) != ':') {
+                return false;
+            }
+            position = readValue(field, text, skipWhitespace(text, position + 1));
+            if (position < 0) {
+                return false;
+            }
+            position = skipWhitespace(text, position);
+            if (position >= length) {
+                return false;
+            } else if (text.charAt(position) == '}') {
+                return skipWhitespace(text, position + 1) == length;
+            } else if (text.charAt(position) != ',') {
+                return false;
+            }
+            position = skipWhitespace(text, position + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Reads one property's value into the matching field, skipping properties no message type uses.
+     * @param field the property
+     * @param text the JSON text
+     * @param start the index of the value's first character
+     * @return the index just after the value, or -1 if the scanner can't handle the value
+     */
+    private int readValue(final Field field, final String text, final int start) {
+        if (start >= text.length()) {
+            return -1;
+        }
+        char first = text.charAt(start);
+        if (first == '{' || first == '[') {
+            return -1;
+        }
+        if (first == '"') {
+            int end = stringEnd(text, start);
+            if (end < 0) {
+                return -1;
+            }
+            switch (field) {
+                case TYPE:
+                    type = Type.fromWireName(text, start + 1, end);
+                    break;
+                case EMAIL:
+                    email = text.substring(start + 1, end);
+                    break;
+                case TARGET_ID:
+                    targetId = text.substring(start + 1, end);
+                    break;
+                case OTHER:
+                    break;
+                default:
+                    // A number sent as a string; the tree parse converts it
+                    return -1;
+            }
+            return end + 1;
+        }
+        int end = literalEnd(text, start);
+        if (regionIs(text, start, end, "null") || field == Field.OTHER) {
+            return end;
+        }
+        return readNumber(field, text, start, end);
+    }
+
+    /**
+     * Reads a number into the matching field.
+     * @param field the property
+     * @param text the JSON text
+     * @param start the index of the number's first character
+     * @param end the index just after the number
+     * @return end, or -1 if the scanner can't handle the number
+     */
+    private int readNumber(final Field field, final String text, final int start, final int end) {
+        switch (field) {
+            case TEAM:
+            case X:
+            case Y:
+            case STATE:
+                if (!isInteger(text, start, end, MAX_INT_DIGITS)) {
+                    return -1;
+                }
+                int value = (int) integerValue(text, start, end);
+                if (field == Field.TEAM) {
+                    team = value;
+                } else if (field == Field.X) {
+                    x = value;
+                } else if (field == Field.Y) {
+                    y = value;
+                } else {
+                    state = value;
+                }
+                return end;
+            case SEQ:
+                if (!isInteger(text, start, end, MAX_LONG_DIGITS)) {
+                    return -1;
+                }
+                seq = integerValue(text, start, end);
+                return end;
+            case LATITUDE:
+                latitude = decimalValue(text, start, end);
+                return end;
+            case LONGITUDE:
+                longitude = decimalValue(text, start, end);
+                return end;
+            default:
+                // A string property sent as a number or literal; the tree parse converts it
+                return -1;
+        }
+    }
+
+    /**
+     * Determines whether part of a string is exactly another string.
+     * @param text the string
+     * @param start the index of the part's first character
+     * @param end the index just after the part
+     * @param other the string to compare with
+     * @return whether the part equals the other string
+     */
+    private static boolean regionIs(final String text, final int start, final int end, final String other) {
+        return end - start == other.length() && text.regionMatches(start, other, 0, other.length());
+    }
+
+    /**
+     * Skips JSON whitespace.
+     * @param text the JSON text
+     * @param start where to start
+     * @return the index of the next character that isn't whitespace, or the text's length
+     */
+    private static int skipWhitespace(final String text, final int start) {
+        int position = start;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Finds the end of a string without escapes.
+     * @param text the JSON text
+     * @param start the index of the opening quote
+     * @return the index of the closing quote, or -1 if the string has an escape or doesn't end
+     */
+    private static int stringEnd(final String text, final int start) {
+        for (int position = start + 1; position < text.length(); position++) {
+            char c = text.charAt(position);
+            if (c == '"') {
+                return position;
+            } else if (c == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the end of a number or literal.
+     * @param text the JSON text
+     * @param start the index of its first character
+     * @return the index just after it
+     */
+    private static int literalEnd(final String text, final int start) {
+        int position = start;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Determines whether part of a string is a plain integer: an optional minus sign and a limited number of digits.
+     * @param text the JSON text
+     * @param start the index of the first character
+     * @param end the index just after the last character
+     * @param maxDigits the most digits to accept
+     * @return whether the part is a plain integer
+     */
+    private static boolean isInteger(final String text, final int start, final int end, final int maxDigits) {
+        int digitsStart = start;
+        if (digitsStart < end && text.charAt(digitsStart) == '-') {
+            digitsStart++;
+        }
+        if (digitsStart == end || end - digitsStart > maxDigits) {
+            return false;
+        }
+        for (int i = digitsStart; i < end; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of a plain integer checked by isInteger.
+     * @param text the JSON text
+     * @param start the index of the first character
+     * @param end the index just after the last character
+     * @return the value
+     */
+    private static long integerValue(final String text, final int start, final int end) {
+        boolean negative = text.charAt(start) == '-';
+        int digitsStart = start;
+        if (negative) {
+            digitsStart++;
+        }
+        long value = 0;
+        for (int i = digitsStart; i < end; i++) {
+            value = value * TEN + (text.charAt(i) - '0');
+        }
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * Converts a decimal number.
+     * <p>
+     * A number written as at most MAX_FAST_DIGITS digits around an optional point has digits that fit exactly in a
+     * double, as does the power of ten to divide them by, so one division gives the correctly rounded result that
+     * Double.parseDouble would. Other numbers are handed to Double.parseDouble.
+     * @param text the JSON text
+     * @param start the index of the number's first character
+     * @param end the index just after the number
+     * @return the number
+     * @throws NumberFormatException if the text isn't a number
+     */
+    private static double decimalValue(final String text, final int start, final int end) {
+        boolean negative = start < end && text.charAt(start) == '-';
+        int position = start;
+        if (negative) {
+            position++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; position < end; position++) {
+            char c = text.charAt(position);
+            if (c >= '0' && c <= '9' && digitCount < MAX_FAST_DIGITS) {
+                digits = digits * TEN + (c - '0');
+                digitCount++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0 && digitCount > 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (position < end || digitCount == 0 || fractionDigits == 0) {
+            return Double.parseDouble(text.substring(start, end));
+        }
+        double value = digits;
+        if (fractionDigits > 0) {
+            value /= POWERS_OF_TEN[fractionDigits];
+        }
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a message that has already been parsed into a JSON tree.
+     * @param json the message's JSON object
+     * @return the decoded message
+     */
+    public static GameMessage fromJson(final JsonObject json) {
+        GameMessage message = new GameMessage();
+        JsonElement typeElement = json.get("type");
+        if (typeElement != null && typeElement.isJsonPrimitive()) {
+            message.type = Type.fromWireName(typeElement.getAsString());
+        }
+        JsonElement seqElement = json.get("seq");
+        if (seqElement != null && seqElement.isJsonPrimitive()) {
+            message.seq = seqElement.getAsLong();
+        }
+        if (message.type == Type.FULL) {
+            message.fullState = json;
+            return message;
+        }
+        message.email = stringOrNull(json.get("email"));
+        message.targetId = stringOrNull(json.get("targetId"));
+        message.team = intOrZero(json.get("team"));
+        message.x = intOrZero(json.get("x"));
+        message.y = intOrZero(json.get("y"));
+        message.state = intOrZero(json.get("state"));
+        message.latitude = doubleOrZero(json.get("lastLatitude"));
+        message.longitude = doubleOrZero(json.get("lastLongitude"));
+        return message;
+    }
+
+    /**
+     * Reads a string property from a tree.
+     * @param element the property's value, or null if it is missing
+     * @return the string, or null if the property is missing or not a primitive
+     */
+    private static String stringOrNull(final JsonElement element) {
+        if (element == null || !element.isJsonPrimitive()) {
+            return null;
+        }
+        return element.getAsString();
+    }
+
+    /**
+     * Reads an integer property from a tree.
+     * @param element the property's value, or null if it is missing
+     * @return the integer, or 0 if the property is missing or not a primitive
+     */
+    private static int intOrZero(final JsonElement element) {
+        if (element == null || !element.isJsonPrimitive()) {
+            return 0;
+        }
+        return element.getAsInt();
+    }
+
+    /**
+     * Reads a decimal property from a tree.
+     * @param element the property's value, or null if it is missing
+     * @return the number, or 0 if the property is missing or not a primitive
+     */
+    private static double doubleOrZero(final JsonElement element) {
+        if (element == null || !element.isJsonPrimitive()) {
+            return 0;
+        }
+        return element.getAsDouble();
+    }
+
+    /**
+     * Gets the message's type.
+     * @return the type, or UNKNOWN if it isn't one the app handles
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the email of the player the message is about.
+     * @return the email, or null if the message has none
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Gets the team of the player the message is about.
+     * @return the player's TeamID
+     */
+    public int getTeam() {
+        return team;
+    }
+
+    /**
+     * Gets a playerLocation update's latitude.
+     * @return the player's latitude
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Gets a playerLocation update's longitude.
+     * @return the player's longitude
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Gets a playerCellCapture update's cell X index.
+     * @return the cell's X index
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets a playerCellCapture update's cell Y index.
+     * @return the cell's Y index
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets a playerTargetVisit update's target ID.
+     * @return the target's ID, or null if the message has none
+     */
+    public String getTargetId() {
+        return targetId;
+    }
+
+    /**
+     * Gets a gameState update's new state.
+     * @return the state, as a GameStateID
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Gets the server's sequence number for this message. Gameplay events are numbered consecutively; a full update
+     * carries the number of the last event it includes.
+     * @return the sequence number, or NO_SEQ if the server didn't number the message
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Gets a full update's JSON tree, which the Game constructors load from.
+     * @return the whole message, or null if this isn't a full update
+     */
+    public JsonObject getFullState() {
+        return fullState;
+    }
+
+}
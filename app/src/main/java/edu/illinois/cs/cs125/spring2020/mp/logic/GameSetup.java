@@ -27,14 +27,34 @@ public class GameSetup {
         if (cellSize <= 0) {
             return null;
         }
+        return areaMode(invitees, new GridGeometry(area.northeast.latitude, area.northeast.longitude,
+                area.southwest.latitude, area.southwest.longitude, cellSize));
+    }
+
+    /**
+     * Creates a JSON object representing the configuration of a multiplayer area mode game
+     * whose grid has already been computed.
+     * The configuration is valid if there is at least one invitee and a positive (larger than zero) cell size.
+     * @param invitees all players involved in the game (never null)
+     * @param geometry the grid the game will be played on
+     * @return a JSON object usable by the /games/create endpoint or null if the configuration is invalid
+     */
+    public static com.google.gson.JsonObject areaMode(final java.util.List<Invitee> invitees,
+                                                      final GridGeometry geometry) {
+        if (invitees.size() == 0) {
+            return null;
+        }
+        if (geometry.getCellSize() <= 0) {
+            return null;
+        }
 
         JsonObject output = new JsonObject();
         output.addProperty("mode", "area");
-        output.addProperty("cellSize", cellSize);
-        output.addProperty("areaNorth", area.northeast.latitude);
-        output.addProperty("areaEast", area.northeast.longitude);
-        output.addProperty("areaSouth", area.southwest.latitude);
-        output.addProperty("areaWest", area.southwest.longitude);
+        output.addProperty("cellSize", geometry.getCellSize());
+        output.addProperty("areaNorth", geometry.getNorth());
+        output.addProperty("areaEast", geometry.getEast());
+        output.addProperty("areaSouth", geometry.getSouth());
+        output.addProperty("areaWest", geometry.getWest());
 
         JsonArray members = new JsonArray();
         for (Invitee member : invitees) {
@@ -0,0 +1,295 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * Holds the shape of an area mode grid: its boundaries, how many cells it has, and where each line falls.
+ * <p>
+ * Everything here is computed once in the constructor and never changes, so a single instance can be
+ * shared by everything that works with the same game's grid.
+ */
+public final class GridGeometry {
+
+    /** Latitude of the north boundary. */
+    private final double north;
+
+    /** Longitude of the east boundary. */
+    private final double east;
+
+    /** Latitude of the south boundary. */
+    private final double south;
+
+    /** Longitude of the west boundary. */
+    private final double west;
+
+    /** The requested side length of each cell, in meters. */
+    private final int cellSize;
+
+    /** The number of cells between the west and east boundaries. */
+    private final int xCells;
+
+    /** The number of cells between the south and north boundaries. */
+    private final int yCells;
+
+    /** The width of each cell, in degrees of longitude. */
+    private final double cellWidth;
+
+    /** The height of each cell, in degrees of latitude. */
+    private final double cellHeight;
+
+    /** The longitude of each vertical line, from the west boundary to the east boundary. */
+    private final double[] columnEdges;
+
+    /** The latitude of each horizontal line, from the south boundary to the north boundary. */
+    private final double[] rowEdges;
+
+    /**
+     * Computes the grid for an area.
+     * The parameters are in the same order as the AreaDivider constructor's.
+     * @param setNorth latitude of the north boundary
+     * @param setEast longitude of the east boundary
+     * @param setSouth latitude of the south boundary
+     * @param setWest longitude of the west boundary
+     * @param setCellSize the requested side length of each cell, in meters
+     */
+    public GridGeometry(final double setNorth, final double setEast, final double setSouth,
+                        final double setWest, final int setCellSize) {
+        north = setNorth;
+        east = setEast;
+        south = setSouth;
+        west = setWest;
+        cellSize = setCellSize;
+        xCells = countCells(LatLngMath.distance(south, east, south, west), setCellSize);
+        yCells = countCells(LatLngMath.distance(north, west, south, west), setCellSize);
+        cellWidth = (east - west) / xCells;
+        cellHeight = (north - south) / yCells;
+        columnEdges = computeEdges(west, east, cellWidth, xCells);
+        rowEdges = computeEdges(south, north, cellHeight, yCells);
+    }
+
+    /**
+     * Determines how many cells are needed to cover a distance.
+     * @param length the distance to divide, in meters
+     * @param size the side length of each cell, in meters
+     * @return the number of cells of the requested size needed to cover it, or 0 if the size is not positive
+     */
+    private static int countCells(final double length, final int size) {
+        if (length == 0 || size <= 0) {
+            return 0;
+        } else if (length < size) {
+            return 1;
+        } else {
+            return (int) Math.ceil(length / size);
+        }
+    }
+
+    /**
+     * Computes where the lines dividing one direction of the grid fall.
+     * @param start the coordinate of the first boundary
+     * @param end the coordinate of the last boundary
+     * @param step the distance between lines, in degrees
+     * @param cells the number of cells between the boundaries
+     * @return the coordinate of each line, including both boundaries
+     */
+    private static double[] computeEdges(final double start, final double end, final double step, final int cells) {
+        double[] edges = new double[cells + 1];
+        for (int i = 0; i < cells; i++) {
+            edges[i] = start + step * i;
+        }
+        edges[cells] = end;
+        return edges;
+    }
+
+    /**
+     * Gets the latitude of the north boundary.
+     * @return the north boundary
+     */
+    public double getNorth() {
+        return north;
+    }
+
+    /**
+     * Gets the longitude of the east boundary.
+     * @return the east boundary
+     */
+    public double getEast() {
+        return east;
+    }
+
+    /**
+     * Gets the latitude of the south boundary.
+     * @return the south boundary
+     */
+    public double getSouth() {
+        return south;
+    }
+
+    /**
+     * Gets the longitude of the west boundary.
+     * @return the west boundary
+     */
+    public double getWest() {
+        return west;
+    }
+
+    /**
+     * Gets the requested side length of each cell.
+     * @return the cell size, in meters
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Gets the number of cells between the west and east boundaries.
+     * @return the number of cells in the X direction
+     */
+    public int getXCells() {
+        return xCells;
+    }
+
+    /**
+     * Gets the number of cells between the south and north boundaries.
+     * @return the number of cells in the Y direction
+     */
+    public int getYCells() {
+        return yCells;
+    }
+
+    /**
+     * Gets the total number of cells in the grid.
+     * @return the number of cells
+     */
+    public long getCellCount() {
+        return (long) xCells * yCells;
+    }
+
+    /**
+     * Gets the width of each cell.
+     * @return the cell width, in degrees of longitude
+     */
+    public double getCellWidth() {
+        return cellWidth;
+    }
+
+    /**
+     * Gets the height of each cell.
+     * @return the cell height, in degrees of latitude
+     */
+    public double getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * Gets the longitude of a vertical line of the grid.
+     * @param x the line's index: 0 is the west boundary, getXCells() is the east boundary
+     * @return the longitude of the line
+     */
+    public double getColumnEdge(final int x) {
+        return columnEdges[x];
+    }
+
+    /**
+     * Gets the latitude of a horizontal line of the grid.
+     * @param y the line's index: 0 is the south boundary, getYCells() is the north boundary
+     * @return the latitude of the line
+     */
+    public double getRowEdge(final int y) {
+        return rowEdges[y];
+    }
+
+    /**
+     * Returns whether the area has positive size and the cell size is positive.
+     * @return whether this geometry describes a usable grid
+     */
+    public boolean isValid() {
+        return north > south && east > west && cellSize > 0;
+    }
+
+    /**
+     * Determines whether a point is inside the area, including on its boundaries.
+     * @param latitude the point's latitude
+     * @param longitude the point's longitude
+     * @return whether the point is in the area
+     */
+    public boolean contains(final double latitude, final double longitude) {
+        return latitude <= north && latitude >= south && longitude >= west && longitude <= east;
+    }
+
+    /**
+     * Gets the X coordinate of the cell containing the specified longitude.
+     * Points on the line between two cells belong to the eastern one; points on the east boundary
+     * belong to the easternmost column.
+     * @param longitude the longitude
+     * @return the X coordinate of the cell containing the longitude, or -1 if it is outside the area
+     */
+    public int getXIndex(final double longitude) {
+        return findCell(columnEdges, xCells, cellWidth, longitude);
+    }
+
+    /**
+     * Gets the Y coordinate of the cell containing the specified latitude.
+     * Points on the line between two cells belong to the northern one; points on the north boundary
+     * belong to the northernmost row.
+     * @param latitude the latitude
+     * @return the Y coordinate of the cell containing the latitude, or -1 if it is outside the area
+     */
+    public int getYIndex(final double latitude) {
+        return findCell(rowEdges, yCells, cellHeight, latitude);
+    }
+
+    /**
+     * Finds the cell containing a coordinate along one direction of the grid.
+     * @param edges the coordinates of the lines in that direction
+     * @param cells the number of cells in that direction
+     * @param step the distance between lines, in degrees
+     * @param value the coordinate to look up
+     * @return the index of the cell containing the coordinate, or -1 if it is outside the area
+     */
+    private static int findCell(final double[] edges, final int cells, final double step, final double value) {
+        if (cells == 0 || value < edges[0] || value > edges[cells]) {
+            return -1;
+        }
+        int index = Math.min((int) ((value - edges[0]) / step), cells - 1);
+        // The division can land one cell off when the point is right on a line, so settle it against the edges
+        if (value < edges[index]) {
+            index--;
+        } else if (index < cells - 1 && value >= edges[index + 1]) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the packed index of the cell containing the specified location.
+     * A packed index combines both coordinates of a cell into one number: x + y * getXCells().
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @return the packed index of the cell containing the point, or -1 if it is outside the area
+     */
+    public int getCellIndex(final double latitude, final double longitude) {
+        int xIndex = getXIndex(longitude);
+        int yIndex = getYIndex(latitude);
+        if (xIndex < 0 || yIndex < 0) {
+            return -1;
+        }
+        return xIndex + yIndex * xCells;
+    }
+
+    /**
+     * Gets the boundaries of the specified cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return the boundaries of the cell
+     * @throws IndexOutOfBoundsException if the cell isn't in the grid
+     */
+    public LatLngBounds getCellBounds(final int x, final int y) {
+        if (x < 0 || x >= xCells || y < 0 || y >= yCells) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") of " + xCells + "x" + yCells);
+        }
+        return new LatLngBounds(new LatLng(rowEdges[y], columnEdges[x]),
+                new LatLng(rowEdges[y + 1], columnEdges[x + 1]));
+    }
+
+}
@@ -0,0 +1,81 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, for hot paths where a List of Integer would box every element.
+ */
+public final class IntList {
+
+    /** Capacity of a new list. */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The elements, followed by unused capacity. */
+    private int[] elements = new int[INITIAL_CAPACITY];
+
+    /** The number of elements in the list. */
+    private int size;
+
+    /**
+     * Gets the number of elements.
+     * @return the size of the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determines whether the list has no elements.
+     * @return whether the list is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets an element.
+     * @param index the element's position, from 0 (inclusive) to size (exclusive)
+     * @return the element
+     */
+    public int get(final int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        return elements[index];
+    }
+
+    /**
+     * Gets the last element.
+     * @return the most recently added element
+     */
+    public int last() {
+        return get(size - 1);
+    }
+
+    /**
+     * Adds an element to the end of the list.
+     * @param value the element
+     */
+    public void add(final int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size] = value;
+        size++;
+    }
+
+    /**
+     * Removes all elements, keeping the capacity for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the elements in ascending order.
+     */
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+}
@@ -0,0 +1,96 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Location math on raw coordinates, for code that runs on every location update.
+ * <p>
+ * LatLngUtils's coordinate overloads wrap their arguments in LatLng objects before doing any work. These
+ * versions take and return only primitives, so they never allocate. The distance and sameness results
+ * are exactly those of the corresponding LatLngUtils functions.
+ */
+public final class LatLngMath {
+
+    /** Meters per degree of latitude (the same constant LatLngUtils.distance uses). */
+    private static final double LAT_DISTANCE_SCALE = 110574;
+
+    /** Meters per degree of longitude at the equator (the same constant LatLngUtils.distance uses). */
+    private static final double LNG_DISTANCE_SCALE = 111320;
+
+    /** Radians per degree. */
+    private static final double DEG_TO_RAD = Math.PI / 180;
+
+    /** Tolerance for coordinate comparisons (the same tolerance LatLngUtils.same uses). */
+    private static final double COMPARE_EPSILON = 0.0000001;
+
+    /** Degrees in a full circle. */
+    private static final double FULL_CIRCLE = 360;
+
+    /**
+     * Private constructor to prevent creating instances.
+     */
+    private LatLngMath() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Computes the distance between two points.
+     * @param oneLat the latitude of one point
+     * @param oneLng the longitude of that point
+     * @param anotherLat the latitude of another point
+     * @param anotherLng the longitude of that other point
+     * @return the distance between the two points, in meters (the same as LatLngUtils.distance)
+     */
+    public static double distance(final double oneLat, final double oneLng,
+                                  final double anotherLat, final double anotherLng) {
+        double latRadians = DEG_TO_RAD * oneLat;
+        double latDistance = LAT_DISTANCE_SCALE * (oneLat - anotherLat);
+        double lngDistance = LNG_DISTANCE_SCALE * (oneLng - anotherLng) * Math.cos(latRadians);
+        return Math.sqrt(latDistance * latDistance + lngDistance * lngDistance);
+    }
+
+    /**
+     * Determines whether two coordinates are similar enough to be considered the same.
+     * @param one a coordinate of one point
+     * @param another the corresponding coordinate of the other point
+     * @return whether they're effectively the same coordinate
+     */
+    public static boolean same(final double one, final double another) {
+        return Math.abs(one - another) < COMPARE_EPSILON;
+    }
+
+    /**
+     * Determines whether two points are similar enough to be considered the same spot.
+     * @param oneLat the latitude of one point
+     * @param oneLng the longitude of that point
+     * @param anotherLat the latitude of another point
+     * @param anotherLng the longitude of that other point
+     * @return whether they're the same place
+     */
+    public static boolean same(final double oneLat, final double oneLng,
+                               final double anotherLat, final double anotherLng) {
+        return same(oneLat, anotherLat) && same(oneLng, anotherLng);
+    }
+
+    /**
+     * Computes the initial bearing of the great circle path from one point to another.
+     * @param fromLat the latitude of the starting point
+     * @param fromLng the longitude of the starting point
+     * @param toLat the latitude of the destination
+     * @param toLng the longitude of the destination
+     * @return the bearing in degrees clockwise from north, from 0 (inclusive) to 360 (exclusive)
+     */
+    public static double bearing(final double fromLat, final double fromLng,
+                                 final double toLat, final double toLng) {
+        double fromLatRadians = DEG_TO_RAD * fromLat;
+        double toLatRadians = DEG_TO_RAD * toLat;
+        double lngDelta = DEG_TO_RAD * (toLng - fromLng);
+        double y = Math.sin(lngDelta) * Math.cos(toLatRadians);
+        double x = Math.cos(fromLatRadians) * Math.sin(toLatRadians)
+                - Math.sin(fromLatRadians) * Math.cos(toLatRadians) * Math.cos(lngDelta);
+        double degrees = Math.toDegrees(Math.atan2(y, x));
+        if (degrees < 0) {
+            degrees += FULL_CIRCLE;
+        }
+        return degrees;
+    }
+
+}
@@ -3,12 +3,23 @@ package edu.illinois.cs.cs125.spring2020.mp.logic;
 import com.google.android.gms.maps.model.LatLng;
 
 /**
- * Holds a method to determine whether two lines cross.
+ * Holds methods to determine whether two lines cross.
  * <p>
- * The implementation given here works. You do not need to change it.
+ * Lines that share an endpoint are just touching, not crossing. Parallel lines, including collinear overlapping
+ * ones, don't cross. A line whose endpoint lies on the middle of the other line does cross it. Points within
+ * TOUCH_TOLERANCE of each other (the tolerance LatLngUtils.same uses) count as the same.
  */
 public class LineCrossDetector {
 
+    /** Number of values describing each line in a batch: start latitude and longitude, end latitude and longitude. */
+    public static final int SEGMENT_SIZE = 4;
+
+    /** Distance in degrees within which points count as the same. */
+    private static final double TOUCH_TOLERANCE = 0.0000001;
+
+    /** Largest sine of the angle between two lines for them to count as parallel. */
+    private static final double PARALLEL_TOLERANCE = 0.0000001;
+
     /**
      * Determines whether two lines cross on a map.
      * @param firstStart an endpoint of one line
@@ -19,79 +30,89 @@ public class LineCrossDetector {
      */
     public static boolean linesCross(final LatLng firstStart, final LatLng firstEnd,
                                      final LatLng secondStart, final LatLng secondEnd) {
-        if (LatLngUtils.same(firstEnd, secondStart) || LatLngUtils.same(secondEnd, firstStart)
-                || LatLngUtils.same(firstStart, secondStart) || LatLngUtils.same(firstEnd, secondEnd)) {
+        return segmentsCross(firstStart.latitude, firstStart.longitude, firstEnd.latitude, firstEnd.longitude,
+                secondStart.latitude, secondStart.longitude, secondEnd.latitude, secondEnd.longitude);
+    }
+
+    /**
+     * Determines whether two lines cross on a map, given their endpoints' raw coordinates.
+     * <p>
+     * This uses orientation tests: cross products of the lines' directions say whether they are parallel and
+     * where along each line they meet, with no special case for vertical lines.
+     * @param firstStartLat latitude of an endpoint of one line
+     * @param firstStartLng longitude of that endpoint
+     * @param firstEndLat latitude of the other endpoint of that line
+     * @param firstEndLng longitude of that other endpoint
+     * @param secondStartLat latitude of an endpoint of another line
+     * @param secondStartLng longitude of that endpoint
+     * @param secondEndLat latitude of the other endpoint of that other line
+     * @param secondEndLng longitude of that other endpoint
+     * @return whether the two lines cross
+     */
+    public static boolean segmentsCross(final double firstStartLat, final double firstStartLng,
+                                        final double firstEndLat, final double firstEndLng,
+                                        final double secondStartLat, final double secondStartLng,
+                                        final double secondEndLat, final double secondEndLng) {
+        if (LatLngMath.same(firstEndLat, firstEndLng, secondStartLat, secondStartLng)
+                || LatLngMath.same(secondEndLat, secondEndLng, firstStartLat, firstStartLng)
+                || LatLngMath.same(firstStartLat, firstStartLng, secondStartLat, secondStartLng)
+                || LatLngMath.same(firstEndLat, firstEndLng, secondEndLat, secondEndLng)) {
             // The lines are just touching, not crossing each other
             return false;
         }
+        double firstLat = firstEndLat - firstStartLat;
+        double firstLng = firstEndLng - firstStartLng;
+        double firstLength = Math.sqrt(firstLat * firstLat + firstLng * firstLng);
+        double secondLat = secondEndLat - secondStartLat;
+        double secondLng = secondEndLng - secondStartLng;
+        double secondLength = Math.sqrt(secondLat * secondLat + secondLng * secondLng);
 
-        boolean firstVertical = LatLngUtils.same(firstStart.longitude, firstEnd.longitude);
-        boolean secondVertical = LatLngUtils.same(secondStart.longitude, secondEnd.longitude);
-        if (firstVertical && secondVertical) {
-            // They're parallel vertical lines
+        // The cross product of the directions is zero for parallel lines
+        double denominator = firstLng * secondLat - firstLat * secondLng;
+        if (Math.abs(denominator) <= PARALLEL_TOLERANCE * firstLength * secondLength) {
             return false;
-        } else if (firstVertical) {
-            return lineCrossesVertical(firstStart, firstEnd, secondStart, secondEnd);
-        } else if (secondVertical) {
-            return lineCrossesVertical(secondStart, secondEnd, firstStart, firstEnd);
         }
 
-        double firstSlope = lineSlope(firstStart, firstEnd);
-        double secondSlope = lineSlope(secondStart, secondEnd);
-        if (LatLngUtils.same(firstSlope, secondSlope)) {
-            // They're parallel
-            return false;
-        }
+        // Where the lines meet, as a fraction of the way along each line (from orientations of the endpoints)
+        double startLat = secondStartLat - firstStartLat;
+        double startLng = secondStartLng - firstStartLng;
+        double alongFirst = (startLng * secondLat - startLat * secondLng) / denominator;
+        double alongSecond = (startLng * firstLat - startLat * firstLng) / denominator;
 
-        double firstIntercept = firstStart.latitude - firstSlope * firstStart.longitude;
-        double secondIntercept = secondStart.latitude - secondSlope * secondStart.longitude;
-        double intersectionX = -(firstIntercept - secondIntercept) / (firstSlope - secondSlope);
-        if (LatLngUtils.same(intersectionX, firstStart.longitude)
-                || LatLngUtils.same(intersectionX, firstEnd.longitude)
-                || LatLngUtils.same(intersectionX, secondStart.longitude)
-                || LatLngUtils.same(intersectionX, secondEnd.longitude)) {
-            // Endpoint of one line is in the middle of the other line
-            return true;
-        }
-        boolean onFirst = intersectionX > Math.min(firstStart.longitude, firstEnd.longitude)
-                && intersectionX < Math.max(firstStart.longitude, firstEnd.longitude);
-        boolean onSecond = intersectionX > Math.min(secondStart.longitude, secondEnd.longitude)
-                && intersectionX < Math.max(secondStart.longitude, secondEnd.longitude);
-        return onFirst && onSecond;
+        // Meeting within the tolerance of an end still counts: an endpoint on the other line's middle
+        double firstSlack = TOUCH_TOLERANCE / firstLength;
+        double secondSlack = TOUCH_TOLERANCE / secondLength;
+        return alongFirst >= -firstSlack && alongFirst <= 1 + firstSlack
+                && alongSecond >= -secondSlack && alongSecond <= 1 + secondSlack;
     }
 
     /**
-     * Determines if a non-vertical line crosses a vertical line.
-     * @param verticalStart one endpoint of the vertical line
-     * @param verticalEnd the other endpoint of the vertical line (same longitude as verticalStart)
-     * @param lineStart one endpoint of the non-vertical line
-     * @param lineEnd the other endpoint of the non-vertical line
-     * @return whether the lines cross
+     * Finds the first of a batch of lines that crosses a given line.
+     * <p>
+     * Each line is judged exactly as segmentsCross would. The batch is a flat array holding SEGMENT_SIZE values
+     * per line: start latitude, start longitude, end latitude, end longitude. Line i starts at
+     * segments[i * SEGMENT_SIZE].
+     * @param startLat latitude of an endpoint of the given line
+     * @param startLng longitude of that endpoint
+     * @param endLat latitude of the other endpoint of the given line
+     * @param endLng longitude of that other endpoint
+     * @param segments coordinates of the batch of lines
+     * @param from the number of the first line in the batch to check
+     * @param to one more than the number of the last line to check
+     * @return the number of the first line in the range that crosses the given line, or -1 if none do
      */
-    private static boolean lineCrossesVertical(final LatLng verticalStart, final LatLng verticalEnd,
-                                               final LatLng lineStart, final LatLng lineEnd) {
-        if (Math.max(lineStart.longitude, lineEnd.longitude) < verticalStart.longitude
-                || Math.min(lineStart.longitude, lineEnd.longitude) > verticalStart.longitude) {
-            return false;
-        }
-        double slope = lineSlope(lineStart, lineEnd);
-        double yAtVert = slope * (verticalStart.longitude - lineStart.longitude) + lineStart.latitude;
-        if (LatLngUtils.same(yAtVert, verticalStart.latitude) || LatLngUtils.same(yAtVert, verticalEnd.latitude)) {
-            // Ends on the middle of the non-vertical line
-            return true;
+    public static int firstCrossing(final double startLat, final double startLng,
+                                    final double endLat, final double endLng,
+                                    final double[] segments, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            int offset = i * SEGMENT_SIZE;
+            if (segmentsCross(startLat, startLng, endLat, endLng,
+                    segments[offset], segments[offset + 1],
+                    segments[offset + 2], segments[offset + SEGMENT_SIZE - 1])) {
+                return i;
+            }
         }
-        return yAtVert > Math.min(verticalStart.latitude, verticalEnd.latitude)
-                && yAtVert < Math.max(verticalStart.latitude, verticalEnd.latitude);
-    }
-
-    /**
-     * Determines the slope of a non-vertical line.
-     * @param start one endpoint of the line
-     * @param end the other endpoint
-     * @return the slope, treating longitude as X and latitude as Y
-     */
-    private static double lineSlope(final LatLng start, final LatLng end) {
-        return (end.latitude - start.latitude) / (end.longitude - start.longitude);
+        return -1;
     }
 
 }
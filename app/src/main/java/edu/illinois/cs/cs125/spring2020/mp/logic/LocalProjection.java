@@ -0,0 +1,172 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Converts coordinates near a game into flat X/Y meters, so distances need no trigonometry or square roots.
+ * <p>
+ * This is an equirectangular projection anchored at a point in the middle of the game: X is meters east of
+ * the anchor and Y is meters north of it, using the same scale factors as LatLngUtils.distance. The only
+ * difference from that formula is which latitude's cosine scales longitude: LatLngUtils uses the first
+ * point's latitude, the projection uses the anchor's. Over the latitude span of a game that difference is
+ * tiny, and getMaxRelativeError reports exactly how large it can get. Callers that must agree with
+ * LatLngUtils.distance exactly can use compareToRange, which says when the projection alone can't decide.
+ */
+public final class LocalProjection {
+
+    /** Meters per degree of latitude (the same constant LatLngUtils.distance uses). */
+    private static final double LATITUDE_SCALE = 110574;
+
+    /** Meters per degree of longitude at the equator (the same constant LatLngUtils.distance uses). */
+    private static final double LONGITUDE_SCALE = 111320;
+
+    /** Extra relative slack covering floating-point rounding in the range comparisons. */
+    private static final double ROUNDING_SLACK = 1e-9;
+
+    /** Latitude of the anchor. */
+    private final double anchorLatitude;
+
+    /** Longitude of the anchor. */
+    private final double anchorLongitude;
+
+    /** Meters per degree of longitude at the anchor's latitude. */
+    private final double longitudeScale;
+
+    /** Largest relative difference from LatLngUtils.distance for points between the southern and northern limits. */
+    private final double maxRelativeError;
+
+    /**
+     * Creates a projection anchored at a point.
+     * @param setAnchorLatitude latitude of the anchor, usually the middle of the game
+     * @param setAnchorLongitude longitude of the anchor
+     * @param southLimit the southernmost latitude that will be passed as the first point of a distance
+     * @param northLimit the northernmost latitude that will be passed as the first point of a distance
+     */
+    public LocalProjection(final double setAnchorLatitude, final double setAnchorLongitude,
+                           final double southLimit, final double northLimit) {
+        anchorLatitude = setAnchorLatitude;
+        anchorLongitude = setAnchorLongitude;
+        double anchorCos = Math.cos(Math.toRadians(anchorLatitude));
+        longitudeScale = LONGITUDE_SCALE * anchorCos;
+        // The error is largest where the other latitude's cosine is farthest from the anchor's:
+        // at one of the limits, or at the equator if the span crosses it
+        double error = Math.max(Math.abs(anchorCos / Math.cos(Math.toRadians(southLimit)) - 1),
+                Math.abs(anchorCos / Math.cos(Math.toRadians(northLimit)) - 1));
+        if (southLimit < 0 && northLimit > 0) {
+            error = Math.max(error, 1 - anchorCos);
+        }
+        maxRelativeError = error;
+    }
+
+    /**
+     * Creates a projection anchored at the middle of a set of points, accurate for distances measured from them.
+     * @param latitudes latitudes of the points
+     * @param longitudes longitudes of the points (same order as latitudes)
+     * @return a projection centered on the points' bounding box
+     */
+    public static LocalProjection around(final double[] latitudes, final double[] longitudes) {
+        if (latitudes.length == 0) {
+            return new LocalProjection(0, 0, 0, 0);
+        }
+        double south = latitudes[0];
+        double north = latitudes[0];
+        double west = longitudes[0];
+        double east = longitudes[0];
+        for (int i = 1; i < latitudes.length; i++) {
+            south = Math.min(south, latitudes[i]);
+            north = Math.max(north, latitudes[i]);
+            west = Math.min(west, longitudes[i]);
+            east = Math.max(east, longitudes[i]);
+        }
+        return new LocalProjection((south + north) / 2, (west + east) / 2, south, north);
+    }
+
+    /**
+     * Converts a longitude to meters east of the anchor.
+     * @param longitude the longitude
+     * @return the X coordinate, in meters
+     */
+    public double toX(final double longitude) {
+        return (longitude - anchorLongitude) * longitudeScale;
+    }
+
+    /**
+     * Converts a latitude to meters north of the anchor.
+     * @param latitude the latitude
+     * @return the Y coordinate, in meters
+     */
+    public double toY(final double latitude) {
+        return (latitude - anchorLatitude) * LATITUDE_SCALE;
+    }
+
+    /**
+     * Computes the squared distance between two projected points.
+     * @param oneX X coordinate of one point
+     * @param oneY Y coordinate of that point
+     * @param anotherX X coordinate of the other point
+     * @param anotherY Y coordinate of the other point
+     * @return the squared distance, in square meters
+     */
+    public static double squaredDistance(final double oneX, final double oneY,
+                                         final double anotherX, final double anotherY) {
+        double dx = oneX - anotherX;
+        double dy = oneY - anotherY;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Determines whether two projected points are closer than a distance, according to the projection.
+     * @param oneX X coordinate of one point
+     * @param oneY Y coordinate of that point
+     * @param anotherX X coordinate of the other point
+     * @param anotherY Y coordinate of the other point
+     * @param range the distance, in meters
+     * @return whether the projected distance is less than the range
+     */
+    public static boolean isWithin(final double oneX, final double oneY,
+                                   final double anotherX, final double anotherY, final double range) {
+        return squaredDistance(oneX, oneY, anotherX, anotherY) < range * range;
+    }
+
+    /**
+     * Decides whether LatLngUtils.distance would put two points closer than a range, using only the projection
+     * when it is accurate enough to be sure.
+     * @param oneX X coordinate of the first point, whose latitude must be within this projection's limits
+     * @param oneY Y coordinate of that point
+     * @param anotherX X coordinate of the other point
+     * @param anotherY Y coordinate of the other point
+     * @param range the distance, in meters
+     * @return -1 if the points are certainly within range, 1 if they certainly aren't, or 0 if it's too close
+     *         to call and the caller should compute the distance with LatLngUtils
+     */
+    public int compareToRange(final double oneX, final double oneY,
+                              final double anotherX, final double anotherY, final double range) {
+        double squared = squaredDistance(oneX, oneY, anotherX, anotherY);
+        double inner = range * (1 - maxRelativeError - ROUNDING_SLACK);
+        double outer = getOuterRange(range);
+        if (squared < inner * inner) {
+            return -1;
+        } else if (squared >= outer * outer) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the projected distance beyond which compareToRange always says two points are out of range.
+     * Searching a spatial index with this radius finds every point that could be in range.
+     * @param range the distance, in meters
+     * @return the largest projected distance that might still be within range, in meters
+     */
+    public double getOuterRange(final double range) {
+        return range * (1 + maxRelativeError + ROUNDING_SLACK);
+    }
+
+    /**
+     * Gets how far projected distances can be from LatLngUtils.distance, for first points within the limits.
+     * A projected distance d corresponds to a LatLngUtils distance between d / (1 + e) and d / (1 - e).
+     * @return the largest relative error e
+     */
+    public double getMaxRelativeError() {
+        return maxRelativeError;
+    }
+
+}
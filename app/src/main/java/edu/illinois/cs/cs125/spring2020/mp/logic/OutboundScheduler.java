@@ -0,0 +1,239 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.neovisionaries.ws.client.WebSocket;
+import com.neovisionaries.ws.client.WebSocketState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides when gameplay messages go out over the websocket, so that each radio wakeup carries as much as it can.
+ * <p>
+ * Captures (cellCapture and targetVisit) and resume requests are sent immediately, along with everything queued
+ * before them. A locationUpdate is sent at the end of the current turn of the UI thread's message loop. Any
+ * locationUpdate still queued when a newer one arrives is dropped, since the newer one supersedes it. A backlog of
+ * location broadcasts delivered back to back therefore costs a single frame. Anything else waits up to BATCH_DELAY
+ * milliseconds to go out together with whatever follows it.
+ * <p>
+ * The websocket silently discards frames given before it opens, so messages wait while it is connecting. Messages
+ * for a socket that has closed are dropped and counted. setSocket moves the scheduler to a new connection. With an
+ * outbox set, captures are also recorded there, so they can be sent again after a dropped connection.
+ * <p>
+ * All methods must be called on the thread of the handler's looper, normally the UI thread.
+ */
+public final class OutboundScheduler {
+
+    /** How long (milliseconds) a message with no urgency may wait for others to share its wakeup. */
+    private static final long BATCH_DELAY = 100;
+
+    /** How often (milliseconds) to check whether a connecting websocket has opened. */
+    private static final long CONNECT_POLL_DELAY = 50;
+
+    /** The websocket to send on. */
+    private WebSocket socket;
+
+    /** The handler that runs scheduled flushes, or null to use the UI thread's once one is needed. */
+    private Handler handler;
+
+    /** Messages waiting to be sent, oldest first. */
+    private final List<JsonObject> queue = new ArrayList<>();
+
+    /** Sends everything queued, when run by the handler. */
+    private final Runnable flushTask = this::flush;
+
+    /** Whether flushTask is waiting in the handler's queue. */
+    private boolean flushScheduled;
+
+    /** Whether flushTask was posted with no delay, so it can't be brought any sooner. */
+    private boolean flushImminent;
+
+    /** Where captures are recorded until the server confirms them, or null to not record them. */
+    private CaptureOutbox outbox;
+
+    /** Whether close has been called. */
+    private boolean closed;
+
+    /** Number of messages handed to the websocket. */
+    private int sentCount;
+
+    /** Number of locationUpdate messages superseded by a newer one before they could be sent. */
+    private int coalescedCount;
+
+    /** Number of messages discarded because the socket or the scheduler had closed. */
+    private int droppedCount;
+
+    /**
+     * Creates a scheduler for a websocket that runs its flushes on the UI thread.
+     * <p>
+     * The UI thread's handler is only looked up when a flush first needs scheduling, so a game that only sends
+     * captures works without a looper.
+     * @param setSocket the websocket to send on
+     */
+    public OutboundScheduler(final WebSocket setSocket) {
+        socket = setSocket;
+    }
+
+    /**
+     * Creates a scheduler for a websocket.
+     * @param setSocket the websocket to send on
+     * @param setHandler the handler to run flushes on
+     */
+    public OutboundScheduler(final WebSocket setSocket, final Handler setHandler) {
+        socket = setSocket;
+        handler = setHandler;
+    }
+
+    /**
+     * Queues a message to be sent at the right time for its type.
+     * @param message the message to send
+     */
+    public void send(final JsonObject message) {
+        if (closed) {
+            droppedCount++;
+            return;
+        }
+        String type = typeOf(message);
+        if ("locationUpdate".equals(type)) {
+            for (int i = queue.size() - 1; i >= 0; i--) {
+                if ("locationUpdate".equals(typeOf(queue.get(i)))) {
+                    queue.remove(i);
+                    coalescedCount++;
+                }
+            }
+            queue.add(message);
+            scheduleFlush(0);
+        } else if ("cellCapture".equals(type) || "targetVisit".equals(type) || "resume".equals(type)) {
+            if (outbox != null) {
+                outbox.add(message);
+            }
+            queue.add(message);
+            flush();
+        } else {
+            queue.add(message);
+            scheduleFlush(BATCH_DELAY);
+        }
+    }
+
+    /**
+     * Sends everything queued now.
+     */
+    public void flush() {
+        if (flushScheduled) {
+            handler.removeCallbacks(flushTask);
+            flushScheduled = false;
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        WebSocketState state = socket.getState();
+        if (state == WebSocketState.CREATED || state == WebSocketState.CONNECTING) {
+            scheduleFlush(CONNECT_POLL_DELAY);
+            return;
+        }
+        if (state == WebSocketState.CLOSED) {
+            droppedCount += queue.size();
+        } else {
+            for (JsonObject message : queue) {
+                WireCodec.send(socket, message);
+            }
+            sentCount += queue.size();
+        }
+        queue.clear();
+    }
+
+    /**
+     * Switches to a new connection, sending anything queued on it.
+     * @param setSocket the new websocket
+     */
+    public void setSocket(final WebSocket setSocket) {
+        socket = setSocket;
+        if (!queue.isEmpty()) {
+            scheduleFlush(0);
+        }
+    }
+
+    /**
+     * Sets where to record captures until the server confirms them.
+     * @param setOutbox the outbox, or null to stop recording captures
+     */
+    public void setOutbox(final CaptureOutbox setOutbox) {
+        outbox = setOutbox;
+    }
+
+    /**
+     * Stops sending. Anything still queued is dropped, as is anything given later.
+     */
+    public void close() {
+        if (flushScheduled) {
+            handler.removeCallbacks(flushTask);
+            flushScheduled = false;
+        }
+        droppedCount += queue.size();
+        queue.clear();
+        closed = true;
+    }
+
+    /**
+     * Gets the number of messages handed to the websocket.
+     * @return the number of messages sent
+     */
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Gets the number of locationUpdate messages left unsent because a newer one replaced them.
+     * @return the number of messages coalesced away
+     */
+    public int getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Gets the number of messages discarded because the socket had closed or the scheduler was closed.
+     * @return the number of messages dropped
+     */
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Makes sure a flush will happen within a delay, bringing forward one already scheduled for later.
+     * @param delay the longest to wait (milliseconds)
+     */
+    private void scheduleFlush(final long delay) {
+        if (flushScheduled && (flushImminent || delay > 0)) {
+            return;
+        }
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        handler.removeCallbacks(flushTask);
+        flushScheduled = true;
+        flushImminent = delay == 0;
+        if (flushImminent) {
+            handler.post(flushTask);
+        } else {
+            handler.postDelayed(flushTask, delay);
+        }
+    }
+
+    /**
+     * Gets a message's type.
+     * @param message the message
+     * @return the type property, or null if it has none
+     */
+    private static String typeOf(final JsonObject message) {
+        JsonElement type = message.get("type");
+        if (type == null || !type.isJsonPrimitive()) {
+            return null;
+        }
+        return type.getAsString();
+    }
+
+}
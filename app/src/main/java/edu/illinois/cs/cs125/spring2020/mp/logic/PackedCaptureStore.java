@@ -0,0 +1,119 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Keeps track of which team has captured each cell of an area mode grid, using memory for every cell.
+ * <p>
+ * Cells are numbered by their packed index (x + y * xCells, as in GridGeometry). Each cell takes one nibble, two
+ * to a byte: the owning team in the low three bits and whether the current player captured the cell in the high
+ * one, so half a byte per cell holds everything. A cell is captured exactly when it has an owner. Each team's
+ * cell count is kept up to date on every capture, so scores and "has this player captured anything yet" are
+ * answered without scanning the grid.
+ */
+public final class PackedCaptureStore implements CaptureStore {
+
+    /** Bits per cell. */
+    private static final int NIBBLE_BITS = 4;
+
+    /** Mask for a cell's nibble. */
+    private static final int NIBBLE_MASK = 0xF;
+
+    /** Mask for the owning team in a nibble. */
+    private static final int TEAM_MASK = 0x7;
+
+    /** Bit for "captured by the current player" in a nibble. */
+    private static final int MINE_BIT = 0x8;
+
+    /** The number of cells in each row. */
+    private final int xCells;
+
+    /** Each cell's nibble, the even-numbered cell of a pair in the low half of their byte. */
+    private final byte[] nibbles;
+
+    /** The number of cells owned by each team, indexed by TeamID. */
+    private final int[] teamCounts = new int[TeamID.MAX_TEAM + 1];
+
+    /** The number of cells captured by the current player. */
+    private int mineCount;
+
+    /**
+     * Creates an empty store for a grid.
+     * @param setXCells the number of cells in the X direction
+     * @param setYCells the number of cells in the Y direction
+     */
+    public PackedCaptureStore(final int setXCells, final int setYCells) {
+        long cells = (long) setXCells * setYCells;
+        if (setXCells < 0 || setYCells < 0 || cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large for a packed store: " + cells + " cells");
+        }
+        xCells = setXCells;
+        nibbles = new byte[(int) ((cells + 1) >>> 1)];
+    }
+
+    /**
+     * Gets the packed index of a cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return the cell's packed index
+     */
+    private int index(final int x, final int y) {
+        return x + y * xCells;
+    }
+
+    /**
+     * Gets a cell's nibble.
+     * @param index the cell's packed index
+     * @return the nibble: owning team and "mine" bit
+     */
+    private int nibble(final int index) {
+        return (nibbles[index >>> 1] >>> ((index & 1) * NIBBLE_BITS)) & NIBBLE_MASK;
+    }
+
+    @Override
+    public boolean isCaptured(final int x, final int y) {
+        return (nibble(index(x, y)) & TEAM_MASK) != TeamID.OBSERVER;
+    }
+
+    @Override
+    public boolean isMine(final int x, final int y) {
+        return (nibble(index(x, y)) & MINE_BIT) != 0;
+    }
+
+    @Override
+    public int getOwner(final int x, final int y) {
+        return nibble(index(x, y)) & TEAM_MASK;
+    }
+
+    @Override
+    public void capture(final int x, final int y, final int team, final boolean byCurrentPlayer) {
+        int index = index(x, y);
+        int old = nibble(index);
+        if ((old & TEAM_MASK) != TeamID.OBSERVER) {
+            teamCounts[old & TEAM_MASK]--;
+        }
+        teamCounts[team]++;
+        int updated = (old & MINE_BIT) | team;
+        if (byCurrentPlayer && (old & MINE_BIT) == 0) {
+            updated |= MINE_BIT;
+            mineCount++;
+        }
+        int shift = (index & 1) * NIBBLE_BITS;
+        int pair = nibbles[index >>> 1] & ~(NIBBLE_MASK << shift);
+        nibbles[index >>> 1] = (byte) (pair | (updated << shift));
+    }
+
+    @Override
+    public boolean hasMine() {
+        return mineCount > 0;
+    }
+
+    @Override
+    public int getMineCount() {
+        return mineCount;
+    }
+
+    @Override
+    public int getTeamCount(final int team) {
+        return teamCounts[team];
+    }
+
+}
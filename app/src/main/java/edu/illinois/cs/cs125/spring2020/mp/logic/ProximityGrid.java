@@ -0,0 +1,158 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import java.util.Arrays;
+
+/**
+ * A uniform hash grid over a fixed set of points, for finding the points near a location without
+ * looking at all of them.
+ * <p>
+ * Points are given as projected X/Y meters (see LocalProjection) and numbered by their position in the
+ * arrays passed to the constructor. Each point is filed under the square cell it falls in. Only occupied
+ * cells are stored: an open-addressing table maps a cell's packed coordinates to its bucket, and the
+ * buckets are consecutive ranges of one int array. With cells about as wide as the query radius, a query
+ * looks at four to nine cells no matter how many points there are.
+ */
+public final class ProximityGrid {
+
+    /** Fibonacci hashing multiplier (2^64 divided by the golden ratio), which spreads neighboring cells apart. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Mask for the low 32 bits of a long. */
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+
+    /** Fraction of a cell queries reach past their radius, so rounding can't drop a point right on the edge. */
+    private static final double EDGE_SLACK = 1e-9;
+
+    /** The width and height of each cell, in meters. */
+    private final double cellSize;
+
+    /** Packed cell coordinates of each slot of the hash table. */
+    private final long[] slotCells;
+
+    /** Bucket number of each slot of the hash table, or -1 if the slot is empty. */
+    private final int[] slotBuckets;
+
+    /** Where each bucket starts in points; bucket b is points[bucketStarts[b]] up to points[bucketStarts[b + 1]]. */
+    private final int[] bucketStarts;
+
+    /** Point numbers grouped by bucket, ascending within each bucket. */
+    private final int[] points;
+
+    /**
+     * Files a set of points into a grid.
+     * @param xs the X coordinate of each point, in meters
+     * @param ys the Y coordinate of each point, in meters (same order as xs)
+     * @param setCellSize the width of each cell in meters, ideally about the radius of the queries to come
+     */
+    public ProximityGrid(final double[] xs, final double[] ys, final double setCellSize) {
+        if (!(setCellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + setCellSize);
+        }
+        cellSize = setCellSize;
+        int capacity = Integer.highestOneBit(Math.max(xs.length, 1)) << 2;
+        slotCells = new long[capacity];
+        slotBuckets = new int[capacity];
+        Arrays.fill(slotBuckets, -1);
+
+        // Number the occupied cells and count the points in each
+        int[] pointBuckets = new int[xs.length];
+        int[] counts = new int[xs.length + 1];
+        int buckets = 0;
+        for (int i = 0; i < xs.length; i++) {
+            long cell = pack(cellOf(xs[i]), cellOf(ys[i]));
+            int slot = find(cell);
+            if (slotBuckets[slot] < 0) {
+                slotCells[slot] = cell;
+                slotBuckets[slot] = buckets;
+                buckets++;
+            }
+            pointBuckets[i] = slotBuckets[slot];
+            counts[pointBuckets[i] + 1]++;
+        }
+
+        // Lay the buckets out one after another
+        bucketStarts = new int[buckets + 1];
+        for (int b = 0; b < buckets; b++) {
+            bucketStarts[b + 1] = bucketStarts[b] + counts[b + 1];
+        }
+        int[] filled = Arrays.copyOf(bucketStarts, buckets);
+        points = new int[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            points[filled[pointBuckets[i]]] = i;
+            filled[pointBuckets[i]]++;
+        }
+    }
+
+    /**
+     * Gets the cell coordinate containing a projected coordinate.
+     * @param coordinate an X or Y coordinate, in meters
+     * @return the cell's X or Y coordinate
+     */
+    private int cellOf(final double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs cell coordinates into one value.
+     * @param cellX the cell's X coordinate
+     * @param cellY the cell's Y coordinate
+     * @return the packed coordinates
+     */
+    private static long pack(final int cellX, final int cellY) {
+        return ((long) cellX << Integer.SIZE) | (cellY & LOW_BITS);
+    }
+
+    /**
+     * Finds the slot for a cell: either the slot holding it or the empty slot where it would go.
+     * @param cell the packed cell coordinates
+     * @return the slot's position in the table
+     */
+    private int find(final long cell) {
+        int mask = slotCells.length - 1;
+        int slot = (int) ((cell * HASH_MULTIPLIER) >>> (Long.SIZE - Integer.numberOfTrailingZeros(slotCells.length)));
+        while (slotBuckets[slot] >= 0 && slotCells[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Finds the points that might be within a distance of a location.
+     * <p>
+     * Every point within the radius is included, even one exactly on it, but so are some farther away (up to
+     * about a cell beyond the radius along each axis), so callers still need to check each point's distance.
+     * @param x the location's X coordinate, in meters
+     * @param y the location's Y coordinate, in meters
+     * @param radius the search radius, in meters
+     * @param result list to replace the contents of with the candidate point numbers, in ascending order
+     */
+    public void query(final double x, final double y, final double radius, final IntList result) {
+        result.clear();
+        double reach = radius + cellSize * EDGE_SLACK;
+        int west = cellOf(x - reach);
+        int east = cellOf(x + reach);
+        int south = cellOf(y - reach);
+        int north = cellOf(y + reach);
+        for (int cellX = west; cellX <= east; cellX++) {
+            for (int cellY = south; cellY <= north; cellY++) {
+                int bucket = slotBuckets[find(pack(cellX, cellY))];
+                if (bucket < 0) {
+                    continue;
+                }
+                for (int p = bucketStarts[bucket]; p < bucketStarts[bucket + 1]; p++) {
+                    result.add(points[p]);
+                }
+            }
+        }
+        result.sort();
+    }
+
+    /**
+     * Gets the width of each cell.
+     * @return the cell size, in meters
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+}
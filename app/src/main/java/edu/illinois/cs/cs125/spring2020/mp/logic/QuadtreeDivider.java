@@ -0,0 +1,346 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Divides an area into a quadtree over the cells of its grid.
+ * <p>
+ * Level 0 is the grid itself. Each node at level L covers a square block of 2^L by 2^L cells (clipped at the
+ * north and east boundaries), and the single node at the top level covers the whole area. Nodes only exist
+ * once something has been captured inside them, so a huge, mostly empty area costs nothing beyond its
+ * captured cells. Each node keeps how many of its cells each team owns, which lets zoomed-out views show
+ * ownership without visiting every cell.
+ * <p>
+ * Captures are recorded on the UI thread while tiles may be drawn on another, so the node maps are concurrent.
+ */
+public final class QuadtreeDivider implements CellOwnership {
+
+    /**
+     * Receives the nodes found by a bounding box query.
+     */
+    public interface NodeVisitor {
+
+        /**
+         * Called once for each node.
+         * @param level the node's level
+         * @param x the node's X coordinate at that level
+         * @param y the node's Y coordinate at that level
+         */
+        void visit(int level, int x, int y);
+
+    }
+
+    /** Index of the total number of captured cells in a node's counts. */
+    private static final int TOTAL = TeamID.OBSERVER;
+
+    /** Bit position of the Y coordinate in a node key. */
+    private static final int KEY_Y_SHIFT = 32;
+
+    /** Mask for the X coordinate in a node key. */
+    private static final long KEY_X_MASK = 0xFFFFFFFFL;
+
+    /** Position of the westernmost node coordinate in a node range. */
+    private static final int RANGE_WEST = 0;
+
+    /** Position of the southernmost node coordinate in a node range. */
+    private static final int RANGE_SOUTH = 1;
+
+    /** Position of the easternmost node coordinate in a node range. */
+    private static final int RANGE_EAST = 2;
+
+    /** Position of the northernmost node coordinate in a node range. */
+    private static final int RANGE_NORTH = 3;
+
+    /** The grid at level 0. */
+    private final GridGeometry geometry;
+
+    /** The owner of each level 0 cell. */
+    private final CellOwnership cells;
+
+    /** The top level, whose single node covers the whole area. */
+    private final int depth;
+
+    /** Per-team cell counts of each node containing a capture, for levels 1 to depth (index 0 is unused). */
+    private final List<Map<Long, int[]>> levels = new ArrayList<>();
+
+    /**
+     * Creates a quadtree over a grid.
+     * @param setGeometry the grid to divide
+     * @param setCells where to look up the owner of each cell of the grid
+     */
+    public QuadtreeDivider(final GridGeometry setGeometry, final CellOwnership setCells) {
+        geometry = setGeometry;
+        cells = setCells;
+        int size = Math.max(geometry.getXCells(), geometry.getYCells());
+        int levelCount = 0;
+        while ((1L << levelCount) < size) {
+            levelCount++;
+        }
+        depth = levelCount;
+        for (int i = 0; i <= depth; i++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Gets the top level of the tree.
+     * @return the level whose single node covers the whole area
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the grid at the bottom of the tree.
+     * @return the level 0 grid
+     */
+    public GridGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Packs a node's coordinates into a map key.
+     * @param x the node's X coordinate
+     * @param y the node's Y coordinate
+     * @return the key
+     */
+    private static long nodeKey(final int x, final int y) {
+        return ((long) y << KEY_Y_SHIFT) | (x & KEY_X_MASK);
+    }
+
+    /**
+     * Finds the cell containing a point by descending the tree, one level per step.
+     * Points on lines and boundaries are assigned the same way as in GridGeometry.
+     * @param location the point
+     * @return the packed index (x + y * xCells) of the cell containing the point, or -1 if it is outside the area
+     */
+    public long locate(final LatLng location) {
+        if (geometry.getXCells() == 0 || geometry.getYCells() == 0
+                || !geometry.contains(location.latitude, location.longitude)) {
+            return -1;
+        }
+        int x = 0;
+        int y = 0;
+        for (int level = depth - 1; level >= 0; level--) {
+            // Each step picks the eastern/northern half if the point is past the line through the node's middle
+            int midX = x + (1 << level);
+            int midY = y + (1 << level);
+            if (midX < geometry.getXCells() && location.longitude >= geometry.getColumnEdge(midX)) {
+                x = midX;
+            }
+            if (midY < geometry.getYCells() && location.latitude >= geometry.getRowEdge(midY)) {
+                y = midY;
+            }
+        }
+        return x + (long) y * geometry.getXCells();
+    }
+
+    /**
+     * Gets the boundaries of a node.
+     * @param level the node's level
+     * @param x the node's X coordinate at that level
+     * @param y the node's Y coordinate at that level
+     * @return the boundaries of the node, clipped to the area
+     */
+    public LatLngBounds getNodeBounds(final int level, final int x, final int y) {
+        int west = x << level;
+        int south = y << level;
+        int east = (int) Math.min((long) (x + 1) << level, geometry.getXCells());
+        int north = (int) Math.min((long) (y + 1) << level, geometry.getYCells());
+        return new LatLngBounds(new LatLng(geometry.getRowEdge(south), geometry.getColumnEdge(west)),
+                new LatLng(geometry.getRowEdge(north), geometry.getColumnEdge(east)));
+    }
+
+    /**
+     * Records that a cell changed owner, updating the counts of every node above it.
+     * Call this whenever the owner returned by the level 0 CellOwnership changes.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @param oldTeam the previous owner, or OBSERVER if the cell was uncaptured
+     * @param newTeam the new owner
+     */
+    public void capture(final int x, final int y, final int oldTeam, final int newTeam) {
+        if (oldTeam == newTeam) {
+            return;
+        }
+        for (int level = 1; level <= depth; level++) {
+            long key = nodeKey(x >> level, y >> level);
+            int[] counts = levels.get(level).get(key);
+            if (counts == null) {
+                counts = new int[TeamID.MAX_TEAM + 1];
+                levels.get(level).put(key, counts);
+            }
+            if (oldTeam == TeamID.OBSERVER) {
+                counts[TOTAL]++;
+            } else {
+                counts[oldTeam]--;
+            }
+            counts[newTeam]++;
+        }
+    }
+
+    /**
+     * Gets how many cells of a node a team owns.
+     * @param level the node's level
+     * @param x the node's X coordinate at that level
+     * @param y the node's Y coordinate at that level
+     * @param team the TeamID, or OBSERVER to count captured cells of any team
+     * @return the number of cells
+     */
+    public int getTeamCount(final int level, final int x, final int y, final int team) {
+        if (level == 0) {
+            int owner = cells.getOwner(x, y);
+            if (owner == TeamID.OBSERVER) {
+                return 0;
+            } else if (team == TeamID.OBSERVER || team == owner) {
+                return 1;
+            }
+            return 0;
+        }
+        int[] counts = levels.get(level).get(nodeKey(x, y));
+        if (counts == null) {
+            return 0;
+        }
+        return counts[team];
+    }
+
+    /**
+     * Gets the team owning the most cells of a node, which is how the node is shown when zoomed out.
+     * Ties go to the team with the lowest TeamID.
+     * @param level the node's level
+     * @param x the node's X coordinate at that level
+     * @param y the node's Y coordinate at that level
+     * @return the TeamID of the team owning the most cells, or OBSERVER if nothing in the node is captured
+     */
+    public int getDominantTeam(final int level, final int x, final int y) {
+        if (level == 0) {
+            return cells.getOwner(x, y);
+        }
+        int[] counts = levels.get(level).get(nodeKey(x, y));
+        int best = TeamID.OBSERVER;
+        if (counts == null) {
+            return best;
+        }
+        int bestCount = 0;
+        for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+            if (counts[team] > bestCount) {
+                best = team;
+                bestCount = counts[team];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the owner of a level 0 cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return the owning team's TeamID, or OBSERVER if the cell is uncaptured
+     */
+    @Override
+    public int getOwner(final int x, final int y) {
+        return cells.getOwner(x, y);
+    }
+
+    /**
+     * Visits every node at a level that overlaps a bounding box.
+     * @param bounds the bounding box
+     * @param level the level of the nodes to visit
+     * @param visitor called for each node
+     * @return the number of nodes visited
+     */
+    public int forEachNode(final LatLngBounds bounds, final int level, final NodeVisitor visitor) {
+        int[] range = nodeRange(bounds, level);
+        if (range == null) {
+            return 0;
+        }
+        for (int y = range[RANGE_SOUTH]; y <= range[RANGE_NORTH]; y++) {
+            for (int x = range[RANGE_WEST]; x <= range[RANGE_EAST]; x++) {
+                visitor.visit(level, x, y);
+            }
+        }
+        return (range[RANGE_EAST] - range[RANGE_WEST] + 1) * (range[RANGE_NORTH] - range[RANGE_SOUTH] + 1);
+    }
+
+    /**
+     * Visits every node at a level that overlaps a bounding box and contains at least one captured cell.
+     * Empty parts of the tree are skipped without looking at their nodes, so the cost depends on
+     * how much has been captured, not on the size of the box.
+     * @param bounds the bounding box
+     * @param level the level of the nodes to visit
+     * @param visitor called for each node
+     * @return the number of nodes visited
+     */
+    public int forEachCapturedNode(final LatLngBounds bounds, final int level, final NodeVisitor visitor) {
+        int[] range = nodeRange(bounds, level);
+        if (range == null) {
+            return 0;
+        }
+        return visitCaptured(depth, 0, 0, level, range, visitor);
+    }
+
+    /**
+     * Recursively visits the captured nodes below a node.
+     * @param nodeLevel the level of the node being searched
+     * @param nodeX the X coordinate of the node being searched
+     * @param nodeY the Y coordinate of the node being searched
+     * @param level the level of the nodes to visit
+     * @param range the range of node coordinates to visit at that level
+     * @param visitor called for each node
+     * @return the number of nodes visited
+     */
+    private int visitCaptured(final int nodeLevel, final int nodeX, final int nodeY, final int level,
+                              final int[] range, final NodeVisitor visitor) {
+        int shift = nodeLevel - level;
+        if ((((long) nodeX + 1) << shift) <= range[RANGE_WEST] || ((long) nodeX << shift) > range[RANGE_EAST]
+                || (((long) nodeY + 1) << shift) <= range[RANGE_SOUTH] || ((long) nodeY << shift) > range[RANGE_NORTH]
+                || getTeamCount(nodeLevel, nodeX, nodeY, TOTAL) == 0) {
+            return 0;
+        }
+        if (nodeLevel == level) {
+            visitor.visit(level, nodeX, nodeY);
+            return 1;
+        }
+        int visited = 0;
+        for (int child = 0; child < 2 * 2; child++) {
+            int childX = nodeX * 2 + (child & 1);
+            int childY = nodeY * 2 + (child >> 1);
+            if ((long) childX << (nodeLevel - 1) < geometry.getXCells()
+                    && (long) childY << (nodeLevel - 1) < geometry.getYCells()) {
+                visited += visitCaptured(nodeLevel - 1, childX, childY, level, range, visitor);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Finds the range of node coordinates at a level that overlap a bounding box.
+     * @param bounds the bounding box
+     * @param level the level
+     * @return the inclusive node coordinates indexed by RANGE_WEST etc., or null if the box misses the area
+     */
+    private int[] nodeRange(final LatLngBounds bounds, final int level) {
+        if (geometry.getXCells() == 0 || geometry.getYCells() == 0
+                || bounds.northeast.latitude < geometry.getSouth() || bounds.southwest.latitude > geometry.getNorth()
+                || bounds.northeast.longitude < geometry.getWest() || bounds.southwest.longitude > geometry.getEast()) {
+            return null;
+        }
+        int west = geometry.getXIndex(Math.max(bounds.southwest.longitude, geometry.getWest()));
+        int south = geometry.getYIndex(Math.max(bounds.southwest.latitude, geometry.getSouth()));
+        int east = geometry.getXIndex(Math.min(bounds.northeast.longitude, geometry.getEast()));
+        int north = geometry.getYIndex(Math.min(bounds.northeast.latitude, geometry.getNorth()));
+        int[] range = new int[RANGE_NORTH + 1];
+        range[RANGE_WEST] = west >> level;
+        range[RANGE_SOUTH] = south >> level;
+        range[RANGE_EAST] = east >> level;
+        range[RANGE_NORTH] = north >> level;
+        return range;
+    }
+
+}
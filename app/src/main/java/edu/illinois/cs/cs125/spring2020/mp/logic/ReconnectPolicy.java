@@ -0,0 +1,215 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import java.util.Random;
+
+/**
+ * Decides when to try reconnecting after a lost connection, so that a server restart doesn't bring every client
+ * back at once, and a flaky one isn't hammered.
+ * <p>
+ * The delay before each attempt is drawn uniformly between zero and a ceiling that starts at BASE_DELAY and doubles
+ * with every failed attempt up to MAX_DELAY ("full jitter"), which spreads the clients of a restarted server out
+ * instead of having them retry in lockstep. At most MAX_IN_FLIGHT attempts run at once; a loss reported while one is
+ * running or scheduled changes nothing. After MAX_ATTEMPTS failures in a row the policy gives up, leaving it to the
+ * user, and reset starts the backoff over.
+ * <p>
+ * An attempt counts as successful once connected is called, which the caller should do when the new connection
+ * delivers its first message. The policy counts attempts and measures how long each reconnect took, from the loss to
+ * that first message.
+ */
+public final class ReconnectPolicy {
+
+    /** The ceiling (milliseconds) on the delay before the first attempt. */
+    public static final long BASE_DELAY = 500;
+
+    /** The highest ceiling (milliseconds) on the delay before an attempt. */
+    public static final long MAX_DELAY = 30000;
+
+    /** Failed attempts in a row after which to give up. */
+    public static final int MAX_ATTEMPTS = 10;
+
+    /** The most connection attempts to have running at once. */
+    public static final int MAX_IN_FLIGHT = 1;
+
+    /** Starts a connection attempt. */
+    private final Runnable connect;
+
+    /** Tells the time and runs the delayed attempts. */
+    private final Timer timer;
+
+    /** Picks the delays. */
+    private final Random random;
+
+    /** Attempts that have failed since the connection was lost. */
+    private int failures;
+
+    /** Attempts started but not yet known to have succeeded or failed. */
+    private int inFlight;
+
+    /** Whether an attempt is waiting to start. */
+    private boolean attemptScheduled;
+
+    /** When the connection was lost, or -1 if it isn't lost. */
+    private long lostAt = -1;
+
+    /** Whether stop has been called. */
+    private boolean stopped;
+
+    /** Number of attempts started. */
+    private int attemptCount;
+
+    /** Number of times the connection came back. */
+    private int reconnectCount;
+
+    /** Total time (milliseconds) between losses and the connection coming back. */
+    private long totalReconnectTime;
+
+    /** Longest time (milliseconds) between a loss and the connection coming back. */
+    private long longestReconnectTime;
+
+    /**
+     * Creates a reconnect policy.
+     * @param setConnect starts a connection attempt; its outcome must be reported with connected, attemptFailed,
+     *                   or connectionLost
+     * @param setTimer tells the time and runs the delayed attempts
+     * @param setRandom picks the delays
+     */
+    public ReconnectPolicy(final Runnable setConnect, final Timer setTimer, final Random setRandom) {
+        connect = setConnect;
+        timer = setTimer;
+        random = setRandom;
+    }
+
+    /**
+     * Reports that an open connection was lost, scheduling an attempt to get it back.
+     * @return whether an attempt will be made, which it won't be if the policy has given up
+     */
+    public boolean connectionLost() {
+        if (lostAt < 0) {
+            lostAt = timer.now();
+        }
+        if (inFlight > 0) {
+            // The connection that was lost is the one the attempt made, so the attempt didn't work out
+            inFlight--;
+            failures++;
+        }
+        return scheduleAttempt();
+    }
+
+    /**
+     * Reports that a connection attempt couldn't connect, scheduling another.
+     * @return whether another attempt will be made, which it won't be if the policy has given up or the failed
+     *         attempt wasn't one the policy started
+     */
+    public boolean attemptFailed() {
+        if (inFlight == 0) {
+            return false;
+        }
+        inFlight--;
+        failures++;
+        return scheduleAttempt();
+    }
+
+    /**
+     * Reports that the connection is working, e.g. because it delivered a message.
+     */
+    public void connected() {
+        if (lostAt < 0) {
+            return;
+        }
+        long took = timer.now() - lostAt;
+        reconnectCount++;
+        totalReconnectTime += took;
+        longestReconnectTime = Math.max(longestReconnectTime, took);
+        lostAt = -1;
+        failures = 0;
+        inFlight = 0;
+    }
+
+    /**
+     * Starts the backoff over, as when the user asks to reconnect after the policy gave up.
+     */
+    public void reset() {
+        failures = 0;
+    }
+
+    /**
+     * Stops making attempts, including any already scheduled.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Makes sure an attempt is running or scheduled, unless there have been too many failures.
+     * @return whether an attempt is running or will be made
+     */
+    private boolean scheduleAttempt() {
+        if (attemptScheduled || inFlight >= MAX_IN_FLIGHT) {
+            return true;
+        }
+        if (failures >= MAX_ATTEMPTS) {
+            return false;
+        }
+        attemptScheduled = true;
+        timer.schedule(this::attempt, (long) (random.nextDouble() * getDelayCeiling()));
+        return true;
+    }
+
+    /**
+     * Starts a scheduled attempt.
+     */
+    private void attempt() {
+        attemptScheduled = false;
+        if (stopped) {
+            return;
+        }
+        inFlight++;
+        attemptCount++;
+        connect.run();
+    }
+
+    /**
+     * Gets the ceiling on the delay before the next attempt.
+     * @return BASE_DELAY doubled for each failure so far, up to MAX_DELAY (milliseconds)
+     */
+    public long getDelayCeiling() {
+        long ceiling = BASE_DELAY;
+        for (int i = 0; i < failures && ceiling < MAX_DELAY; i++) {
+            ceiling *= 2;
+        }
+        return Math.min(ceiling, MAX_DELAY);
+    }
+
+    /**
+     * Gets the number of connection attempts the policy has started.
+     * @return the number of attempts
+     */
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    /**
+     * Gets the number of times a lost connection came back.
+     * @return the number of reconnects
+     */
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    /**
+     * Gets the total time spent reconnecting.
+     * @return the sum over all reconnects of the time from the loss to the connection working (milliseconds)
+     */
+    public long getTotalReconnectTime() {
+        return totalReconnectTime;
+    }
+
+    /**
+     * Gets the longest time a reconnect took.
+     * @return the longest time from a loss to the connection working (milliseconds)
+     */
+    public long getLongestReconnectTime() {
+        return longestReconnectTime;
+    }
+
+}
@@ -0,0 +1,127 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Keeps each team's score in a game, fed by ownership changes of the game's objectives.
+ * <p>
+ * Every change is a single event: an objective passing from one team to another, where TeamID.OBSERVER means
+ * nobody. Totals and the leading team are kept up to date as events arrive, so reading them never scans the
+ * game, and a listener hears about each event that actually changes a score.
+ */
+public final class ScoreBoard {
+
+    /** Receives notice of score changes. */
+    public interface Listener {
+
+        /**
+         * Called after a score changes.
+         * @param scores the scoreboard that changed
+         */
+        void onScoresChanged(ScoreBoard scores);
+
+    }
+
+    /** Number of objectives each team owns, indexed by TeamID. */
+    private final int[] scores = new int[TeamID.MAX_TEAM + 1];
+
+    /** The lowest-numbered team with the highest score. */
+    private int leader = TeamID.MIN_TEAM;
+
+    /** Whether another team has the same score as the leader. */
+    private boolean tied = true;
+
+    /** The listener to notify of changes, or null if nobody is listening. */
+    private Listener listener;
+
+    /**
+     * Records an objective changing hands.
+     * @param oldTeam the TeamID of the team that owned the objective, or TeamID.OBSERVER if it was unclaimed
+     * @param newTeam the TeamID of the team that owns it now, or TeamID.OBSERVER if it is no longer claimed
+     */
+    public void changeOwner(final int oldTeam, final int newTeam) {
+        if (oldTeam == newTeam) {
+            return;
+        }
+        if (isTeam(oldTeam)) {
+            scores[oldTeam]--;
+            if (oldTeam == leader || (tied && scores[oldTeam] + 1 == scores[leader])) {
+                // The old owner may have been (jointly) ahead, so the lead has to be found again
+                findLeader();
+            }
+        }
+        if (isTeam(newTeam)) {
+            scores[newTeam]++;
+            if (newTeam == leader || scores[newTeam] > scores[leader]) {
+                leader = newTeam;
+                tied = false;
+            } else if (scores[newTeam] == scores[leader]) {
+                leader = Math.min(leader, newTeam);
+                tied = true;
+            }
+        }
+        if (listener != null && (isTeam(oldTeam) || isTeam(newTeam))) {
+            listener.onScoresChanged(this);
+        }
+    }
+
+    /**
+     * Determines whether a TeamID names a real team.
+     * @param team the TeamID
+     * @return whether the ID is between TeamID.MIN_TEAM and TeamID.MAX_TEAM
+     */
+    private static boolean isTeam(final int team) {
+        return team >= TeamID.MIN_TEAM && team <= TeamID.MAX_TEAM;
+    }
+
+    /**
+     * Finds the leading team and whether it is tied by looking at every team.
+     */
+    private void findLeader() {
+        leader = TeamID.MIN_TEAM;
+        tied = false;
+        for (int team = TeamID.MIN_TEAM + 1; team <= TeamID.MAX_TEAM; team++) {
+            if (scores[team] > scores[leader]) {
+                leader = team;
+                tied = false;
+            } else if (scores[team] == scores[leader]) {
+                tied = true;
+            }
+        }
+    }
+
+    /**
+     * Gets a team's score.
+     * @param team the TeamID
+     * @return the number of objectives the team owns
+     */
+    public int getScore(final int team) {
+        if (!isTeam(team)) {
+            return 0;
+        }
+        return scores[team];
+    }
+
+    /**
+     * Gets the team in the lead. If several teams share the highest score, this is the lowest-numbered of them.
+     * @return the TeamID of the leading team
+     */
+    public int getLeader() {
+        return leader;
+    }
+
+    /**
+     * Determines whether the lead is shared.
+     * @return whether another team has the same score as the leader
+     */
+    public boolean isTied() {
+        return tied;
+    }
+
+    /**
+     * Sets the listener to notify of score changes, replacing any previous one.
+     * @param setListener the listener, or null to stop notifying
+     */
+    public void setListener(final Listener setListener) {
+        listener = setListener;
+    }
+
+}
@@ -0,0 +1,188 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid of line segments keyed by their bounding boxes, for finding the segments a new segment
+ * might cross without testing all of them.
+ * <p>
+ * The grid covers a fixed rectangle split into at most GRID_SIZE by GRID_SIZE cells. Segments are numbered
+ * in the order they're added and listed in every cell their bounding box touches; anything outside the
+ * rectangle is filed under the nearest edge cell, so nothing is ever lost. Segments can be added at any
+ * time, which lets the index grow along with players' paths.
+ */
+public final class SegmentGrid {
+
+    /** The largest number of cells along each side of the grid. */
+    private static final int GRID_SIZE = 32;
+
+    /** Number of values in a bounding box. */
+    private static final int BOX_SIZE = 4;
+
+    /** Position of the west edge in a bounding box. */
+    private static final int BOX_WEST = 0;
+
+    /** Position of the south edge in a bounding box. */
+    private static final int BOX_SOUTH = 1;
+
+    /** Position of the east edge in a bounding box. */
+    private static final int BOX_EAST = 2;
+
+    /** Position of the north edge in a bounding box. */
+    private static final int BOX_NORTH = 3;
+
+    /** X coordinate of the west edge of the grid. */
+    private final double west;
+
+    /** Y coordinate of the south edge of the grid. */
+    private final double south;
+
+    /** Number of cells in the X direction. */
+    private final int columns;
+
+    /** Number of cells in the Y direction. */
+    private final int rows;
+
+    /** Width of each cell. */
+    private final double cellWidth;
+
+    /** Height of each cell. */
+    private final double cellHeight;
+
+    /** Segment numbers in each cell (column + row * columns), or null for a cell no segment has touched. */
+    private final IntList[] cells;
+
+    /** Bounding box of each segment: west, south, east, north. */
+    private double[] bounds = new double[GRID_SIZE * BOX_SIZE];
+
+    /** The number of segments added. */
+    private int size;
+
+    /** The query in which each segment was last reported, so a segment spanning several cells is reported once. */
+    private int[] reportedIn = new int[GRID_SIZE];
+
+    /** The number of queries so far. */
+    private int queries;
+
+    /**
+     * Creates an empty grid over a rectangle.
+     * @param setWest X coordinate of the west edge (the lowest X)
+     * @param setSouth Y coordinate of the south edge (the lowest Y)
+     * @param east X coordinate of the east edge
+     * @param north Y coordinate of the north edge
+     */
+    public SegmentGrid(final double setWest, final double setSouth, final double east, final double north) {
+        west = setWest;
+        south = setSouth;
+        double width = Math.max(east - west, 0);
+        double height = Math.max(north - south, 0);
+        double longest = Math.max(width, height);
+        if (longest > 0) {
+            columns = Math.max(1, (int) Math.ceil(GRID_SIZE * width / longest));
+            rows = Math.max(1, (int) Math.ceil(GRID_SIZE * height / longest));
+        } else {
+            columns = 1;
+            rows = 1;
+        }
+        cellWidth = Math.max(width / columns, Double.MIN_NORMAL);
+        cellHeight = Math.max(height / rows, Double.MIN_NORMAL);
+        cells = new IntList[columns * rows];
+    }
+
+    /**
+     * Gets the column containing an X coordinate, clamped to the grid.
+     * @param x the X coordinate
+     * @return the column index
+     */
+    private int columnOf(final double x) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - west) / cellWidth)));
+    }
+
+    /**
+     * Gets the row containing a Y coordinate, clamped to the grid.
+     * @param y the Y coordinate
+     * @return the row index
+     */
+    private int rowOf(final double y) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - south) / cellHeight)));
+    }
+
+    /**
+     * Adds a segment.
+     * @param startX X coordinate of one endpoint
+     * @param startY Y coordinate of that endpoint
+     * @param endX X coordinate of the other endpoint
+     * @param endY Y coordinate of the other endpoint
+     * @return the new segment's number (the number of segments added before it)
+     */
+    public int add(final double startX, final double startY, final double endX, final double endY) {
+        int segment = size;
+        if ((segment + 1) * BOX_SIZE > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            reportedIn = Arrays.copyOf(reportedIn, reportedIn.length * 2);
+        }
+        double segmentWest = Math.min(startX, endX);
+        double segmentSouth = Math.min(startY, endY);
+        double segmentEast = Math.max(startX, endX);
+        double segmentNorth = Math.max(startY, endY);
+        int offset = segment * BOX_SIZE;
+        bounds[offset + BOX_WEST] = segmentWest;
+        bounds[offset + BOX_SOUTH] = segmentSouth;
+        bounds[offset + BOX_EAST] = segmentEast;
+        bounds[offset + BOX_NORTH] = segmentNorth;
+        for (int row = rowOf(segmentSouth); row <= rowOf(segmentNorth); row++) {
+            for (int column = columnOf(segmentWest); column <= columnOf(segmentEast); column++) {
+                int cell = column + row * columns;
+                if (cells[cell] == null) {
+                    cells[cell] = new IntList();
+                }
+                cells[cell].add(segment);
+            }
+        }
+        size++;
+        return segment;
+    }
+
+    /**
+     * Finds the segments whose bounding boxes overlap a rectangle. Touching edges count as overlapping.
+     * @param queryWest the lowest X coordinate of the rectangle
+     * @param querySouth the lowest Y coordinate of the rectangle
+     * @param queryEast the highest X coordinate of the rectangle
+     * @param queryNorth the highest Y coordinate of the rectangle
+     * @param result list to replace the contents of with the overlapping segments' numbers
+     */
+    public void query(final double queryWest, final double querySouth, final double queryEast,
+                      final double queryNorth, final IntList result) {
+        result.clear();
+        queries++;
+        for (int row = rowOf(querySouth); row <= rowOf(queryNorth); row++) {
+            for (int column = columnOf(queryWest); column <= columnOf(queryEast); column++) {
+                IntList cell = cells[column + row * columns];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    int segment = cell.get(i);
+                    if (reportedIn[segment] == queries) {
+                        continue;
+                    }
+                    reportedIn[segment] = queries;
+                    int offset = segment * BOX_SIZE;
+                    if (bounds[offset + BOX_WEST] <= queryEast && bounds[offset + BOX_EAST] >= queryWest
+                            && bounds[offset + BOX_SOUTH] <= queryNorth && bounds[offset + BOX_NORTH] >= querySouth) {
+                        result.add(segment);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of segments added.
+     * @return the number of segments
+     */
+    public int size() {
+        return size;
+    }
+
+}
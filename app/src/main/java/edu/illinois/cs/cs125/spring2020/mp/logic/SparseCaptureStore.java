@@ -0,0 +1,169 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps track of which team has captured each cell of an area mode grid, using memory only for captured cells.
+ * <p>
+ * Huge grids (a fine cell size over a large area) have far more cells than players will ever capture,
+ * so rather than an entry per cell this store keeps an open-addressing hash table of captured cells only.
+ * Each slot is a single long holding the cell's packed index (x + y * xCells) in the upper bits and the
+ * owning team plus a "captured by the current player" flag in the lowest byte.
+ * <p>
+ * Captures must all be recorded on one thread, but the tile renderer reads owners from its own. Slots are
+ * written and read atomically with volatile semantics, so a reader sees each slot either before or after a
+ * capture, never torn. A resize fills the new table before publishing it, so a reader still probing the old
+ * table finds every cell captured before the resize.
+ */
+public final class SparseCaptureStore implements CaptureStore {
+
+    /** Number of slots in a new table. Must be a power of two. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Number of low bits of a slot holding the cell's value. */
+    private static final int VALUE_BITS = 8;
+
+    /** Mask for the owning team in a slot. */
+    private static final long TEAM_MASK = 0x7F;
+
+    /** Flag set in a slot if the current player captured the cell. */
+    private static final long MINE_FLAG = 0x80;
+
+    /** Fibonacci hashing multiplier (2^64 divided by the golden ratio), which spreads neighboring cells apart. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** The number of cells in each row. */
+    private final int xCells;
+
+    /** The hash table. An empty slot is 0; stored keys are offset by one so that cell 0 isn't mistaken for empty. */
+    private volatile AtomicLongArray slots = new AtomicLongArray(INITIAL_CAPACITY);
+
+    /** The number of captured cells. */
+    private int size;
+
+    /** The number of cells owned by each team, indexed by TeamID. */
+    private final int[] teamCounts = new int[TeamID.MAX_TEAM + 1];
+
+    /** The number of cells captured by the current player. */
+    private int mineCount;
+
+    /**
+     * Creates an empty store for a grid.
+     * @param setXCells the number of cells in the X direction
+     */
+    public SparseCaptureStore(final int setXCells) {
+        xCells = setXCells;
+    }
+
+    /**
+     * Gets the hash table key of a cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return the cell's packed index plus one
+     */
+    private long key(final int x, final int y) {
+        return x + (long) y * xCells + 1;
+    }
+
+    /**
+     * Finds the slot for a key: either the slot holding it or the empty slot where it would go.
+     * @param table the hash table to search
+     * @param key the key
+     * @return the slot's position in the table
+     */
+    private static int find(final AtomicLongArray table, final long key) {
+        int mask = table.length() - 1;
+        int position = (int) ((key * HASH_MULTIPLIER) >>> (Long.SIZE - Integer.numberOfTrailingZeros(table.length())));
+        long slot = table.get(position);
+        while (slot != 0 && (slot >>> VALUE_BITS) != key) {
+            position = (position + 1) & mask;
+            slot = table.get(position);
+        }
+        return position;
+    }
+
+    /**
+     * Gets the value stored for a cell.
+     * @param x the cell's X coordinate
+     * @param y the cell's Y coordinate
+     * @return the slot contents, or 0 if the cell is uncaptured
+     */
+    private long lookup(final int x, final int y) {
+        AtomicLongArray table = slots;
+        return table.get(find(table, key(x, y)));
+    }
+
+    @Override
+    public boolean isCaptured(final int x, final int y) {
+        return lookup(x, y) != 0;
+    }
+
+    @Override
+    public boolean isMine(final int x, final int y) {
+        return (lookup(x, y) & MINE_FLAG) != 0;
+    }
+
+    @Override
+    public int getOwner(final int x, final int y) {
+        return (int) (lookup(x, y) & TEAM_MASK);
+    }
+
+    @Override
+    public void capture(final int x, final int y, final int team, final boolean byCurrentPlayer) {
+        long key = key(x, y);
+        AtomicLongArray table = slots;
+        int position = find(table, key);
+        long old = table.get(position);
+        if (old == 0) {
+            if ((size + 1) * 2 > table.length()) {
+                table = grow(table);
+                position = find(table, key);
+            }
+            size++;
+        } else {
+            teamCounts[(int) (old & TEAM_MASK)]--;
+        }
+        long value = team;
+        if ((old & MINE_FLAG) != 0 || byCurrentPlayer) {
+            value |= MINE_FLAG;
+        }
+        if (byCurrentPlayer && (old & MINE_FLAG) == 0) {
+            mineCount++;
+        }
+        teamCounts[team]++;
+        table.set(position, (key << VALUE_BITS) | value);
+    }
+
+    /**
+     * Moves every entry into a table twice the size and makes it the current table.
+     * @param table the current table
+     * @return the new table
+     */
+    private AtomicLongArray grow(final AtomicLongArray table) {
+        AtomicLongArray bigger = new AtomicLongArray(table.length() * 2);
+        for (int i = 0; i < table.length(); i++) {
+            long slot = table.get(i);
+            if (slot != 0) {
+                bigger.set(find(bigger, slot >>> VALUE_BITS), slot);
+            }
+        }
+        slots = bigger;
+        return bigger;
+    }
+
+    @Override
+    public boolean hasMine() {
+        return mineCount > 0;
+    }
+
+    @Override
+    public int getMineCount() {
+        return mineCount;
+    }
+
+    @Override
+    public int getTeamCount(final int team) {
+        return teamCounts[team];
+    }
+
+}
@@ -1,13 +1,16 @@
 package edu.illinois.cs.cs125.spring2020.mp.logic;
 
 import com.google.android.gms.maps.model.BitmapDescriptor;
-import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 
 /**
  * Target class.
+ * <p>
+ * Marker icons come from TeamIcons. Changing the owning team only marks the marker stale; refreshIcon brings it
+ * up to date, so a run of changes costs at most one icon swap. In games with many targets, a target may have no
+ * marker at all until TargetMarkers lends it one.
  */
 public class Target {
 
@@ -22,17 +25,12 @@ public class Target {
     private int team;
 
     /**
-     * An instance of BitmapDescriptor.
+     * The icon the marker is showing.
      */
-    private BitmapDescriptor icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_VIOLET);
+    private BitmapDescriptor shownIcon;
 
     /**
-     * An instance of MarkerOptions.
-     */
-    private MarkerOptions options;
-
-    /**
-     * An instance of Marker.
+     * The marker showing this target, or null if it isn't shown.
      */
     private Marker marker;
 
@@ -51,20 +49,20 @@ public class Target {
         position = setPosition;
         team = setTeam;
 
-        options = new MarkerOptions().position(setPosition);
-        marker = setMap.addMarker(options);
-
-        if (setTeam == TeamID.TEAM_RED) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED);
-        } else if (setTeam == TeamID.TEAM_YELLOW) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_YELLOW);
-        } else if (setTeam == TeamID.TEAM_GREEN) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN);
-        } else if (setTeam == TeamID.TEAM_BLUE) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_BLUE);
-        }
-        marker.setIcon(icon);
+        // The marker starts out with the right icon, so it never needs an extra swap
+        shownIcon = TeamIcons.get(setTeam);
+        marker = setMap.addMarker(new MarkerOptions().position(setPosition).icon(shownIcon));
+
+    }
 
+    /**
+     * Creates a target without placing a marker.
+     * @param setPosition the position of the target
+     * @param setTeam the TeamID code of the team currently owning the target
+     */
+    public Target(final LatLng setPosition, final int setTeam) {
+        position = setPosition;
+        team = setTeam;
     }
 
     /**
@@ -84,22 +82,47 @@ public class Target {
     }
 
     /**
-     * Updates the owning team of this target and updates the hue of the marker to match.
+     * Updates the owning team of this target.
+     * <p>
+     * The marker keeps its old hue until refreshIcon is called.
      * @param newTeam the ID of the team that captured the target
      */
     public void setTeam(final int newTeam) {
-
         team = newTeam;
+    }
 
-        if (newTeam == TeamID.TEAM_RED) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED);
-        } else if (newTeam == TeamID.TEAM_YELLOW) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_YELLOW);
-        } else if (newTeam == TeamID.TEAM_GREEN) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN);
-        } else if (newTeam == TeamID.TEAM_BLUE) {
-            icon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_BLUE);
+    /**
+     * Updates the hue of the marker to match the owning team, if it doesn't already.
+     * @return whether the marker's icon changed
+     */
+    public boolean refreshIcon() {
+        BitmapDescriptor icon = TeamIcons.get(team);
+        if (marker == null || icon == shownIcon) {
+            return false;
         }
+        shownIcon = icon;
         marker.setIcon(icon);
+        return true;
+    }
+
+    /**
+     * Shows this target with a marker, giving the marker the owning team's hue.
+     * @param setMarker a marker already at this target's position and not showing any other target
+     */
+    public void attachMarker(final Marker setMarker) {
+        marker = setMarker;
+        shownIcon = TeamIcons.get(team);
+        marker.setIcon(shownIcon);
+    }
+
+    /**
+     * Stops showing this target, handing back its marker.
+     * @return the marker that was showing this target, or null if there wasn't one
+     */
+    public Marker detachMarker() {
+        Marker old = marker;
+        marker = null;
+        shownIcon = null;
+        return old;
     }
 }
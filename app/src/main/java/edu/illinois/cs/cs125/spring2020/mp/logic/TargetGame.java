@@ -1,6 +1,9 @@
 package edu.illinois.cs.cs125.spring2020.mp.logic;
 
 import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.LatLng;
@@ -10,6 +13,8 @@ import com.google.gson.JsonObject;
 import com.neovisionaries.ws.client.WebSocket;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,27 +23,148 @@ import edu.illinois.cs.cs125.spring2020.mp.R;
 
 /**
  * Represents a target mode game. Keeps track of target claims and players' paths between targets they captured.
+ * <p>
+ * Targets and players are numbered densely from 0 when the game is loaded, and all game state is kept in arrays
+ * indexed by those numbers. Server IDs and emails are only translated at the edges: when loading the full state,
+ * when a server update arrives, and when a targetVisit update is sent.
+ * <p>
+ * Marker icons aren't updated as targets change hands. Changed targets are only marked stale, and one refresh is
+ * posted to the UI thread while any are; it runs once the thread is done with the messages already queued, so a
+ * burst of updates costs one refresh pass and at most one icon swap per marker.
  */
 public final class TargetGame extends Game {
 
+    /** Tag for log entries. */
+    private static final String TAG = "TargetGame";
+
+    /** Margin in degrees around a segment's bounding box, wider than the tolerance LineCrossDetector allows. */
+    private static final double SEGMENT_SLACK = 0.000001;
+
+    /** Games with more targets than this only put markers on targets near the camera. */
+    private static final int CULLED_RENDERING_TARGETS = 1000;
+
+    /** Whether new games check the paths they load against the snake rule. Off by default, since it is slow. */
+    private static boolean auditLoadedPaths;
+
     /** The game's proximity threshold in meters. */
     private int proximityThreshold;
 
-    /** Stores Target instances looked up by server ID. */
-    private Map<String, Target> targets = new HashMap<>();
+    /** Server ID of each target, indexed by target number. */
+    private String[] targetIds;
+
+    /** Target number of each server ID. */
+    private Map<String, Integer> targetIndexes = new HashMap<>();
+
+    /** Target instances (which own the map markers), indexed by target number. */
+    private Target[] targets;
+
+    /** Latitude of each target. */
+    private double[] targetLatitudes;
 
-    /** Map of player emails to their paths (visited target IDs). */
-    private Map<String, List<String>> playerPaths = new HashMap<>();
+    /** Longitude of each target. */
+    private double[] targetLongitudes;
 
-    /** Score of each team.*/
-    private int[] score = new int[TeamID.MAX_TEAM];
+    /** TeamID owning each target, or OBSERVER if it is unclaimed. */
+    private byte[] targetTeams;
 
-    /** Counter for getTeamScore. */
-    private int count = 0;
+    /** Player number of each player's email. */
+    private Map<String, Integer> playerIndexes = new HashMap<>();
+
+    /** Each player's path (target numbers they visited, in order), indexed by player number. */
+    private List<IntList> playerPaths = new ArrayList<>();
+
+    /** Player number of the current player, or -1 if they aren't in the game's player list. */
+    private int myPlayer = -1;
 
     /** To substitute magic number. */
     private final int mn = 3;
 
+    /** Flat coordinates around the targets, so proximity checks need no trigonometry. */
+    private LocalProjection projection;
+
+    /** Projected X coordinate of each target, in meters. */
+    private double[] targetX;
+
+    /** Projected Y coordinate of each target, in meters. */
+    private double[] targetY;
+
+    /** Index of the projected targets, so a location update only looks at targets near the player. */
+    private ProximityGrid targetGrid;
+
+    /** Reused list of the targets near the player's latest location. */
+    private IntList nearbyTargets = new IntList();
+
+    /** Index of every path segment by bounding box, in longitude/latitude. */
+    private SegmentGrid segmentGrid;
+
+    /** Player number of the path each segment in segmentGrid belongs to. */
+    private IntList segmentPlayers = new IntList();
+
+    /** Position in its path of each segment's starting target. */
+    private IntList segmentPositions = new IntList();
+
+    /** Target number of each segment's starting target. */
+    private IntList segmentStarts = new IntList();
+
+    /** Target number of each segment's ending target. */
+    private IntList segmentEnds = new IntList();
+
+    /** Reused list of the segments near a candidate segment. */
+    private IntList nearbySegments = new IntList();
+
+    /** Reused batch of the nearby segments' coordinates, in LineCrossDetector.firstCrossing's layout. */
+    private double[] nearbyCoordinates = new double[0];
+
+    /**
+     * Targets the current player could claim right now: unclaimed, and joinable to the player's last capture
+     * without crossing any line. Only meaningful for targets in reachableChecked. Claims and other players'
+     * new lines can only take targets away, so they just clear bits; the player's own captures start over.
+     */
+    private BitSet reachable = new BitSet();
+
+    /** Targets whose bit in reachable has been worked out since the current player's path last changed. */
+    private BitSet reachableChecked = new BitSet();
+
+    /** Targets whose markers may not show their current team yet. */
+    private BitSet staleIcons = new BitSet();
+
+    /** Runs icon refreshes on the UI thread once it is free. */
+    private Timer iconTimer = new UiThreadTimer();
+
+    /** Brings the stale markers up to date, when run by iconTimer. */
+    private final Runnable iconRefreshTask = this::refreshIcons;
+
+    /** Whether iconRefreshTask is waiting to be run by iconTimer. */
+    private boolean iconRefreshScheduled;
+
+    /** Lends markers to the targets near the camera, or null if every target has its own marker. */
+    private TargetMarkers markers;
+
+    /** The forbidden crosses the audit found in the loaded paths, empty if the audit was off. */
+    private List<String> pathProblems = Collections.emptyList();
+
+    /**
+     * Turns checking loaded paths against the snake rule on or off, e.g. while debugging server problems.
+     * <p>
+     * Each game created while it is on runs CrossingSweep.auditTargetGame on its full state, logs any
+     * forbidden crosses as errors, and reports them from getPathProblems.
+     * @param setAuditLoadedPaths whether new games should check their paths
+     */
+    public static void setAuditLoadedPaths(final boolean setAuditLoadedPaths) {
+        auditLoadedPaths = setAuditLoadedPaths;
+    }
+
+    /**
+     * Replaces the timer that runs marker icon refreshes, which normally posts them to the UI thread.
+     * <p>
+     * Used by benchmarks, which run games without a UI thread.
+     * @param setIconTimer the timer to schedule refreshes with
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
+    public void setIconTimer(final Timer setIconTimer) {
+        iconTimer = setIconTimer;
+    }
+
     /**
      * Creates a game in target mode.
      * <p>
@@ -59,16 +185,78 @@ public final class TargetGame extends Game {
         proximityThreshold = fullState.get("proximityThreshold").getAsInt();
 
         // Load the list of all targets in the game
+        // Large games leave the markers to TargetMarkers, which only shows the targets near the camera
+        boolean culled = fullState.getAsJsonArray("targets").size() > CULLED_RENDERING_TARGETS;
+        Map<String, Target> loaded = new HashMap<>();
         for (JsonElement t : fullState.getAsJsonArray("targets")) {
             JsonObject targetInfo = t.getAsJsonObject();
+            LatLng position = new LatLng(targetInfo.get("latitude").getAsDouble(),
+                    targetInfo.get("longitude").getAsDouble());
+
+            // Create the Target, which places a marker on the map unless culling
+            Target target;
+            if (culled) {
+                target = new Target(position, targetInfo.get("team").getAsInt());
+            } else {
+                target = new Target(map, position, targetInfo.get("team").getAsInt());
+            }
+
+            // Add it to a map by ID - the targets are numbered once they're all loaded
+            loaded.put(targetInfo.get("id").getAsString(), target);
+        }
 
-            // Create the Target, which places a marker on the map
-            Target target = new Target(map,
-                    new LatLng(targetInfo.get("latitude").getAsDouble(), targetInfo.get("longitude").getAsDouble()),
-                    targetInfo.get("team").getAsInt());
+        // Number the targets in the map's order, which is the order nearby targets are tried in
+        targetIds = new String[loaded.size()];
+        targets = new Target[loaded.size()];
+        targetLatitudes = new double[loaded.size()];
+        targetLongitudes = new double[loaded.size()];
+        targetTeams = new byte[loaded.size()];
+        int index = 0;
+        for (Map.Entry<String, Target> entry : loaded.entrySet()) {
+            targetIds[index] = entry.getKey();
+            targetIndexes.put(entry.getKey(), index);
+            targets[index] = entry.getValue();
+            targetLatitudes[index] = entry.getValue().getPosition().latitude;
+            targetLongitudes[index] = entry.getValue().getPosition().longitude;
+            targetTeams[index] = (byte) entry.getValue().getTeam();
+            getScoreBoard().changeOwner(TeamID.OBSERVER, targetTeams[index]);
+            index++;
+        }
 
-            // Add it to the targets map so we can look it up by ID later
-            targets.put(targetInfo.get("id").getAsString(), target);
+        // Project the targets once and file them in a grid, so each location update only looks at nearby targets
+        projection = LocalProjection.around(targetLatitudes, targetLongitudes);
+        targetX = new double[targets.length];
+        targetY = new double[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            targetX[i] = projection.toX(targetLongitudes[i]);
+            targetY[i] = projection.toY(targetLatitudes[i]);
+        }
+        targetGrid = new ProximityGrid(targetX, targetY, projection.getOuterRange(Math.max(proximityThreshold, 1)));
+
+        // Every path segment joins two targets, so the targets' bounding box covers them all
+        double south = 0;
+        double west = 0;
+        double north = 0;
+        double east = 0;
+        for (int i = 0; i < targets.length; i++) {
+            if (i == 0 || targetLatitudes[i] < south) {
+                south = targetLatitudes[i];
+            }
+            if (i == 0 || targetLatitudes[i] > north) {
+                north = targetLatitudes[i];
+            }
+            if (i == 0 || targetLongitudes[i] < west) {
+                west = targetLongitudes[i];
+            }
+            if (i == 0 || targetLongitudes[i] > east) {
+                east = targetLongitudes[i];
+            }
+        }
+        segmentGrid = new SegmentGrid(west, south, east, north);
+        if (culled) {
+            markers = new TargetMarkers(map, targets, west, south, east, north);
+            markers.show(map.getProjection().getVisibleRegion().latLngBounds);
+            map.setOnCameraIdleListener(() -> markers.show(map.getProjection().getVisibleRegion().latLngBounds));
         }
 
         // Load the path of each player, which will be needed for checking for line crosses
@@ -76,19 +264,42 @@ public final class TargetGame extends Game {
             JsonObject player = p.getAsJsonObject();
             String playerEmail = player.get("email").getAsString();
 
-            // Create a list to hold the IDs of targets visited by the player, in order
-            List<String> path = new ArrayList<>();
-            playerPaths.put(playerEmail, path);
+            // Create a list to hold the targets visited by the player, in order
+            int playerIndex = playerPaths.size();
+            playerIndexes.put(playerEmail, playerIndex);
+            playerPaths.add(new IntList());
 
             // Examine each target in the player entry's path
             for (JsonElement t : player.getAsJsonArray("path")) {
                 JsonObject target = t.getAsJsonObject();
                 String targetId = target.get("id").getAsString();
-                extendPlayerPath(playerEmail, targetId, player.get("team").getAsInt());
+                extendPlayerPath(playerIndex, targetIndexes.get(targetId), player.get("team").getAsInt());
+            }
+        }
+        Integer me = playerIndexes.get(getEmail());
+        if (me != null) {
+            myPlayer = me;
+        }
+
+        // When asked to, make sure the paths the server sent obey the snake rule
+        if (auditLoadedPaths) {
+            pathProblems = CrossingSweep.auditTargetGame(fullState);
+            for (String problem : pathProblems) {
+                Log.e(TAG, "Loaded paths break the snake rule: " + problem);
             }
         }
     }
 
+    /**
+     * Gets the forbidden crosses found in the paths this game was loaded with.
+     * <p>
+     * Paths are only checked while setAuditLoadedPaths is on.
+     * @return a description of each cross that breaks the snake rule, or an empty list if none were found
+     */
+    public List<String> getPathProblems() {
+        return pathProblems;
+    }
+
     /**
      * Called when the user's location changes.
      * <p>
@@ -105,14 +316,17 @@ public final class TargetGame extends Game {
     public void locationUpdated(final LatLng location) {
         super.locationUpdated(location);
         // For each target within range of the player's current location, call tryClaimTarget
-        for (Map.Entry<String, Target> entry : targets.entrySet()) {
-            if (LatLngUtils.distance(entry.getValue().getPosition(), location) < proximityThreshold) {
-                tryClaimTarget(entry.getKey(), entry.getValue());
+        double x = projection.toX(location.longitude);
+        double y = projection.toY(location.latitude);
+        targetGrid.query(x, y, projection.getOuterRange(proximityThreshold), nearbyTargets);
+        for (int n = 0; n < nearbyTargets.size(); n++) {
+            int i = nearbyTargets.get(n);
+            int comparison = projection.compareToRange(targetX[i], targetY[i], x, y, proximityThreshold);
+            // Too close to the edge for the projection to be sure, so fall back to the exact formula
+            if (comparison < 0 || (comparison == 0 && LatLngMath.distance(targetLatitudes[i], targetLongitudes[i],
+                    location.latitude, location.longitude) < proximityThreshold)) {
+                tryClaimTarget(i);
             }
-            // The type names in the angle brackets should match the types in the map
-            // The current key is entry.getKey()
-            // The current value is entry.getValue()
-            // Do something with the key and value?
         }
     }
 
@@ -121,11 +335,11 @@ public final class TargetGame extends Game {
      * <p>
      * Since playerTargetVisit events are specific to target mode games, this method handles those.
      * All other events are delegated to the superclass.
-     * @param message JSON from the server (the "type" property indicates the update type)
+     * @param message the decoded message from the server
      * @return whether the message type was recognized
      */
     @Override
-    public boolean handleMessage(final JsonObject message) {
+    public boolean handleMessage(final GameMessage message) {
         // Some messages are common to all games - see if the superclass can handle it
         if (super.handleMessage(message)) {
             // If it took care of the update, this class's implementation doesn't need to do anything
@@ -134,24 +348,22 @@ public final class TargetGame extends Game {
         }
 
         // Check the type of update to see if we can handle it and what to do
-        if (message.get("type").getAsString().equals("playerTargetVisit")) {
+        if (message.getType() == GameMessage.Type.PLAYER_TARGET_VISIT) {
             // Got an update indicating that another player captured a target
-            // Load the information from the JSON
-            String playerEmail = message.get("email").getAsString();
-            String targetId = message.get("targetId").getAsString();
-            int playerTeam = message.get("team").getAsInt();
+            // Load the information from the message
+            int player = playerIndexes.get(message.getEmail());
+            int target = targetIndexes.get(message.getTargetId());
+            int playerTeam = message.getTeam();
+            if (player == myPlayer && targetTeams[target] != TeamID.OBSERVER) {
+                // The server echoing a capture the user made here, which is already on the map
+                return true;
+            }
 
             // You need to use that information to update the game state and map
             // First update the captured target's team
-            targets.get(targetId).setTeam(playerTeam);
-            score[playerTeam - 1]++;
+            setTargetTeam(target, playerTeam);
             // Then call a helper function to update the player's path and add any needed line to the map
-            List path = playerPaths.get(playerEmail);
-            path.add(targetId);
-            if (path.size() > 1) {
-                addLineSegment(targets.get(path.get(path.size() - 2)).getPosition(),
-                        targets.get(path.get(path.size() - 1)).getPosition(), playerTeam);
-            }
+            extendPlayerPath(player, target, playerTeam);
 
             // Once that's done, inform the caller that we handled it
             return true;
@@ -165,67 +377,162 @@ public final class TargetGame extends Game {
      * Claims a target if possible.
      * <p>
      * You need to implement this helper function to help locationUpdated do its job.
-     * @param id the server ID of the target
-     * @param target the target
+     * @param target the target number
      */
-    private void tryClaimTarget(final String id, final Target target) {
-        // Make sure the target isn't already captured - return if it's already taken
-        if (target.getTeam() != TeamID.OBSERVER) {
+    private void tryClaimTarget(final int target) {
+        // Make sure the target isn't already captured and its line wouldn't cross another - return if not
+        // Both are remembered in reachable as the game changes, so this is usually a single bit test
+        if (!isReachable(target)) {
             return;
-        } else {
-            for (Map.Entry<String, List<String>> entry : playerPaths.entrySet()) {
-                if (entry.getKey().equals(getEmail())) {
-                    List<String> path = entry.getValue();
-
-                    // See if the player has already captured a target - if yes:
-                    if (path.size() != 0) {
-                        LatLng last = targets.get(path.get(path.size() - 1)).getPosition();
-                        LatLng current = target.getPosition();
-                        // See if the line between this target and the player's last capture
-                        // intersects any existing line
-                        // (make sure to check for crossing with all players' paths)
-                        // If lines would cross, return
-                        for (Map.Entry<String, List<String>> each : playerPaths.entrySet()) {
-                            List<String> otherPath = each.getValue();
-                            if (otherPath != path) {
-                                if (otherPath.size() >= 2) {
-                                    for (int i = 0; i < otherPath.size() - 1; i++) {
-                                        LatLng first = targets.get(otherPath.get(i)).getPosition();
-                                        LatLng second = targets.get(otherPath.get(i + 1)).getPosition();
-                                        if (LineCrossDetector.linesCross(first, second, last, current)) {
-                                            return;
-                                        }
-                                    }
-                                }
-                            }
-                            if (otherPath == path) {
-                                if (path.size() > mn) {
-                                    for (int i = 0; i < path.size() - mn; i++) {
-                                        LatLng first = targets.get(path.get(i)).getPosition();
-                                        LatLng second = targets.get(path.get(i + 1)).getPosition();
-                                        if (LineCrossDetector.linesCross(first, second, last, current)) {
-                                            return;
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
+        }
+
+        // Now that we know the target can be captured, update its owning team
+        setTargetTeam(target, getMyTeam());
+        // Use extendPlayerPath to update the game state and map
+        if (myPlayer >= 0) {
+            extendPlayerPath(myPlayer, target, getMyTeam());
+        }
+        // Send a targetVisit update to the server
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "targetVisit");
+        message.addProperty("targetId", targetIds[target]);
+        sendMessage(message);
+    }
+
+    /**
+     * Determines whether the current player's path could be extended to a target without crossing any line.
+     * @param target the target number
+     * @return whether the line from the player's last capture (if any) to the target crosses no other line
+     */
+    private boolean canReach(final int target) {
+        // See if the player has already captured a target - if not, there's no line to check
+        if (myPlayer < 0 || playerPaths.get(myPlayer).isEmpty()) {
+            return true;
+        }
+        IntList path = playerPaths.get(myPlayer);
+        int last = path.last();
+        // See if the line between this target and the player's last capture
+        // intersects any existing line
+        // (make sure to check for crossing with all players' paths)
+        // Only segments whose bounding boxes come near the new line's can cross it
+        segmentGrid.query(Math.min(targetLongitudes[last], targetLongitudes[target]) - SEGMENT_SLACK,
+                Math.min(targetLatitudes[last], targetLatitudes[target]) - SEGMENT_SLACK,
+                Math.max(targetLongitudes[last], targetLongitudes[target]) + SEGMENT_SLACK,
+                Math.max(targetLatitudes[last], targetLatitudes[target]) + SEGMENT_SLACK, nearbySegments);
+        if (nearbyCoordinates.length < nearbySegments.size() * LineCrossDetector.SEGMENT_SIZE) {
+            nearbyCoordinates = new double[nearbySegments.size() * LineCrossDetector.SEGMENT_SIZE * 2];
+        }
+        int batch = 0;
+        for (int n = 0; n < nearbySegments.size(); n++) {
+            int segment = nearbySegments.get(n);
+            // The player's own last few segments are allowed to touch the new one
+            if (segmentPlayers.get(segment) == myPlayer && segmentPositions.get(segment) >= path.size() - mn) {
+                continue;
+            }
+            int start = segmentStarts.get(segment);
+            int end = segmentEnds.get(segment);
+            int offset = batch * LineCrossDetector.SEGMENT_SIZE;
+            nearbyCoordinates[offset] = targetLatitudes[start];
+            nearbyCoordinates[offset + 1] = targetLongitudes[start];
+            nearbyCoordinates[offset + 2] = targetLatitudes[end];
+            nearbyCoordinates[offset + LineCrossDetector.SEGMENT_SIZE - 1] = targetLongitudes[end];
+            batch++;
+        }
+        return LineCrossDetector.firstCrossing(targetLatitudes[last], targetLongitudes[last],
+                targetLatitudes[target], targetLongitudes[target], nearbyCoordinates, 0, batch) < 0;
+    }
+
+    /**
+     * Determines whether the current player can claim a target, working it out only if it isn't known yet.
+     * @param target the target number
+     * @return whether the target is unclaimed and its line from the player's last capture crosses no other line
+     */
+    private boolean isReachable(final int target) {
+        if (!reachableChecked.get(target)) {
+            reachableChecked.set(target);
+            reachable.set(target, targetTeams[target] == TeamID.OBSERVER && canReach(target));
+        }
+        return reachable.get(target);
+    }
+
+    /**
+     * Finds the targets whose remembered reachability disagrees with working it out from scratch.
+     * <p>
+     * Used by test suites to make sure the incremental updates to reachable never drift. Targets not worked
+     * out yet are worked out first, as a claim attempt would, so that the next changes to the game have every
+     * target's bit to keep up to date.
+     * @return the targets whose bit in reachable is wrong
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
+    public BitSet findStaleReachability() {
+        BitSet stale = new BitSet();
+        for (int t = 0; t < targets.length; t++) {
+            if (isReachable(t) != (targetTeams[t] == TeamID.OBSERVER && canReach(t))) {
+                stale.set(t);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Removes the targets a new line cuts off from the current player's last capture.
+     * @param start the target number at one end of the new line
+     * @param end the target number at the other end
+     */
+    private void blockReachable(final int start, final int end) {
+        if (myPlayer < 0 || playerPaths.get(myPlayer).isEmpty()) {
+            return;
+        }
+        int last = playerPaths.get(myPlayer).last();
+        for (int t = reachable.nextSetBit(0); t >= 0; t = reachable.nextSetBit(t + 1)) {
+            if (LineCrossDetector.segmentsCross(targetLatitudes[last], targetLongitudes[last],
+                    targetLatitudes[t], targetLongitudes[t], targetLatitudes[start], targetLongitudes[start],
+                    targetLatitudes[end], targetLongitudes[end])) {
+                reachable.clear(t);
             }
-            // Now that we know the target can be captured, update its owning team
-            target.setTeam(getMyTeam());
-            score[getMyTeam() - 1]++;
-            // Use extendPlayerPath to update the game state and map
-            extendPlayerPath(getEmail(), id, getMyTeam());
-            // Send a targetVisit update to the server
-            JsonObject message = new JsonObject();
-            message.addProperty("type", "targetVisit");
-            message.addProperty("targetId", id);
-            sendMessage(message);
         }
     }
 
+    /**
+     * Changes the team owning a target, updating both the game state and its marker.
+     * @param target the target number
+     * @param team the new owning team's ID
+     */
+    private void setTargetTeam(final int target, final int team) {
+        getScoreBoard().changeOwner(targetTeams[target], team);
+        targetTeams[target] = (byte) team;
+        targets[target].setTeam(team);
+        staleIcons.set(target);
+        scheduleIconRefresh();
+        reachable.clear(target);
+        reachableChecked.set(target);
+    }
+
+    /**
+     * Makes sure the stale markers will be refreshed once the UI thread is free.
+     */
+    private void scheduleIconRefresh() {
+        if (iconRefreshScheduled) {
+            return;
+        }
+        iconRefreshScheduled = true;
+        iconTimer.schedule(iconRefreshTask, 0);
+    }
+
+    /**
+     * Brings every stale marker up to date with its target's team, swapping each icon at most once.
+     */
+    private void refreshIcons() {
+        iconRefreshScheduled = false;
+        for (int t = staleIcons.nextSetBit(0); t >= 0; t = staleIcons.nextSetBit(t + 1)) {
+            targets[t].refreshIcon();
+        }
+        if (markers != null && !staleIcons.isEmpty()) {
+            markers.teamsChanged(staleIcons);
+        }
+        staleIcons.clear();
+    }
+
     /**
      * Adds a target to a player's path.
      * <p>
@@ -234,26 +541,42 @@ public final class TargetGame extends Game {
      * <p>
      * You do not need to modify this function, but you will need to make the addLineSegment
      * helper function that it depends on work.
-     * @param email email of the player who just visited the target
-     * @param targetId ID of the target
+     * @param player the player number of the player who just visited the target
+     * @param target the target number
      * @param team the player's team ID
      */
-    private void extendPlayerPath(final String email, final String targetId, final int team) {
-        // Get the specified player's path from the players/paths map
-        List<String> path = playerPaths.get(email);
+    private void extendPlayerPath(final int player, final int target, final int team) {
+        // Get the specified player's path
+        IntList path = playerPaths.get(player);
 
         // If this player has visited a target before, their path will be non-empty
         if (!path.isEmpty()) {
-            // Get the positions of the previously and currently visited targets from the targets map
-            LatLng lastTargetPos = targets.get(path.get(path.size() - 1)).getPosition();
-            LatLng currentTargetPos = targets.get(targetId).getPosition();
+            // Get the previously visited target
+            int last = path.last();
 
             // Use a helper function to draw the line
-            addLineSegment(lastTargetPos, currentTargetPos, team);
+            addLineSegment(targets[last].getPosition(), targets[target].getPosition(), team);
+
+            // Index the segment so later claims can find it
+            segmentGrid.add(targetLongitudes[last], targetLatitudes[last],
+                    targetLongitudes[target], targetLatitudes[target]);
+            segmentPlayers.add(player);
+            segmentPositions.add(path.size() - 1);
+            segmentStarts.add(last);
+            segmentEnds.add(target);
         }
 
         // Add this newly captured target to their path
-        path.add(targetId);
+        path.add(target);
+
+        // Keep the current player's claimable targets up to date
+        if (player == myPlayer) {
+            // The line to every target now starts somewhere else
+            reachable.clear();
+            reachableChecked.clear();
+        } else if (path.size() > 1) {
+            blockReachable(path.get(path.size() - 2), target);
+        }
     }
 
     /**
@@ -275,45 +598,4 @@ public final class TargetGame extends Game {
         PolylineOptions fill = new PolylineOptions().add(start, end).color(colors[team]).width(lineThickness).zIndex(1);
         getMap().addPolyline(fill);
     }
-
-    /**
-     * Gets a team's score in this target mode game.
-     * <p>
-     * You need to implement this function.
-     * @param teamId the team ID (same kind of value as the TeamID constants)
-     * @return the number of targets owned by the team
-     */
-    @Override
-    public int getTeamScore(final int teamId) {
-        if (count == 0) {
-            for (Map.Entry<String, Target> entry : targets.entrySet()) {
-                if (entry.getValue().getTeam() != 0) {
-                    score[entry.getValue().getTeam() - 1]++;
-                }
-            }
-            count++;
-        }
-
-        // Find how many targets are currently owned by the specified team
-        return score[teamId - 1];
-    }
-
-    /**
-     * For getWinningTeam function in Game class.
-     * @return The winning team.
-     */
-    public int gWT() {
-        int result = score[0];
-        for (int i = 0; i < score.length; i++) {
-            if (score[i] > result) {
-                result = score[i];
-            }
-        }
-        for (int i = 0; i < score.length; i++) {
-            if (score[i] == result) {
-                return i + 1;
-            }
-        }
-        return 0;
-    }
 }
@@ -0,0 +1,315 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Puts markers on only the targets near the camera, for games with too many targets to mark all at once.
+ * <p>
+ * Each time the camera settles, targets inside the visible region (widened by MARGIN of its size on every side)
+ * get markers, and markers on targets that left it are hidden and kept for reuse, so the number of live markers
+ * follows what's on screen rather than the size of the game. When more than MAX_MARKERS targets would be shown,
+ * the region is split into CLUSTER_GRID by CLUSTER_GRID cells instead, and each cell holding targets gets one
+ * marker colored like the team owning most of them and titled with how many there are. Targets keep their game
+ * state whether or not they have a marker.
+ * <p>
+ * Captures don't re-cluster: each cluster keeps its per-team counts, so teamsChanged only moves the changed
+ * targets' counts and recolors the clusters whose leading team changed.
+ */
+public final class TargetMarkers {
+
+    /** The most targets to give their own markers; past this, targets are shown as clusters. */
+    public static final int MAX_MARKERS = 250;
+
+    /** The number of cluster cells along each side of the region. */
+    public static final int CLUSTER_GRID = 8;
+
+    /** The number of cluster cells. */
+    private static final int CLUSTER_CELLS = CLUSTER_GRID * CLUSTER_GRID;
+
+    /** How far to widen the visible region on each side, as a fraction of its size. */
+    private static final double MARGIN = 0.25;
+
+    /** Number of team slots per cluster cell in clusterTeams. */
+    private static final int TEAM_SLOTS = TeamID.MAX_TEAM + 1;
+
+    /** Longitude of the antimeridian. */
+    private static final double HALF_TURN = 180;
+
+    /** The map to put markers on. */
+    private final GoogleMap map;
+
+    /** All the game's targets, indexed by target number. */
+    private final Target[] targets;
+
+    /** Each target as a zero-length segment from its longitude and latitude, for finding the ones in a region. */
+    private final SegmentGrid index;
+
+    /** Hidden markers ready for reuse. */
+    private final List<Marker> spares = new ArrayList<>();
+
+    /** Targets that have a marker of their own. */
+    private final BitSet marked = new BitSet();
+
+    /** Markers standing in for clusters of targets. */
+    private final List<Marker> clusters = new ArrayList<>();
+
+    /** The cluster marker of each cluster cell, or null if the cell is empty or clusters aren't shown. */
+    private final Marker[] cellMarkers = new Marker[CLUSTER_CELLS];
+
+    /** Number of targets each team owns in each cluster cell, TEAM_SLOTS entries per cell. */
+    private final int[] clusterTeams = new int[CLUSTER_CELLS * TEAM_SLOTS];
+
+    /** The team each cluster marker is colored for. */
+    private final int[] cellDominant = new int[CLUSTER_CELLS];
+
+    /** The cluster cell of each target, or -1 if it isn't counted in a cluster. */
+    private final int[] clusterOf;
+
+    /** The team each clustered target was counted for. */
+    private final byte[] countedTeams;
+
+    /** Targets counted in the clusters shown. */
+    private final IntList clustered = new IntList();
+
+    /** Cluster cells whose counts changed in the current teamsChanged call. */
+    private final BitSet changedCells = new BitSet();
+
+    /** Targets found in the current region. */
+    private final IntList found = new IntList();
+
+    /** Targets that should have a marker of their own. */
+    private final BitSet wanted = new BitSet();
+
+    /**
+     * Indexes a game's targets for marking. No markers are placed until show is called.
+     * @param setMap the map to put markers on
+     * @param setTargets the game's targets, which should have been created without markers
+     * @param west the lowest longitude of any target
+     * @param south the lowest latitude of any target
+     * @param east the highest longitude of any target
+     * @param north the highest latitude of any target
+     */
+    public TargetMarkers(final GoogleMap setMap, final Target[] setTargets,
+                         final double west, final double south, final double east, final double north) {
+        map = setMap;
+        targets = setTargets;
+        clusterOf = new int[targets.length];
+        Arrays.fill(clusterOf, -1);
+        countedTeams = new byte[targets.length];
+        index = new SegmentGrid(west, south, east, north);
+        for (Target target : targets) {
+            LatLng position = target.getPosition();
+            index.add(position.longitude, position.latitude, position.longitude, position.latitude);
+        }
+    }
+
+    /**
+     * Updates the markers for a new camera position.
+     * @param visible the region of the map the camera shows
+     */
+    public void show(final LatLngBounds visible) {
+        double south = visible.southwest.latitude;
+        double north = visible.northeast.latitude;
+        double west = visible.southwest.longitude;
+        double east = visible.northeast.longitude;
+        if (east < west) {
+            // The region spans the antimeridian, so just take every longitude
+            west = -HALF_TURN;
+            east = HALF_TURN;
+        }
+        double latitudeMargin = (north - south) * MARGIN;
+        double longitudeMargin = (east - west) * MARGIN;
+        south -= latitudeMargin;
+        north += latitudeMargin;
+        west -= longitudeMargin;
+        east += longitudeMargin;
+        index.query(west, south, east, north, found);
+        if (found.size() > MAX_MARKERS) {
+            showClusters(west, south, east, north);
+        } else {
+            showTargets();
+        }
+    }
+
+    /**
+     * Updates the cluster markers after targets change hands. Targets' own markers update themselves.
+     * @param changed the target numbers of the targets whose team may have changed
+     */
+    public void teamsChanged(final BitSet changed) {
+        if (clusters.isEmpty()) {
+            return;
+        }
+        for (int t = changed.nextSetBit(0); t >= 0; t = changed.nextSetBit(t + 1)) {
+            int cell = clusterOf[t];
+            int team = countableTeam(targets[t].getTeam());
+            if (cell < 0 || team == countedTeams[t]) {
+                continue;
+            }
+            clusterTeams[cell * TEAM_SLOTS + countedTeams[t]]--;
+            clusterTeams[cell * TEAM_SLOTS + team]++;
+            countedTeams[t] = (byte) team;
+            changedCells.set(cell);
+        }
+        for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1)) {
+            int dominant = dominantTeam(cell);
+            if (dominant != cellDominant[cell]) {
+                cellDominant[cell] = dominant;
+                cellMarkers[cell].setIcon(TeamIcons.get(dominant));
+            }
+        }
+        changedCells.clear();
+    }
+
+    /**
+     * Gets the slot a team is counted in.
+     * @param team a TeamID
+     * @return the team, or TeamID.OBSERVER if it isn't a real team
+     */
+    private static int countableTeam(final int team) {
+        if (team < TeamID.MIN_TEAM || team > TeamID.MAX_TEAM) {
+            return TeamID.OBSERVER;
+        }
+        return team;
+    }
+
+    /**
+     * Finds the team owning the most targets in a cluster cell.
+     * <p>
+     * Like QuadtreeDivider.getDominantTeam: ties go to the lowest TeamID, and unclaimed targets don't count.
+     * @param cell the cluster cell
+     * @return the dominant team, or TeamID.OBSERVER if no target in the cell is claimed
+     */
+    private int dominantTeam(final int cell) {
+        int dominant = TeamID.OBSERVER;
+        int dominantCount = 0;
+        for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+            if (clusterTeams[cell * TEAM_SLOTS + team] > dominantCount) {
+                dominant = team;
+                dominantCount = clusterTeams[cell * TEAM_SLOTS + team];
+            }
+        }
+        return dominant;
+    }
+
+    /**
+     * Gives every found target its own marker, taking markers away from targets that weren't found.
+     */
+    private void showTargets() {
+        releaseClusters();
+        wanted.clear();
+        for (int n = 0; n < found.size(); n++) {
+            wanted.set(found.get(n));
+        }
+        for (int t = marked.nextSetBit(0); t >= 0; t = marked.nextSetBit(t + 1)) {
+            if (!wanted.get(t)) {
+                release(targets[t].detachMarker());
+                marked.clear(t);
+            }
+        }
+        for (int t = wanted.nextSetBit(0); t >= 0; t = wanted.nextSetBit(t + 1)) {
+            if (!marked.get(t)) {
+                targets[t].attachMarker(obtain(targets[t].getPosition()));
+                marked.set(t);
+            }
+        }
+    }
+
+    /**
+     * Shows the found targets as one marker per occupied cluster cell.
+     * @param west the lowest longitude of the region
+     * @param south the lowest latitude of the region
+     * @param east the highest longitude of the region
+     * @param north the highest latitude of the region
+     */
+    private void showClusters(final double west, final double south, final double east, final double north) {
+        for (int t = marked.nextSetBit(0); t >= 0; t = marked.nextSetBit(t + 1)) {
+            release(targets[t].detachMarker());
+        }
+        marked.clear();
+        releaseClusters();
+
+        int[] sizes = new int[CLUSTER_CELLS];
+        double[] latitudeSums = new double[CLUSTER_CELLS];
+        double[] longitudeSums = new double[CLUSTER_CELLS];
+        double cellWidth = Math.max((east - west) / CLUSTER_GRID, Double.MIN_NORMAL);
+        double cellHeight = Math.max((north - south) / CLUSTER_GRID, Double.MIN_NORMAL);
+        for (int n = 0; n < found.size(); n++) {
+            int t = found.get(n);
+            LatLng position = targets[t].getPosition();
+            int column = Math.min(CLUSTER_GRID - 1, Math.max(0, (int) ((position.longitude - west) / cellWidth)));
+            int row = Math.min(CLUSTER_GRID - 1, Math.max(0, (int) ((position.latitude - south) / cellHeight)));
+            int cell = column + row * CLUSTER_GRID;
+            sizes[cell]++;
+            latitudeSums[cell] += position.latitude;
+            longitudeSums[cell] += position.longitude;
+            int team = countableTeam(targets[t].getTeam());
+            clusterTeams[cell * TEAM_SLOTS + team]++;
+            clusterOf[t] = cell;
+            countedTeams[t] = (byte) team;
+            clustered.add(t);
+        }
+
+        for (int cell = 0; cell < CLUSTER_CELLS; cell++) {
+            if (sizes[cell] == 0) {
+                continue;
+            }
+            cellDominant[cell] = dominantTeam(cell);
+            Marker marker = obtain(new LatLng(latitudeSums[cell] / sizes[cell], longitudeSums[cell] / sizes[cell]));
+            marker.setIcon(TeamIcons.get(cellDominant[cell]));
+            marker.setTitle(Integer.toString(sizes[cell]));
+            cellMarkers[cell] = marker;
+            clusters.add(marker);
+        }
+    }
+
+    /**
+     * Hides all the cluster markers, keeping them for reuse.
+     */
+    private void releaseClusters() {
+        for (Marker cluster : clusters) {
+            cluster.setTitle(null);
+            release(cluster);
+        }
+        clusters.clear();
+        Arrays.fill(cellMarkers, null);
+        Arrays.fill(clusterTeams, 0);
+        for (int n = 0; n < clustered.size(); n++) {
+            clusterOf[clustered.get(n)] = -1;
+        }
+        clustered.clear();
+    }
+
+    /**
+     * Gets a visible marker at a position, reusing a hidden one if there is one.
+     * @param position where to put the marker
+     * @return the marker
+     */
+    private Marker obtain(final LatLng position) {
+        if (spares.isEmpty()) {
+            return map.addMarker(new MarkerOptions().position(position));
+        }
+        Marker marker = spares.remove(spares.size() - 1);
+        marker.setPosition(position);
+        marker.setVisible(true);
+        return marker;
+    }
+
+    /**
+     * Hides a marker and keeps it for reuse.
+     * @param marker the marker
+     */
+    private void release(final Marker marker) {
+        marker.setVisible(false);
+        spares.add(marker);
+    }
+
+}
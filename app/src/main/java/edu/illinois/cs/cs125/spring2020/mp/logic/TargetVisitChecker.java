@@ -15,8 +15,6 @@ package edu.illinois.cs.cs125.spring2020.mp.logic;
  * on to GameActivity to make the game work!
  */
 
-import com.google.android.gms.maps.model.LatLng;
-
 /**
  * Holds methods for managing a path of target claims.
  * <p>
@@ -68,7 +66,7 @@ public class TargetVisitChecker {
                                               final int range) {
         // HINT: To find the distance in meters between two locations, use a provided helper function:
         // LatLngUtils.distance(oneLatitude, oneLongitude, otherLatitude, otherLongitude)
-        return LatLngUtils.distance(currentLatitude, currentLongitude, latitudes[targetIndex],
+        return LatLngMath.distance(currentLatitude, currentLongitude, latitudes[targetIndex],
                 longitudes[targetIndex]) < range;
     }
 
@@ -166,12 +164,11 @@ public class TargetVisitChecker {
                 }
             }
         }
+        int last = path[startingPoint];
         for (int index = 0; index < startingPoint; index++) {
-            LatLng first = new LatLng(latitudes[path[index]], longitudes[path[index]]);
-            LatLng second = new LatLng(latitudes[path[index + 1]], longitudes[path[index + 1]]);
-            LatLng third = new LatLng(latitudes[path[startingPoint]], longitudes[path[startingPoint]]);
-            LatLng fourth = new LatLng(latitudes[tryVisit], longitudes[tryVisit]);
-            if (LineCrossDetector.linesCross(first, second, third, fourth)) {
+            if (LineCrossDetector.segmentsCross(latitudes[path[index]], longitudes[path[index]],
+                    latitudes[path[index + 1]], longitudes[path[index + 1]],
+                    latitudes[last], longitudes[last], latitudes[tryVisit], longitudes[tryVisit])) {
                 return false;
             }
         }
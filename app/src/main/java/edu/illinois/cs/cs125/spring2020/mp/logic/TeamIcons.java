@@ -0,0 +1,45 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+
+/**
+ * Hands out the marker icon for each team, creating each one only once for the whole app.
+ * <p>
+ * Unclaimed targets are violet; claimed ones take their team's hue. Icons are created the first time they're
+ * asked for, since the Maps SDK has to be ready by then. This is only used from the UI thread.
+ */
+public final class TeamIcons {
+
+    /** Marker hue for each TeamID. */
+    private static final float[] HUES = {
+        BitmapDescriptorFactory.HUE_VIOLET,
+        BitmapDescriptorFactory.HUE_RED,
+        BitmapDescriptorFactory.HUE_YELLOW,
+        BitmapDescriptorFactory.HUE_GREEN,
+        BitmapDescriptorFactory.HUE_BLUE
+    };
+
+    /** The icon for each TeamID, or null if it hasn't been needed yet. */
+    private static final BitmapDescriptor[] ICONS = new BitmapDescriptor[HUES.length];
+
+    /** Private constructor to prevent creating instances. */
+    private TeamIcons() { }
+
+    /**
+     * Gets the marker icon for a team.
+     * @param team the TeamID of the team owning the target, or TeamID.OBSERVER if it is unclaimed
+     * @return the team's icon (the unclaimed icon for anything that isn't a team)
+     */
+    public static BitmapDescriptor get(final int team) {
+        int index = team;
+        if (index < TeamID.MIN_TEAM || index > TeamID.MAX_TEAM) {
+            index = TeamID.OBSERVER;
+        }
+        if (ICONS[index] == null) {
+            ICONS[index] = BitmapDescriptorFactory.defaultMarker(HUES[index]);
+        }
+        return ICONS[index];
+    }
+
+}
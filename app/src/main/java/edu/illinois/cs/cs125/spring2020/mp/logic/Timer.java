@@ -0,0 +1,21 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+/**
+ * Tells the time and runs delayed tasks, for logic that waits. Tests can supply a fake one.
+ */
+public interface Timer {
+
+    /**
+     * Gets the current time.
+     * @return milliseconds since some fixed point
+     */
+    long now();
+
+    /**
+     * Runs a task after a delay.
+     * @param task the task
+     * @param delay how long to wait (milliseconds)
+     */
+    void schedule(Runnable task, long delay);
+
+}
@@ -0,0 +1,224 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the logged-in user's ID token so requests can be authenticated without waiting for one each time.
+ * <p>
+ * While a cached token has more than USE_MARGIN left before it expires, get hands it over synchronously. Otherwise
+ * the caller waits for a fetch, which all callers arriving in the meantime share. Before the cached token gets near
+ * expiry (REFRESH_MARGIN ahead, or halfway through its life for short-lived tokens), a fresh one is fetched in the
+ * background, and requests keep using the old one until it arrives. If that refresh fails, the next request after
+ * the old token runs out fetches again.
+ * <p>
+ * All methods must be called on the timer's thread, normally the UI thread, which is also where the provider
+ * should report back.
+ */
+public final class TokenCache {
+
+    /** Fetches tokens. Tests can supply a stub. */
+    public interface Provider {
+
+        /**
+         * Starts fetching a token.
+         * @param forceRefresh whether to get a new token even if the provider has a usable one
+         * @param listener receives the token or the error
+         */
+        void fetch(boolean forceRefresh, Listener listener);
+
+    }
+
+    /** Receives the outcome of a fetch. */
+    public interface Listener {
+
+        /**
+         * Called when a token arrives.
+         * @param token the token
+         * @param validFor how long (milliseconds) until the token expires
+         */
+        void onToken(String token, long validFor);
+
+        /**
+         * Called when a token couldn't be fetched.
+         * @param error what went wrong
+         */
+        void onError(Exception error);
+
+    }
+
+    /** How long (milliseconds) before expiry to refresh a token in the background. */
+    public static final long REFRESH_MARGIN = TimeUnit.MINUTES.toMillis(5);
+
+    /** How long (milliseconds) a token must still be valid to be used, so it doesn't expire on the way. */
+    public static final long USE_MARGIN = TimeUnit.SECONDS.toMillis(30);
+
+    /** Fetches tokens. */
+    private final Provider provider;
+
+    /** Tells the time and runs the background refreshes. */
+    private final Timer timer;
+
+    /** The cached token, or null if there is none. */
+    private String token;
+
+    /** When the cached token expires, by the timer's clock. */
+    private long expiresAt;
+
+    /** Counts the tokens cached, so a refresh scheduled for a replaced one can tell it's stale. */
+    private int generation;
+
+    /** Whether a fetch is in progress. */
+    private boolean fetching;
+
+    /** Callbacks waiting for a token, oldest first. */
+    private final List<Consumer<String>> waitingForToken = new ArrayList<>();
+
+    /** Error callbacks of the requests waiting for a token, in the same order. */
+    private final List<Consumer<Exception>> waitingForError = new ArrayList<>();
+
+    /** Whether stop has been called. */
+    private boolean stopped;
+
+    /** Number of requests that got a cached token. */
+    private int hitCount;
+
+    /** Number of requests that had to wait for a fetch. */
+    private int missCount;
+
+    /** Number of background refreshes started. */
+    private int refreshCount;
+
+    /** Number of fetches that failed. */
+    private int failureCount;
+
+    /**
+     * Creates an empty token cache.
+     * @param setProvider fetches tokens
+     * @param setTimer tells the time and runs the background refreshes
+     */
+    public TokenCache(final Provider setProvider, final Timer setTimer) {
+        provider = setProvider;
+        timer = setTimer;
+    }
+
+    /**
+     * Gets a usable token, immediately if one is cached.
+     * @param onToken callback to run with the token, before returning if there was a cache hit
+     * @param onError callback to run if no token could be fetched
+     */
+    public void get(final Consumer<String> onToken, final Consumer<Exception> onError) {
+        if (token != null && timer.now() < expiresAt - USE_MARGIN) {
+            hitCount++;
+            onToken.accept(token);
+            return;
+        }
+        missCount++;
+        waitingForToken.add(onToken);
+        waitingForError.add(onError);
+        fetch(false);
+    }
+
+    /**
+     * Stops refreshing in the background. Requests still get tokens.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Starts a fetch unless one is already in progress.
+     * @param forceRefresh whether the provider should get a new token even if it has a usable one
+     */
+    private void fetch(final boolean forceRefresh) {
+        if (fetching) {
+            return;
+        }
+        fetching = true;
+        provider.fetch(forceRefresh, new Listener() {
+            @Override
+            public void onToken(final String setToken, final long validFor) {
+                fetching = false;
+                store(setToken, validFor);
+                List<Consumer<String>> callbacks = new ArrayList<>(waitingForToken);
+                waitingForToken.clear();
+                waitingForError.clear();
+                for (Consumer<String> callback : callbacks) {
+                    callback.accept(setToken);
+                }
+            }
+
+            @Override
+            public void onError(final Exception error) {
+                fetching = false;
+                failureCount++;
+                List<Consumer<Exception>> callbacks = new ArrayList<>(waitingForError);
+                waitingForToken.clear();
+                waitingForError.clear();
+                for (Consumer<Exception> callback : callbacks) {
+                    callback.accept(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * Caches a fetched token and schedules its refresh.
+     * @param setToken the token
+     * @param validFor how long (milliseconds) until it expires
+     */
+    private void store(final String setToken, final long validFor) {
+        token = setToken;
+        expiresAt = timer.now() + validFor;
+        generation++;
+        int refreshing = generation;
+        timer.schedule(() -> refresh(refreshing), Math.max(validFor - REFRESH_MARGIN, validFor / 2));
+    }
+
+    /**
+     * Fetches a new token in the background, if the one the refresh was scheduled for is still the cached one.
+     * @param forGeneration the generation of the token the refresh was scheduled for
+     */
+    private void refresh(final int forGeneration) {
+        if (stopped || forGeneration != generation || fetching) {
+            return;
+        }
+        refreshCount++;
+        fetch(true);
+    }
+
+    /**
+     * Gets the number of requests that got a cached token without waiting.
+     * @return the number of cache hits
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of requests that had to wait for a token to be fetched.
+     * @return the number of cache misses
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of background refreshes started.
+     * @return the number of refreshes
+     */
+    public int getRefreshCount() {
+        return refreshCount;
+    }
+
+    /**
+     * Gets the number of fetches that failed, in the background or not.
+     * @return the number of failures
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+}
@@ -0,0 +1,37 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * A timer that runs tasks on the UI thread and measures time since boot, so it isn't thrown off by clock changes.
+ */
+public final class UiThreadTimer implements Timer {
+
+    /** The handler that runs tasks, created when first needed so the timer can be made without a looper. */
+    private Handler handler;
+
+    /**
+     * Gets the time since boot.
+     * @return milliseconds since boot, including deep sleep
+     */
+    @Override
+    public long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Runs a task on the UI thread after a delay.
+     * @param task the task
+     * @param delay how long to wait (milliseconds)
+     */
+    @Override
+    public void schedule(final Runnable task, final long delay) {
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        handler.postDelayed(task, delay);
+    }
+
+}
@@ -24,6 +24,7 @@ import com.neovisionaries.ws.client.WebSocketFrame;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -54,9 +55,41 @@ public final class WebApi {
     /** The Volley request queue for the application, or null if the queue hasn't been set up yet. */
     private static RequestQueue requestQueue;
 
+    /** The cache of the logged-in user's ID token, or null if no request has needed one yet. */
+    private static TokenCache tokens;
+
+    /** The UID of the user whose ID token is cached. */
+    private static String tokenOwner;
+
     /** Private constructor to prevent creating instances. */
     private WebApi() { }
 
+    /**
+     * Gets the ID token cache for a user, replacing the cache if a different user has logged in.
+     * @param user the logged-in user
+     * @return the token cache
+     */
+    private static TokenCache tokensFor(final FirebaseUser user) {
+        if (tokens != null && user.getUid().equals(tokenOwner)) {
+            return tokens;
+        }
+        if (tokens != null) {
+            tokens.stop();
+        }
+        tokenOwner = user.getUid();
+        tokens = new TokenCache((forceRefresh, listener) -> {
+            FirebaseUser current = FirebaseAuth.getInstance().getCurrentUser();
+            if (current == null) {
+                listener.onError(new IllegalStateException("No user is logged in"));
+                return;
+            }
+            current.getIdToken(forceRefresh).addOnSuccessListener(result -> listener.onToken(result.getToken(),
+                    TimeUnit.SECONDS.toMillis(result.getExpirationTimestamp()) - System.currentTimeMillis()))
+                    .addOnFailureListener(listener::onError);
+        }, new UiThreadTimer());
+        return tokens;
+    }
+
     /**
      * Starts an HTTP GET request.
      * @param context an Android context
@@ -115,7 +148,7 @@ public final class WebApi {
                 errorListener.onErrorResponse(error);
             }
         };
-        user.getIdToken(false).addOnSuccessListener(result ->
+        tokensFor(user).get(token ->
             requestQueue.add(new StringRequest(method, url, serverResponseListener, serverErrorListener) {
                 {
                     Log.v(TAG, "startRequest creating Volley request (received Firebase ID token)");
@@ -138,17 +171,16 @@ public final class WebApi {
                 }
                 @Override
                 public Map<String, String> getHeaders() {
-                    return Collections.singletonMap("Firebase-Token", result.getToken());
+                    return Collections.singletonMap("Firebase-Token", token);
                 }
-            })
-        ).addOnFailureListener(e -> errorListener.onErrorResponse(new VolleyError(e)));
-        Log.v(TAG, "startRequest started getIdToken");
+            }), e -> errorListener.onErrorResponse(new VolleyError(e)));
+        Log.v(TAG, "startRequest requested Firebase ID token");
     }
 
     /**
      * Connects to a websocket.
      * @param url the websocket endpoint
-     * @param dataListener receiver for data messages
+     * @param dataListener receiver for data messages (a GameMessage.Listener gets them decoded without a JSON tree)
      * @param onCreatedListener callback to run with the websocket when it is created
      * @param connectionLostListener callback to run if the connection is lost
      * @param errorListener callback to run if an error occurs during the initial connection
@@ -162,19 +194,26 @@ public final class WebApi {
             Log.e(TAG, "connectWebSocket called before Firebase Authentication login");
             throw new IllegalStateException("No user is logged in");
         }
-        user.getIdToken(false).addOnSuccessListener(result -> {
+        tokensFor(user).get(token -> {
             Log.v(TAG, "connectWebSocket received Firebase ID token");
             WebSocketFactory factory = new WebSocketFactory();
             factory.setConnectionTimeout(WEBSOCKET_CONNECTION_TIMEOUT);
             try {
                 WebSocket socket = factory.createSocket(url);
                 socket.setPingInterval(WEBSOCKET_PING_INTERVAL);
-                socket.addHeader("Firebase-Token", result.getToken());
+                socket.addHeader("Firebase-Token", token);
+                // Offer the compact encoding; a server that doesn't know it just won't agree, leaving JSON
+                socket.addProtocol(WireCodec.BINARY_PROTOCOL);
                 socket.addListener(new WebSocketAdapter() {
                     private boolean disconnectedDueToError = false;
                     @Override
                     public void onTextMessage(final WebSocket websocket, final String text) {
-                        dataListener.accept(JsonParser.parseString(text).getAsJsonObject());
+                        if (dataListener instanceof GameMessage.Listener) {
+                            // Decode straight into typed messages without building a tree
+                            ((GameMessage.Listener) dataListener).onMessage(GameMessage.parse(text));
+                        } else {
+                            dataListener.accept(JsonParser.parseString(text).getAsJsonObject());
+                        }
                     }
                     @Override
                     public void onError(final WebSocket websocket, final WebSocketException cause) {
@@ -204,8 +243,8 @@ public final class WebApi {
                 Log.v(TAG, "Delivering websocket setup error for " + url);
                 errorListener.accept(e);
             }
-        }).addOnFailureListener(errorListener::accept);
-        Log.v(TAG, "connectWebSocket started getIdToken");
+        }, errorListener::accept);
+        Log.v(TAG, "connectWebSocket requested Firebase ID token");
     }
 
 }
@@ -0,0 +1,202 @@
+package edu.illinois.cs.cs125.spring2020.mp.logic;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.neovisionaries.ws.client.WebSocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sends gameplay messages over the websocket, in a compact binary form when the server supports it.
+ * <p>
+ * The client offers BINARY_PROTOCOL as a websocket subprotocol when connecting. If the server agrees, the
+ * frequent messages go out as binary frames: a one-byte type, then for locationUpdate the latitude and longitude
+ * as big-endian 32-bit microdegrees, for cellCapture the cell indices as varints, and for targetVisit the ID's
+ * UTF-8 length as a varint followed by its bytes. Microdegrees are about 11 cm, far finer than GPS accuracy.
+ * Everything else, and everything when the server didn't agree, goes out as JSON text as before.
+ */
+public final class WireCodec {
+
+    /** The websocket subprotocol name offered for the binary encoding. */
+    public static final String BINARY_PROTOCOL = "cs125-binary-1";
+
+    /** Type byte of a binary locationUpdate. */
+    private static final byte LOCATION_UPDATE = 1;
+
+    /** Type byte of a binary targetVisit. */
+    private static final byte TARGET_VISIT = 2;
+
+    /** Type byte of a binary cellCapture. */
+    private static final byte CELL_CAPTURE = 3;
+
+    /** Microdegrees per degree. */
+    private static final double MICRODEGREES = 1e6;
+
+    /** Bytes in an encoded locationUpdate: the type and two 32-bit coordinates. */
+    private static final int LOCATION_UPDATE_SIZE = 1 + Integer.BYTES * 2;
+
+    /** The most bytes a varint of a 32-bit value can take. */
+    private static final int MAX_VARINT_SIZE = 5;
+
+    /** Number of value bits in each varint byte. */
+    private static final int VARINT_BITS = 7;
+
+    /** Mask for a varint byte's value bits. */
+    private static final int VARINT_VALUE = 0x7F;
+
+    /** A varint byte's flag saying more bytes follow. */
+    private static final int VARINT_MORE = 0x80;
+
+    /** Private constructor to prevent creating instances. */
+    private WireCodec() { }
+
+    /**
+     * Sends a message, as a binary frame if the server agreed to the binary protocol and the message has a binary
+     * form, or as JSON text otherwise.
+     * @param socket the websocket to send on
+     * @param message the message
+     */
+    public static void send(final WebSocket socket, final JsonObject message) {
+        if (BINARY_PROTOCOL.equals(socket.getAgreedProtocol())) {
+            byte[] encoded = encode(message);
+            if (encoded != null) {
+                socket.sendBinary(encoded);
+                return;
+            }
+        }
+        socket.sendText(message.toString());
+    }
+
+    /**
+     * Encodes a message in the binary form.
+     * @param message the message
+     * @return the binary frame payload, or null if the message's type has no binary form
+     */
+    public static byte[] encode(final JsonObject message) {
+        JsonElement type = message.get("type");
+        if (type == null || !type.isJsonPrimitive()) {
+            return null;
+        }
+        switch (type.getAsString()) {
+            case "locationUpdate":
+                return ByteBuffer.allocate(LOCATION_UPDATE_SIZE).put(LOCATION_UPDATE)
+                        .putInt(toMicrodegrees(message.get("latitude").getAsDouble()))
+                        .putInt(toMicrodegrees(message.get("longitude").getAsDouble()))
+                        .array();
+            case "cellCapture":
+                byte[] cell = new byte[1 + MAX_VARINT_SIZE * 2];
+                cell[0] = CELL_CAPTURE;
+                int end = putVarint(cell, 1, message.get("x").getAsInt());
+                end = putVarint(cell, end, message.get("y").getAsInt());
+                return Arrays.copyOf(cell, end);
+            case "targetVisit":
+                byte[] id = message.get("targetId").getAsString().getBytes(StandardCharsets.UTF_8);
+                byte[] visit = new byte[1 + MAX_VARINT_SIZE + id.length];
+                visit[0] = TARGET_VISIT;
+                int idStart = putVarint(visit, 1, id.length);
+                System.arraycopy(id, 0, visit, idStart, id.length);
+                return Arrays.copyOf(visit, idStart + id.length);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Decodes a binary frame payload back into the equivalent JSON message, as the server would.
+     * @param frame the binary frame payload
+     * @return the message
+     * @throws IllegalArgumentException if the payload isn't a valid binary message
+     */
+    public static JsonObject decode(final byte[] frame) {
+        if (frame.length == 0) {
+            throw new IllegalArgumentException("Empty binary message");
+        }
+        JsonObject message = new JsonObject();
+        int[] position = {1};
+        switch (frame[0]) {
+            case LOCATION_UPDATE:
+                if (frame.length != LOCATION_UPDATE_SIZE) {
+                    throw new IllegalArgumentException("Wrong locationUpdate length: " + frame.length);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(frame, 1, frame.length - 1);
+                message.addProperty("type", "locationUpdate");
+                message.addProperty("latitude", buffer.getInt() / MICRODEGREES);
+                message.addProperty("longitude", buffer.getInt() / MICRODEGREES);
+                position[0] = frame.length;
+                break;
+            case CELL_CAPTURE:
+                message.addProperty("type", "cellCapture");
+                message.addProperty("x", getVarint(frame, position));
+                message.addProperty("y", getVarint(frame, position));
+                break;
+            case TARGET_VISIT:
+                int length = getVarint(frame, position);
+                if (length < 0 || position[0] + length > frame.length) {
+                    throw new IllegalArgumentException("Truncated targetVisit");
+                }
+                message.addProperty("type", "targetVisit");
+                message.addProperty("targetId", new String(frame, position[0], length, StandardCharsets.UTF_8));
+                position[0] += length;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown binary message type: " + frame[0]);
+        }
+        if (position[0] != frame.length) {
+            throw new IllegalArgumentException("Trailing bytes after binary message");
+        }
+        return message;
+    }
+
+    /**
+     * Converts a coordinate to whole microdegrees.
+     * @param degrees the coordinate in degrees
+     * @return the nearest number of microdegrees
+     */
+    private static int toMicrodegrees(final double degrees) {
+        return (int) Math.round(degrees * MICRODEGREES);
+    }
+
+    /**
+     * Writes a value as a varint: seven bits per byte, lowest first, with the high bit set on all but the last.
+     * Negative values are written as their unsigned 32-bit form.
+     * @param buffer the array to write to
+     * @param offset where to start writing
+     * @param value the value
+     * @return the position just after the varint
+     */
+    private static int putVarint(final byte[] buffer, final int offset, final int value) {
+        int position = offset;
+        int remaining = value;
+        while ((remaining & ~VARINT_VALUE) != 0) {
+            buffer[position++] = (byte) ((remaining & VARINT_VALUE) | VARINT_MORE);
+            remaining >>>= VARINT_BITS;
+        }
+        buffer[position++] = (byte) remaining;
+        return position;
+    }
+
+    /**
+     * Reads a varint.
+     * @param buffer the array to read from
+     * @param position a one-element array holding where to start reading, advanced past the varint
+     * @return the value
+     * @throws IllegalArgumentException if the varint is truncated or too long
+     */
+    private static int getVarint(final byte[] buffer, final int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < MAX_VARINT_SIZE * VARINT_BITS; shift += VARINT_BITS) {
+            if (position[0] >= buffer.length) {
+                throw new IllegalArgumentException("Truncated varint");
+            }
+            int next = buffer[position[0]++];
+            value |= (next & VARINT_VALUE) << shift;
+            if ((next & VARINT_MORE) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+}
@@ -0,0 +1,171 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.AreaDivider;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AreaDividerTest {
+
+    /** Makes a random area of up to a few kilometers on a side, anywhere a game could be played. */
+    private static AreaDivider randomArea(Random random) {
+        double south = random.nextDouble() * 120 - 60;
+        double west = random.nextDouble() * 340 - 170;
+        double north = south + 0.0005 + random.nextDouble() * 0.05;
+        double east = west + 0.0005 + random.nextDouble() * 0.05;
+        return new AreaDivider(north, east, south, west, 5 + random.nextInt(200));
+    }
+
+    /** Finds a coordinate's cell by checking every cell in turn, the slow and obvious way. */
+    private static int naiveIndex(double[] edges, double value) {
+        int cells = edges.length - 1;
+        for (int i = 0; i < cells; i++) {
+            if (value >= edges[i] && value < edges[i + 1]) {
+                return i;
+            }
+        }
+        // The far boundary belongs to the last cell
+        if (value == edges[cells]) {
+            return cells - 1;
+        }
+        return -1;
+    }
+
+    private static double[] columnEdges(AreaDivider divider) {
+        double[] edges = new double[divider.getXCells() + 1];
+        for (int x = 0; x < edges.length; x++) {
+            edges[x] = divider.getGeometry().getColumnEdge(x);
+        }
+        return edges;
+    }
+
+    private static double[] rowEdges(AreaDivider divider) {
+        double[] edges = new double[divider.getYCells() + 1];
+        for (int y = 0; y < edges.length; y++) {
+            edges[y] = divider.getGeometry().getRowEdge(y);
+        }
+        return edges;
+    }
+
+    private static int naiveCellIndex(AreaDivider divider, double latitude, double longitude) {
+        int x = naiveIndex(columnEdges(divider), longitude);
+        int y = naiveIndex(rowEdges(divider), latitude);
+        if (x < 0 || y < 0) {
+            return -1;
+        }
+        return x + y * divider.getXCells();
+    }
+
+    /** Picks a random coordinate: on a line, just beside one, inside a cell, or outside the area. */
+    private static double coordinate(Random random, double[] edges) {
+        double edge = edges[random.nextInt(edges.length)];
+        double span = edges[edges.length - 1] - edges[0];
+        switch (random.nextInt(6)) {
+            case 0:
+                return edge;
+            case 1:
+                return Math.nextDown(edge);
+            case 2:
+                return Math.nextUp(edge);
+            case 3:
+                return edges[0] - random.nextDouble() * span;
+            case 4:
+                return edges[edges.length - 1] + random.nextDouble() * span;
+            default:
+                return edges[0] + random.nextDouble() * span;
+        }
+    }
+
+    @Test
+    public void testCellIndexMatchesNaiveLookup() {
+        Random random = new Random(1);
+        for (int area = 0; area < 100; area++) {
+            AreaDivider divider = randomArea(random);
+            double[] columns = columnEdges(divider);
+            double[] rows = rowEdges(divider);
+            for (int p = 0; p < 2000; p++) {
+                double latitude = coordinate(random, rows);
+                double longitude = coordinate(random, columns);
+                Assert.assertEquals(latitude + ", " + longitude, naiveCellIndex(divider, latitude, longitude),
+                        divider.getCellIndex(latitude, longitude));
+            }
+        }
+    }
+
+    @Test
+    public void testEdges() {
+        Random random = new Random(2);
+        for (int area = 0; area < 100; area++) {
+            AreaDivider divider = randomArea(random);
+            double[] columns = columnEdges(divider);
+            double[] rows = rowEdges(divider);
+            int xCells = divider.getXCells();
+            int yCells = divider.getYCells();
+            double middleLatitude = (rows[0] + rows[yCells]) / 2;
+            double middleLongitude = (columns[0] + columns[xCells]) / 2;
+            int middleY = divider.getYIndex(middleLatitude);
+
+            // Inner lines belong to the cell east or north of them
+            for (int x = 1; x < xCells; x++) {
+                Assert.assertEquals(x + middleY * xCells, divider.getCellIndex(middleLatitude, columns[x]));
+                Assert.assertEquals(x - 1 + middleY * xCells,
+                        divider.getCellIndex(middleLatitude, Math.nextDown(columns[x])));
+            }
+            for (int y = 1; y < yCells; y++) {
+                Assert.assertEquals(y, divider.getYIndex(rows[y]));
+                Assert.assertEquals(y - 1, divider.getYIndex(Math.nextDown(rows[y])));
+            }
+
+            // The outer boundaries are in the area, and anything past them isn't
+            Assert.assertEquals(0, divider.getCellIndex(rows[0], columns[0]));
+            Assert.assertEquals(xCells * yCells - 1, divider.getCellIndex(rows[yCells], columns[xCells]));
+            Assert.assertEquals(xCells - 1, divider.getCellIndex(rows[0], columns[xCells]));
+            Assert.assertEquals((yCells - 1) * xCells, divider.getCellIndex(rows[yCells], columns[0]));
+            Assert.assertEquals(-1, divider.getCellIndex(middleLatitude, Math.nextDown(columns[0])));
+            Assert.assertEquals(-1, divider.getCellIndex(middleLatitude, Math.nextUp(columns[xCells])));
+            Assert.assertEquals(-1, divider.getCellIndex(Math.nextDown(rows[0]), middleLongitude));
+            Assert.assertEquals(-1, divider.getCellIndex(Math.nextUp(rows[yCells]), middleLongitude));
+            Assert.assertEquals(-1, divider.getXIndex(Math.nextDown(columns[0])));
+            Assert.assertEquals(-1, divider.getYIndex(Math.nextUp(rows[yCells])));
+        }
+    }
+
+    @Test
+    public void testCellIndexesMatchesOneAtATime() {
+        Random random = new Random(3);
+        for (int area = 0; area < 50; area++) {
+            AreaDivider divider = randomArea(random);
+            double[] columns = columnEdges(divider);
+            double[] rows = rowEdges(divider);
+            int count = random.nextInt(500);
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            for (int p = 0; p < count; p++) {
+                latitudes[p] = coordinate(random, rows);
+                longitudes[p] = coordinate(random, columns);
+            }
+            // Extra room at the end must be left alone
+            int[] indexes = new int[count + 3];
+            indexes[count] = 42;
+            int inside = divider.getCellIndexes(latitudes, longitudes, indexes);
+            int expectedInside = 0;
+            for (int p = 0; p < count; p++) {
+                int expected = naiveCellIndex(divider, latitudes[p], longitudes[p]);
+                Assert.assertEquals(expected, indexes[p]);
+                if (expected >= 0) {
+                    expectedInside++;
+                }
+            }
+            Assert.assertEquals(expectedInside, inside);
+            Assert.assertEquals(42, indexes[count]);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.AreaTileRenderer;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GridGeometry;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AreaTileRendererTest {
+
+    private static final int ZOOM = 17;
+    private static final int[] COLORS = {0xFF000000, 0xFFFF0000, 0xFFFFFF00, 0xFF00FF00, 0xFF0000FF};
+
+    private GridGeometry geometry;
+    private int[][] owners;
+    private AreaTileRenderer renderer;
+
+    @Before
+    public void setup() {
+        geometry = new GridGeometry(40.098143, -88.257649, 40.083690, -88.276347, 40);
+        owners = new int[geometry.getXCells()][geometry.getYCells()];
+        renderer = new AreaTileRenderer(geometry, (x, y) -> owners[x][y], COLORS);
+    }
+
+    private static double worldX(double longitude) {
+        return (longitude + 180) / 360 * (1 << ZOOM) * AreaTileRenderer.TILE_SIZE;
+    }
+
+    private static double worldY(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * (1 << ZOOM) * AreaTileRenderer.TILE_SIZE;
+    }
+
+    private int pixelAtCellCenter(int cellX, int cellY) {
+        double longitude = (geometry.getColumnEdge(cellX) + geometry.getColumnEdge(cellX + 1)) / 2;
+        double latitude = (geometry.getRowEdge(cellY) + geometry.getRowEdge(cellY + 1)) / 2;
+        int x = (int) worldX(longitude);
+        int y = (int) worldY(latitude);
+        int[] pixels = renderer.renderPixels(x / AreaTileRenderer.TILE_SIZE, y / AreaTileRenderer.TILE_SIZE, ZOOM);
+        Assert.assertNotNull("A tile containing a cell should be rendered", pixels);
+        return pixels[(y % AreaTileRenderer.TILE_SIZE) * AreaTileRenderer.TILE_SIZE + x % AreaTileRenderer.TILE_SIZE];
+    }
+
+    private int[] tileOf(int cellX, int cellY) {
+        double longitude = (geometry.getColumnEdge(cellX) + geometry.getColumnEdge(cellX + 1)) / 2;
+        double latitude = (geometry.getRowEdge(cellY) + geometry.getRowEdge(cellY + 1)) / 2;
+        return new int[] {(int) worldX(longitude) / AreaTileRenderer.TILE_SIZE,
+                (int) worldY(latitude) / AreaTileRenderer.TILE_SIZE};
+    }
+
+    @Test(timeout = 60000)
+    public void testOwnershipColors() {
+        Assert.assertEquals("Uncaptured cells should be transparent", 0, pixelAtCellCenter(3, 4));
+        owners[3][4] = TeamID.TEAM_RED;
+        owners[20][21] = TeamID.TEAM_BLUE;
+        Assert.assertEquals(COLORS[TeamID.TEAM_RED], pixelAtCellCenter(3, 4));
+        Assert.assertEquals(COLORS[TeamID.TEAM_BLUE], pixelAtCellCenter(20, 21));
+        Assert.assertEquals("Other cells should stay transparent", 0, pixelAtCellCenter(4, 4));
+    }
+
+    @Test(timeout = 60000)
+    public void testOutsideArea() {
+        Assert.assertNull(renderer.renderPixels(0, 0, ZOOM));
+        Assert.assertSame(TileProvider.NO_TILE, renderer.getTile(0, 0, ZOOM));
+    }
+
+    @Test(timeout = 60000)
+    public void testInvalidation() {
+        int[] corner = tileOf(0, 0);
+        int[] farCorner = tileOf(geometry.getXCells() - 1, geometry.getYCells() - 1);
+        Assert.assertFalse("The test cells should be in different tiles",
+                corner[0] == farCorner[0] && corner[1] == farCorner[1]);
+
+        Tile first = renderer.getTile(corner[0], corner[1], ZOOM);
+        Assert.assertNotSame(TileProvider.NO_TILE, first);
+        Assert.assertSame("Repeated requests should come from the cache", first,
+                renderer.getTile(corner[0], corner[1], ZOOM));
+        Assert.assertEquals(1, renderer.getRenders());
+        Assert.assertEquals(1, renderer.getCacheHits());
+
+        owners[geometry.getXCells() - 1][geometry.getYCells() - 1] = TeamID.TEAM_GREEN;
+        renderer.invalidateCell(geometry.getXCells() - 1, geometry.getYCells() - 1);
+        Assert.assertSame("A capture elsewhere should not evict the tile", first,
+                renderer.getTile(corner[0], corner[1], ZOOM));
+
+        owners[0][0] = TeamID.TEAM_YELLOW;
+        renderer.invalidateCell(0, 0);
+        Assert.assertNotSame("A capture in the tile should evict it", first,
+                renderer.getTile(corner[0], corner[1], ZOOM));
+        Assert.assertEquals(2, renderer.getRenders());
+    }
+
+    @Test(timeout = 60000)
+    public void testInvalidationDuringRender() {
+        int[] corner = tileOf(0, 0);
+        boolean[] captured = new boolean[1];
+        AreaTileRenderer[] racing = new AreaTileRenderer[1];
+        racing[0] = new AreaTileRenderer(geometry, (x, y) -> {
+            if (!captured[0]) {
+                // The UI thread records a capture while the tile thread is partway through the render
+                captured[0] = true;
+                owners[0][0] = TeamID.TEAM_BLUE;
+                racing[0].invalidateCell(0, 0);
+            }
+            return owners[x][y];
+        }, COLORS);
+
+        Tile stale = racing[0].getTile(corner[0], corner[1], ZOOM);
+        Assert.assertTrue(captured[0]);
+        Tile fresh = racing[0].getTile(corner[0], corner[1], ZOOM);
+        Assert.assertNotSame("A tile rendered across an invalidation should not be cached", stale, fresh);
+        Assert.assertEquals(2, racing[0].getRenders());
+        Assert.assertSame("The tile rendered afterwards should be cached", fresh,
+                racing[0].getTile(corner[0], corner[1], ZOOM));
+    }
+
+}
@@ -0,0 +1,208 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.gson.JsonObject;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.CaptureOutbox;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameMessage;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+public class CaptureOutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JsonObject cellCapture(int x, int y) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "cellCapture");
+        message.addProperty("x", x);
+        message.addProperty("y", y);
+        return message;
+    }
+
+    private static JsonObject targetVisit(String targetId) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "targetVisit");
+        message.addProperty("targetId", targetId);
+        return message;
+    }
+
+    private static GameMessage echo(JsonObject sent) {
+        JsonObject update = sent.get("type").getAsString().equals("cellCapture")
+                ? JsonHelper.updatePlayerCellCapture(SampleData.USER_EMAIL, TeamID.TEAM_RED, sent.get("x").getAsInt(), sent.get("y").getAsInt())
+                : JsonHelper.updatePlayerTargetVisit(SampleData.USER_EMAIL, TeamID.TEAM_RED, sent.get("targetId").getAsString());
+        return GameMessage.fromJson(update);
+    }
+
+    private static CaptureOutbox reopen(CaptureOutbox outbox, File file) throws InterruptedException {
+        outbox.awaitWritten();
+        outbox.close();
+        return new CaptureOutbox(file);
+    }
+
+    @Test
+    public void testPendingSurvivesRestart() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        Assert.assertTrue(outbox.add(cellCapture(1, 2)));
+        Assert.assertTrue(outbox.add(targetVisit("abc")));
+        Assert.assertTrue(outbox.add(cellCapture(1, 3)));
+        Assert.assertFalse("Other messages aren't recorded", outbox.add(new JsonObject()));
+        outbox.acknowledge(echo(targetVisit("abc")));
+
+        outbox = reopen(outbox, file);
+        Assert.assertEquals("Unconfirmed captures should be loaded in order",
+                Arrays.asList(cellCapture(1, 2), cellCapture(1, 3)), outbox.getPending());
+        outbox.close();
+    }
+
+    @Test
+    public void testDeduplicatesByKey() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        Assert.assertTrue(outbox.add(cellCapture(4, 4)));
+        Assert.assertFalse("A capture already pending should not be recorded twice", outbox.add(cellCapture(4, 4)));
+        outbox = reopen(outbox, file);
+        Assert.assertFalse("Keys should be remembered across restarts", outbox.add(cellCapture(4, 4)));
+        Assert.assertEquals(1, outbox.getPending().size());
+        outbox.close();
+    }
+
+    @Test
+    public void testCompactsWhenSettled() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        for (int x = 0; x < 100; x++) {
+            outbox.add(cellCapture(x, 0));
+        }
+        outbox.add(targetVisit("last"));
+        for (int x = 0; x < 100; x++) {
+            outbox.acknowledge(echo(cellCapture(x, 0)));
+        }
+        outbox.awaitWritten();
+        Assert.assertTrue("Acknowledged captures should be compacted away", Files.readAllLines(file.toPath()).size() < 40);
+
+        outbox.acknowledge(echo(targetVisit("last")));
+        outbox.awaitWritten();
+        Assert.assertEquals("Once nothing is pending the log should be empty", 0, file.length());
+        Assert.assertEquals(0, outbox.getFailureCount());
+        outbox.close();
+    }
+
+    @Test
+    public void testFullUpdateSettlesWithoutEcho() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        outbox.add(cellCapture(4, 1));
+        outbox.add(cellCapture(5, 1));
+        outbox.add(targetVisit("LowerLeft"));
+        outbox.add(targetVisit("Elsewhere"));
+
+        // The server took some captures but never echoed them; a reconnect brings a full update listing them
+        JsonObject game = JsonHelper.game("game", SampleData.USER_EMAIL, GameStateID.RUNNING, "area",
+                JsonHelper.player("noone@illinois.edu", TeamID.TEAM_RED, 1, JsonHelper.area(6, 1, "", 1)),
+                JsonHelper.player(SampleData.USER_EMAIL, TeamID.TEAM_RED, 1,
+                        JsonHelper.area(3, 1, "", 1), JsonHelper.area(4, 1, "", 1),
+                        JsonHelper.target("LowerLeft", 40.106388, -88.227814, TeamID.TEAM_RED)));
+        outbox.acknowledgeAll(game);
+        Assert.assertEquals("Captures the full update shows as taken should be settled, and only those",
+                Arrays.asList(cellCapture(5, 1), targetVisit("Elsewhere")), outbox.getPending());
+
+        outbox = reopen(outbox, file);
+        Assert.assertEquals("Settling should be logged", Arrays.asList(cellCapture(5, 1), targetVisit("Elsewhere")),
+                outbox.getPending());
+
+        // Other players got there first: the cell is in someone else's path and the target is claimed
+        JsonObject later = JsonHelper.game("game", SampleData.USER_EMAIL, GameStateID.RUNNING, "target",
+                JsonHelper.player("opponent@example.com", TeamID.TEAM_BLUE, 1, JsonHelper.area(5, 1, "", 1)));
+        later.getAsJsonArray("targets").add(JsonHelper.target("Elsewhere", 40.1, -88.2, TeamID.TEAM_GREEN));
+        outbox.acknowledgeAll(later);
+        Assert.assertEquals("Captures someone else made should be settled too", 0, outbox.getPending().size());
+        outbox.awaitWritten();
+        Assert.assertEquals("Once the full update settles everything the log should be empty", 0, file.length());
+        outbox.close();
+    }
+
+    @Test
+    public void testRejectedCaptureSettlesOnOthersUpdate() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        outbox.add(cellCapture(2, 2));
+        outbox.add(cellCapture(2, 3));
+        outbox.add(targetVisit("contested"));
+
+        // Someone else's capture arrives instead of our echo, so the server rejected ours
+        outbox.acknowledge(GameMessage.fromJson(
+                JsonHelper.updatePlayerCellCapture("opponent@example.com", TeamID.TEAM_BLUE, 2, 2)));
+        outbox.acknowledge(GameMessage.fromJson(
+                JsonHelper.updatePlayerTargetVisit("another@example.com", TeamID.TEAM_GREEN, "contested")));
+        outbox.acknowledge(GameMessage.fromJson(
+                JsonHelper.updatePlayerCellCapture("opponent@example.com", TeamID.TEAM_BLUE, 3, 2)));
+        Assert.assertEquals("Only captures of the same cell or target should be settled",
+                Arrays.asList(cellCapture(2, 3)), outbox.getPending());
+
+        outbox = reopen(outbox, file);
+        Assert.assertEquals("A rejected capture shouldn't be resent after a restart",
+                Arrays.asList(cellCapture(2, 3)), outbox.getPending());
+        outbox.close();
+    }
+
+    @Test
+    public void testDiscardDeletesLog() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        outbox.add(cellCapture(1, 1));
+        outbox.add(targetVisit("never"));
+        outbox.awaitWritten();
+        Assert.assertTrue(file.exists());
+
+        outbox.discard();
+        Assert.assertEquals(0, outbox.getPending().size());
+        outbox.awaitWritten();
+        Assert.assertFalse("An ended game's log should be deleted", file.exists());
+        Assert.assertEquals(0, outbox.getFailureCount());
+        outbox = reopen(outbox, file);
+        Assert.assertEquals(0, outbox.getPending().size());
+        outbox.close();
+    }
+
+    @Test
+    public void testSkipsTornLine() throws Exception {
+        File file = new File(folder.getRoot(), "outbox.log");
+        CaptureOutbox outbox = new CaptureOutbox(file);
+        outbox.add(cellCapture(5, 6));
+        outbox.awaitWritten();
+        outbox.close();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("{\"type\":\"cellCapture\",\"x\":7,".getBytes(StandardCharsets.UTF_8));
+        }
+
+        outbox = new CaptureOutbox(file);
+        Assert.assertEquals(Arrays.asList(cellCapture(5, 6)), outbox.getPending());
+        outbox.close();
+    }
+
+    @Test
+    public void testBatchesSyncs() throws IOException, InterruptedException {
+        CaptureOutbox outbox = new CaptureOutbox(folder.newFile());
+        for (int x = 0; x < 1000; x++) {
+            outbox.add(cellCapture(x, x));
+        }
+        outbox.awaitWritten();
+        Assert.assertTrue("Captures queued during a sync should share the next one", outbox.getSyncCount() < 1000);
+        outbox.close();
+    }
+
+}
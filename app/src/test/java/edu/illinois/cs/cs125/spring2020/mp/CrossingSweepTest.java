@@ -0,0 +1,215 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.CrossingSweep;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LineCrossDetector;
+import edu.illinois.cs.cs125.spring2020.mp.logic.PlayerStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+public class CrossingSweepTest {
+
+    private static final double LAT = 40.1;
+    private static final double LNG = -88.2;
+
+    /** Spacing of the grid coordinates snap to, so that shared, collinear and touching segments are common. */
+    private static final double SNAP = 0.001;
+
+    /** A distance well within LineCrossDetector's touch tolerance. */
+    private static final double TINY = 2e-8;
+
+    private static List<int[]> bruteForce(double[] segments, int count) {
+        List<int[]> crossings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int a = i * LineCrossDetector.SEGMENT_SIZE;
+            for (int j = i + 1; j < count; j++) {
+                int b = j * LineCrossDetector.SEGMENT_SIZE;
+                if (LineCrossDetector.segmentsCross(segments[a], segments[a + 1], segments[a + 2], segments[a + 3],
+                        segments[b], segments[b + 1], segments[b + 2], segments[b + 3])) {
+                    crossings.add(new int[] {i, j});
+                }
+            }
+        }
+        return crossings;
+    }
+
+    private static void assertSameCrossings(List<int[]> expected, List<int[]> actual, String context) {
+        Assert.assertEquals(context + ": number of crossings", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals(context + ": crossing " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    private static double snapped(Random random, int steps) {
+        return random.nextInt(steps) * SNAP;
+    }
+
+    /**
+     * Makes a batch of segments full of the cases a sweep gets wrong: vertical and horizontal segments,
+     * duplicates, collinear overlaps, shared endpoints, and endpoints on or within the tolerance of other segments.
+     */
+    private static double[] degenerateSegments(Random random, int count, int steps) {
+        double[] segments = new double[count * LineCrossDetector.SEGMENT_SIZE];
+        for (int i = 0; i < count; i++) {
+            int offset = i * LineCrossDetector.SEGMENT_SIZE;
+            int previous = random.nextInt(Math.max(i, 1)) * LineCrossDetector.SEGMENT_SIZE;
+            double startLat = LAT + snapped(random, steps);
+            double startLng = LNG + snapped(random, steps);
+            double endLat = LAT + snapped(random, steps);
+            double endLng = LNG + snapped(random, steps);
+            switch (i == 0 ? 0 : random.nextInt(8)) {
+                case 1:
+                    endLng = startLng;
+                    break;
+                case 2:
+                    endLat = startLat;
+                    break;
+                case 3:
+                    System.arraycopy(segments, previous, segments, offset, LineCrossDetector.SEGMENT_SIZE);
+                    continue;
+                case 4:
+                    // Collinear with an earlier segment, overlapping or extending it
+                    double fraction = random.nextDouble() * 2 - 0.5;
+                    double latStep = segments[previous + 2] - segments[previous];
+                    double lngStep = segments[previous + 3] - segments[previous + 1];
+                    startLat = segments[previous] + latStep * fraction;
+                    startLng = segments[previous + 1] + lngStep * fraction;
+                    endLat = startLat + latStep * random.nextDouble();
+                    endLng = startLng + lngStep * random.nextDouble();
+                    break;
+                case 5:
+                    startLat = segments[previous + 2];
+                    startLng = segments[previous + 3];
+                    break;
+                case 6:
+                    // Starting on, or within the tolerance of, the middle of an earlier segment
+                    double along = random.nextDouble();
+                    startLat = segments[previous] + (segments[previous + 2] - segments[previous]) * along
+                            + (random.nextInt(3) - 1) * TINY;
+                    startLng = segments[previous + 1] + (segments[previous + 3] - segments[previous + 1]) * along
+                            + (random.nextInt(3) - 1) * TINY;
+                    break;
+                case 7:
+                    startLat = segments[previous] + TINY;
+                    startLng = segments[previous + 1] - TINY;
+                    break;
+                default:
+                    break;
+            }
+            segments[offset] = startLat;
+            segments[offset + 1] = startLng;
+            segments[offset + 2] = endLat;
+            segments[offset + LineCrossDetector.SEGMENT_SIZE - 1] = endLng;
+        }
+        return segments;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(125);
+        for (int trial = 0; trial < 300; trial++) {
+            int count = 1 + random.nextInt(60);
+            int steps = 3 + random.nextInt(20);
+            double[] segments = degenerateSegments(random, count, steps);
+            assertSameCrossings(bruteForce(segments, count), CrossingSweep.findCrossings(segments, count),
+                    "Trial " + trial);
+        }
+    }
+
+    @Test
+    public void testMatchesBruteForceInGeneralPosition() {
+        Random random = new Random(225);
+        for (int trial = 0; trial < 20; trial++) {
+            int count = 100 + random.nextInt(200);
+            double[] segments = new double[count * LineCrossDetector.SEGMENT_SIZE];
+            for (int i = 0; i < segments.length; i += 2) {
+                segments[i] = LAT + random.nextDouble() * 0.01;
+                segments[i + 1] = LNG + random.nextDouble() * 0.01;
+            }
+            assertSameCrossings(bruteForce(segments, count), CrossingSweep.findCrossings(segments, count),
+                    "Trial " + trial);
+        }
+    }
+
+    @Test
+    public void testSpecialCases() {
+        Assert.assertTrue(CrossingSweep.findCrossings(new double[0], 0).isEmpty());
+        double[] vertical = {
+            LAT, LNG, LAT + SNAP, LNG,
+            LAT + SNAP / 2, LNG - SNAP, LAT + SNAP / 2, LNG + SNAP,
+            LAT, LNG, LAT + SNAP, LNG,
+            LAT + SNAP, LNG, LAT + 2 * SNAP, LNG,
+        };
+        List<int[]> crossings = CrossingSweep.findCrossings(vertical, 4);
+        assertSameCrossings(Arrays.asList(new int[] {0, 1}, new int[] {1, 2}), crossings,
+                "A horizontal segment across a vertical one and its duplicate");
+    }
+
+    @Test
+    public void testLinesCrossResource() {
+        for (JsonObject test : JsonResourceLoader.loadArray("linescross")) {
+            double[] segments = {
+                test.get("sla1").getAsDouble(), test.get("sln1").getAsDouble(),
+                test.get("ela1").getAsDouble(), test.get("eln1").getAsDouble(),
+                test.get("sla2").getAsDouble(), test.get("sln2").getAsDouble(),
+                test.get("ela2").getAsDouble(), test.get("eln2").getAsDouble(),
+            };
+            Assert.assertEquals(test.get("answer").getAsBoolean(),
+                    CrossingSweep.findCrossings(segments, 2).size() == 1);
+        }
+    }
+
+    private static JsonObject fullState(JsonObject[] targets, JsonObject... players) {
+        JsonObject state = new JsonObject();
+        state.addProperty("type", "full");
+        state.addProperty("mode", "target");
+        JsonArray playerArray = new JsonArray();
+        for (JsonObject player : players) {
+            playerArray.add(player);
+        }
+        state.add("players", playerArray);
+        state.add("targets", JsonHelper.arrayOf(targets));
+        return state;
+    }
+
+    @Test
+    public void testAuditTargetGame() {
+        Assert.assertEquals("The sample game's paths are valid",
+                0, CrossingSweep.auditTargetGame(SampleData.createTargetModeTestGame()).size());
+
+        JsonObject southWest = JsonHelper.target("SW", LAT, LNG, TeamID.TEAM_RED);
+        JsonObject northEast = JsonHelper.target("NE", LAT + SNAP, LNG + SNAP, TeamID.TEAM_RED);
+        JsonObject northWest = JsonHelper.target("NW", LAT + SNAP, LNG, TeamID.TEAM_BLUE);
+        JsonObject southEast = JsonHelper.target("SE", LAT, LNG + SNAP, TeamID.TEAM_BLUE);
+        JsonObject farEast = JsonHelper.target("FE", LAT, LNG + 2 * SNAP, TeamID.OBSERVER);
+        JsonObject farNorth = JsonHelper.target("FN", LAT + 2 * SNAP, LNG + SNAP / 2, TeamID.OBSERVER);
+        JsonObject[] targets = {southWest, northEast, northWest, southEast, farEast, farNorth};
+
+        List<String> problems = CrossingSweep.auditTargetGame(fullState(targets,
+                JsonHelper.player("red@example.com", TeamID.TEAM_RED, PlayerStateID.PLAYING, southWest, northEast),
+                JsonHelper.player("blue@example.com", TeamID.TEAM_BLUE, PlayerStateID.PLAYING, northWest, southEast)));
+        Assert.assertEquals(Arrays.asList("red@example.com's line 0 crosses blue@example.com's line 0"), problems);
+
+        // Lines 0 and 2 of one path cross: SW-NE, NE-FE, FE-NW
+        problems = CrossingSweep.auditTargetGame(fullState(targets,
+                JsonHelper.player("red@example.com", TeamID.TEAM_RED, PlayerStateID.PLAYING,
+                        southWest, northEast, farEast, northWest)));
+        Assert.assertEquals("The snake rule allows a line to cross the one two before it", 0, problems.size());
+
+        // Line 3 (NW-SE) crosses line 0 (SW-NE)
+        problems = CrossingSweep.auditTargetGame(fullState(targets,
+                JsonHelper.player("red@example.com", TeamID.TEAM_RED, PlayerStateID.PLAYING,
+                        southWest, northEast, farNorth, northWest, southEast)));
+        Assert.assertEquals(Arrays.asList("red@example.com's line 0 crosses red@example.com's line 3"), problems);
+    }
+
+}
@@ -0,0 +1,49 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.Timer;
+
+/**
+ * A clock that only moves when told to. Scheduled tasks run in the order they were scheduled.
+ */
+final class FakeTimer implements Timer {
+
+    private long now;
+    private final List<Long> dueTimes = new ArrayList<>();
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public long now() {
+        return now;
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay) {
+        dueTimes.add(now + delay);
+        tasks.add(task);
+    }
+
+    int pending() {
+        return tasks.size();
+    }
+
+    long nextDelay() {
+        return dueTimes.get(0) - now;
+    }
+
+    long lastDelay() {
+        return dueTimes.get(dueTimes.size() - 1) - now;
+    }
+
+    void runNext() {
+        now = Math.max(now, dueTimes.remove(0));
+        tasks.remove(0).run();
+    }
+
+    void advance(long millis) {
+        now += millis;
+    }
+
+}
@@ -0,0 +1,190 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameMessage;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class GameMessageTest {
+
+    @Test
+    public void testEveryTypeMatchesTreeParse() {
+        JsonObject[] messages = {
+                JsonHelper.updatePlayerLocation("a@illinois.edu", TeamID.TEAM_RED, 40.1098765, -88.2273401),
+                JsonHelper.updatePlayerCellCapture("b@illinois.edu", TeamID.TEAM_BLUE, 12, 7),
+                JsonHelper.updatePlayerTargetVisit("c@illinois.edu", TeamID.TEAM_GREEN, "-M1a2b3c4d5e"),
+                JsonHelper.updateGameState(GameStateID.PAUSED),
+                JsonHelper.updatePlayerExit("d@illinois.edu"),
+                JsonHelper.updateGameState(GameStateID.ENDED)
+        };
+        GameMessage.Type[] types = {
+                GameMessage.Type.PLAYER_LOCATION, GameMessage.Type.PLAYER_CELL_CAPTURE,
+                GameMessage.Type.PLAYER_TARGET_VISIT, GameMessage.Type.GAME_STATE,
+                GameMessage.Type.PLAYER_EXIT, GameMessage.Type.GAME_STATE
+        };
+        for (int i = 0; i < messages.length; i++) {
+            assertSame(types[i], compare(messages[i].toString()).getType());
+            messages[i].addProperty("seq", 1234567890123L + i);
+            assertEquals(1234567890123L + i, compare(messages[i].toString()).getSeq());
+        }
+        assertSame(GameMessage.Type.RESUMED, compare("{\"type\":\"resumed\",\"seq\":42}").getType());
+        assertEquals(GameMessage.NO_SEQ, compare("{\"type\":\"resumed\"}").getSeq());
+    }
+
+    @Test
+    public void testLayoutVariations() {
+        compare("{}");
+        compare(" \n{ \"email\" : \"a@illinois.edu\" ,\t\"type\":\"playerExit\" }\r\n");
+        compare("{\"type\":\"playerLocation\",\"email\":null,\"team\":-3,\"lastLatitude\":-0.0,"
+                + "\"lastLongitude\":1e-3,\"extra\":true,\"other\":\"x\",\"number\":12.5}");
+        compare("{\"type\":\"playerCellCapture\",\"x\":1,\"x\":2,\"y\":0,\"team\":4}");
+        GameMessage numeric = compare("{\"type\":\"playerCellCapture\",\"x\":\"5\",\"y\":6.0,\"team\":\"2\"}");
+        assertEquals(5, numeric.getX());
+        assertEquals(6, numeric.getY());
+        GameMessage escaped = compare("{\"type\":\"playerExit\",\"email\":\"a\\u0040illinois.edu\"}");
+        assertEquals("a@illinois.edu", escaped.getEmail());
+        GameMessage nested = compare("{\"type\":\"playerExit\",\"email\":\"e@illinois.edu\",\"extra\":{\"a\":[1,2]}}");
+        assertEquals("e@illinois.edu", nested.getEmail());
+        assertEquals(Integer.MAX_VALUE, compare("{\"type\":\"gameState\",\"state\":2147483647}").getState());
+        assertEquals(Long.MIN_VALUE, compare("{\"type\":\"resumed\",\"seq\":-9223372036854775808}").getSeq());
+    }
+
+    @Test
+    public void testCoordinatesMatchParseDouble() {
+        Random random = new Random(19);
+        for (int i = 0; i < 20000; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            String[] latitudes = {
+                    Double.toString(latitude),
+                    String.format(Locale.US, "%." + random.nextInt(16) + "f", latitude),
+                    Long.toString(random.nextLong() % 1000000000000000L) + "." + random.nextInt(1000),
+                    "0.000" + random.nextInt(Integer.MAX_VALUE)
+            };
+            for (String text : latitudes) {
+                String json = "{\"type\":\"playerLocation\",\"lastLatitude\":" + text
+                        + ",\"lastLongitude\":" + longitude + "}";
+                GameMessage message = compare(json);
+                assertEquals(json, Double.doubleToLongBits(Double.parseDouble(text)),
+                        Double.doubleToLongBits(message.getLatitude()));
+                assertEquals(Double.doubleToLongBits(longitude), Double.doubleToLongBits(message.getLongitude()));
+            }
+        }
+    }
+
+    @Test
+    public void testFullFallsBackToTree() {
+        JsonObject full = JsonHelper.game("game", "owner@illinois.edu", GameStateID.RUNNING, "area",
+                JsonHelper.player("owner@illinois.edu", TeamID.TEAM_RED, 1));
+        full.addProperty("type", "full");
+        full.addProperty("seq", 17);
+        GameMessage message = compare(full.toString());
+        assertSame(GameMessage.Type.FULL, message.getType());
+        assertEquals(17, message.getSeq());
+        assertNotNull(message.getFullState());
+        assertEquals(full, message.getFullState());
+
+        // A full update without nested values still gets its tree
+        GameMessage flat = GameMessage.parse("{\"type\":\"full\",\"seq\":3}");
+        assertEquals(JsonParser.parseString("{\"type\":\"full\",\"seq\":3}"), flat.getFullState());
+    }
+
+    @Test
+    public void testUnknownType() {
+        assertSame(GameMessage.Type.UNKNOWN, compare("{\"type\":\"somethingNew\",\"email\":\"a\"}").getType());
+        assertSame(GameMessage.Type.UNKNOWN, compare("{\"type\":\"\"}").getType());
+        assertSame(GameMessage.Type.UNKNOWN, compare("{\"type\":\"playerLocations\"}").getType());
+        assertSame(GameMessage.Type.UNKNOWN, compare("{\"type\":\"player\"}").getType());
+        assertSame(GameMessage.Type.UNKNOWN, compare("{\"email\":\"a\"}").getType());
+        assertSame(GameMessage.Type.UNKNOWN, GameMessage.Type.fromWireName("nope"));
+        for (GameMessage.Type type : GameMessage.Type.values()) {
+            if (type != GameMessage.Type.UNKNOWN) {
+                assertSame(type, GameMessage.Type.fromWireName(type.getWireName()));
+            }
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        String[] malformed = {
+            "", "   ", "{", "}", "[1,2]", "\"text\"", "42", "{\"type\":}", "{\"type\":\"playerExit\"",
+            "{\"type\":\"playerExit\"}}", "{\"type\" \"playerExit\"}", "{\"type\":\"playerExit\",,}",
+            "{\"team\":\"red\"}", "{\"lastLatitude\":\"north\"}", "{\"x\":1}{\"y\":2}"
+        };
+        for (String text : malformed) {
+            try {
+                GameMessage.parse(text);
+                fail("Parsed malformed message " + text);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testTruncationsMatchTreeParse() {
+        String text = JsonHelper.updatePlayerLocation("a@illinois.edu", TeamID.TEAM_YELLOW,
+                40.1098765, -88.2273401).toString();
+        for (int end = 0; end <= text.length(); end++) {
+            String truncated = text.substring(0, end);
+            GameMessage tree;
+            try {
+                tree = GameMessage.fromJson(JsonParser.parseString(truncated).getAsJsonObject());
+            } catch (RuntimeException e) {
+                tree = null;
+            }
+            if (tree == null) {
+                try {
+                    GameMessage.parse(truncated);
+                    fail("Parsed truncated message " + truncated);
+                } catch (IllegalArgumentException e) {
+                    // Expected
+                }
+            } else {
+                assertSameFields(tree, GameMessage.parse(truncated));
+            }
+        }
+    }
+
+    /** Parses a message both ways, checks they agree, and returns the streaming result. */
+    private static GameMessage compare(final String text) {
+        GameMessage streamed = GameMessage.parse(text);
+        GameMessage tree = GameMessage.fromJson(JsonParser.parseString(text).getAsJsonObject());
+        assertSameFields(tree, streamed);
+        return streamed;
+    }
+
+    /** Checks that two messages have the same fields. */
+    private static void assertSameFields(final GameMessage expected, final GameMessage actual) {
+        assertSame(expected.getType(), actual.getType());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getTeam(), actual.getTeam());
+        assertEquals(Double.doubleToLongBits(expected.getLatitude()), Double.doubleToLongBits(actual.getLatitude()));
+        assertEquals(Double.doubleToLongBits(expected.getLongitude()),
+                Double.doubleToLongBits(actual.getLongitude()));
+        assertEquals(expected.getX(), actual.getX());
+        assertEquals(expected.getY(), actual.getY());
+        assertEquals(expected.getTargetId(), actual.getTargetId());
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.getSeq(), actual.getSeq());
+        if (expected.getFullState() == null) {
+            assertNull(actual.getFullState());
+        } else {
+            assertEquals(expected.getFullState(), actual.getFullState());
+        }
+    }
+
+}
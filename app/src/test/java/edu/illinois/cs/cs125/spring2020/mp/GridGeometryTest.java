@@ -0,0 +1,120 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.GridGeometry;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LatLngUtils;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class GridGeometryTest {
+
+    private static GridGeometry randomGeometry(Random random) {
+        double south = random.nextDouble() * 120 - 60;
+        double west = random.nextDouble() * 340 - 170;
+        double north = south + 0.0005 + random.nextDouble() * 0.05;
+        double east = west + 0.0005 + random.nextDouble() * 0.05;
+        return new GridGeometry(north, east, south, west, 5 + random.nextInt(200));
+    }
+
+    private static int expectedCells(double length, int cellSize) {
+        return Math.max(1, (int) Math.ceil(length / cellSize));
+    }
+
+    private static void assertThrows(GridGeometry geometry, int x, int y) {
+        try {
+            geometry.getCellBounds(x, y);
+            Assert.fail("Cell (" + x + ", " + y + ") is outside a " + geometry.getXCells() + "x"
+                    + geometry.getYCells() + " grid");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testEdgeTables() {
+        Random random = new Random(4);
+        for (int area = 0; area < 200; area++) {
+            GridGeometry geometry = randomGeometry(random);
+            int xCells = geometry.getXCells();
+            int yCells = geometry.getYCells();
+            Assert.assertEquals(expectedCells(LatLngUtils.distance(geometry.getSouth(), geometry.getEast(),
+                    geometry.getSouth(), geometry.getWest()), geometry.getCellSize()), xCells);
+            Assert.assertEquals(expectedCells(LatLngUtils.distance(geometry.getNorth(), geometry.getWest(),
+                    geometry.getSouth(), geometry.getWest()), geometry.getCellSize()), yCells);
+            Assert.assertEquals((long) xCells * yCells, geometry.getCellCount());
+
+            // The outermost lines are exactly the boundaries, and the others are evenly spaced between them
+            Assert.assertEquals(geometry.getWest(), geometry.getColumnEdge(0), 0);
+            Assert.assertEquals(geometry.getEast(), geometry.getColumnEdge(xCells), 0);
+            Assert.assertEquals(geometry.getSouth(), geometry.getRowEdge(0), 0);
+            Assert.assertEquals(geometry.getNorth(), geometry.getRowEdge(yCells), 0);
+            for (int x = 1; x <= xCells; x++) {
+                Assert.assertTrue(geometry.getColumnEdge(x) > geometry.getColumnEdge(x - 1));
+                Assert.assertEquals(geometry.getCellWidth(), geometry.getColumnEdge(x) - geometry.getColumnEdge(x - 1),
+                        geometry.getCellWidth() * 1e-6);
+            }
+            for (int y = 1; y <= yCells; y++) {
+                Assert.assertTrue(geometry.getRowEdge(y) > geometry.getRowEdge(y - 1));
+                Assert.assertEquals(geometry.getCellHeight(), geometry.getRowEdge(y) - geometry.getRowEdge(y - 1),
+                        geometry.getCellHeight() * 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testCellBoundsFollowEdges() {
+        Random random = new Random(5);
+        for (int area = 0; area < 50; area++) {
+            GridGeometry geometry = randomGeometry(random);
+            for (int i = 0; i < 200; i++) {
+                int x = random.nextInt(geometry.getXCells());
+                int y = random.nextInt(geometry.getYCells());
+                LatLngBounds bounds = geometry.getCellBounds(x, y);
+                Assert.assertEquals(geometry.getRowEdge(y), bounds.southwest.latitude, 0);
+                Assert.assertEquals(geometry.getColumnEdge(x), bounds.southwest.longitude, 0);
+                Assert.assertEquals(geometry.getRowEdge(y + 1), bounds.northeast.latitude, 0);
+                Assert.assertEquals(geometry.getColumnEdge(x + 1), bounds.northeast.longitude, 0);
+                // A cell's southwest corner is in that cell, so drawing and lookups agree
+                Assert.assertEquals(x + y * geometry.getXCells(),
+                        geometry.getCellIndex(bounds.southwest.latitude, bounds.southwest.longitude));
+            }
+        }
+    }
+
+    @Test
+    public void testCellBoundsOutOfRangeThrows() {
+        Random random = new Random(6);
+        for (int area = 0; area < 50; area++) {
+            GridGeometry geometry = randomGeometry(random);
+            int xCells = geometry.getXCells();
+            int yCells = geometry.getYCells();
+            geometry.getCellBounds(xCells - 1, yCells - 1);
+            assertThrows(geometry, -1, 0);
+            assertThrows(geometry, 0, -1);
+            assertThrows(geometry, xCells, 0);
+            assertThrows(geometry, 0, yCells);
+            assertThrows(geometry, xCells, yCells);
+            // Inside the edge tables, but not a cell of the grid
+            assertThrows(geometry, xCells, yCells - 1);
+        }
+    }
+
+    @Test
+    public void testInvalidGeometryHasNoCells() {
+        GridGeometry geometry = new GridGeometry(40.11, -88.22, 40.10, -88.23, 0);
+        Assert.assertFalse(geometry.isValid());
+        Assert.assertEquals(0, geometry.getCellCount());
+        Assert.assertEquals(-1, geometry.getCellIndex(40.105, -88.225));
+        assertThrows(geometry, 0, 0);
+    }
+
+}
@@ -0,0 +1,92 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.LatLngMath;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LatLngUtils;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class LatLngMathTest {
+
+    /** Tolerance for bearings to points a short distance away, which bend slightly off the cardinal directions. */
+    private static final double BEARING_TOLERANCE = 1e-3;
+
+    /** The tolerance LatLngUtils.same uses. */
+    private static final double EPSILON = 0.0000001;
+
+    @Test
+    public void testDistanceMatchesExactly() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            double oneLat = random.nextDouble() * 180 - 90;
+            double oneLng = random.nextDouble() * 360 - 180;
+            double anotherLat;
+            double anotherLng;
+            if (i % 2 == 0) {
+                anotherLat = random.nextDouble() * 180 - 90;
+                anotherLng = random.nextDouble() * 360 - 180;
+            } else {
+                // Points a game apart, where the distance actually gets used
+                anotherLat = Math.max(-90, Math.min(90, oneLat + (random.nextDouble() - 0.5) * 0.01));
+                anotherLng = Math.max(-180, Math.min(179.99, oneLng + (random.nextDouble() - 0.5) * 0.01));
+            }
+            Assert.assertEquals(Double.doubleToLongBits(LatLngUtils.distance(oneLat, oneLng, anotherLat, anotherLng)),
+                    Double.doubleToLongBits(LatLngMath.distance(oneLat, oneLng, anotherLat, anotherLng)));
+        }
+        Assert.assertEquals(0, LatLngMath.distance(40.1, -88.2, 40.1, -88.2), 0);
+    }
+
+    @Test
+    public void testSameMatches() {
+        Random random = new Random(2);
+        for (int i = 0; i < 100000; i++) {
+            double oneLat = random.nextDouble() * 180 - 90;
+            double oneLng = random.nextDouble() * 360 - 180;
+            // Offsets around the tolerance, so both answers come up often
+            double anotherLat = oneLat + (random.nextDouble() - 0.5) * 4 * EPSILON;
+            double anotherLng = oneLng + (random.nextDouble() - 0.5) * 4 * EPSILON;
+            Assert.assertEquals(LatLngUtils.same(oneLat, anotherLat), LatLngMath.same(oneLat, anotherLat));
+            Assert.assertEquals(LatLngUtils.same(oneLat, oneLng, anotherLat, anotherLng),
+                    LatLngMath.same(oneLat, oneLng, anotherLat, anotherLng));
+        }
+        Assert.assertTrue(LatLngMath.same(40.1, -88.2, 40.1, -88.2));
+        Assert.assertFalse(LatLngMath.same(40.1, -88.2, 40.1 + 2 * EPSILON, -88.2));
+        Assert.assertFalse(LatLngMath.same(40.1, -88.2, 40.1, -88.2 - 2 * EPSILON));
+    }
+
+    @Test
+    public void testBearingCardinalDirections() {
+        double[][] starts = {{0, 0}, {40.1, -88.2}, {-33.9, 151.2}, {64.1, -21.9}};
+        double step = 0.001;
+        for (double[] start : starts) {
+            double lat = start[0];
+            double lng = start[1];
+            Assert.assertEquals("North", 0, LatLngMath.bearing(lat, lng, lat + step, lng), 0);
+            Assert.assertEquals("South", 180, LatLngMath.bearing(lat, lng, lat - step, lng), 0);
+            Assert.assertEquals("East", 90, LatLngMath.bearing(lat, lng, lat, lng + step), BEARING_TOLERANCE);
+            Assert.assertEquals("West", 270, LatLngMath.bearing(lat, lng, lat, lng - step), BEARING_TOLERANCE);
+            Assert.assertEquals("Northeast is between north and east", 45,
+                    LatLngMath.bearing(lat, lng, lat + step, lng + step / Math.cos(Math.toRadians(lat))), 0.1);
+        }
+        Assert.assertEquals("Along the equator there's no bend", 90, LatLngMath.bearing(0, 0, 0, 1), 1e-9);
+        Assert.assertEquals(270, LatLngMath.bearing(0, 0, 0, -1), 1e-9);
+    }
+
+    @Test
+    public void testBearingRange() {
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            double bearing = LatLngMath.bearing(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                    random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            Assert.assertTrue(bearing >= 0 && bearing < 360);
+        }
+    }
+
+}
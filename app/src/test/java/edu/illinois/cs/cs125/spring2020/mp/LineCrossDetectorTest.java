@@ -0,0 +1,126 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.LineCrossDetector;
+
+public class LineCrossDetectorTest {
+
+    /** A distance well within the touch tolerance. */
+    private static final double TINY = 1e-8;
+
+    /** A distance well outside the touch tolerance. */
+    private static final double SMALL = 1e-5;
+
+    private static final double LAT = 40.1;
+    private static final double LNG = -88.2;
+
+    /** Checks a pair both ways around and with each line reversed, which must all agree. */
+    private static boolean cross(double[] first, double[] second) {
+        boolean result = LineCrossDetector.segmentsCross(first[0], first[1], first[2], first[3],
+                second[0], second[1], second[2], second[3]);
+        double[][] firsts = {first, {first[2], first[3], first[0], first[1]}};
+        double[][] seconds = {second, {second[2], second[3], second[0], second[1]}};
+        for (double[] a : firsts) {
+            for (double[] b : seconds) {
+                Assert.assertEquals("Order and direction shouldn't matter", result,
+                        LineCrossDetector.segmentsCross(a[0], a[1], a[2], a[3], b[0], b[1], b[2], b[3]));
+                Assert.assertEquals("Order and direction shouldn't matter", result,
+                        LineCrossDetector.segmentsCross(b[0], b[1], b[2], b[3], a[0], a[1], a[2], a[3]));
+            }
+        }
+        return result;
+    }
+
+    private static double[] line(double startLat, double startLng, double endLat, double endLng) {
+        return new double[] {LAT + startLat, LNG + startLng, LAT + endLat, LNG + endLng};
+    }
+
+    @Test
+    public void testCrossing() {
+        Assert.assertTrue(cross(line(0, 0, 0.001, 0.001), line(0, 0.001, 0.001, 0)));
+        Assert.assertTrue("A vertical and a horizontal line can cross",
+                cross(line(0, 0.0005, 0.001, 0.0005), line(0.0005, 0, 0.0005, 0.001)));
+        Assert.assertFalse("Lines that would meet if extended don't cross",
+                cross(line(0, 0, 0.001, 0.001), line(0, 0.003, 0.001, 0.002)));
+        Assert.assertFalse(cross(line(0, 0, 0.001, 0), line(0.0005, 0.0001, 0.0005, 0.001)));
+    }
+
+    @Test
+    public void testTouchingEndpoints() {
+        Assert.assertFalse("Lines sharing an endpoint only touch",
+                cross(line(0, 0, 0.001, 0.001), line(0.001, 0.001, 0, 0.002)));
+        Assert.assertFalse("Endpoints within the tolerance count as shared",
+                cross(line(0, 0, 0.001, 0.001), line(0.001 + TINY, 0.001 - TINY, 0, 0.002)));
+        Assert.assertFalse("Shared endpoints win even when the lines overlap",
+                cross(line(0, 0, 0.001, 0.001), line(0, 0, 0.002, 0.002)));
+
+        Assert.assertTrue("An endpoint on the other line's middle crosses it",
+                cross(line(0, 0, 0, 0.002), line(0, 0.001, 0.001, 0.001)));
+        Assert.assertTrue("An endpoint just short of the other line, within the tolerance, crosses it",
+                cross(line(0, 0, 0, 0.002), line(TINY, 0.001, 0.001, 0.001)));
+        Assert.assertFalse("An endpoint short of the other line by more than the tolerance doesn't",
+                cross(line(0, 0, 0, 0.002), line(SMALL, 0.001, 0.001, 0.001)));
+    }
+
+    @Test
+    public void testParallel() {
+        Assert.assertFalse("Parallel lines don't cross",
+                cross(line(0, 0, 0.001, 0.001), line(0, 0.0001, 0.001, 0.0011)));
+        Assert.assertFalse("Collinear overlapping lines don't cross",
+                cross(line(0, 0, 0.002, 0.002), line(0.001, 0.001, 0.003, 0.003)));
+        Assert.assertFalse("A line inside a collinear one doesn't cross it",
+                cross(line(0, 0, 0, 0.003), line(0, 0.001, 0, 0.002)));
+        Assert.assertFalse("Collinear vertical lines don't cross",
+                cross(line(0, 0, 0.003, 0), line(0.001, 0, 0.002, 0)));
+
+        // The second line is at an angle of about 2e-8 radians and passes through the first line's middle
+        Assert.assertFalse("Nearly parallel lines count as parallel",
+                cross(line(0, 0, 0, 0.002), line(-1e-11, 0.0005, 1e-11, 0.0015)));
+        Assert.assertTrue("Lines at a small but real angle cross",
+                cross(line(0, 0, 0, 0.002), line(-1e-6, 0.0005, 1e-6, 0.0015)));
+    }
+
+    @Test
+    public void testFirstCrossing() {
+        double[] given = line(0, 0, 0, 0.01);
+        double[][] lines = {
+            line(0.001, 0.001, 0.002, 0.001),
+            line(-0.001, 0.002, 0.001, 0.002),
+            line(0, 0.01, 0.001, 0.01),
+            line(-0.001, 0.004, 0.001, 0.005),
+            line(0.001, 0.006, 0.002, 0.007),
+            line(-0.001, 0.008, 0.001, 0.008),
+        };
+        double[] batch = new double[lines.length * LineCrossDetector.SEGMENT_SIZE];
+        for (int i = 0; i < lines.length; i++) {
+            System.arraycopy(lines[i], 0, batch, i * LineCrossDetector.SEGMENT_SIZE, LineCrossDetector.SEGMENT_SIZE);
+        }
+        for (int from = 0; from <= lines.length; from++) {
+            for (int to = from; to <= lines.length; to++) {
+                int expected = -1;
+                for (int i = from; i < to; i++) {
+                    if (LineCrossDetector.segmentsCross(given[0], given[1], given[2], given[3],
+                            lines[i][0], lines[i][1], lines[i][2], lines[i][3])) {
+                        expected = i;
+                        break;
+                    }
+                }
+                Assert.assertEquals("Range " + from + " to " + to, expected,
+                        LineCrossDetector.firstCrossing(given[0], given[1], given[2], given[3], batch, from, to));
+            }
+        }
+        Assert.assertEquals(1, LineCrossDetector.firstCrossing(given[0], given[1], given[2], given[3],
+                batch, 0, lines.length));
+        Assert.assertEquals("Lines before the range are ignored", 3,
+                LineCrossDetector.firstCrossing(given[0], given[1], given[2], given[3], batch, 2, lines.length));
+        Assert.assertEquals(5, LineCrossDetector.firstCrossing(given[0], given[1], given[2], given[3],
+                batch, 4, lines.length));
+        Assert.assertEquals("Touching at an endpoint isn't crossing", -1,
+                LineCrossDetector.firstCrossing(given[0], given[1], given[2], given[3], batch, 2, 3));
+        Assert.assertEquals(-1, LineCrossDetector.firstCrossing(given[0], given[1], given[2], given[3],
+                batch, 0, 0));
+    }
+
+}
@@ -0,0 +1,146 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.LatLngUtils;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LocalProjection;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class LocalProjectionTest {
+
+    /** Relative slack for floating-point rounding in the projected distance itself. */
+    private static final double ROUNDING = 1e-12;
+
+    /** Absolute slack for rounding in the coordinates, in meters. */
+    private static final double ROUNDING_METERS = 1e-6;
+
+    private static final int GAMES = 200;
+    private static final int PAIRS = 500;
+
+    /** A game's points, and the projection built around them. */
+    private static class Game {
+        final double[] latitudes;
+        final double[] longitudes;
+        final LocalProjection projection;
+
+        Game(Random random, double centerLatitude, double centerLongitude, double span) {
+            int count = 1 + random.nextInt(20);
+            latitudes = new double[count];
+            longitudes = new double[count];
+            for (int i = 0; i < count; i++) {
+                latitudes[i] = centerLatitude + (random.nextDouble() - 0.5) * span;
+                longitudes[i] = centerLongitude + (random.nextDouble() - 0.5) * span;
+            }
+            projection = LocalProjection.around(latitudes, longitudes);
+        }
+
+        // A point somewhere around the game, possibly a little outside it
+        double[] nearby(Random random, double span) {
+            int i = random.nextInt(latitudes.length);
+            return new double[] {latitudes[i] + (random.nextDouble() - 0.5) * span,
+                    longitudes[i] + (random.nextDouble() - 0.5) * span};
+        }
+
+        double projected(int first, double[] other) {
+            return Math.sqrt(LocalProjection.squaredDistance(
+                    projection.toX(longitudes[first]), projection.toY(latitudes[first]),
+                    projection.toX(other[1]), projection.toY(other[0])));
+        }
+
+        int compare(int first, double[] other, double range) {
+            return projection.compareToRange(projection.toX(longitudes[first]), projection.toY(latitudes[first]),
+                    projection.toX(other[1]), projection.toY(other[0]), range);
+        }
+    }
+
+    /** Runs a check on random point pairs around random games, from campus-sized ones to ones across the equator. */
+    private static void forRandomPairs(long seed, PairCheck check) {
+        Random random = new Random(seed);
+        for (int g = 0; g < GAMES; g++) {
+            double span;
+            double centerLatitude;
+            if (g % 4 == 0) {
+                // Straddles the equator, where the cosine peaks inside the span
+                span = 0.1 + random.nextDouble();
+                centerLatitude = (random.nextDouble() - 0.5) * span / 2;
+            } else {
+                span = 0.001 + random.nextDouble() * 0.1;
+                centerLatitude = (random.nextDouble() - 0.5) * 140;
+            }
+            double centerLongitude = (random.nextDouble() - 0.5) * 340;
+            Game game = new Game(random, centerLatitude, centerLongitude, span);
+            for (int p = 0; p < PAIRS; p++) {
+                int first = random.nextInt(game.latitudes.length);
+                double[] other = game.nearby(random, span);
+                double distance = LatLngUtils.distance(game.latitudes[first], game.longitudes[first], other[0], other[1]);
+                check.run(game, first, other, distance, random);
+            }
+        }
+    }
+
+    /** A check of one point pair. */
+    private interface PairCheck {
+        void run(Game game, int first, double[] other, double distance, Random random);
+    }
+
+    @Test
+    public void testErrorWithinMaxRelativeError() {
+        forRandomPairs(7, (game, first, other, distance, random) -> {
+            double error = Math.abs(game.projected(first, other) - distance);
+            Assert.assertTrue(error + " m off over " + distance + " m",
+                    error <= (game.projection.getMaxRelativeError() + ROUNDING) * distance + ROUNDING_METERS);
+        });
+    }
+
+    @Test
+    public void testCompareToRangeNeverWrong() {
+        forRandomPairs(8, (game, first, other, distance, random) -> {
+            // Ranges right around the true distance are the ones most likely to be decided wrongly
+            double[] ranges = {
+                distance, Math.nextUp(distance), Math.nextDown(distance),
+                distance * (1 + game.projection.getMaxRelativeError()),
+                distance * (1 - game.projection.getMaxRelativeError()),
+                distance * (1 + (random.nextDouble() - 0.5) * 1e-6), distance * random.nextDouble() * 2
+            };
+            for (double range : ranges) {
+                int result = game.compare(first, other, range);
+                if (result < 0) {
+                    Assert.assertTrue("Said in range: " + distance + " vs " + range, distance < range);
+                } else if (result > 0) {
+                    Assert.assertTrue("Said out of range: " + distance + " vs " + range, distance >= range);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testOuterRangeBoundsQuery() {
+        forRandomPairs(9, (game, first, other, distance, random) -> {
+            double range = distance * (1 + (random.nextDouble() - 0.5) * 4 * game.projection.getMaxRelativeError())
+                    + random.nextDouble() * 1e-6;
+            if (distance < range) {
+                Assert.assertTrue("A point in range should be inside the outer range",
+                        game.projected(first, other) < game.projection.getOuterRange(range));
+                Assert.assertTrue(game.compare(first, other, range) <= 0);
+            }
+        });
+    }
+
+    @Test
+    public void testExactAtAnchorLatitude() {
+        LocalProjection projection = new LocalProjection(40.1, -88.2, 40.1, 40.1);
+        Assert.assertEquals(0, projection.getMaxRelativeError(), 0);
+        double distance = LatLngUtils.distance(40.1, -88.2, 40.105, -88.21);
+        double projected = Math.sqrt(LocalProjection.squaredDistance(projection.toX(-88.2), projection.toY(40.1),
+                projection.toX(-88.21), projection.toY(40.105)));
+        Assert.assertEquals(distance, projected, distance * ROUNDING);
+    }
+
+}
@@ -0,0 +1,124 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.gson.JsonObject;
+import com.neovisionaries.ws.client.WebSocketState;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.OutboundScheduler;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class OutboundSchedulerTest {
+
+    private WebSocketMocker webSocketControl;
+    private OutboundScheduler outbound;
+
+    @Before
+    public void setup() {
+        webSocketControl = new WebSocketMocker();
+        outbound = new OutboundScheduler(webSocketControl.getWebSocket());
+        // Keep scheduled flushes from running until the test says so
+        ShadowLooper.pauseMainLooper();
+    }
+
+    private static JsonObject locationUpdate(double latitude) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "locationUpdate");
+        message.addProperty("latitude", latitude);
+        message.addProperty("longitude", -88.2272);
+        return message;
+    }
+
+    private static JsonObject cellCapture(int x, int y) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "cellCapture");
+        message.addProperty("x", x);
+        message.addProperty("y", y);
+        return message;
+    }
+
+    private List<JsonObject> sentMessages() {
+        List<JsonObject> sent = new ArrayList<>();
+        webSocketControl.processMessages(sent::add);
+        return sent;
+    }
+
+    @Test
+    public void testCoalescesLocationUpdates() {
+        outbound.send(locationUpdate(40.1101));
+        outbound.send(locationUpdate(40.1102));
+        outbound.send(locationUpdate(40.1103));
+        Assert.assertTrue("Location updates should wait for the end of the loop turn", sentMessages().isEmpty());
+
+        ShadowLooper.idleMainLooper();
+        List<JsonObject> sent = sentMessages();
+        Assert.assertEquals("Only the newest location update should be sent", 1, sent.size());
+        Assert.assertEquals(40.1103, sent.get(0).get("latitude").getAsDouble(), 1e-7);
+        Assert.assertEquals(1, outbound.getSentCount());
+        Assert.assertEquals(2, outbound.getCoalescedCount());
+        Assert.assertEquals(0, outbound.getDroppedCount());
+    }
+
+    @Test
+    public void testCapturesFlushImmediately() {
+        outbound.send(locationUpdate(40.1101));
+        outbound.send(cellCapture(3, 4));
+        List<JsonObject> sent = sentMessages();
+        Assert.assertEquals("A capture should be sent at once, with what was queued before it", 2, sent.size());
+        Assert.assertEquals("locationUpdate", sent.get(0).get("type").getAsString());
+        Assert.assertEquals(cellCapture(3, 4), sent.get(1));
+
+        ShadowLooper.idleMainLooper(1, TimeUnit.SECONDS);
+        Assert.assertTrue("Nothing should be sent twice", sentMessages().isEmpty());
+        Assert.assertEquals(2, outbound.getSentCount());
+    }
+
+    @Test
+    public void testBatchesOtherMessages() {
+        JsonObject first = new JsonObject();
+        first.addProperty("type", "ping");
+        JsonObject second = new JsonObject();
+        second.addProperty("type", "ping");
+        second.addProperty("n", 2);
+        outbound.send(first);
+        outbound.send(second);
+        ShadowLooper.idleMainLooper();
+        Assert.assertTrue("Other messages should wait for the batch timer", sentMessages().isEmpty());
+
+        ShadowLooper.idleMainLooper(1, TimeUnit.SECONDS);
+        List<JsonObject> sent = sentMessages();
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(first, sent.get(0));
+        Assert.assertEquals(second, sent.get(1));
+    }
+
+    @Test
+    public void testCountsDroppedMessages() {
+        Mockito.when(webSocketControl.getWebSocket().getState()).thenReturn(WebSocketState.CLOSED);
+        outbound.send(cellCapture(1, 1));
+        Assert.assertTrue("A closed socket can't send anything", sentMessages().isEmpty());
+        Assert.assertEquals(1, outbound.getDroppedCount());
+
+        Mockito.when(webSocketControl.getWebSocket().getState()).thenReturn(WebSocketState.OPEN);
+        outbound.send(locationUpdate(40.1101));
+        outbound.close();
+        outbound.send(cellCapture(2, 2));
+        ShadowLooper.idleMainLooper(1, TimeUnit.SECONDS);
+        Assert.assertTrue("Nothing should be sent after closing", sentMessages().isEmpty());
+        Assert.assertEquals(3, outbound.getDroppedCount());
+        Assert.assertEquals(0, outbound.getSentCount());
+    }
+
+}
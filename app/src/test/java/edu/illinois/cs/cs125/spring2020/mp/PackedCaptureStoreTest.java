@@ -0,0 +1,83 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.PackedCaptureStore;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+public class PackedCaptureStoreTest {
+
+    @Test
+    public void testEmpty() {
+        PackedCaptureStore store = new PackedCaptureStore(7, 5);
+        for (int x = 0; x < 7; x++) {
+            for (int y = 0; y < 5; y++) {
+                Assert.assertFalse(store.isCaptured(x, y));
+                Assert.assertFalse(store.isMine(x, y));
+                Assert.assertEquals(TeamID.OBSERVER, store.getOwner(x, y));
+            }
+        }
+        Assert.assertFalse(store.hasMine());
+        Assert.assertEquals(0, store.getMineCount());
+        for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+            Assert.assertEquals(0, store.getTeamCount(team));
+        }
+    }
+
+    @Test
+    public void testBounds() {
+        // 13 x 10 cells spans three bitset words, so the corners and word boundaries are all exercised
+        PackedCaptureStore store = new PackedCaptureStore(13, 10);
+        int[][] cells = {{0, 0}, {12, 0}, {0, 9}, {12, 9},
+            {63 % 13, 63 / 13}, {64 % 13, 64 / 13}, {127 % 13, 127 / 13}};
+        for (int[] cell : cells) {
+            store.capture(cell[0], cell[1], TeamID.TEAM_GREEN, false);
+        }
+        for (int[] cell : cells) {
+            Assert.assertTrue(store.isCaptured(cell[0], cell[1]));
+            Assert.assertEquals(TeamID.TEAM_GREEN, store.getOwner(cell[0], cell[1]));
+        }
+        Assert.assertEquals(cells.length, store.getTeamCount(TeamID.TEAM_GREEN));
+        Assert.assertFalse("Neighbors of a word boundary should be untouched", store.isCaptured(62 % 13, 62 / 13));
+        Assert.assertFalse(store.isCaptured(65 % 13, 65 / 13));
+
+        PackedCaptureStore empty = new PackedCaptureStore(0, 0);
+        Assert.assertFalse(empty.hasMine());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsHugeGrid() {
+        new PackedCaptureStore(1 << 16, 1 << 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeSize() {
+        new PackedCaptureStore(-1, 5);
+    }
+
+    @Test
+    public void testOverwrite() {
+        PackedCaptureStore store = new PackedCaptureStore(4, 4);
+        store.capture(1, 2, TeamID.TEAM_RED, true);
+        Assert.assertTrue(store.isMine(1, 2));
+        Assert.assertTrue(store.hasMine());
+        Assert.assertEquals(1, store.getTeamCount(TeamID.TEAM_RED));
+
+        store.capture(1, 2, TeamID.TEAM_BLUE, false);
+        Assert.assertEquals(TeamID.TEAM_BLUE, store.getOwner(1, 2));
+        Assert.assertEquals("The old owner should lose the cell", 0, store.getTeamCount(TeamID.TEAM_RED));
+        Assert.assertEquals(1, store.getTeamCount(TeamID.TEAM_BLUE));
+        Assert.assertTrue("The player's own captures stay theirs", store.isMine(1, 2));
+
+        store.capture(1, 2, TeamID.TEAM_RED, true);
+        Assert.assertEquals("Recapturing a cell shouldn't count it twice", 1, store.getMineCount());
+        Assert.assertEquals(1, store.getTeamCount(TeamID.TEAM_RED));
+        Assert.assertEquals(0, store.getTeamCount(TeamID.TEAM_BLUE));
+
+        store.capture(1, 2, TeamID.TEAM_RED, false);
+        Assert.assertEquals("Capturing a team's own cell again shouldn't change its count",
+                1, store.getTeamCount(TeamID.TEAM_RED));
+    }
+
+}
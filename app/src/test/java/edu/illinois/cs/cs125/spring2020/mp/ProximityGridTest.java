@@ -0,0 +1,123 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.IntList;
+import edu.illinois.cs.cs125.spring2020.mp.logic.ProximityGrid;
+
+public class ProximityGridTest {
+
+    /** Makes random points, a third of them exactly on cell edges or corners. */
+    private static double[][] randomPoints(Random random, int count, double cellSize, int cellsAcross) {
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            if (i % 3 == 0) {
+                xs[i] = (random.nextInt(cellsAcross * 2) - cellsAcross) * cellSize;
+                ys[i] = (random.nextInt(cellsAcross * 2) - cellsAcross) * cellSize;
+                if (random.nextBoolean()) {
+                    ys[i] += random.nextDouble() * cellSize;
+                }
+            } else {
+                xs[i] = (random.nextDouble() * 2 - 1) * cellsAcross * cellSize;
+                ys[i] = (random.nextDouble() * 2 - 1) * cellsAcross * cellSize;
+            }
+        }
+        return new double[][] {xs, ys};
+    }
+
+    /** Checks a query against a linear scan over every point. */
+    private static void checkQuery(ProximityGrid grid, double[] xs, double[] ys,
+                                   double x, double y, double radius, IntList result) {
+        grid.query(x, y, radius, result);
+        boolean[] found = new boolean[xs.length];
+        for (int i = 0; i < result.size(); i++) {
+            int point = result.get(i);
+            if (i > 0) {
+                Assert.assertTrue("Results should be ascending and distinct", point > result.get(i - 1));
+            }
+            found[point] = true;
+            // A candidate can only come from a cell the query's square touches
+            double slack = radius + grid.getCellSize() * (1 + 1e-6);
+            Assert.assertTrue("Point " + point + " is too far away to be a candidate",
+                    Math.abs(xs[point] - x) <= slack && Math.abs(ys[point] - y) <= slack);
+        }
+        for (int p = 0; p < xs.length; p++) {
+            double dx = xs[p] - x;
+            double dy = ys[p] - y;
+            if (dx * dx + dy * dy <= radius * radius) {
+                Assert.assertTrue("Point " + p + " is within " + radius + " of (" + x + ", " + y + ") but wasn't found",
+                        found[p]);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(10);
+        IntList result = new IntList();
+        for (int round = 0; round < 50; round++) {
+            double cellSize = 1 + random.nextDouble() * 50;
+            int cellsAcross = 1 + random.nextInt(20);
+            double[][] points = randomPoints(random, random.nextInt(500), cellSize, cellsAcross);
+            ProximityGrid grid = new ProximityGrid(points[0], points[1], cellSize);
+            for (int q = 0; q < 200; q++) {
+                // Mostly about a cell, sometimes several cells wide, sometimes zero
+                double radius;
+                if (q % 4 == 0) {
+                    radius = cellSize * (1 + random.nextDouble() * 5);
+                } else if (q % 17 == 0) {
+                    radius = 0;
+                } else {
+                    radius = cellSize * random.nextDouble();
+                }
+                double x;
+                double y;
+                if (q % 3 == 0 && points[0].length > 0) {
+                    // Right on a point, which may itself be on a cell edge
+                    int p = random.nextInt(points[0].length);
+                    x = points[0][p];
+                    y = points[1][p];
+                } else if (q % 3 == 1) {
+                    // On a cell corner, so the query's edges can land on cell edges
+                    x = (random.nextInt(cellsAcross * 2) - cellsAcross) * cellSize;
+                    y = (random.nextInt(cellsAcross * 2) - cellsAcross) * cellSize;
+                    radius = Math.floor(radius / cellSize) * cellSize;
+                } else {
+                    x = (random.nextDouble() * 2 - 1) * (cellsAcross + 2) * cellSize;
+                    y = (random.nextDouble() * 2 - 1) * (cellsAcross + 2) * cellSize;
+                }
+                checkQuery(grid, points[0], points[1], x, y, radius, result);
+            }
+        }
+    }
+
+    @Test
+    public void testStackedAndEmpty() {
+        IntList result = new IntList();
+        ProximityGrid empty = new ProximityGrid(new double[0], new double[0], 10);
+        empty.query(0, 0, 100, result);
+        Assert.assertEquals(0, result.size());
+
+        // Many points on one spot share a bucket
+        double[] xs = new double[100];
+        double[] ys = new double[100];
+        Arrays.fill(xs, 20);
+        Arrays.fill(ys, -10);
+        ProximityGrid stacked = new ProximityGrid(xs, ys, 10);
+        stacked.query(20, -10, 0, result);
+        Assert.assertEquals(100, result.size());
+        stacked.query(0, 10, 5, result);
+        Assert.assertEquals(0, result.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroCellSize() {
+        new ProximityGrid(new double[] {1}, new double[] {1}, 0);
+    }
+
+}
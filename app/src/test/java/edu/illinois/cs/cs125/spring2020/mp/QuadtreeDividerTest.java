@@ -0,0 +1,159 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.GridGeometry;
+import edu.illinois.cs.cs125.spring2020.mp.logic.QuadtreeDivider;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class QuadtreeDividerTest {
+
+    private GridGeometry geometry;
+    private int[][] owners;
+    private QuadtreeDivider quadtree;
+
+    @Before
+    public void setup() {
+        // Neither dimension is a power of two, so the top nodes are clipped at the north and east
+        geometry = new GridGeometry(40.098143, -88.257649, 40.083690, -88.276347, 40);
+        owners = new int[geometry.getXCells()][geometry.getYCells()];
+        quadtree = new QuadtreeDivider(geometry, (x, y) -> owners[x][y]);
+    }
+
+    private void capture(int x, int y, int team) {
+        quadtree.capture(x, y, owners[x][y], team);
+        owners[x][y] = team;
+    }
+
+    private void assertLocates(double latitude, double longitude) {
+        Assert.assertEquals("Point " + latitude + "," + longitude + " should be in the same cell as in the grid",
+                geometry.getCellIndex(latitude, longitude), quadtree.locate(new LatLng(latitude, longitude)));
+    }
+
+    @Test
+    public void testLocate() {
+        int xCells = geometry.getXCells();
+        int yCells = geometry.getYCells();
+        Assert.assertNotEquals(0, xCells & (xCells - 1));
+        Assert.assertNotEquals(0, yCells & (yCells - 1));
+
+        // Corners and boundaries of the area
+        assertLocates(geometry.getSouth(), geometry.getWest());
+        assertLocates(geometry.getSouth(), geometry.getEast());
+        assertLocates(geometry.getNorth(), geometry.getWest());
+        assertLocates(geometry.getNorth(), geometry.getEast());
+        Assert.assertEquals(xCells - 1 + (long) (yCells - 1) * xCells,
+                quadtree.locate(new LatLng(geometry.getNorth(), geometry.getEast())));
+        Assert.assertEquals(0, quadtree.locate(new LatLng(geometry.getSouth(), geometry.getWest())));
+
+        // Every line between cells, where the point belongs to the eastern or northern cell
+        double middleLatitude = (geometry.getNorth() + geometry.getSouth()) / 2;
+        double middleLongitude = (geometry.getEast() + geometry.getWest()) / 2;
+        for (int x = 0; x <= xCells; x++) {
+            assertLocates(middleLatitude, geometry.getColumnEdge(x));
+            assertLocates(geometry.getSouth(), geometry.getColumnEdge(x));
+            assertLocates(geometry.getNorth(), geometry.getColumnEdge(x));
+        }
+        for (int y = 0; y <= yCells; y++) {
+            assertLocates(geometry.getRowEdge(y), middleLongitude);
+            assertLocates(geometry.getRowEdge(y), geometry.getWest());
+            assertLocates(geometry.getRowEdge(y), geometry.getEast());
+        }
+
+        // Every cell's center
+        for (int x = 0; x < xCells; x++) {
+            for (int y = 0; y < yCells; y++) {
+                double latitude = (geometry.getRowEdge(y) + geometry.getRowEdge(y + 1)) / 2;
+                double longitude = (geometry.getColumnEdge(x) + geometry.getColumnEdge(x + 1)) / 2;
+                Assert.assertEquals(x + (long) y * xCells, quadtree.locate(new LatLng(latitude, longitude)));
+            }
+        }
+
+        // Just outside
+        double step = 1e-9;
+        Assert.assertEquals(-1, quadtree.locate(new LatLng(geometry.getNorth() + step, middleLongitude)));
+        Assert.assertEquals(-1, quadtree.locate(new LatLng(geometry.getSouth() - step, middleLongitude)));
+        Assert.assertEquals(-1, quadtree.locate(new LatLng(middleLatitude, geometry.getEast() + step)));
+        Assert.assertEquals(-1, quadtree.locate(new LatLng(middleLatitude, geometry.getWest() - step)));
+    }
+
+    @Test
+    public void testDominantTeam() {
+        Assert.assertEquals("An empty node has no dominant team",
+                TeamID.OBSERVER, quadtree.getDominantTeam(1, 0, 0));
+        capture(0, 0, TeamID.TEAM_BLUE);
+        capture(1, 0, TeamID.TEAM_BLUE);
+        capture(0, 1, TeamID.TEAM_RED);
+        Assert.assertEquals(TeamID.TEAM_BLUE, quadtree.getDominantTeam(1, 0, 0));
+        Assert.assertEquals("Level 0 is the cells themselves", TeamID.TEAM_RED, quadtree.getDominantTeam(0, 0, 1));
+
+        capture(1, 1, TeamID.TEAM_RED);
+        Assert.assertEquals("Ties go to the lowest TeamID", TeamID.TEAM_RED, quadtree.getDominantTeam(1, 0, 0));
+        Assert.assertEquals(2, quadtree.getTeamCount(1, 0, 0, TeamID.TEAM_BLUE));
+        Assert.assertEquals(4, quadtree.getTeamCount(1, 0, 0, TeamID.OBSERVER));
+
+        capture(0, 1, TeamID.TEAM_YELLOW);
+        Assert.assertEquals("Losing a cell should break the tie", TeamID.TEAM_BLUE, quadtree.getDominantTeam(1, 0, 0));
+        Assert.assertEquals("Recaptures shouldn't change the captured total",
+                4, quadtree.getTeamCount(1, 0, 0, TeamID.OBSERVER));
+
+        capture(2, 0, TeamID.TEAM_YELLOW);
+        Assert.assertEquals(TeamID.TEAM_YELLOW, quadtree.getDominantTeam(1, 1, 0));
+        Assert.assertEquals("The node above sees a three-way split", TeamID.TEAM_YELLOW,
+                quadtree.getDominantTeam(2, 0, 0));
+        Assert.assertEquals(TeamID.TEAM_YELLOW, quadtree.getDominantTeam(quadtree.getDepth(), 0, 0));
+    }
+
+    @Test
+    public void testForEachCapturedNode() {
+        Random random = new Random(125);
+        for (int i = 0; i < 60; i++) {
+            capture(random.nextInt(geometry.getXCells()), random.nextInt(geometry.getYCells()),
+                    TeamID.MIN_TEAM + random.nextInt(TeamID.NUM_TEAMS));
+        }
+        capture(geometry.getXCells() - 1, geometry.getYCells() - 1, TeamID.TEAM_GREEN);
+        double height = geometry.getNorth() - geometry.getSouth();
+        double width = geometry.getEast() - geometry.getWest();
+        for (int i = 0; i < 50; i++) {
+            double south = geometry.getSouth() + (random.nextDouble() * 1.2 - 0.1) * height;
+            double west = geometry.getWest() + (random.nextDouble() * 1.2 - 0.1) * width;
+            LatLngBounds bounds = new LatLngBounds(new LatLng(south, west),
+                    new LatLng(south + random.nextDouble() * height, west + random.nextDouble() * width));
+            if (i == 0) {
+                bounds = new LatLngBounds(new LatLng(geometry.getSouth(), geometry.getWest()),
+                        new LatLng(geometry.getNorth(), geometry.getEast()));
+            }
+            for (int level = 0; level <= quadtree.getDepth(); level++) {
+                Set<Long> expected = new HashSet<>();
+                quadtree.forEachNode(bounds, level, (nodeLevel, x, y) -> {
+                    if (quadtree.getTeamCount(nodeLevel, x, y, TeamID.OBSERVER) > 0) {
+                        expected.add(((long) y << 32) | x);
+                    }
+                });
+                Set<Long> visited = new HashSet<>();
+                int count = quadtree.forEachCapturedNode(bounds, level, (nodeLevel, x, y) -> {
+                    Assert.assertTrue("Each node should be visited once", visited.add(((long) y << 32) | x));
+                });
+                Assert.assertEquals(expected, visited);
+                Assert.assertEquals(visited.size(), count);
+            }
+        }
+        LatLngBounds outside = new LatLngBounds(new LatLng(0, 0), new LatLng(1, 1));
+        Assert.assertEquals(0, quadtree.forEachCapturedNode(outside, 0, (level, x, y) -> Assert.fail()));
+    }
+
+}
@@ -0,0 +1,100 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.ReconnectPolicy;
+
+public class ReconnectPolicyTest {
+
+    private FakeTimer timer;
+    private int connects;
+    private ReconnectPolicy policy;
+
+    @Before
+    public void setup() {
+        timer = new FakeTimer();
+        connects = 0;
+        policy = new ReconnectPolicy(() -> connects++, timer, new Random(125));
+    }
+
+    @Test
+    public void testBackoffGrowsWithJitter() {
+        Assert.assertTrue(policy.connectionLost());
+        long ceiling = ReconnectPolicy.BASE_DELAY;
+        boolean anyBelowHalf = false;
+        for (int attempt = 0; attempt < ReconnectPolicy.MAX_ATTEMPTS; attempt++) {
+            Assert.assertEquals("Exactly one attempt should be scheduled", 1, timer.pending());
+            long delay = timer.nextDelay();
+            Assert.assertTrue("Delays should stay under the doubling ceiling", delay >= 0 && delay < ceiling);
+            anyBelowHalf |= delay < ceiling / 2;
+            timer.runNext();
+            Assert.assertEquals(attempt + 1, connects);
+            boolean retrying = policy.attemptFailed();
+            Assert.assertEquals("The policy should give up after MAX_ATTEMPTS failures",
+                    attempt + 1 < ReconnectPolicy.MAX_ATTEMPTS, retrying);
+            ceiling = Math.min(ceiling * 2, ReconnectPolicy.MAX_DELAY);
+        }
+        Assert.assertTrue("Delays should be spread out, not just the ceiling", anyBelowHalf);
+        Assert.assertEquals(0, timer.pending());
+        Assert.assertEquals(ReconnectPolicy.MAX_DELAY, policy.getDelayCeiling());
+
+        policy.reset();
+        Assert.assertEquals(ReconnectPolicy.BASE_DELAY, policy.getDelayCeiling());
+    }
+
+    @Test
+    public void testOneAttemptInFlight() {
+        policy.connectionLost();
+        policy.connectionLost();
+        Assert.assertEquals("Repeated losses should not schedule more attempts", 1, timer.pending());
+        timer.runNext();
+        Assert.assertTrue(policy.attemptFailed());
+        Assert.assertFalse("Failures of attempts the policy didn't start should be left to the caller", policy.attemptFailed());
+
+        timer.runNext();
+        Assert.assertTrue(policy.connectionLost());
+        Assert.assertEquals("A lost connection from an attempt counts as a failed attempt", 1, timer.pending());
+        Assert.assertEquals(ReconnectPolicy.BASE_DELAY * 4, policy.getDelayCeiling());
+        Assert.assertEquals(2, policy.getAttemptCount());
+    }
+
+    @Test
+    public void testMeasuresTimeToReconnect() {
+        timer.advance(1000);
+        policy.connected();
+        Assert.assertEquals("Messages on a healthy connection aren't reconnects", 0, policy.getReconnectCount());
+
+        policy.connectionLost();
+        timer.runNext();
+        policy.attemptFailed();
+        timer.runNext();
+        long lostFor = timer.now() - 1000;
+        timer.advance(250);
+        policy.connected();
+        Assert.assertEquals(1, policy.getReconnectCount());
+        Assert.assertEquals(lostFor + 250, policy.getTotalReconnectTime());
+        Assert.assertEquals(lostFor + 250, policy.getLongestReconnectTime());
+        Assert.assertEquals(ReconnectPolicy.BASE_DELAY, policy.getDelayCeiling());
+
+        policy.connectionLost();
+        timer.runNext();
+        timer.advance(100);
+        policy.connected();
+        Assert.assertEquals(2, policy.getReconnectCount());
+        Assert.assertEquals(3, policy.getAttemptCount());
+        Assert.assertEquals(lostFor + 250, policy.getLongestReconnectTime());
+    }
+
+    @Test
+    public void testStopCancelsAttempts() {
+        policy.connectionLost();
+        policy.stop();
+        timer.runNext();
+        Assert.assertEquals(0, connects);
+    }
+
+}
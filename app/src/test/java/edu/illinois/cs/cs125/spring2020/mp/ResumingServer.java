@@ -0,0 +1,92 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.illinois.cs.cs125.robolectricsecurity.Trusted;
+
+/**
+ * A stand-in for a game server that numbers its events and can resume a client from any event still in its log.
+ * The full update it falls back to is always the initial game state; tests only check that the client rebuilds.
+ */
+@Trusted
+final class ResumingServer {
+
+    private final WebSocketMocker connection;
+
+    private final JsonObject fullState;
+
+    private final List<JsonObject> log = new ArrayList<>();
+
+    private long firstLogged = 1;
+
+    private long resumedFrom = -1;
+
+    ResumingServer(WebSocketMocker setConnection, JsonObject setFullState) {
+        connection = setConnection;
+        fullState = setFullState;
+    }
+
+    long getLastSeq() {
+        return firstLogged + log.size() - 1;
+    }
+
+    long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    void sendFull() {
+        JsonObject full = fullState.deepCopy();
+        full.addProperty("seq", getLastSeq());
+        connection.sendData(full);
+    }
+
+    void broadcast(JsonObject event) {
+        connection.sendData(record(event));
+    }
+
+    void miss(JsonObject event) {
+        record(event);
+    }
+
+    void forgetLog() {
+        firstLogged += log.size();
+        log.clear();
+    }
+
+    void serve() {
+        connection.processMessages(message -> {
+            if (!message.get("type").getAsString().equals("resume")) return;
+            resumedFrom = message.get("seq").getAsLong();
+            if (resumedFrom + 1 < firstLogged) {
+                sendFull();
+                return;
+            }
+            for (JsonObject event : log) {
+                if (event.get("seq").getAsLong() > resumedFrom) connection.sendData(event);
+            }
+            JsonObject resumed = new JsonObject();
+            resumed.addProperty("type", "resumed");
+            resumed.addProperty("seq", getLastSeq());
+            connection.sendData(resumed);
+        });
+    }
+
+    int ignoreResumes() {
+        int[] ignored = {0};
+        connection.processMessages(message -> {
+            if (message.get("type").getAsString().equals("resume")) ignored[0]++;
+        });
+        return ignored[0];
+    }
+
+    private JsonObject record(JsonObject event) {
+        JsonObject numbered = event.deepCopy();
+        numbered.addProperty("seq", getLastSeq() + 1);
+        log.add(numbered);
+        return numbered;
+    }
+
+}
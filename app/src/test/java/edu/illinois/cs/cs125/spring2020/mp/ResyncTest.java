@@ -0,0 +1,153 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.android.gms.maps.model.Polygon;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.EventSequence;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.WebApi;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowGoogleMap;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowLocalBroadcastManager;
+import edu.illinois.cs.cs125.robolectricsecurity.PowerMockSecurity;
+import edu.illinois.cs.cs125.robolectricsecurity.Trusted;
+
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.powermock.*", "org.robolectric.*", "android.*", "androidx.*", "com.google.android.*", "edu.illinois.cs.cs125.spring2020.mp.shadows.*"})
+@PrepareForTest({WebApi.class, FirebaseAuth.class})
+@Trusted
+@Config(sdk = 28)
+public class ResyncTest {
+
+    @Rule
+    public PowerMockRule mockStaticClasses = new PowerMockRule();
+
+    private WebSocketMocker connection;
+    private ResumingServer server;
+    private ShadowGoogleMap map;
+
+    @Before
+    public void setup() {
+        PowerMockSecurity.secureMockMethodCache();
+        FirebaseMocker.mock();
+        FirebaseMocker.setEmail(SampleData.USER_EMAIL);
+    }
+
+    @After
+    public void teardown() {
+        WebApiMocker.reset();
+        ShadowLocalBroadcastManager.reset();
+    }
+
+    private static JsonObject capture(int x, int y) {
+        return JsonHelper.updatePlayerCellCapture("another@example.com", TeamID.TEAM_BLUE, x, y);
+    }
+
+    private void startAreaGame() {
+        connection = WebSocketMocker.expectConnection();
+        GameActivityLauncher launcher = new GameActivityLauncher();
+        map = Shadow.extract(launcher.getMap());
+        server = new ResumingServer(connection, SampleData.createAreaModeTestGame());
+        server.sendFull();
+        server.broadcast(capture(0, 1));
+    }
+
+    @Test
+    public void testResumeReplaysMissedEvents() {
+        startAreaGame();
+        List<Polygon> before = new ArrayList<>(map.getPolygons());
+        connection.loseConnection();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        server.miss(capture(0, 2));
+        server.miss(capture(2, 0));
+        server.serve();
+        Assert.assertEquals("Reconnecting should resume after the last event applied", 1, server.getResumedFrom());
+        Assert.assertEquals("The missed captures should be applied", before.size() + 2, map.getPolygons().size());
+        Assert.assertTrue("Resuming should keep the map instead of rebuilding it", map.getPolygons().containsAll(before));
+
+        server.broadcast(capture(2, 2));
+        Assert.assertEquals("Events should apply normally after resuming", before.size() + 3, map.getPolygons().size());
+    }
+
+    @Test
+    public void testFallsBackToFullState() {
+        startAreaGame();
+        List<Polygon> before = new ArrayList<>(map.getPolygons());
+        connection.loseConnection();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        server.miss(capture(0, 2));
+        server.forgetLog();
+        server.serve();
+        Assert.assertEquals(1, server.getResumedFrom());
+        Assert.assertFalse("The game should be rebuilt from the full update", map.getPolygons().isEmpty());
+        for (Polygon polygon : before) {
+            Assert.assertFalse("A full update should replace the whole map", map.getPolygons().contains(polygon));
+        }
+
+        int rebuilt = map.getPolygons().size();
+        server.broadcast(capture(2, 2));
+        Assert.assertEquals("Events after the fallback should apply", rebuilt + 1, map.getPolygons().size());
+    }
+
+    @Test
+    public void testGapRequestsResume() {
+        startAreaGame();
+        int before = map.getPolygons().size();
+        server.miss(capture(0, 2));
+        server.broadcast(capture(2, 0));
+        Assert.assertEquals("An event after a gap should wait for the missing ones", before, map.getPolygons().size());
+        server.serve();
+        Assert.assertEquals("A gap should be filled by resuming", 1, server.getResumedFrom());
+        Assert.assertEquals("The missing event and the one after it should both apply", before + 2, map.getPolygons().size());
+
+        JsonObject stale = capture(2, 2);
+        stale.addProperty("seq", server.getLastSeq());
+        connection.sendData(stale);
+        Assert.assertEquals("An event numbered like one already applied should be skipped", before + 2, map.getPolygons().size());
+    }
+
+    @Test
+    public void testLostResumeRequestIsResent() {
+        startAreaGame();
+        int before = map.getPolygons().size();
+        server.miss(capture(0, 2));
+        server.broadcast(capture(2, 0));
+        Assert.assertEquals("A gap should request a resume", 1, server.ignoreResumes());
+
+        // The server never answers, but events keep arriving past the gap
+        int[][] cells = {{3, 0}, {4, 0}, {5, 0}, {2, 1}};
+        Assert.assertEquals(EventSequence.RESEND_AFTER_SKIPS, cells.length);
+        for (int i = 0; i < cells.length - 1; i++) {
+            server.broadcast(capture(cells[i][0], cells[i][1]));
+            Assert.assertEquals("A pending resume request shouldn't be repeated right away", 0, server.ignoreResumes());
+        }
+        server.broadcast(capture(cells[cells.length - 1][0], cells[cells.length - 1][1]));
+        Assert.assertEquals("Nothing past the gap should apply yet", before, map.getPolygons().size());
+        server.serve();
+        Assert.assertEquals("A resume request that goes unanswered should be sent again", 1, server.getResumedFrom());
+        Assert.assertEquals("Every event should apply once the resent request is answered",
+                before + cells.length + 2, map.getPolygons().size());
+
+        server.broadcast(capture(2, 2));
+        Assert.assertEquals("Events should apply normally after resuming",
+                before + cells.length + 3, map.getPolygons().size());
+    }
+
+}
@@ -0,0 +1,141 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.ScoreBoard;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+public class ScoreBoardTest {
+
+    private ScoreBoard scores;
+    private int notifications;
+
+    @Before
+    public void setup() {
+        scores = new ScoreBoard();
+        notifications = 0;
+        scores.setListener(changed -> {
+            Assert.assertSame(scores, changed);
+            notifications++;
+        });
+    }
+
+    private void assertLead(int leader, boolean tied) {
+        Assert.assertEquals("Leader", leader, scores.getLeader());
+        Assert.assertEquals("Tied", tied, scores.isTied());
+    }
+
+    @Test
+    public void testOwnershipMoves() {
+        assertLead(TeamID.MIN_TEAM, true);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_GREEN);
+        Assert.assertEquals(1, scores.getScore(TeamID.TEAM_GREEN));
+        assertLead(TeamID.TEAM_GREEN, false);
+
+        scores.changeOwner(TeamID.TEAM_GREEN, TeamID.TEAM_BLUE);
+        Assert.assertEquals(0, scores.getScore(TeamID.TEAM_GREEN));
+        Assert.assertEquals(1, scores.getScore(TeamID.TEAM_BLUE));
+        assertLead(TeamID.TEAM_BLUE, false);
+
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_BLUE);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_RED);
+        scores.changeOwner(TeamID.TEAM_BLUE, TeamID.TEAM_RED);
+        Assert.assertEquals(2, scores.getScore(TeamID.TEAM_RED));
+        Assert.assertEquals(1, scores.getScore(TeamID.TEAM_BLUE));
+        assertLead(TeamID.TEAM_RED, false);
+        Assert.assertEquals(0, scores.getScore(TeamID.OBSERVER));
+    }
+
+    @Test
+    public void testTies() {
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_BLUE);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_YELLOW);
+        assertLead(TeamID.TEAM_YELLOW, true);
+
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_BLUE);
+        assertLead(TeamID.TEAM_BLUE, false);
+
+        // The joint leader losing an objective breaks the tie in the other's favor
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_YELLOW);
+        assertLead(TeamID.TEAM_YELLOW, true);
+        scores.changeOwner(TeamID.TEAM_YELLOW, TeamID.OBSERVER);
+        assertLead(TeamID.TEAM_BLUE, false);
+
+        // A tie between teams other than the lowest-numbered one
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_GREEN);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_GREEN);
+        assertLead(TeamID.TEAM_GREEN, true);
+        scores.changeOwner(TeamID.TEAM_BLUE, TeamID.TEAM_GREEN);
+        assertLead(TeamID.TEAM_GREEN, false);
+
+        // Losing a lead that was shared with a team further down the list
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_BLUE);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_BLUE);
+        assertLead(TeamID.TEAM_GREEN, true);
+        scores.changeOwner(TeamID.TEAM_GREEN, TeamID.TEAM_RED);
+        assertLead(TeamID.TEAM_BLUE, false);
+    }
+
+    @Test
+    public void testBackToNoLeader() {
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_BLUE);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_RED);
+        scores.changeOwner(TeamID.TEAM_RED, TeamID.OBSERVER);
+        assertLead(TeamID.TEAM_BLUE, false);
+        scores.changeOwner(TeamID.TEAM_BLUE, TeamID.OBSERVER);
+        assertLead(TeamID.MIN_TEAM, true);
+        for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+            Assert.assertEquals(0, scores.getScore(team));
+        }
+    }
+
+    @Test
+    public void testListenerOnlyHearsChanges() {
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_RED);
+        Assert.assertEquals(1, notifications);
+        scores.changeOwner(TeamID.TEAM_RED, TeamID.TEAM_RED);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.OBSERVER);
+        Assert.assertEquals("Non-changes shouldn't be reported", 1, notifications);
+        scores.changeOwner(TeamID.TEAM_RED, TeamID.TEAM_BLUE);
+        scores.changeOwner(TeamID.TEAM_BLUE, TeamID.OBSERVER);
+        Assert.assertEquals(3, notifications);
+
+        scores.setListener(null);
+        scores.changeOwner(TeamID.OBSERVER, TeamID.TEAM_RED);
+        Assert.assertEquals(3, notifications);
+        Assert.assertEquals(1, scores.getScore(TeamID.TEAM_RED));
+    }
+
+    @Test
+    public void testMatchesRecount() {
+        Random random = new Random(125);
+        int[] owners = new int[12];
+        int[] expected = new int[TeamID.MAX_TEAM + 1];
+        for (int i = 0; i < 5000; i++) {
+            int objective = random.nextInt(owners.length);
+            int newTeam = random.nextInt(TeamID.MAX_TEAM + 1);
+            scores.changeOwner(owners[objective], newTeam);
+            expected[owners[objective]]--;
+            expected[newTeam]++;
+            owners[objective] = newTeam;
+
+            int leader = TeamID.MIN_TEAM;
+            for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+                Assert.assertEquals(expected[team], scores.getScore(team));
+                if (expected[team] > expected[leader]) {
+                    leader = team;
+                }
+            }
+            boolean tied = false;
+            for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+                tied = tied || (team != leader && expected[team] == expected[leader]);
+            }
+            assertLead(leader, tied);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.IntList;
+import edu.illinois.cs.cs125.spring2020.mp.logic.SegmentGrid;
+
+public class SegmentGridTest {
+
+    /** A random coordinate: mostly inside [low, high], sometimes well outside it, sometimes right on an edge. */
+    private static double coordinate(Random random, double low, double high) {
+        switch (random.nextInt(8)) {
+            case 0:
+                return low - random.nextDouble() * (high - low);
+            case 1:
+                return high + random.nextDouble() * (high - low);
+            case 2:
+                return low;
+            case 3:
+                return high;
+            default:
+                return low + random.nextDouble() * (high - low);
+        }
+    }
+
+    /** Checks a query against testing every segment's bounding box. */
+    private static void checkQuery(SegmentGrid grid, List<double[]> segments, double[] query, IntList result) {
+        grid.query(query[0], query[1], query[2], query[3], result);
+        boolean[] found = new boolean[segments.size()];
+        for (int i = 0; i < result.size(); i++) {
+            Assert.assertFalse("Segment " + result.get(i) + " was reported twice", found[result.get(i)]);
+            found[result.get(i)] = true;
+        }
+        for (int s = 0; s < segments.size(); s++) {
+            double[] segment = segments.get(s);
+            boolean overlaps = Math.min(segment[0], segment[2]) <= query[2]
+                    && Math.max(segment[0], segment[2]) >= query[0]
+                    && Math.min(segment[1], segment[3]) <= query[3]
+                    && Math.max(segment[1], segment[3]) >= query[1];
+            Assert.assertEquals("Segment " + s + " overlapping the query", overlaps, found[s]);
+        }
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(11);
+        IntList result = new IntList();
+        for (int round = 0; round < 40; round++) {
+            double west = (random.nextDouble() - 0.5) * 1000;
+            double south = (random.nextDouble() - 0.5) * 1000;
+            // Sometimes very wide or very tall, so the grid has few rows or columns
+            double width = random.nextDouble() * 500 * (1 + random.nextInt(10));
+            double height = random.nextDouble() * 500;
+            SegmentGrid grid = new SegmentGrid(west, south, west + width, south + height);
+            List<double[]> segments = new ArrayList<>();
+            for (int step = 0; step < 300; step++) {
+                double startX = coordinate(random, west, west + width);
+                double startY = coordinate(random, south, south + height);
+                double[] segment;
+                switch (step % 4) {
+                    case 0:
+                        // Zero length
+                        segment = new double[] {startX, startY, startX, startY};
+                        break;
+                    case 1:
+                        // Spanning many cells, possibly past the bounds on both sides
+                        segment = new double[] {startX, startY, coordinate(random, west, west + width),
+                            coordinate(random, south, south + height)};
+                        break;
+                    default:
+                        segment = new double[] {startX, startY, startX + (random.nextDouble() - 0.5) * width / 10,
+                            startY + (random.nextDouble() - 0.5) * height / 10};
+                        break;
+                }
+                Assert.assertEquals(segments.size(), grid.add(segment[0], segment[1], segment[2], segment[3]));
+                segments.add(segment);
+                Assert.assertEquals(segments.size(), grid.size());
+
+                // Queries between additions, since paths grow during a game
+                double[] corners = {coordinate(random, west, west + width), coordinate(random, south, south + height),
+                    coordinate(random, west, west + width), coordinate(random, south, south + height)};
+                double[] query = {Math.min(corners[0], corners[2]), Math.min(corners[1], corners[3]),
+                    Math.max(corners[0], corners[2]), Math.max(corners[1], corners[3])};
+                checkQuery(grid, segments, query, result);
+                // A point query on one of the segments' endpoints
+                double[] existing = segments.get(random.nextInt(segments.size()));
+                checkQuery(grid, segments, new double[] {existing[2], existing[3], existing[2], existing[3]}, result);
+            }
+
+            // Entirely outside the indexed bounds, on every side
+            double[][] outside = {
+                {west - width - 10, south, west - 10, south + height},
+                {west + width + 10, south, west + 2 * width + 10, south + height},
+                {west, south - height - 10, west + width, south - 10},
+                {west, south + height + 10, west + width, south + 2 * height + 10},
+                {west - 1e6, south - 1e6, west + 1e6, south + 1e6}
+            };
+            for (double[] query : outside) {
+                checkQuery(grid, segments, query, result);
+            }
+        }
+    }
+
+    @Test
+    public void testDegenerateBounds() {
+        IntList result = new IntList();
+        SegmentGrid grid = new SegmentGrid(5, 5, 5, 5);
+        grid.add(0, 0, 10, 10);
+        grid.add(5, 5, 5, 5);
+        grid.add(-3, 2, -1, 2);
+        grid.query(4, 4, 6, 6, result);
+        Assert.assertEquals(2, result.size());
+        grid.query(-2, 2, -2, 2, result);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(2, result.get(0));
+        grid.query(20, 20, 30, 30, result);
+        Assert.assertEquals(0, result.size());
+    }
+
+}
@@ -0,0 +1,111 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.PackedCaptureStore;
+import edu.illinois.cs.cs125.spring2020.mp.logic.SparseCaptureStore;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+public class SparseCaptureStoreTest {
+
+    @Test
+    public void testBounds() {
+        // A grid too big for a packed store: cell indexes don't fit in an int
+        int xCells = 1 << 20;
+        SparseCaptureStore store = new SparseCaptureStore(xCells);
+        int[][] cells = {{0, 0}, {xCells - 1, 0}, {0, (1 << 20) - 1}, {xCells - 1, (1 << 20) - 1}};
+        for (int[] cell : cells) {
+            Assert.assertFalse(store.isCaptured(cell[0], cell[1]));
+            Assert.assertEquals(TeamID.OBSERVER, store.getOwner(cell[0], cell[1]));
+        }
+        for (int[] cell : cells) {
+            store.capture(cell[0], cell[1], TeamID.TEAM_YELLOW, false);
+        }
+        for (int[] cell : cells) {
+            Assert.assertTrue("Cell " + cell[0] + "," + cell[1] + " should be captured",
+                    store.isCaptured(cell[0], cell[1]));
+            Assert.assertEquals(TeamID.TEAM_YELLOW, store.getOwner(cell[0], cell[1]));
+        }
+        Assert.assertFalse("The cell after the first shouldn't be mistaken for it", store.isCaptured(1, 0));
+        Assert.assertFalse(store.isCaptured(0, 1));
+        Assert.assertEquals(cells.length, store.getTeamCount(TeamID.TEAM_YELLOW));
+    }
+
+    @Test
+    public void testOverwrite() {
+        SparseCaptureStore store = new SparseCaptureStore(100);
+        store.capture(0, 0, TeamID.TEAM_RED, true);
+        Assert.assertTrue("Cell 0 must not look like an empty slot", store.isCaptured(0, 0));
+        Assert.assertTrue(store.isMine(0, 0));
+
+        store.capture(0, 0, TeamID.TEAM_BLUE, false);
+        Assert.assertEquals(TeamID.TEAM_BLUE, store.getOwner(0, 0));
+        Assert.assertTrue("The player's own captures stay theirs", store.isMine(0, 0));
+        Assert.assertEquals(0, store.getTeamCount(TeamID.TEAM_RED));
+        Assert.assertEquals(1, store.getTeamCount(TeamID.TEAM_BLUE));
+
+        store.capture(0, 0, TeamID.TEAM_RED, true);
+        Assert.assertEquals("Recapturing a cell shouldn't count it twice", 1, store.getMineCount());
+        Assert.assertEquals(1, store.getTeamCount(TeamID.TEAM_RED));
+    }
+
+    @Test
+    public void testGrowth() {
+        int xCells = 300;
+        SparseCaptureStore store = new SparseCaptureStore(xCells);
+        int count = 5000;
+        // Consecutive cells share a row, which is the worst case for a poorly spread hash
+        for (int i = 0; i < count; i++) {
+            store.capture(i % xCells, i / xCells, TeamID.MIN_TEAM + i % TeamID.NUM_TEAMS, i % 3 == 0);
+            if (i % 997 == 0) {
+                for (int j = 0; j <= i; j++) {
+                    Assert.assertTrue("Captures should survive growing the table",
+                            store.isCaptured(j % xCells, j / xCells));
+                }
+            }
+        }
+        int total = 0;
+        for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+            total += store.getTeamCount(team);
+        }
+        Assert.assertEquals(count, total);
+        Assert.assertEquals((count + 2) / 3, store.getMineCount());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(TeamID.MIN_TEAM + i % TeamID.NUM_TEAMS, store.getOwner(i % xCells, i / xCells));
+            Assert.assertEquals(i % 3 == 0, store.isMine(i % xCells, i / xCells));
+        }
+        Assert.assertFalse(store.isCaptured(count % xCells, count / xCells));
+    }
+
+    @Test
+    public void testMatchesPackedStore() {
+        Random random = new Random(125);
+        int xCells = 50;
+        int yCells = 40;
+        SparseCaptureStore sparse = new SparseCaptureStore(xCells);
+        PackedCaptureStore packed = new PackedCaptureStore(xCells, yCells);
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(xCells);
+            int y = random.nextInt(yCells);
+            int team = TeamID.MIN_TEAM + random.nextInt(TeamID.NUM_TEAMS);
+            boolean mine = random.nextInt(4) == 0;
+            sparse.capture(x, y, team, mine);
+            packed.capture(x, y, team, mine);
+        }
+        for (int x = 0; x < xCells; x++) {
+            for (int y = 0; y < yCells; y++) {
+                Assert.assertEquals(packed.isCaptured(x, y), sparse.isCaptured(x, y));
+                Assert.assertEquals(packed.isMine(x, y), sparse.isMine(x, y));
+                Assert.assertEquals(packed.getOwner(x, y), sparse.getOwner(x, y));
+            }
+        }
+        for (int team = TeamID.MIN_TEAM; team <= TeamID.MAX_TEAM; team++) {
+            Assert.assertEquals(packed.getTeamCount(team), sparse.getTeamCount(team));
+        }
+        Assert.assertEquals(packed.getMineCount(), sparse.getMineCount());
+    }
+
+}
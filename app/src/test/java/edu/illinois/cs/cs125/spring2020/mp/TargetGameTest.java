@@ -0,0 +1,208 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Random;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.PlayerStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TargetGame;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.WebApi;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.MockedWrapperInstantiator;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowGoogleMap;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowLocalBroadcastManager;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowMarker;
+import edu.illinois.cs.cs125.robolectricsecurity.PowerMockSecurity;
+import edu.illinois.cs.cs125.robolectricsecurity.Trusted;
+
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.powermock.*", "org.robolectric.*", "android.*", "androidx.*", "com.google.android.*", "edu.illinois.cs.cs125.spring2020.mp.shadows.*"})
+@PrepareForTest({WebApi.class, FirebaseAuth.class})
+@Trusted
+@Config(sdk = 28)
+public class TargetGameTest {
+
+    private static final LatLng LOWER_LEFT = new LatLng(40.106388, -88.227814);
+    private static final LatLng FAR_DOWN = new LatLng(40.101994, -88.223845);
+    private static final LatLng FAR_UP = new LatLng(40.111915, -88.226418);
+    private static final LatLng OTHER_1 = new LatLng(40.114507, -88.180760);
+    private static final LatLng OTHER_2 = new LatLng(40.114158, -88.173105);
+
+    @Rule
+    public PowerMockRule mockStaticClasses = new PowerMockRule();
+
+    private Context appContext;
+
+    @Before
+    public void setup() {
+        PowerMockSecurity.secureMockMethodCache();
+        FirebaseMocker.mock();
+        FirebaseMocker.setEmail(SampleData.USER_EMAIL);
+        appContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void teardown() {
+        TargetGame.setAuditLoadedPaths(false);
+        WebApiMocker.reset();
+        ShadowLocalBroadcastManager.reset();
+    }
+
+    private static ShadowMarker markerAt(ShadowGoogleMap map, LatLng position) {
+        Marker marker = map.getMarkerAt(position);
+        Assert.assertNotNull(marker);
+        return Shadow.extract(marker);
+    }
+
+    @Test
+    public void testBurstRefreshesEachIconOnce() {
+        JsonObject gameConfig = SampleData.createTargetModeTestGame();
+        SampleData.resetGame(gameConfig);
+        GoogleMap map = MockedWrapperInstantiator.create(GoogleMap.class);
+        ShadowGoogleMap shadowMap = Shadow.extract(map);
+        TargetGame game = new TargetGame(SampleData.USER_EMAIL, map, new WebSocketMocker().getWebSocket(),
+                gameConfig, appContext);
+        ShadowLooper.pauseMainLooper();
+
+        // A burst of updates handled in one go, including a target changing hands twice
+        game.handleMessage(JsonHelper.updatePlayerTargetVisit("opponent@example.com", TeamID.TEAM_RED, "Other1"));
+        game.handleMessage(JsonHelper.updatePlayerTargetVisit("opponent@example.com", TeamID.TEAM_RED, "Other2"));
+        game.handleMessage(JsonHelper.updatePlayerTargetVisit("another@example.com", TeamID.TEAM_GREEN, "FarDown"));
+        game.handleMessage(JsonHelper.updatePlayerTargetVisit("noone@illinois.edu", TeamID.TEAM_YELLOW, "FarUp"));
+        game.handleMessage(JsonHelper.updatePlayerTargetVisit("another@example.com", TeamID.TEAM_GREEN, "Other1"));
+        game.locationUpdated(LOWER_LEFT);
+        for (Marker marker : shadowMap.getMarkers()) {
+            Assert.assertEquals("Icons should wait for the refresh", 0,
+                    Shadow.<ShadowMarker>extract(marker).getIconChanges());
+        }
+
+        ShadowLooper.idleMainLooper();
+        for (Marker marker : shadowMap.getMarkers()) {
+            Assert.assertTrue("A burst should swap each icon at most once",
+                    Shadow.<ShadowMarker>extract(marker).getIconChanges() <= 1);
+        }
+        Assert.assertEquals(BitmapDescriptorFactory.HUE_GREEN, markerAt(shadowMap, OTHER_1).getHue(), 1e-3);
+        Assert.assertEquals(1, markerAt(shadowMap, OTHER_1).getIconChanges());
+        Assert.assertEquals(BitmapDescriptorFactory.HUE_RED, markerAt(shadowMap, OTHER_2).getHue(), 1e-3);
+        Assert.assertEquals(BitmapDescriptorFactory.HUE_GREEN, markerAt(shadowMap, FAR_DOWN).getHue(), 1e-3);
+        Assert.assertEquals(BitmapDescriptorFactory.HUE_YELLOW, markerAt(shadowMap, FAR_UP).getHue(), 1e-3);
+        Assert.assertEquals(BitmapDescriptorFactory.HUE_YELLOW, markerAt(shadowMap, LOWER_LEFT).getHue(), 1e-3);
+        Assert.assertEquals(1, markerAt(shadowMap, LOWER_LEFT).getIconChanges());
+
+        // Nothing stale, nothing to do
+        ShadowLooper.idleMainLooper();
+        Assert.assertEquals(1, markerAt(shadowMap, OTHER_1).getIconChanges());
+    }
+
+    @Test
+    public void testAuditFindsBrokenPaths() {
+        GoogleMap map = MockedWrapperInstantiator.create(GoogleMap.class);
+        WebSocketMocker webSocket = new WebSocketMocker();
+        TargetGame.setAuditLoadedPaths(true);
+        TargetGame valid = new TargetGame(SampleData.USER_EMAIL, map, webSocket.getWebSocket(),
+                SampleData.createTargetModeTestGame(), appContext);
+        Assert.assertEquals("The sample game's paths are valid", 0, valid.getPathProblems().size());
+
+        // A line from FarDown to FarUp runs through noone's LowerMiddle-LowerRight line
+        JsonObject broken = SampleData.createTargetModeTestGame();
+        JsonArray players = broken.getAsJsonArray("players");
+        players.set(players.size() - 1, JsonHelper.player("another@example.com", TeamID.TEAM_GREEN,
+                PlayerStateID.PLAYING,
+                JsonHelper.target("FarDown", FAR_DOWN.latitude, FAR_DOWN.longitude, TeamID.TEAM_GREEN),
+                JsonHelper.target("FarUp", FAR_UP.latitude, FAR_UP.longitude, TeamID.TEAM_GREEN)));
+        TargetGame audited = new TargetGame(SampleData.USER_EMAIL, map, webSocket.getWebSocket(), broken, appContext);
+        Assert.assertEquals(1, audited.getPathProblems().size());
+        String problem = audited.getPathProblems().get(0);
+        Assert.assertTrue(problem, problem.contains("noone@illinois.edu's line 0"));
+        Assert.assertTrue(problem, problem.contains("another@example.com's line 0"));
+
+        TargetGame.setAuditLoadedPaths(false);
+        TargetGame unaudited = new TargetGame(SampleData.USER_EMAIL, map, webSocket.getWebSocket(),
+                broken.deepCopy(), appContext);
+        Assert.assertEquals("Paths aren't checked with the audit off", 0, unaudited.getPathProblems().size());
+    }
+
+    @Test
+    public void testReachableMatchesFromScratch() {
+        String[] others = {"noone@illinois.edu", "opponent@example.com", "another@example.com"};
+        int[] otherTeams = {TeamID.TEAM_YELLOW, TeamID.TEAM_RED, TeamID.TEAM_GREEN};
+        GoogleMap map = MockedWrapperInstantiator.create(GoogleMap.class);
+        WebSocketMocker webSocket = new WebSocketMocker();
+        Random random = new Random(15);
+        for (int round = 0; round < 10; round++) {
+            // Targets packed closely enough that lines often cut each other off
+            int count = 40 + random.nextInt(40);
+            JsonArray targets = new JsonArray();
+            LatLng[] positions = new LatLng[count];
+            for (int t = 0; t < count; t++) {
+                positions[t] = new LatLng(40.1 + random.nextDouble() * 0.01, -88.23 + random.nextDouble() * 0.01);
+                targets.add(JsonHelper.target("t" + t, positions[t].latitude, positions[t].longitude, TeamID.OBSERVER));
+            }
+            JsonObject fullState = new JsonObject();
+            fullState.addProperty("type", "full");
+            fullState.addProperty("owner", SampleData.USER_EMAIL);
+            fullState.addProperty("state", GameStateID.RUNNING);
+            fullState.addProperty("mode", "target");
+            fullState.addProperty("proximityThreshold", 1);
+            JsonArray players = new JsonArray();
+            players.add(JsonHelper.player(SampleData.USER_EMAIL, TeamID.TEAM_BLUE, PlayerStateID.PLAYING));
+            for (int p = 0; p < others.length; p++) {
+                players.add(JsonHelper.player(others[p], otherTeams[p], PlayerStateID.PLAYING));
+            }
+            fullState.add("players", players);
+            fullState.add("targets", targets);
+            TargetGame game = new TargetGame(SampleData.USER_EMAIL, map, webSocket.getWebSocket(), fullState, appContext);
+
+            boolean[] claimed = new boolean[count];
+            for (int step = 0; step < 100; step++) {
+                int target = random.nextInt(count);
+                int action = random.nextInt(4);
+                if (action < 2) {
+                    // Walking to a target works out its reachability and claims it if possible
+                    int score = game.getTeamScore(TeamID.TEAM_BLUE);
+                    game.locationUpdated(positions[target]);
+                    claimed[target] = claimed[target] || game.getTeamScore(TeamID.TEAM_BLUE) > score;
+                } else if (!claimed[target]) {
+                    // Another player's capture, or the user's own capture from another device
+                    String email = SampleData.USER_EMAIL;
+                    int team = TeamID.TEAM_BLUE;
+                    if (action == 2 || random.nextInt(4) > 0) {
+                        int other = random.nextInt(others.length);
+                        email = others[other];
+                        team = otherTeams[other];
+                    }
+                    game.handleMessage(JsonHelper.updatePlayerTargetVisit(email, team, "t" + target));
+                    claimed[target] = true;
+                }
+                Assert.assertTrue("Remembered reachability went stale for targets " + game.findStaleReachability(),
+                        game.findStaleReachability().isEmpty());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.Target;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TargetMarkers;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.MockedWrapperInstantiator;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowGoogleMap;
+import edu.illinois.cs.cs125.spring2020.mp.shadows.ShadowMarker;
+import edu.illinois.cs.cs125.robolectricsecurity.PowerMockSecurity;
+import edu.illinois.cs.cs125.robolectricsecurity.Trusted;
+
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.powermock.*", "org.robolectric.*", "android.*", "androidx.*", "com.google.android.*", "edu.illinois.cs.cs125.spring2020.mp.shadows.*"})
+@Trusted
+@Config(sdk = 28)
+public class TargetMarkersTest {
+
+    private static final int SIDE = 40;
+    private static final double SPACING = 0.001;
+    private static final double SOUTH = 40.0;
+    private static final double WEST = -88.0;
+
+    @Rule
+    public PowerMockRule mockStaticClasses = new PowerMockRule();
+
+    private ShadowGoogleMap shadowMap;
+    private Target[] targets;
+    private TargetMarkers markers;
+
+    @Before
+    public void setup() {
+        PowerMockSecurity.secureMockMethodCache();
+        GoogleMap map = MockedWrapperInstantiator.create(GoogleMap.class);
+        shadowMap = Shadow.extract(map);
+        // A square grid of targets, more than MAX_MARKERS of them
+        targets = new Target[SIDE * SIDE];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new Target(position(i), TeamID.OBSERVER);
+        }
+        double far = (SIDE - 1) * SPACING;
+        markers = new TargetMarkers(map, targets, WEST, SOUTH, WEST + far, SOUTH + far);
+    }
+
+    private static LatLng position(int target) {
+        return new LatLng(SOUTH + (target / SIDE) * SPACING, WEST + (target % SIDE) * SPACING);
+    }
+
+    private static LatLngBounds view(double south, double west, double size) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(south + size, west + size));
+    }
+
+    private List<Marker> visibleMarkers() {
+        List<Marker> visible = new ArrayList<>();
+        for (Marker marker : shadowMap.getMarkers()) {
+            if (marker.isVisible()) {
+                visible.add(marker);
+            }
+        }
+        return visible;
+    }
+
+    // The targets in a view widened by a quarter of its size on each side, as TargetMarkers widens it
+    private Set<LatLng> expectedTargets(LatLngBounds view) {
+        double latitudeMargin = (view.northeast.latitude - view.southwest.latitude) / 4;
+        double longitudeMargin = (view.northeast.longitude - view.southwest.longitude) / 4;
+        Set<LatLng> expected = new HashSet<>();
+        for (Target target : targets) {
+            LatLng position = target.getPosition();
+            if (position.latitude >= view.southwest.latitude - latitudeMargin
+                    && position.latitude <= view.northeast.latitude + latitudeMargin
+                    && position.longitude >= view.southwest.longitude - longitudeMargin
+                    && position.longitude <= view.northeast.longitude + longitudeMargin) {
+                expected.add(position);
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    public void testMarkersFollowCamera() {
+        int mostVisible = 0;
+        for (int step = 0; step < 30; step++) {
+            // Edges never land on the grid, so which targets are inside is clear-cut
+            LatLngBounds view = view(SOUTH + 0.0003 + step * 0.0011, WEST + 0.0007 + step * 0.0009, 0.004);
+            markers.show(view);
+            Set<LatLng> expected = expectedTargets(view);
+            Set<LatLng> shown = new HashSet<>();
+            for (Marker marker : visibleMarkers()) {
+                Assert.assertTrue("Each visible marker should be on a distinct target", shown.add(marker.getPosition()));
+                Assert.assertNull("Target markers shouldn't be titled", marker.getTitle());
+            }
+            Assert.assertEquals("Exactly the targets near the camera should have markers", expected, shown);
+            Assert.assertTrue(shown.size() <= TargetMarkers.MAX_MARKERS);
+            mostVisible = Math.max(mostVisible, shown.size());
+        }
+        Assert.assertTrue("Markers should be recycled rather than created for every view",
+                shadowMap.getMarkers().size() <= mostVisible);
+    }
+
+    @Test
+    public void testClustersAboveMaxMarkers() {
+        markers.show(view(SOUTH + 0.0003, WEST + 0.0003, 0.004));
+        int created = shadowMap.getMarkers().size();
+
+        LatLngBounds everything = view(SOUTH + 0.0003, WEST + 0.0003, SIDE * SPACING);
+        Assert.assertTrue(expectedTargets(everything).size() > TargetMarkers.MAX_MARKERS);
+        markers.show(everything);
+        List<Marker> clusters = visibleMarkers();
+        Assert.assertTrue("Too many targets should be shown as clusters",
+                clusters.size() <= TargetMarkers.CLUSTER_GRID * TargetMarkers.CLUSTER_GRID);
+        int total = 0;
+        for (Marker cluster : clusters) {
+            total += Integer.parseInt(cluster.getTitle());
+        }
+        Assert.assertEquals("Cluster titles should count every target in the view",
+                expectedTargets(everything).size(), total);
+        Assert.assertTrue("Cluster markers should reuse the hidden target markers",
+                shadowMap.getMarkers().size() <= Math.max(created, clusters.size()));
+
+        // Zooming back in turns the clusters back into target markers
+        int withClusters = shadowMap.getMarkers().size();
+        LatLngBounds close = view(SOUTH + 0.0103, WEST + 0.0107, 0.004);
+        markers.show(close);
+        Set<LatLng> shown = new HashSet<>();
+        for (Marker marker : visibleMarkers()) {
+            Assert.assertNull(marker.getTitle());
+            shown.add(marker.getPosition());
+        }
+        Assert.assertEquals(expectedTargets(close), shown);
+        Assert.assertTrue(shadowMap.getMarkers().size() <= Math.max(withClusters, shown.size()));
+    }
+
+    @Test
+    public void testTeamsChangedRecolorsOnlyAffectedClusters() {
+        LatLngBounds everything = view(SOUTH + 0.0003, WEST + 0.0003, SIDE * SPACING);
+        markers.show(everything);
+        int created = shadowMap.getMarkers().size();
+        List<Marker> clusters = visibleMarkers();
+        for (Marker cluster : clusters) {
+            Assert.assertEquals(BitmapDescriptorFactory.HUE_VIOLET,
+                    Shadow.<ShadowMarker>extract(cluster).getHue(), 1e-3);
+        }
+        int[] iconChanges = new int[clusters.size()];
+        for (int c = 0; c < clusters.size(); c++) {
+            iconChanges[c] = Shadow.<ShadowMarker>extract(clusters.get(c)).getIconChanges();
+        }
+
+        // Red takes the southwest corner; green takes one target there, which isn't enough to lead
+        BitSet changed = new BitSet();
+        for (int t = 0; t < targets.length; t++) {
+            if (t / SIDE < 3 && t % SIDE < 3) {
+                targets[t].setTeam(TeamID.TEAM_RED);
+                changed.set(t);
+            }
+        }
+        targets[SIDE + 1].setTeam(TeamID.TEAM_GREEN);
+        markers.teamsChanged(changed);
+
+        Assert.assertEquals("Changing teams shouldn't re-cluster", created, shadowMap.getMarkers().size());
+        Assert.assertEquals(clusters, visibleMarkers());
+        int recolored = 0;
+        for (int c = 0; c < clusters.size(); c++) {
+            ShadowMarker shadow = Shadow.extract(clusters.get(c));
+            if (shadow.getIconChanges() != iconChanges[c]) {
+                recolored++;
+                Assert.assertEquals(1, shadow.getIconChanges() - iconChanges[c]);
+                Assert.assertEquals(BitmapDescriptorFactory.HUE_RED, shadow.getHue(), 1e-3);
+            }
+        }
+        Assert.assertEquals("Only the cluster holding the changed targets should be recolored", 1, recolored);
+
+        // Showing the same view from scratch gives the same colors
+        List<Float> hues = new ArrayList<>();
+        for (Marker cluster : clusters) {
+            hues.add(Shadow.<ShadowMarker>extract(cluster).getHue());
+        }
+        markers.show(everything);
+        List<Float> fresh = new ArrayList<>();
+        for (Marker cluster : visibleMarkers()) {
+            fresh.add(Shadow.<ShadowMarker>extract(cluster).getHue());
+        }
+        hues.sort(Float::compare);
+        fresh.sort(Float::compare);
+        Assert.assertEquals(hues, fresh);
+    }
+
+}
@@ -0,0 +1,156 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.TokenCache;
+
+public class TokenCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    /** An auth provider that answers only when the test says so. */
+    private static final class StubProvider implements TokenCache.Provider {
+
+        private final List<TokenCache.Listener> fetches = new ArrayList<>();
+        private final List<Boolean> forced = new ArrayList<>();
+
+        @Override
+        public void fetch(boolean forceRefresh, TokenCache.Listener listener) {
+            fetches.add(listener);
+            forced.add(forceRefresh);
+        }
+
+        int fetchCount() {
+            return fetches.size();
+        }
+
+        boolean lastForced() {
+            return forced.get(forced.size() - 1);
+        }
+
+        void succeed(String token, long validFor) {
+            fetches.get(fetches.size() - 1).onToken(token, validFor);
+        }
+
+        void fail() {
+            fetches.get(fetches.size() - 1).onError(new Exception("offline"));
+        }
+
+    }
+
+    private FakeTimer timer;
+    private StubProvider provider;
+    private TokenCache cache;
+    private List<String> received;
+    private List<Exception> errors;
+
+    @Before
+    public void setup() {
+        timer = new FakeTimer();
+        provider = new StubProvider();
+        cache = new TokenCache(provider, timer);
+        received = new ArrayList<>();
+        errors = new ArrayList<>();
+    }
+
+    private void request() {
+        cache.get(received::add, errors::add);
+    }
+
+    @Test
+    public void testCachedTokenIsSynchronous() {
+        request();
+        Assert.assertEquals(1, provider.fetchCount());
+        Assert.assertFalse("The first fetch shouldn't force a refresh", provider.lastForced());
+        Assert.assertTrue("Nothing can be sent before the token arrives", received.isEmpty());
+        provider.succeed("first", HOUR);
+        Assert.assertEquals(1, received.size());
+
+        request();
+        Assert.assertEquals("A cached token should be handed over before get returns", 2, received.size());
+        Assert.assertEquals("first", received.get(1));
+        Assert.assertEquals("A cached token shouldn't be fetched again", 1, provider.fetchCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testMissesShareOneFetch() {
+        request();
+        request();
+        request();
+        Assert.assertEquals("Requests waiting together should share a fetch", 1, provider.fetchCount());
+        provider.succeed("shared", HOUR);
+        Assert.assertEquals(3, received.size());
+        Assert.assertEquals(3, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testRefreshesBeforeExpiry() {
+        request();
+        provider.succeed("first", HOUR);
+        Assert.assertEquals(1, timer.pending());
+        Assert.assertEquals(HOUR - TokenCache.REFRESH_MARGIN, timer.nextDelay());
+        timer.runNext();
+        Assert.assertEquals("The token should be refreshed in the background", 2, provider.fetchCount());
+        Assert.assertTrue(provider.lastForced());
+        Assert.assertEquals(1, cache.getRefreshCount());
+
+        request();
+        Assert.assertEquals("The old token should be used until the new one arrives", "first", received.get(1));
+        provider.succeed("second", HOUR);
+        request();
+        Assert.assertEquals("second", received.get(2));
+        Assert.assertEquals(2, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        request();
+        provider.succeed("short", TokenCache.REFRESH_MARGIN);
+        Assert.assertEquals("Short-lived tokens should be refreshed halfway through their life",
+                TokenCache.REFRESH_MARGIN / 2, timer.lastDelay());
+        int fetches = provider.fetchCount();
+        timer.runNext();
+        Assert.assertEquals("A refresh scheduled for a replaced token shouldn't run", fetches, provider.fetchCount());
+    }
+
+    @Test
+    public void testExpiredTokenIsFetchedAgain() {
+        request();
+        provider.succeed("first", HOUR);
+        timer.runNext();
+        provider.fail();
+        Assert.assertEquals("A failed refresh doesn't affect waiting requests", 0, errors.size());
+        Assert.assertEquals(1, cache.getFailureCount());
+
+        timer.advance(HOUR - TokenCache.USE_MARGIN - timer.now());
+        request();
+        Assert.assertEquals("A token about to expire shouldn't be used", 1, received.size());
+        Assert.assertEquals(3, provider.fetchCount());
+        provider.fail();
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals(2, cache.getFailureCount());
+
+        request();
+        provider.succeed("again", HOUR);
+        Assert.assertEquals("again", received.get(1));
+    }
+
+    @Test
+    public void testStopCancelsRefresh() {
+        request();
+        provider.succeed("first", HOUR);
+        cache.stop();
+        timer.runNext();
+        Assert.assertEquals(1, provider.fetchCount());
+        request();
+        Assert.assertEquals("A stopped cache still serves its token", 2, received.size());
+    }
+
+}
@@ -7,6 +7,7 @@ import com.neovisionaries.ws.client.WebSocketError;
 import com.neovisionaries.ws.client.WebSocketException;
 import com.neovisionaries.ws.client.WebSocketFrame;
 import com.neovisionaries.ws.client.WebSocketOpcode;
+import com.neovisionaries.ws.client.WebSocketState;
 
 import org.junit.Assert;
 import org.mockito.Mockito;
@@ -26,6 +27,8 @@ final class WebSocketMocker {
 
     private Consumer<JsonObject> client;
 
+    private Runnable connectionLost;
+
     private boolean connected = false;
 
     private String connectionUrl = null;
@@ -58,6 +61,7 @@ final class WebSocketMocker {
             }
             mocker.connectionUrl = url;
             mocker.client = invocation.getArgument(1);
+            mocker.connectionLost = invocation.getArgument(3);
             Consumer<WebSocket> wsReceiver = invocation.getArgument(2);
             mocker.createWebSocket();
             wsReceiver.accept(mocker.getWebSocket());
@@ -75,6 +79,12 @@ final class WebSocketMocker {
         if (client != null) client.accept(data);
     }
 
+    void loseConnection() {
+        connected = false;
+        Mockito.when(webSocket.getState()).thenReturn(WebSocketState.CLOSED);
+        if (connectionLost != null) connectionLost.run();
+    }
+
     boolean isConnected() {
         return connected;
     }
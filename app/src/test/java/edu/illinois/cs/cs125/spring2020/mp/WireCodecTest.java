@@ -0,0 +1,108 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+import com.google.gson.JsonObject;
+import com.neovisionaries.ws.client.WebSocket;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.WireCodec;
+
+public class WireCodecTest {
+
+    private static JsonObject locationUpdate() {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "locationUpdate");
+        message.addProperty("latitude", 40.1098765);
+        message.addProperty("longitude", -88.2271234);
+        return message;
+    }
+
+    private static JsonObject cellCapture(int x, int y) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "cellCapture");
+        message.addProperty("x", x);
+        message.addProperty("y", y);
+        return message;
+    }
+
+    private static JsonObject targetVisit(String targetId) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "targetVisit");
+        message.addProperty("targetId", targetId);
+        return message;
+    }
+
+    private static void assertSizes(JsonObject message, int text, int binary) {
+        Assert.assertEquals("JSON size", text, message.toString().getBytes(StandardCharsets.UTF_8).length);
+        Assert.assertEquals("Binary size", binary, WireCodec.encode(message).length);
+        Assert.assertTrue("The binary form should be smaller than JSON", binary < text);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        JsonObject location = WireCodec.decode(WireCodec.encode(locationUpdate()));
+        Assert.assertEquals("locationUpdate", location.get("type").getAsString());
+        Assert.assertEquals(40.1098765, location.get("latitude").getAsDouble(), 1e-6);
+        Assert.assertEquals(-88.2271234, location.get("longitude").getAsDouble(), 1e-6);
+
+        for (int[] cell : new int[][] {{0, 0}, {3, 127}, {128, 16384}, {Integer.MAX_VALUE, -1}}) {
+            JsonObject capture = cellCapture(cell[0], cell[1]);
+            Assert.assertEquals(capture, WireCodec.decode(WireCodec.encode(capture)));
+        }
+
+        JsonObject visit = targetVisit("5e6f7a8b-caf\u00e9");
+        Assert.assertEquals(visit, WireCodec.decode(WireCodec.encode(visit)));
+    }
+
+    @Test
+    public void testSizes() {
+        assertSizes(locationUpdate(), 71, 9);
+        assertSizes(cellCapture(12, 345), 37, 4);
+        assertSizes(targetVisit("5e6f7a8b9c0d1e2f3a4b5c6d"), 60, 26);
+    }
+
+    @Test
+    public void testOtherMessagesStayJson() {
+        JsonObject other = new JsonObject();
+        other.addProperty("type", "updateGameState");
+        Assert.assertNull(WireCodec.encode(other));
+        Assert.assertNull(WireCodec.encode(new JsonObject()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedFrame() {
+        byte[] frame = WireCodec.encode(cellCapture(1000, 1000));
+        WireCodec.decode(Arrays.copyOf(frame, frame.length - 1));
+    }
+
+    @Test
+    public void testFallsBackToJson() {
+        // The mocked websocket, like a server that doesn't know the binary protocol, agrees to no subprotocol
+        WebSocketMocker webSocketControl = new WebSocketMocker();
+        WireCodec.send(webSocketControl.getWebSocket(), locationUpdate());
+        webSocketControl.processOneMessage("Messages should be sent as JSON when binary wasn't negotiated",
+                message -> Assert.assertEquals(locationUpdate(), message));
+    }
+
+    @Test
+    public void testSendsBinaryWhenNegotiated() {
+        WebSocket webSocket = Mockito.mock(WebSocket.class);
+        Mockito.when(webSocket.getAgreedProtocol()).thenReturn(WireCodec.BINARY_PROTOCOL);
+        WireCodec.send(webSocket, cellCapture(7, 9));
+        ArgumentCaptor<byte[]> frame = ArgumentCaptor.forClass(byte[].class);
+        Mockito.verify(webSocket).sendBinary(frame.capture());
+        Assert.assertEquals(cellCapture(7, 9), WireCodec.decode(frame.getValue()));
+
+        JsonObject other = new JsonObject();
+        other.addProperty("type", "updateGameState");
+        WireCodec.send(webSocket, other);
+        Mockito.verify(webSocket).sendText(other.toString());
+    }
+
+}
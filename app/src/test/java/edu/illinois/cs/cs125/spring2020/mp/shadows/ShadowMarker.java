@@ -21,16 +21,42 @@ public class ShadowMarker {
     private ShadowGoogleMap map;
     private String id;
     private Object tag;
+    private boolean visible = true;
+    private String title;
+    private int iconChanges;
 
     void setup(MarkerOptions setOptions, ShadowGoogleMap setMap) {
         options = setOptions;
         map = setMap;
         id = RandomHelper.randomId();
+        visible = setOptions.isVisible();
+        title = setOptions.getTitle();
     }
 
     @Implementation
     protected void setIcon(BitmapDescriptor icon) {
         options.icon(icon);
+        iconChanges++;
+    }
+
+    @Implementation
+    protected boolean isVisible() {
+        return visible;
+    }
+
+    @Implementation
+    protected void setVisible(boolean setVisible) {
+        visible = setVisible;
+    }
+
+    @Implementation
+    protected String getTitle() {
+        return title;
+    }
+
+    @Implementation
+    protected void setTitle(String setTitle) {
+        title = setTitle;
     }
 
     @Implementation
@@ -78,6 +104,10 @@ public class ShadowMarker {
         return options.getIcon();
     }
 
+    public int getIconChanges() {
+        return iconChanges;
+    }
+
     public float getHue() {
         if (options.getIcon() == null) {
             return BitmapDescriptorFactory.HUE_RED;
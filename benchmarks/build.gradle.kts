@@ -0,0 +1,72 @@
+import java.util.concurrent.Callable
+
+plugins {
+    java
+    id("me.champeau.gradle.jmh") version "0.5.0"
+}
+repositories {
+    google()
+    mavenCentral()
+}
+
+// Google Play Services only ships as AARs, which a plain JVM module can't use directly,
+// so the classes.jar inside each one is unpacked for the benchmark classpath
+val aars by configurations.creating
+val aarClassesDir = file("$buildDir/aar-classes")
+val extractAarClasses by tasks.registering {
+    inputs.files(aars)
+    outputs.dir(aarClassesDir)
+    doLast {
+        delete(aarClassesDir)
+        aars.filter { it.name.endsWith(".aar") }.forEach { aar ->
+            copy {
+                from(zipTree(aar)) {
+                    include("classes.jar")
+                    rename { aar.nameWithoutExtension + ".jar" }
+                }
+                into(aarClassesDir)
+            }
+        }
+    }
+}
+
+dependencies {
+    aars("com.google.android.gms:play-services-maps:17.0.0")
+    jmh(fileTree(mapOf("dir" to aarClassesDir, "include" to listOf("*.jar"))).builtBy(extractAarClasses))
+    jmh(files(Callable { aars.filter { it.name.endsWith(".jar") } }))
+    jmh("org.robolectric:android-all:9-robolectric-4913185-2")
+    jmh("androidx.annotation:annotation:1.1.0")
+    jmh("com.google.code.gson:gson:2.8.6")
+    jmh("com.neovisionaries:nv-websocket-client:2.9")
+    jmh("org.mockito:mockito-inline:3.4.6")
+}
+sourceSets {
+    named("jmh") {
+        java {
+            // Benchmark the game logic straight from the app's sources
+            srcDir("../app/src/main/java")
+            include("edu/illinois/cs/cs125/spring2020/mp/**")
+            exclude("edu/illinois/cs/cs125/spring2020/mp/*Activity.java")
+            exclude("edu/illinois/cs/cs125/spring2020/mp/LocationListenerService.java")
+            exclude("edu/illinois/cs/cs125/spring2020/mp/MapEnabledScrollView.java")
+            exclude("edu/illinois/cs/cs125/spring2020/mp/logic/DefaultTargets.java")
+            exclude("edu/illinois/cs/cs125/spring2020/mp/logic/WebApi.java")
+        }
+        resources {
+            // The same randomized fixtures the Checkpoint tests use
+            srcDir("../app/src/test/resources")
+            include("*.json")
+        }
+    }
+}
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+jmh {
+    jmhVersion = "1.23"
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    duplicateClassesStrategy = DuplicatesStrategy.WARN
+}
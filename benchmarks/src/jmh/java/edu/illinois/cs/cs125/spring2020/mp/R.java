@@ -0,0 +1,25 @@
+package edu.illinois.cs.cs125.spring2020.mp;
+
+/**
+ * Stands in for the generated resource IDs, which only exist in the Android build.
+ * <p>
+ * The game classes only use these IDs to ask a Context for resources, and the benchmarks' mock Context
+ * answers every request the same way, so the values don't matter.
+ */
+public final class R {
+
+    /** Private constructor to prevent creating instances. */
+    private R() { }
+
+    /** Array resource IDs. */
+    public static final class array {
+
+        /** Private constructor to prevent creating instances. */
+        private array() { }
+
+        /** The team colors, indexed by TeamID. */
+        public static final int team_colors = 0;
+
+    }
+
+}
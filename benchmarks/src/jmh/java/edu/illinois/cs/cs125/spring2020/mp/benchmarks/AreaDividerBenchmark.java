@@ -0,0 +1,128 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.AreaDivider;
+
+/**
+ * Measures AreaDivider's index and bounds functions on the areas in areagrid.json.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AreaDividerBenchmark {
+
+    /** Points looked up in each area. */
+    private static final int POINTS_PER_AREA = 64;
+
+    /** Fixed seed so every run looks up the same points. */
+    private static final long SEED = 125;
+
+    /** A divider for each area in the fixture. */
+    private AreaDivider[] dividers;
+
+    /** Latitudes of the points to look up, POINTS_PER_AREA per area. */
+    private double[] latitudes;
+
+    /** Longitudes of the points to look up. */
+    private double[] longitudes;
+
+    /** Output buffer for the batch lookup. */
+    private int[] indexes;
+
+    /** Loads the fixture and scatters points over (and slightly beyond) each area. */
+    @Setup
+    public void setup() {
+        JsonObject[] tests = Fixtures.load("areagrid");
+        Random random = new Random(SEED);
+        dividers = new AreaDivider[tests.length];
+        latitudes = new double[tests.length * POINTS_PER_AREA];
+        longitudes = new double[tests.length * POINTS_PER_AREA];
+        indexes = new int[POINTS_PER_AREA];
+        for (int i = 0; i < tests.length; i++) {
+            JsonObject test = tests[i];
+            double north = test.get("north").getAsDouble();
+            double east = test.get("east").getAsDouble();
+            double south = test.get("south").getAsDouble();
+            double west = test.get("west").getAsDouble();
+            dividers[i] = new AreaDivider(north, east, south, west, test.get("size").getAsInt());
+            for (int p = 0; p < POINTS_PER_AREA; p++) {
+                // Up to 5% outside the area on each side, so some lookups miss
+                double margin = 0.05;
+                latitudes[i * POINTS_PER_AREA + p] = south + (north - south) * (random.nextDouble() * (1 + 2 * margin) - margin);
+                longitudes[i * POINTS_PER_AREA + p] = west + (east - west) * (random.nextDouble() * (1 + 2 * margin) - margin);
+            }
+        }
+    }
+
+    /**
+     * Building a divider for each area (which counts its cells).
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void construct(final Blackhole blackhole) {
+        for (AreaDivider divider : dividers) {
+            blackhole.consume(new AreaDivider(divider.getGeometry().getNorth(), divider.getGeometry().getEast(),
+                    divider.getGeometry().getSouth(), divider.getGeometry().getWest(),
+                    divider.getGeometry().getCellSize()));
+        }
+    }
+
+    /**
+     * getXIndex and getYIndex for every point.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void cellIndexes(final Blackhole blackhole) {
+        for (int i = 0; i < dividers.length; i++) {
+            AreaDivider divider = dividers[i];
+            for (int p = i * POINTS_PER_AREA; p < (i + 1) * POINTS_PER_AREA; p++) {
+                blackhole.consume(divider.getXIndex(longitudes[p]));
+                blackhole.consume(divider.getYIndex(latitudes[p]));
+            }
+        }
+    }
+
+    /**
+     * getCellIndexes on each area's points at once.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void batchCellIndexes(final Blackhole blackhole) {
+        double[] lats = new double[POINTS_PER_AREA];
+        double[] lngs = new double[POINTS_PER_AREA];
+        for (int i = 0; i < dividers.length; i++) {
+            System.arraycopy(latitudes, i * POINTS_PER_AREA, lats, 0, POINTS_PER_AREA);
+            System.arraycopy(longitudes, i * POINTS_PER_AREA, lngs, 0, POINTS_PER_AREA);
+            blackhole.consume(dividers[i].getCellIndexes(lats, lngs, indexes));
+        }
+    }
+
+    /**
+     * getCellBounds for every cell of every area.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void cellBounds(final Blackhole blackhole) {
+        for (AreaDivider divider : dividers) {
+            for (int x = 0; x < divider.getXCells(); x++) {
+                for (int y = 0; y < divider.getYCells(); y++) {
+                    blackhole.consume(divider.getCellBounds(x, y));
+                }
+            }
+        }
+    }
+
+}
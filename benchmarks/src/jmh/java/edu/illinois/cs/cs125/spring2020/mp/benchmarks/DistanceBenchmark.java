@@ -0,0 +1,150 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.LatLngMath;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LatLngUtils;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LocalProjection;
+
+/**
+ * Measures the distance functions on every (target, player position) pair in targetrange.json.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceBenchmark {
+
+    /** Target latitudes. */
+    private double[] targetLats;
+
+    /** Target longitudes. */
+    private double[] targetLngs;
+
+    /** Player latitude for each target. */
+    private double[] playerLats;
+
+    /** Player longitude for each target. */
+    private double[] playerLngs;
+
+    /** Targets as LatLngs. */
+    private LatLng[] targets;
+
+    /** Player positions as LatLngs. */
+    private LatLng[] players;
+
+    /** Projection around all the targets. */
+    private LocalProjection projection;
+
+    /** Projected target X coordinates. */
+    private double[] targetX;
+
+    /** Projected target Y coordinates. */
+    private double[] targetY;
+
+    /** Projected player X coordinates. */
+    private double[] playerX;
+
+    /** Projected player Y coordinates. */
+    private double[] playerY;
+
+    /** Loads the fixture. */
+    @Setup
+    public void setup() {
+        List<double[]> pairs = new ArrayList<>();
+        for (JsonObject test : Fixtures.load("targetrange")) {
+            double[] lats = Fixtures.doubles(test.getAsJsonArray("lats"));
+            double[] lngs = Fixtures.doubles(test.getAsJsonArray("lngs"));
+            double lat = test.get("lat").getAsDouble();
+            double lng = test.get("lng").getAsDouble();
+            for (int i = 0; i < lats.length; i++) {
+                pairs.add(new double[] {lats[i], lngs[i], lat, lng});
+            }
+        }
+        int count = pairs.size();
+        targetLats = new double[count];
+        targetLngs = new double[count];
+        playerLats = new double[count];
+        playerLngs = new double[count];
+        targets = new LatLng[count];
+        players = new LatLng[count];
+        for (int i = 0; i < count; i++) {
+            double[] pair = pairs.get(i);
+            targetLats[i] = pair[0];
+            targetLngs[i] = pair[1];
+            playerLats[i] = pair[2];
+            playerLngs[i] = pair[2 + 1];
+            targets[i] = new LatLng(targetLats[i], targetLngs[i]);
+            players[i] = new LatLng(playerLats[i], playerLngs[i]);
+        }
+        projection = LocalProjection.around(targetLats, targetLngs);
+        targetX = new double[count];
+        targetY = new double[count];
+        playerX = new double[count];
+        playerY = new double[count];
+        for (int i = 0; i < count; i++) {
+            targetX[i] = projection.toX(targetLngs[i]);
+            targetY[i] = projection.toY(targetLats[i]);
+            playerX[i] = projection.toX(playerLngs[i]);
+            playerY[i] = projection.toY(playerLats[i]);
+        }
+    }
+
+    /**
+     * LatLngUtils.distance on LatLng objects.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void latLngUtilsObjects(final Blackhole blackhole) {
+        for (int i = 0; i < targets.length; i++) {
+            blackhole.consume(LatLngUtils.distance(targets[i], players[i]));
+        }
+    }
+
+    /**
+     * LatLngUtils.distance on raw coordinates (which wraps them in LatLngs).
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void latLngUtilsCoordinates(final Blackhole blackhole) {
+        for (int i = 0; i < targetLats.length; i++) {
+            blackhole.consume(LatLngUtils.distance(targetLats[i], targetLngs[i], playerLats[i], playerLngs[i]));
+        }
+    }
+
+    /**
+     * LatLngMath.distance, which never allocates.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void latLngMath(final Blackhole blackhole) {
+        for (int i = 0; i < targetLats.length; i++) {
+            blackhole.consume(LatLngMath.distance(targetLats[i], targetLngs[i], playerLats[i], playerLngs[i]));
+        }
+    }
+
+    /**
+     * Squared distance between points already projected with LocalProjection.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void projectedSquared(final Blackhole blackhole) {
+        for (int i = 0; i < targetX.length; i++) {
+            blackhole.consume(LocalProjection.squaredDistance(targetX[i], targetY[i], playerX[i], playerY[i]));
+        }
+    }
+
+}
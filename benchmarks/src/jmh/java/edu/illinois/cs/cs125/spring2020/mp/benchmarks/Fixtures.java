@@ -0,0 +1,64 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.InputStream;
+import java.util.Scanner;
+
+/**
+ * Loads the randomized JSON fixtures shared with the Checkpoint tests.
+ */
+final class Fixtures {
+
+    /** Private constructor to prevent creating instances. */
+    private Fixtures() { }
+
+    /**
+     * Loads a fixture file.
+     * @param title the file name, without the .json extension
+     * @return each test case in the file
+     */
+    static JsonObject[] load(final String title) {
+        InputStream stream = Fixtures.class.getResourceAsStream("/" + title + ".json");
+        if (stream == null) {
+            throw new IllegalStateException("Missing fixture " + title + ".json");
+        }
+        try (Scanner scanner = new Scanner(stream, "UTF-8")) {
+            JsonArray array = JsonParser.parseString(scanner.nextLine()).getAsJsonArray();
+            JsonObject[] result = new JsonObject[array.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = array.get(i).getAsJsonObject();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Converts a JSON array to an int array.
+     * @param array the JSON array of numbers
+     * @return the numbers
+     */
+    static int[] ints(final JsonArray array) {
+        int[] result = new int[array.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.get(i).getAsInt();
+        }
+        return result;
+    }
+
+    /**
+     * Converts a JSON array to a double array.
+     * @param array the JSON array of numbers
+     * @return the numbers
+     */
+    static double[] doubles(final JsonArray array) {
+        double[] result = new double[array.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.get(i).getAsDouble();
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,196 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.AreaGame;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GridGeometry;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TargetGame;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+/**
+ * Replays a walk through a whole headless game, one location update at a time.
+ * <p>
+ * The target game uses the largest target set in snakerule.json and walks to each target in turn. The area game
+ * uses the area in areagrid.json with the most cells and walks every row, back and forth. A fresh game is created
+ * before each replay (outside the measurement), so every replay captures the same things.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameLoopBenchmark {
+
+    /** Location updates between consecutive targets. */
+    private static final int STEPS_PER_TARGET = 8;
+
+    /** Location updates in each cell. */
+    private static final int STEPS_PER_CELL = 2;
+
+    /** The target game's proximity threshold, in meters. */
+    private static final int PROXIMITY_THRESHOLD = 20;
+
+    /** Mock Android environment. */
+    private Headless headless;
+
+    /** Full state for new target games. */
+    private JsonObject targetState;
+
+    /** The walk through the target game. */
+    private LatLng[] targetWalk;
+
+    /** Full state for new area games. */
+    private JsonObject areaState;
+
+    /** The walk through the area game. */
+    private LatLng[] areaWalk;
+
+    /** The target game being replayed. */
+    private TargetGame targetGame;
+
+    /** The area game being replayed. */
+    private AreaGame areaGame;
+
+    /** Builds both games' initial states and walks. */
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        headless = new Headless();
+
+        JsonObject largestTargets = null;
+        for (JsonObject test : Fixtures.load("snakerule")) {
+            if (largestTargets == null
+                    || test.getAsJsonArray("lats").size() > largestTargets.getAsJsonArray("lats").size()) {
+                largestTargets = test;
+            }
+        }
+        double[] lats = Fixtures.doubles(largestTargets.getAsJsonArray("lats"));
+        double[] lngs = Fixtures.doubles(largestTargets.getAsJsonArray("lngs"));
+        targetState = new JsonObject();
+        targetState.addProperty("proximityThreshold", PROXIMITY_THRESHOLD);
+        JsonArray targets = new JsonArray();
+        List<LatLng> walk = new ArrayList<>();
+        for (int i = 0; i < lats.length; i++) {
+            JsonObject target = new JsonObject();
+            target.addProperty("id", "target" + i);
+            target.addProperty("latitude", lats[i]);
+            target.addProperty("longitude", lngs[i]);
+            target.addProperty("team", TeamID.OBSERVER);
+            targets.add(target);
+            if (i > 0) {
+                for (int step = 1; step <= STEPS_PER_TARGET; step++) {
+                    double fraction = (double) step / STEPS_PER_TARGET;
+                    walk.add(new LatLng(lats[i - 1] + (lats[i] - lats[i - 1]) * fraction,
+                            lngs[i - 1] + (lngs[i] - lngs[i - 1]) * fraction));
+                }
+            } else {
+                walk.add(new LatLng(lats[i], lngs[i]));
+            }
+        }
+        targetState.add("targets", targets);
+        targetState.add("players", players());
+        targetWalk = walk.toArray(new LatLng[0]);
+
+        JsonObject largestArea = null;
+        long largestCells = -1;
+        for (JsonObject test : Fixtures.load("areagrid")) {
+            GridGeometry geometry = geometry(test);
+            if (geometry.getCellCount() > largestCells) {
+                largestArea = test;
+                largestCells = geometry.getCellCount();
+            }
+        }
+        GridGeometry geometry = geometry(largestArea);
+        areaState = new JsonObject();
+        areaState.addProperty("areaNorth", geometry.getNorth());
+        areaState.addProperty("areaEast", geometry.getEast());
+        areaState.addProperty("areaSouth", geometry.getSouth());
+        areaState.addProperty("areaWest", geometry.getWest());
+        areaState.addProperty("cellSize", geometry.getCellSize());
+        areaState.add("players", players());
+        walk.clear();
+        for (int y = 0; y < geometry.getYCells(); y++) {
+            double latitude = (geometry.getRowEdge(y) + geometry.getRowEdge(y + 1)) / 2;
+            for (int column = 0; column < geometry.getXCells(); column++) {
+                // Alternate directions so each cell borders the previous one
+                int x = column;
+                if (y % 2 == 1) {
+                    x = geometry.getXCells() - 1 - column;
+                }
+                double west = geometry.getColumnEdge(x);
+                double width = geometry.getColumnEdge(x + 1) - west;
+                for (int step = 0; step < STEPS_PER_CELL; step++) {
+                    walk.add(new LatLng(latitude, west + width * (step + 1) / (STEPS_PER_CELL + 1)));
+                }
+            }
+        }
+        areaWalk = walk.toArray(new LatLng[0]);
+    }
+
+    /**
+     * Creates the grid described by an areagrid.json case.
+     * @param test the case
+     * @return the grid
+     */
+    private static GridGeometry geometry(final JsonObject test) {
+        return new GridGeometry(test.get("north").getAsDouble(), test.get("east").getAsDouble(),
+                test.get("south").getAsDouble(), test.get("west").getAsDouble(), test.get("size").getAsInt());
+    }
+
+    /**
+     * Creates the player list for a game: the benchmarked player and one opponent.
+     * @return the players JSON array
+     */
+    private static JsonArray players() {
+        JsonArray players = new JsonArray();
+        players.add(Headless.player(Headless.EMAIL, TeamID.TEAM_RED));
+        players.add(Headless.player("opponent@illinois.edu", TeamID.TEAM_BLUE));
+        return players;
+    }
+
+    /** Creates fresh games for the next replay. */
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        targetGame = new TargetGame(Headless.EMAIL, headless.getMap(), headless.getWebSocket(),
+                targetState.deepCopy(), headless.getContext());
+        targetGame.setIconTimer(headless.getTimer());
+        areaGame = new AreaGame(Headless.EMAIL, headless.getMap(), headless.getWebSocket(),
+                areaState.deepCopy(), headless.getContext());
+    }
+
+    /** Releases the mocks. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        headless.close();
+    }
+
+    /** Walks to every target in the target game. */
+    @Benchmark
+    public void targetGameWalk() {
+        for (LatLng location : targetWalk) {
+            targetGame.locationUpdated(location);
+        }
+    }
+
+    /** Walks through every cell of the area game. */
+    @Benchmark
+    public void areaGameWalk() {
+        for (LatLng location : areaWalk) {
+            areaGame.locationUpdated(location);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.neovisionaries.ws.client.WebSocket;
+
+import org.mockito.MockSettings;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.PlayerStateID;
+import edu.illinois.cs.cs125.spring2020.mp.logic.Timer;
+
+/**
+ * Provides stand-ins for the Android and Google Maps objects a Game needs, so games can run off-device.
+ * <p>
+ * The map, context, and websocket are Mockito mocks that accept every call and do nothing with it, so the
+ * benchmarks measure the game logic rather than rendering or networking.
+ */
+final class Headless implements AutoCloseable {
+
+    /** Email of the player the benchmarked game belongs to. */
+    static final String EMAIL = "benchmark@illinois.edu";
+
+    /** Team colors reported by the mock context. */
+    private static final int[] TEAM_COLORS = {0xFF000000, 0xFFFF0000, 0xFFFFFF00, 0xFF00FF00, 0xFF0000FF};
+
+    /** The mock map. */
+    private final GoogleMap map;
+
+    /** The mock UI context. */
+    private final Context context;
+
+    /** The mock websocket. */
+    private final WebSocket webSocket;
+
+    /** Runs tasks right away, standing in for the UI thread's queue. */
+    private final Timer timer = new Timer() {
+        @Override
+        public long now() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void schedule(final Runnable task, final long delay) {
+            task.run();
+        }
+    };
+
+    /** Replaces marker icon creation, which needs the real Maps SDK. Only active on the creating thread. */
+    private final MockedStatic<BitmapDescriptorFactory> icons;
+
+    /** Sets up the mocks. Must be closed on the same thread. */
+    Headless() {
+        map = Mockito.mock(GoogleMap.class, stubOnly());
+        Marker marker = Mockito.mock(Marker.class, stubOnly());
+        Mockito.when(map.addMarker(Mockito.any(MarkerOptions.class))).thenReturn(marker);
+        Resources resources = Mockito.mock(Resources.class, stubOnly());
+        Mockito.when(resources.getIntArray(Mockito.anyInt())).thenReturn(TEAM_COLORS);
+        context = Mockito.mock(Context.class, stubOnly());
+        Mockito.when(context.getResources()).thenReturn(resources);
+        webSocket = Mockito.mock(WebSocket.class, stubOnly());
+        icons = Mockito.mockStatic(BitmapDescriptorFactory.class, stubOnly());
+        BitmapDescriptor icon = Mockito.mock(BitmapDescriptor.class, stubOnly());
+        icons.when(() -> BitmapDescriptorFactory.defaultMarker(Mockito.anyFloat())).thenReturn(icon);
+    }
+
+    /**
+     * Creates mock settings that don't record invocations, which would otherwise pile up over millions of calls.
+     * @return new mock settings
+     */
+    private static MockSettings stubOnly() {
+        return Mockito.withSettings().stubOnly();
+    }
+
+    /**
+     * Gets the mock map.
+     * @return a GoogleMap that ignores everything
+     */
+    GoogleMap getMap() {
+        return map;
+    }
+
+    /**
+     * Gets the mock context.
+     * @return a Context whose resources provide the team colors
+     */
+    Context getContext() {
+        return context;
+    }
+
+    /**
+     * Gets the mock websocket.
+     * @return a WebSocket that discards messages
+     */
+    WebSocket getWebSocket() {
+        return webSocket;
+    }
+
+    /**
+     * Gets a timer for tasks games would post to the UI thread, which doesn't exist here.
+     * @return a Timer that runs each task as soon as it is scheduled
+     */
+    Timer getTimer() {
+        return timer;
+    }
+
+    /**
+     * Creates the JSON description of a player for a full game state.
+     * @param email the player's email
+     * @param team the player's team
+     * @return a playing player with an empty path
+     */
+    static JsonObject player(final String email, final int team) {
+        JsonObject player = new JsonObject();
+        player.addProperty("email", email);
+        player.addProperty("team", team);
+        player.addProperty("state", PlayerStateID.PLAYING);
+        player.add("path", new JsonArray());
+        return player;
+    }
+
+    /** Stops replacing marker icon creation. */
+    @Override
+    public void close() {
+        icons.close();
+    }
+
+}
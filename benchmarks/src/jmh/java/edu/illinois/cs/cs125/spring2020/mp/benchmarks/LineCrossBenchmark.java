@@ -0,0 +1,140 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.CrossingSweep;
+import edu.illinois.cs.cs125.spring2020.mp.logic.LineCrossDetector;
+
+/**
+ * Measures LineCrossDetector on the segment pairs in linescross.json.
+ * <p>
+ * linesCross and segmentsCross check each pair. firstCrossing checks each first segment against the whole batch
+ * of second segments, which is how the snake rule uses it. sweep finds every crossing among all the segments at
+ * once, which is how recorded games are audited.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LineCrossBenchmark {
+
+    /** Start of each first segment. */
+    private LatLng[] firstStarts;
+
+    /** End of each first segment. */
+    private LatLng[] firstEnds;
+
+    /** Start of each second segment. */
+    private LatLng[] secondStarts;
+
+    /** End of each second segment. */
+    private LatLng[] secondEnds;
+
+    /** Coordinates of each first segment, in LineCrossDetector.firstCrossing's layout. */
+    private double[] firstSegments;
+
+    /** Coordinates of each second segment, in LineCrossDetector.firstCrossing's layout. */
+    private double[] secondSegments;
+
+    /** Coordinates of every first and second segment together. */
+    private double[] allSegments;
+
+    /** Loads the fixture. */
+    @Setup
+    public void setup() {
+        JsonObject[] tests = Fixtures.load("linescross");
+        firstStarts = new LatLng[tests.length];
+        firstEnds = new LatLng[tests.length];
+        secondStarts = new LatLng[tests.length];
+        secondEnds = new LatLng[tests.length];
+        for (int i = 0; i < tests.length; i++) {
+            JsonObject test = tests[i];
+            firstStarts[i] = new LatLng(test.get("sla1").getAsDouble(), test.get("sln1").getAsDouble());
+            firstEnds[i] = new LatLng(test.get("ela1").getAsDouble(), test.get("eln1").getAsDouble());
+            secondStarts[i] = new LatLng(test.get("sla2").getAsDouble(), test.get("sln2").getAsDouble());
+            secondEnds[i] = new LatLng(test.get("ela2").getAsDouble(), test.get("eln2").getAsDouble());
+        }
+        firstSegments = flatten(firstStarts, firstEnds);
+        secondSegments = flatten(secondStarts, secondEnds);
+        allSegments = new double[firstSegments.length + secondSegments.length];
+        System.arraycopy(firstSegments, 0, allSegments, 0, firstSegments.length);
+        System.arraycopy(secondSegments, 0, allSegments, firstSegments.length, secondSegments.length);
+    }
+
+    /**
+     * Lays segments out as LineCrossDetector.firstCrossing expects.
+     * @param starts the start of each segment
+     * @param ends the end of each segment
+     * @return the flat coordinate array
+     */
+    private static double[] flatten(final LatLng[] starts, final LatLng[] ends) {
+        double[] segments = new double[starts.length * LineCrossDetector.SEGMENT_SIZE];
+        for (int i = 0; i < starts.length; i++) {
+            int offset = i * LineCrossDetector.SEGMENT_SIZE;
+            segments[offset] = starts[i].latitude;
+            segments[offset + 1] = starts[i].longitude;
+            segments[offset + 2] = ends[i].latitude;
+            segments[offset + 3] = ends[i].longitude;
+        }
+        return segments;
+    }
+
+    /**
+     * Checks every segment pair.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void linesCross(final Blackhole blackhole) {
+        for (int i = 0; i < firstStarts.length; i++) {
+            blackhole.consume(LineCrossDetector.linesCross(firstStarts[i], firstEnds[i], secondStarts[i], secondEnds[i]));
+        }
+    }
+
+    /**
+     * Checks every segment pair on raw coordinates.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void segmentsCross(final Blackhole blackhole) {
+        for (int i = 0; i < firstSegments.length; i += LineCrossDetector.SEGMENT_SIZE) {
+            blackhole.consume(LineCrossDetector.segmentsCross(firstSegments[i], firstSegments[i + 1],
+                    firstSegments[i + 2], firstSegments[i + 3],
+                    secondSegments[i], secondSegments[i + 1], secondSegments[i + 2], secondSegments[i + 3]));
+        }
+    }
+
+    /**
+     * Checks every first segment against the batch of second segments that come after its own pair.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void firstCrossing(final Blackhole blackhole) {
+        int count = firstStarts.length;
+        for (int i = 0; i < count; i++) {
+            int offset = i * LineCrossDetector.SEGMENT_SIZE;
+            blackhole.consume(LineCrossDetector.firstCrossing(firstSegments[offset], firstSegments[offset + 1],
+                    firstSegments[offset + 2], firstSegments[offset + 3], secondSegments, i + 1, count));
+        }
+    }
+
+    /**
+     * Finds every crossing among all the fixture's segments with one sweep.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void sweep(final Blackhole blackhole) {
+        blackhole.consume(CrossingSweep.findCrossings(allSegments, firstStarts.length * 2));
+    }
+
+}
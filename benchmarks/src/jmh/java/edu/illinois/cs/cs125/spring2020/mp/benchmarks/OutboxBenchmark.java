@@ -0,0 +1,135 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.CaptureOutbox;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GameMessage;
+
+/**
+ * Measures the cost of recording a capture in the on-disk outbox.
+ * <p>
+ * recordCapture is what the UI thread pays per capture: the capture is recorded and then confirmed, as when the
+ * server echoes it, while the writer thread does the disk work in the background. durableCapture waits until each
+ * capture is synced to disk, which is the latency before a capture would survive the app being killed.
+ * durableBurst records a burst of captures before waiting, so they share syncs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OutboxBenchmark {
+
+    /** Captures in each burst. */
+    private static final int BURST = 16;
+
+    /** The outbox's file. */
+    private File file;
+
+    /** The outbox, fresh for each iteration. */
+    private CaptureOutbox outbox;
+
+    /** The X index of the next captured cell, so every capture is new. */
+    private int nextX;
+
+    /**
+     * Creates an empty outbox.
+     * @throws IOException if the file can't be created
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        file = File.createTempFile("outbox", ".log");
+        outbox = new CaptureOutbox(file);
+    }
+
+    /**
+     * Finishes the outbox's writes and deletes its file.
+     * @throws InterruptedException if interrupted while waiting for writes
+     */
+    @TearDown(Level.Iteration)
+    public void teardown() throws InterruptedException {
+        outbox.awaitWritten();
+        outbox.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Makes a capture message for a new cell.
+     * @return a cellCapture message
+     */
+    private JsonObject nextCapture() {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "cellCapture");
+        message.addProperty("x", nextX++);
+        message.addProperty("y", 0);
+        return message;
+    }
+
+    /**
+     * Makes the server's echo of a capture.
+     * @param capture the capture message
+     * @return a playerCellCapture update for it
+     */
+    private static GameMessage echo(final JsonObject capture) {
+        JsonObject update = new JsonObject();
+        update.addProperty("type", "playerCellCapture");
+        update.addProperty("email", Headless.EMAIL);
+        update.addProperty("x", capture.get("x").getAsInt());
+        update.addProperty("y", capture.get("y").getAsInt());
+        return GameMessage.fromJson(update);
+    }
+
+    /** Records a capture and confirms it, without waiting for the disk. */
+    @Benchmark
+    public void recordCapture() {
+        JsonObject capture = nextCapture();
+        outbox.add(capture);
+        outbox.acknowledge(echo(capture));
+    }
+
+    /**
+     * Records a capture and waits until it is synced.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Benchmark
+    public void durableCapture() throws InterruptedException {
+        JsonObject capture = nextCapture();
+        outbox.add(capture);
+        outbox.awaitWritten();
+        outbox.acknowledge(echo(capture));
+    }
+
+    /**
+     * Records a burst of captures, then waits until they are all synced.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void durableBurst() throws InterruptedException {
+        JsonObject[] captures = new JsonObject[BURST];
+        for (int i = 0; i < BURST; i++) {
+            captures[i] = nextCapture();
+            outbox.add(captures[i]);
+        }
+        outbox.awaitWritten();
+        for (JsonObject capture : captures) {
+            outbox.acknowledge(echo(capture));
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.TargetVisitChecker;
+
+/**
+ * Measures TargetVisitChecker on the cases in targetrange.json and snakerule.json.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TargetVisitCheckerBenchmark {
+
+    /** Target latitudes for each targetrange.json case. */
+    private double[][] rangeLats;
+
+    /** Target longitudes for each targetrange.json case. */
+    private double[][] rangeLngs;
+
+    /** Path for each targetrange.json case. */
+    private int[][] rangePaths;
+
+    /** Player latitude for each targetrange.json case. */
+    private double[] rangePlayerLats;
+
+    /** Player longitude for each targetrange.json case. */
+    private double[] rangePlayerLngs;
+
+    /** Proximity threshold for each targetrange.json case. */
+    private int[] rangeThresholds;
+
+    /** Target latitudes for each snakerule.json case. */
+    private double[][] snakeLats;
+
+    /** Target longitudes for each snakerule.json case. */
+    private double[][] snakeLngs;
+
+    /** Path for each snakerule.json case. */
+    private int[][] snakePaths;
+
+    /** Target to try visiting in each snakerule.json case. */
+    private int[] snakeTries;
+
+    /** Loads the fixtures. */
+    @Setup
+    public void setup() {
+        JsonObject[] rangeTests = Fixtures.load("targetrange");
+        rangeLats = new double[rangeTests.length][];
+        rangeLngs = new double[rangeTests.length][];
+        rangePaths = new int[rangeTests.length][];
+        rangePlayerLats = new double[rangeTests.length];
+        rangePlayerLngs = new double[rangeTests.length];
+        rangeThresholds = new int[rangeTests.length];
+        for (int i = 0; i < rangeTests.length; i++) {
+            rangeLats[i] = Fixtures.doubles(rangeTests[i].getAsJsonArray("lats"));
+            rangeLngs[i] = Fixtures.doubles(rangeTests[i].getAsJsonArray("lngs"));
+            rangePaths[i] = Fixtures.ints(rangeTests[i].getAsJsonArray("path"));
+            rangePlayerLats[i] = rangeTests[i].get("lat").getAsDouble();
+            rangePlayerLngs[i] = rangeTests[i].get("lng").getAsDouble();
+            rangeThresholds[i] = rangeTests[i].get("prox").getAsInt();
+        }
+        JsonObject[] snakeTests = Fixtures.load("snakerule");
+        snakeLats = new double[snakeTests.length][];
+        snakeLngs = new double[snakeTests.length][];
+        snakePaths = new int[snakeTests.length][];
+        snakeTries = new int[snakeTests.length];
+        for (int i = 0; i < snakeTests.length; i++) {
+            snakeLats[i] = Fixtures.doubles(snakeTests[i].getAsJsonArray("lats"));
+            snakeLngs[i] = Fixtures.doubles(snakeTests[i].getAsJsonArray("lngs"));
+            snakePaths[i] = Fixtures.ints(snakeTests[i].getAsJsonArray("path"));
+            snakeTries[i] = snakeTests[i].get("try").getAsInt();
+        }
+    }
+
+    /**
+     * getVisitCandidate for every targetrange.json case.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void getVisitCandidate(final Blackhole blackhole) {
+        for (int i = 0; i < rangeThresholds.length; i++) {
+            blackhole.consume(TargetVisitChecker.getVisitCandidate(rangeLats[i], rangeLngs[i], rangePaths[i],
+                    rangePlayerLats[i], rangePlayerLngs[i], rangeThresholds[i]));
+        }
+    }
+
+    /**
+     * checkSnakeRule for every snakerule.json case.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void checkSnakeRule(final Blackhole blackhole) {
+        for (int i = 0; i < snakeTries.length; i++) {
+            blackhole.consume(TargetVisitChecker.checkSnakeRule(snakeLats[i], snakeLngs[i], snakePaths[i],
+                    snakeTries[i]));
+        }
+    }
+
+}
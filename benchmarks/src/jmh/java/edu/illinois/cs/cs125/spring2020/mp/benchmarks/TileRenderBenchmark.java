@@ -0,0 +1,70 @@
+package edu.illinois.cs.cs125.spring2020.mp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.illinois.cs.cs125.spring2020.mp.logic.AreaTileRenderer;
+import edu.illinois.cs.cs125.spring2020.mp.logic.GridGeometry;
+import edu.illinois.cs.cs125.spring2020.mp.logic.PackedCaptureStore;
+import edu.illinois.cs.cs125.spring2020.mp.logic.TeamID;
+
+/**
+ * Measures rendering area mode tiles at full detail, where every fill pixel reads its cell's owner from a
+ * PackedCaptureStore. Divide by the 65536 pixels of a tile for the per-pixel cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TileRenderBenchmark {
+
+    /** Zoom level to render at: 10 meter cells are a few pixels wide, so owners are read cell by cell. */
+    private static final int ZOOM = 16;
+
+    /** Fixed seed so every run captures the same cells. */
+    private static final long SEED = 125;
+
+    /** The renderer, over a store with half its cells captured at random. */
+    private AreaTileRenderer renderer;
+
+    /** X coordinate of the tile to render. */
+    private int tileX;
+
+    /** Y coordinate of the tile to render. */
+    private int tileY;
+
+    /** Sets up a campus-sized grid with 10 meter cells and captures half of them. */
+    @Setup
+    public void setup() {
+        GridGeometry geometry = new GridGeometry(40.1286, -88.1870, 40.0776, -88.2705, 10);
+        PackedCaptureStore store = new PackedCaptureStore(geometry.getXCells(), geometry.getYCells());
+        Random random = new Random(SEED);
+        for (int i = 0; i < geometry.getXCells() * geometry.getYCells() / 2; i++) {
+            store.capture(random.nextInt(geometry.getXCells()), random.nextInt(geometry.getYCells()),
+                    TeamID.MIN_TEAM + random.nextInt(TeamID.NUM_TEAMS), random.nextBoolean());
+        }
+        renderer = new AreaTileRenderer(geometry, store, new int[] {0, 1, 2, 3, 4});
+        double tiles = 1 << ZOOM;
+        double latitude = Math.toRadians(40.1);
+        tileX = (int) ((-88.23 + 180) / 360 * tiles);
+        tileY = (int) ((1 - Math.log(Math.tan(latitude) + 1 / Math.cos(latitude)) / Math.PI) / 2 * tiles);
+    }
+
+    /**
+     * renderPixels for one tile inside the area.
+     * @param blackhole sink for results
+     */
+    @Benchmark
+    public void renderTile(final Blackhole blackhole) {
+        blackhole.consume(renderer.renderPixels(tileX, tileY, ZOOM));
+    }
+
+}